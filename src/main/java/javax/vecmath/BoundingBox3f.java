@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+
+/**
+ * An axis aligned bounding box that is represented by float precision
+ * floating point lower and upper corners.
+ * A box whose lower corner is greater than its upper corner on any axis
+ * is empty.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class BoundingBox3f implements Serializable {
+
+	private static final long serialVersionUID = 5027386264375731195L;
+
+	/**
+	 * The x coordinate of the lower corner.
+	 */
+	public float minX;
+
+	/**
+	 * The y coordinate of the lower corner.
+	 */
+	public float minY;
+
+	/**
+	 * The z coordinate of the lower corner.
+	 */
+	public float minZ;
+
+	/**
+	 * The x coordinate of the upper corner.
+	 */
+	public float maxX;
+
+	/**
+	 * The y coordinate of the upper corner.
+	 */
+	public float maxY;
+
+	/**
+	 * The z coordinate of the upper corner.
+	 */
+	public float maxZ;
+
+	/**
+	 * Constructs and initializes an empty BoundingBox3f.
+	 */
+	public BoundingBox3f() {
+
+		this.setEmpty();
+	}
+
+	/**
+	 * Constructs and initializes a BoundingBox3f from the specified corners.
+	 * @param minX the x coordinate of the lower corner
+	 * @param minY the y coordinate of the lower corner
+	 * @param minZ the z coordinate of the lower corner
+	 * @param maxX the x coordinate of the upper corner
+	 * @param maxY the y coordinate of the upper corner
+	 * @param maxZ the z coordinate of the upper corner
+	 */
+	public BoundingBox3f(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+
+		this.set(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingBox3f from the specified corners.
+	 * @param lower the lower corner
+	 * @param upper the upper corner
+	 */
+	public BoundingBox3f(Tuple3f lower, Tuple3f upper) {
+
+		this.set(lower.x, lower.y, lower.z, upper.x, upper.y, upper.z);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingBox3f from the specified BoundingBox3f.
+	 * @param b1 the box containing the initialization data
+	 */
+	public BoundingBox3f(BoundingBox3f b1) {
+
+		this.set(b1);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingBox3f from the specified BoundingBox3d.
+	 * @param b1 the box containing the initialization data
+	 */
+	public BoundingBox3f(BoundingBox3d b1) {
+
+		this.set(b1);
+	}
+
+	/**
+	 * Sets the corners of this box.
+	 * @param minX the x coordinate of the lower corner
+	 * @param minY the y coordinate of the lower corner
+	 * @param minZ the z coordinate of the lower corner
+	 * @param maxX the x coordinate of the upper corner
+	 * @param maxY the y coordinate of the upper corner
+	 * @param maxZ the z coordinate of the upper corner
+	 */
+	public final void set(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+	}
+
+	/**
+	 * Sets the value of this box to the value of b1.
+	 * @param b1 the box to be copied
+	 */
+	public final void set(BoundingBox3f b1) {
+
+		this.set(b1.minX, b1.minY, b1.minZ, b1.maxX, b1.maxY, b1.maxZ);
+	}
+
+	/**
+	 * Sets the value of this box to the value of b1.
+	 * @param b1 the box to be copied
+	 */
+	public final void set(BoundingBox3d b1) {
+
+		this.set((float)b1.minX, (float)b1.minY, (float)b1.minZ, (float)b1.maxX, (float)b1.maxY, (float)b1.maxZ);
+	}
+
+	/**
+	 * Sets the lower corner of this box.
+	 * @param lower the new lower corner
+	 */
+	public final void setLower(Tuple3f lower) {
+
+		this.minX = lower.x;
+		this.minY = lower.y;
+		this.minZ = lower.z;
+	}
+
+	/**
+	 * Sets the upper corner of this box.
+	 * @param upper the new upper corner
+	 */
+	public final void setUpper(Tuple3f upper) {
+
+		this.maxX = upper.x;
+		this.maxY = upper.y;
+		this.maxZ = upper.z;
+	}
+
+	/**
+	 * Copies the lower corner of this box into t.
+	 * @param t the tuple into which the lower corner is copied
+	 */
+	public final void getLower(Tuple3f t) {
+
+		t.set(this.minX, this.minY, this.minZ);
+	}
+
+	/**
+	 * Copies the upper corner of this box into t.
+	 * @param t the tuple into which the upper corner is copied
+	 */
+	public final void getUpper(Tuple3f t) {
+
+		t.set(this.maxX, this.maxY, this.maxZ);
+	}
+
+	/**
+	 * Copies the center of this box into t.
+	 * @param t the tuple into which the center is copied
+	 */
+	public final void getCenter(Tuple3f t) {
+
+		t.set((this.minX + this.maxX) * 0.5F, (this.minY + this.maxY) * 0.5F, (this.minZ + this.maxZ) * 0.5F);
+	}
+
+	/**
+	 * Makes this box empty. An empty box contains nothing and is ignored by extend.
+	 */
+	public final void setEmpty() {
+
+		this.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+				 Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Returns true if this box contains nothing.
+	 * @return true if this box is empty
+	 */
+	public final boolean isEmpty() {
+
+		return !(this.minX <= this.maxX && this.minY <= this.maxY && this.minZ <= this.maxZ);
+	}
+
+	/**
+	 * Enlarges this box so that it contains the specified point.
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @param z the z coordinate of the point
+	 */
+	public final void extend(float x, float y, float z) {
+
+		if(x < this.minX) this.minX = x;
+		if(y < this.minY) this.minY = y;
+		if(z < this.minZ) this.minZ = z;
+		if(x > this.maxX) this.maxX = x;
+		if(y > this.maxY) this.maxY = y;
+		if(z > this.maxZ) this.maxZ = z;
+	}
+
+	/**
+	 * Enlarges this box so that it contains the specified point.
+	 * @param p the point
+	 */
+	public final void extend(Tuple3f p) {
+
+		this.extend(p.x, p.y, p.z);
+	}
+
+	/**
+	 * Enlarges this box so that it contains the box b1.
+	 * @param b1 the box to be contained
+	 */
+	public final void extend(BoundingBox3f b1) {
+
+		if(!b1.isEmpty()) {
+
+			this.extend(b1.minX, b1.minY, b1.minZ);
+			this.extend(b1.maxX, b1.maxY, b1.maxZ);
+		}
+	}
+
+	/**
+	 * Sets this box to the smallest box containing count points of the packed
+	 * xyz coordinate array, starting with the point at index offset.
+	 * @param xyz the packed coordinates (x0, y0, z0, x1, ...)
+	 * @param offset the index of the first point
+	 * @param count the number of points
+	 */
+	public final void set(float xyz[], int offset, int count) {
+
+		this.setEmpty();
+
+		for(int i = offset * 3, end = (offset + count) * 3; i < end; i += 3) {
+
+			this.extend(xyz[i], xyz[i + 1], xyz[i + 2]);
+		}
+	}
+
+	/**
+	 * Returns true if the specified point lies inside or on the boundary of this box.
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @param z the z coordinate of the point
+	 * @return true if the point is contained
+	 */
+	public final boolean contains(float x, float y, float z) {
+
+		return x >= this.minX && x <= this.maxX &&
+			   y >= this.minY && y <= this.maxY &&
+			   z >= this.minZ && z <= this.maxZ;
+	}
+
+	/**
+	 * Returns true if the specified point lies inside or on the boundary of this box.
+	 * @param p the point
+	 * @return true if the point is contained
+	 */
+	public final boolean contains(Tuple3f p) {
+
+		return this.contains(p.x, p.y, p.z);
+	}
+
+	/**
+	 * Returns true if this box and b1 have at least one point in common.
+	 * @param b1 the other box
+	 * @return true if the boxes intersect
+	 */
+	public final boolean intersects(BoundingBox3f b1) {
+
+		return this.minX <= b1.maxX && this.maxX >= b1.minX &&
+			   this.minY <= b1.maxY && this.maxY >= b1.minY &&
+			   this.minZ <= b1.maxZ && this.maxZ >= b1.minZ;
+	}
+
+	/**
+	 * Returns true if this box and the sphere s1 have at least one point in common.
+	 * @param s1 the sphere
+	 * @return true if the box and the sphere intersect
+	 */
+	public final boolean intersects(BoundingSphere3f s1) {
+
+		return this.distanceSquared(s1.x, s1.y, s1.z) <= s1.radius * s1.radius;
+	}
+
+	/**
+	 * Computes the square of the distance between the specified point and
+	 * the closest point of this box. Points inside the box have distance 0.
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @param z the z coordinate of the point
+	 * @return the squared distance
+	 */
+	public final float distanceSquared(float x, float y, float z) {
+
+		float dx = Math.max(Math.max(this.minX - x, x - this.maxX), 0.0F);
+		float dy = Math.max(Math.max(this.minY - y, y - this.maxY), 0.0F);
+		float dz = Math.max(Math.max(this.minZ - z, z - this.maxZ), 0.0F);
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Sets this box to the smallest axis aligned box containing box b1
+	 * transformed by the affine matrix m1.
+	 * @param m1 the affine transformation
+	 * @param b1 the box to be transformed
+	 */
+	public final void transform(Matrix4f m1, BoundingBox3f b1) {
+
+		if(b1.isEmpty()) {
+
+			this.setEmpty();
+			return;
+		}
+
+		// transforms the center and the half extent separately (Arvo).
+		float cx = (b1.minX + b1.maxX) * 0.5F;
+		float cy = (b1.minY + b1.maxY) * 0.5F;
+		float cz = (b1.minZ + b1.maxZ) * 0.5F;
+		float ex = (b1.maxX - b1.minX) * 0.5F;
+		float ey = (b1.maxY - b1.minY) * 0.5F;
+		float ez = (b1.maxZ - b1.minZ) * 0.5F;
+
+		float tx = m1.m00 * cx + m1.m01 * cy + m1.m02 * cz + m1.m03;
+		float ty = m1.m10 * cx + m1.m11 * cy + m1.m12 * cz + m1.m13;
+		float tz = m1.m20 * cx + m1.m21 * cy + m1.m22 * cz + m1.m23;
+		float rx = Math.abs(m1.m00) * ex + Math.abs(m1.m01) * ey + Math.abs(m1.m02) * ez;
+		float ry = Math.abs(m1.m10) * ex + Math.abs(m1.m11) * ey + Math.abs(m1.m12) * ez;
+		float rz = Math.abs(m1.m20) * ex + Math.abs(m1.m21) * ey + Math.abs(m1.m22) * ez;
+
+		this.set(tx - rx, ty - ry, tz - rz, tx + rx, ty + ry, tz + rz);
+	}
+
+	/**
+	 * Transforms this box by the affine matrix m1 and places the smallest axis
+	 * aligned box containing the result back into this box.
+	 * @param m1 the affine transformation
+	 */
+	public final void transform(Matrix4f m1) {
+
+		this.transform(m1, this);
+	}
+
+	/**
+	 * Returns true if all of the data members of BoundingBox3f b1 are equal to
+	 * the corresponding data members in this box.
+	 * @param b1 the box with which the comparison is made
+	 * @return true or false
+	 */
+	public final boolean equals(BoundingBox3f b1) {
+
+		return b1 != null &&
+			   this.minX == b1.minX && this.minY == b1.minY && this.minZ == b1.minZ &&
+			   this.maxX == b1.maxX && this.maxY == b1.maxY && this.maxZ == b1.maxZ;
+	}
+
+	@Override
+	public final boolean equals(Object o1) {
+
+		return o1 != null && (o1 instanceof BoundingBox3f) && this.equals((BoundingBox3f)o1);
+	}
+
+	/**
+	 * Returns true if the L-infinite distance between the corners of this box
+	 * and the corners of box b1 is less than or equal to the epsilon parameter,
+	 * otherwise returns false.
+	 * @param b1 the box to be compared to this box
+	 * @param epsilon the threshold value
+	 * @return true or false
+	 */
+	public final boolean epsilonEquals(BoundingBox3f b1, float epsilon) {
+
+		return Math.abs(b1.minX - this.minX) <= epsilon &&
+			   Math.abs(b1.minY - this.minY) <= epsilon &&
+			   Math.abs(b1.minZ - this.minZ) <= epsilon &&
+			   Math.abs(b1.maxX - this.maxX) <= epsilon &&
+			   Math.abs(b1.maxY - this.maxY) <= epsilon &&
+			   Math.abs(b1.maxZ - this.maxZ) <= epsilon;
+	}
+
+	/**
+	 * Returns a hash number based on the data values in this object.
+	 * Two different BoundingBox3f objects with identical data values
+	 * (ie, returns true for equals(BoundingBox3f) ) will return the same hash number.
+	 * @return the hash code
+	 */
+	@Override
+	public final int hashCode() {
+
+		int bits = 1;
+		bits = 31 * bits + Float.floatToIntBits(this.minX);
+		bits = 31 * bits + Float.floatToIntBits(this.minY);
+		bits = 31 * bits + Float.floatToIntBits(this.minZ);
+		bits = 31 * bits + Float.floatToIntBits(this.maxX);
+		bits = 31 * bits + Float.floatToIntBits(this.maxY);
+		bits = 31 * bits + Float.floatToIntBits(this.maxZ);
+
+		return bits;
+	}
+
+	/**
+	 * Returns a string that contains the corners of this BoundingBox3f.
+	 * The form is [(minX, minY, minZ), (maxX, maxY, maxZ)].
+	 * @return the String representation
+	 */
+	@Override
+	public final String toString() {
+
+		return String.format("[(%s, %s, %s), (%s, %s, %s)]", this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+	}
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+
+/**
+ * A bounding sphere that is represented by a double precision
+ * floating point center and radius.
+ * A sphere with a negative radius is empty.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class BoundingSphere3d implements Serializable {
+
+	private static final long serialVersionUID = 8117365262938551902L;
+
+	/**
+	 * The x coordinate of the center.
+	 */
+	public double x;
+
+	/**
+	 * The y coordinate of the center.
+	 */
+	public double y;
+
+	/**
+	 * The z coordinate of the center.
+	 */
+	public double z;
+
+	/**
+	 * The radius.
+	 */
+	public double radius;
+
+	/**
+	 * Constructs and initializes an empty BoundingSphere3d.
+	 */
+	public BoundingSphere3d() {
+
+		this.setEmpty();
+	}
+
+	/**
+	 * Constructs and initializes a BoundingSphere3d from the specified center and radius.
+	 * @param x the x coordinate of the center
+	 * @param y the y coordinate of the center
+	 * @param z the z coordinate of the center
+	 * @param radius the radius
+	 */
+	public BoundingSphere3d(double x, double y, double z, double radius) {
+
+		this.set(x, y, z, radius);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingSphere3d from the specified center and radius.
+	 * @param center the center
+	 * @param radius the radius
+	 */
+	public BoundingSphere3d(Tuple3d center, double radius) {
+
+		this.set(center.x, center.y, center.z, radius);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingSphere3d from the specified BoundingSphere3d.
+	 * @param s1 the sphere containing the initialization data
+	 */
+	public BoundingSphere3d(BoundingSphere3d s1) {
+
+		this.set(s1);
+	}
+
+	/**
+	 * Constructs and initializes a BoundingSphere3d from the specified BoundingSphere3f.
+	 * @param s1 the sphere containing the initialization data
+	 */
+	public BoundingSphere3d(BoundingSphere3f s1) {
+
+		this.set(s1);
+	}
+
+	/**
+	 * Sets the center and the radius of this sphere.
+	 * @param x the x coordinate of the center
+	 * @param y the y coordinate of the center
+	 * @param z the z coordinate of the center
+	 * @param radius the radius
+	 */
+	public final void set(double x, double y, double z, double radius) {
+
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = radius;
+	}
+
+	/**
+	 * Sets the value of this sphere to the value of s1.
+	 * @param s1 the sphere to be copied
+	 */
+	public final void set(BoundingSphere3d s1) {
+
+		this.set(s1.x, s1.y, s1.z, s1.radius);
+	}
+
+	/**
+	 * Sets the value of this sphere to the value of s1.
+	 * @param s1 the sphere to be copied
+	 */
+	public final void set(BoundingSphere3f s1) {
+
+		this.set(s1.x, s1.y, s1.z, s1.radius);
+	}
+
+	/**
+	 * Sets this sphere to the sphere circumscribing the box b1.
+	 * @param b1 the box
+	 */
+	public final void set(BoundingBox3d b1) {
+
+		if(b1.isEmpty()) {
+
+			this.setEmpty();
+
+		} else {
+
+			double ex = (b1.maxX - b1.minX) * 0.5D;
+			double ey = (b1.maxY - b1.minY) * 0.5D;
+			double ez = (b1.maxZ - b1.minZ) * 0.5D;
+
+			this.set(b1.minX + ex, b1.minY + ey, b1.minZ + ez, Math.sqrt(ex * ex + ey * ey + ez * ez));
+		}
+	}
+
+	/**
+	 * Sets the center of this sphere.
+	 * @param center the new center
+	 */
+	public final void setCenter(Tuple3d center) {
+
+		this.x = center.x;
+		this.y = center.y;
+		this.z = center.z;
+	}
+
+	/**
+	 * Copies the center of this sphere into t.
+	 * @param t the tuple into which the center is copied
+	 */
+	public final void getCenter(Tuple3d t) {
+
+		t.set(this.x, this.y, this.z);
+	}
+
+	/**
+	 * Makes this sphere empty. An empty sphere contains nothing and is ignored by extend.
+	 */
+	public final void setEmpty() {
+
+		this.set(0.0D, 0.0D, 0.0D, -1.0D);
+	}
+
+	/**
+	 * Returns true if this sphere contains nothing.
+	 * @return true if this sphere is empty
+	 */
+	public final boolean isEmpty() {
+
+		return !(this.radius >= 0.0D);
+	}
+
+	/**
+	 * Enlarges this sphere by the least amount so that it contains the specified point.
+	 * The center moves towards the point.
+	 * @param px the x coordinate of the point
+	 * @param py the y coordinate of the point
+	 * @param pz the z coordinate of the point
+	 */
+	public final void extend(double px, double py, double pz) {
+
+		if(this.isEmpty()) {
+
+			this.set(px, py, pz, 0.0D);
+			return;
+		}
+
+		double dx = px - this.x;
+		double dy = py - this.y;
+		double dz = pz - this.z;
+		double d2 = dx * dx + dy * dy + dz * dz;
+
+		if(d2 > this.radius * this.radius) {
+
+			double d = Math.sqrt(d2);
+			double r = (this.radius + d) * 0.5D;
+			double s = (r - this.radius) / d;
+
+			this.set(this.x + dx * s, this.y + dy * s, this.z + dz * s, r);
+		}
+	}
+
+	/**
+	 * Enlarges this sphere by the least amount so that it contains the specified point.
+	 * @param p the point
+	 */
+	public final void extend(Tuple3d p) {
+
+		this.extend(p.x, p.y, p.z);
+	}
+
+	/**
+	 * Enlarges this sphere by the least amount so that it contains the sphere s1.
+	 * @param s1 the sphere to be contained
+	 */
+	public final void extend(BoundingSphere3d s1) {
+
+		if(s1.isEmpty()) {
+
+			return;
+		}
+
+		if(this.isEmpty()) {
+
+			this.set(s1);
+			return;
+		}
+
+		double dx = s1.x - this.x;
+		double dy = s1.y - this.y;
+		double dz = s1.z - this.z;
+		double d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+		if(d + s1.radius <= this.radius) {
+
+			return;
+		}
+
+		if(d + this.radius <= s1.radius) {
+
+			this.set(s1);
+			return;
+		}
+
+		double r = (d + this.radius + s1.radius) * 0.5D;
+		double s = (r - this.radius) / d;
+
+		this.set(this.x + dx * s, this.y + dy * s, this.z + dz * s, r);
+	}
+
+	/**
+	 * Returns true if the specified point lies inside or on the boundary of this sphere.
+	 * @param px the x coordinate of the point
+	 * @param py the y coordinate of the point
+	 * @param pz the z coordinate of the point
+	 * @return true if the point is contained
+	 */
+	public final boolean contains(double px, double py, double pz) {
+
+		double dx = px - this.x;
+		double dy = py - this.y;
+		double dz = pz - this.z;
+
+		return dx * dx + dy * dy + dz * dz <= this.radius * this.radius && this.radius >= 0.0D;
+	}
+
+	/**
+	 * Returns true if the specified point lies inside or on the boundary of this sphere.
+	 * @param p the point
+	 * @return true if the point is contained
+	 */
+	public final boolean contains(Tuple3d p) {
+
+		return this.contains(p.x, p.y, p.z);
+	}
+
+	/**
+	 * Returns true if this sphere and s1 have at least one point in common.
+	 * @param s1 the other sphere
+	 * @return true if the spheres intersect
+	 */
+	public final boolean intersects(BoundingSphere3d s1) {
+
+		if(this.isEmpty() || s1.isEmpty()) {
+
+			return false;
+		}
+
+		double dx = s1.x - this.x;
+		double dy = s1.y - this.y;
+		double dz = s1.z - this.z;
+		double r = this.radius + s1.radius;
+
+		return dx * dx + dy * dy + dz * dz <= r * r;
+	}
+
+	/**
+	 * Returns true if this sphere and the box b1 have at least one point in common.
+	 * @param b1 the box
+	 * @return true if the sphere and the box intersect
+	 */
+	public final boolean intersects(BoundingBox3d b1) {
+
+		return b1.intersects(this);
+	}
+
+	/**
+	 * Sets this sphere to a sphere containing sphere s1 transformed by the
+	 * affine matrix m1. The radius is scaled by the largest axis scale of m1.
+	 * @param m1 the affine transformation
+	 * @param s1 the sphere to be transformed
+	 */
+	public final void transform(Matrix4d m1, BoundingSphere3d s1) {
+
+		double sx = m1.m00 * m1.m00 + m1.m10 * m1.m10 + m1.m20 * m1.m20;
+		double sy = m1.m01 * m1.m01 + m1.m11 * m1.m11 + m1.m21 * m1.m21;
+		double sz = m1.m02 * m1.m02 + m1.m12 * m1.m12 + m1.m22 * m1.m22;
+		double scale = Math.sqrt(Math.max(sx, Math.max(sy, sz)));
+
+		this.set(m1.m00 * s1.x + m1.m01 * s1.y + m1.m02 * s1.z + m1.m03,
+				 m1.m10 * s1.x + m1.m11 * s1.y + m1.m12 * s1.z + m1.m13,
+				 m1.m20 * s1.x + m1.m21 * s1.y + m1.m22 * s1.z + m1.m23,
+				 s1.isEmpty() ? s1.radius : s1.radius * scale);
+	}
+
+	/**
+	 * Transforms this sphere by the affine matrix m1.
+	 * @param m1 the affine transformation
+	 */
+	public final void transform(Matrix4d m1) {
+
+		this.transform(m1, this);
+	}
+
+	/**
+	 * Returns true if all of the data members of BoundingSphere3d s1 are equal to
+	 * the corresponding data members in this sphere.
+	 * @param s1 the sphere with which the comparison is made
+	 * @return true or false
+	 */
+	public final boolean equals(BoundingSphere3d s1) {
+
+		return s1 != null && this.x == s1.x && this.y == s1.y && this.z == s1.z && this.radius == s1.radius;
+	}
+
+	@Override
+	public final boolean equals(Object o1) {
+
+		return o1 != null && (o1 instanceof BoundingSphere3d) && this.equals((BoundingSphere3d)o1);
+	}
+
+	/**
+	 * Returns true if the L-infinite distance between the data members of this
+	 * sphere and sphere s1 is less than or equal to the epsilon parameter,
+	 * otherwise returns false.
+	 * @param s1 the sphere to be compared to this sphere
+	 * @param epsilon the threshold value
+	 * @return true or false
+	 */
+	public final boolean epsilonEquals(BoundingSphere3d s1, double epsilon) {
+
+		return Math.abs(s1.x - this.x) <= epsilon &&
+			   Math.abs(s1.y - this.y) <= epsilon &&
+			   Math.abs(s1.z - this.z) <= epsilon &&
+			   Math.abs(s1.radius - this.radius) <= epsilon;
+	}
+
+	/**
+	 * Returns a hash number based on the data values in this object.
+	 * Two different BoundingSphere3d objects with identical data values
+	 * (ie, returns true for equals(BoundingSphere3d) ) will return the same hash number.
+	 * @return the hash code
+	 */
+	@Override
+	public final int hashCode() {
+
+		long bits = 1L;
+		bits = 31L * bits + Double.doubleToLongBits(this.x);
+		bits = 31L * bits + Double.doubleToLongBits(this.y);
+		bits = 31L * bits + Double.doubleToLongBits(this.z);
+		bits = 31L * bits + Double.doubleToLongBits(this.radius);
+
+		return (int)(bits ^ (bits >> 32));
+	}
+
+	/**
+	 * Returns a string that contains the center and the radius of this BoundingSphere3d.
+	 * The form is [(x, y, z), radius].
+	 * @return the String representation
+	 */
+	@Override
+	public final String toString() {
+
+		return String.format("[(%s, %s, %s), %s]", this.x, this.y, this.z, this.radius);
+	}
+}
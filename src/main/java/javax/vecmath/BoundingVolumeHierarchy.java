@@ -0,0 +1,1102 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounding volume hierarchy of axis aligned boxes over triangles or points.
+ * The hierarchy is built with the binned surface area heuristic and stored
+ * in flat arrays: six doubles of bounds per node plus the child or
+ * primitive range of the node.
+ * <p>
+ * The vertex coordinates are copied into the hierarchy as packed xyz
+ * doubles. Triangles are given by three vertex indices each. Primitive
+ * indices returned by the queries are triangle indices (index / 3 into the
+ * index array) for triangle hierarchies and point indices for point
+ * hierarchies.
+ * <p>
+ * For deforming meshes {@link #refit(double[])} replaces the coordinates and
+ * recomputes the node bounds bottom-up while keeping the tree topology.
+ * Queries do not modify the hierarchy and may run concurrently, but not
+ * concurrently with a refit.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class BoundingVolumeHierarchy {
+
+	private static final int BIN_COUNT = 16;
+	private static final int MAX_LEAF_SIZE = 4;
+	private static final int PARALLEL_GRAIN = 4096;
+
+	// relative cost of visiting a node compared to testing a primitive.
+	private static final double TRAVERSAL_COST = 1.0D;
+
+	private final double coords[];
+	private final int indices[];
+	private final int primitiveCount;
+
+	// primitive ids ordered so that every leaf references a contiguous range.
+	private final int primitives[];
+
+	// per node: minX, minY, minZ, maxX, maxY, maxZ.
+	private final double bounds[];
+
+	// interior node: index of the left child, the right child follows it.
+	// leaf node: index of the first primitive in primitives.
+	private final int nodeFirst[];
+
+	// number of primitives of a leaf, 0 for interior nodes.
+	private final int nodeCount[];
+	private int nodes;
+
+	// the number of levels, sizes the traversal stacks.
+	private int depth;
+
+	private BoundingVolumeHierarchy(double coords[], int indices[], ForkJoinPool pool) {
+
+		this.coords = coords;
+		this.indices = indices;
+		this.primitiveCount = indices != null ? indices.length / 3 : coords.length / 3;
+		this.primitives = new int[this.primitiveCount];
+
+		int maxNodes = Math.max(1, 2 * this.primitiveCount - 1);
+		this.bounds = new double[maxNodes * 6];
+		this.nodeFirst = new int[maxNodes];
+		this.nodeCount = new int[maxNodes];
+
+		for(int i = 0; i < this.primitiveCount; i++) {
+
+			this.primitives[i] = i;
+		}
+
+		if(this.primitiveCount == 0) {
+
+			this.nodes = 1;
+			this.depth = 1;
+			setEmpty(this.bounds, 0);
+			return;
+		}
+
+		// centroids and bounds of the primitives, only needed while building.
+		double centroids[] = new double[this.primitiveCount * 3];
+		double primitiveBounds[] = new double[this.primitiveCount * 6];
+
+		for(int i = 0; i < this.primitiveCount; i++) {
+
+			this.primitiveBounds(i, primitiveBounds, i * 6);
+			centroids[i * 3]     = (primitiveBounds[i * 6]     + primitiveBounds[i * 6 + 3]) * 0.5D;
+			centroids[i * 3 + 1] = (primitiveBounds[i * 6 + 1] + primitiveBounds[i * 6 + 4]) * 0.5D;
+			centroids[i * 3 + 2] = (primitiveBounds[i * 6 + 2] + primitiveBounds[i * 6 + 5]) * 0.5D;
+		}
+
+		AtomicInteger allocator = new AtomicInteger(1);
+		AtomicInteger maxDepth = new AtomicInteger(1);
+		BuildTask root = new BuildTask(this, centroids, primitiveBounds, allocator, maxDepth, 0, 1, 0, this.primitiveCount, pool != null);
+
+		if(pool != null) {
+
+			pool.invoke(root);
+
+		} else {
+
+			root.compute();
+		}
+
+		this.nodes = allocator.get();
+		this.depth = maxDepth.get();
+	}
+
+	/**
+	 * Builds a hierarchy over triangles.
+	 * @param xyz the packed vertex coordinates (x0, y0, z0, x1, ...)
+	 * @param indices three vertex indices per triangle
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forTriangles(double xyz[], int indices[]) {
+
+		return new BoundingVolumeHierarchy(xyz.clone(), indices.clone(), null);
+	}
+
+	/**
+	 * Builds a hierarchy over triangles, building large subtrees in parallel.
+	 * @param xyz the packed vertex coordinates (x0, y0, z0, x1, ...)
+	 * @param indices three vertex indices per triangle
+	 * @param pool the pool that runs the build
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forTriangles(double xyz[], int indices[], ForkJoinPool pool) {
+
+		return new BoundingVolumeHierarchy(xyz.clone(), indices.clone(), pool);
+	}
+
+	/**
+	 * Builds a hierarchy over triangles.
+	 * @param xyz the packed vertex coordinates (x0, y0, z0, x1, ...)
+	 * @param indices three vertex indices per triangle
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forTriangles(float xyz[], int indices[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(xyz), indices.clone(), null);
+	}
+
+	/**
+	 * Builds a hierarchy over triangles.
+	 * @param vertices the vertices
+	 * @param indices three vertex indices per triangle
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forTriangles(Tuple3d vertices[], int indices[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(vertices), indices.clone(), null);
+	}
+
+	/**
+	 * Builds a hierarchy over triangles.
+	 * @param vertices the vertices
+	 * @param indices three vertex indices per triangle
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forTriangles(Tuple3f vertices[], int indices[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(vertices), indices.clone(), null);
+	}
+
+	/**
+	 * Builds a hierarchy over points.
+	 * @param xyz the packed point coordinates (x0, y0, z0, x1, ...)
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forPoints(double xyz[]) {
+
+		return new BoundingVolumeHierarchy(xyz.clone(), null, null);
+	}
+
+	/**
+	 * Builds a hierarchy over points, building large subtrees in parallel.
+	 * @param xyz the packed point coordinates (x0, y0, z0, x1, ...)
+	 * @param pool the pool that runs the build
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forPoints(double xyz[], ForkJoinPool pool) {
+
+		return new BoundingVolumeHierarchy(xyz.clone(), null, pool);
+	}
+
+	/**
+	 * Builds a hierarchy over points.
+	 * @param xyz the packed point coordinates (x0, y0, z0, x1, ...)
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forPoints(float xyz[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(xyz), null, null);
+	}
+
+	/**
+	 * Builds a hierarchy over points.
+	 * @param points the points
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forPoints(Tuple3d points[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(points), null, null);
+	}
+
+	/**
+	 * Builds a hierarchy over points.
+	 * @param points the points
+	 * @return the hierarchy
+	 */
+	public static BoundingVolumeHierarchy forPoints(Tuple3f points[]) {
+
+		return new BoundingVolumeHierarchy(toDouble(points), null, null);
+	}
+
+	/**
+	 * Returns the number of primitives in this hierarchy.
+	 * @return the number of triangles or points
+	 */
+	public final int getPrimitiveCount() {
+
+		return this.primitiveCount;
+	}
+
+	/**
+	 * Returns the number of nodes in this hierarchy.
+	 * @return the number of nodes
+	 */
+	public final int getNodeCount() {
+
+		return this.nodes;
+	}
+
+	/**
+	 * Returns true if the primitives of this hierarchy are triangles.
+	 * @return true for triangles, false for points
+	 */
+	public final boolean isTriangleHierarchy() {
+
+		return this.indices != null;
+	}
+
+	/**
+	 * Copies the bounds of all primitives into b1.
+	 * @param b1 the box into which the bounds are copied
+	 */
+	public final void getBounds(BoundingBox3d b1) {
+
+		b1.set(this.bounds[0], this.bounds[1], this.bounds[2], this.bounds[3], this.bounds[4], this.bounds[5]);
+	}
+
+	/**
+	 * Replaces the vertex coordinates and recomputes the bounds of all nodes
+	 * without changing the tree topology. The number of vertices must not change.
+	 * @param xyz the new packed vertex coordinates
+	 */
+	public final void refit(double xyz[]) {
+
+		if(xyz.length != this.coords.length) {
+
+			throw new IllegalArgumentException("xyz.length:" + xyz.length + " != " + this.coords.length);
+		}
+
+		System.arraycopy(xyz, 0, this.coords, 0, xyz.length);
+		this.refit();
+	}
+
+	/**
+	 * Replaces the vertex coordinates and recomputes the bounds of all nodes
+	 * without changing the tree topology. The number of vertices must not change.
+	 * @param xyz the new packed vertex coordinates
+	 */
+	public final void refit(float xyz[]) {
+
+		if(xyz.length != this.coords.length) {
+
+			throw new IllegalArgumentException("xyz.length:" + xyz.length + " != " + this.coords.length);
+		}
+
+		for(int i = 0; i < xyz.length; i++) {
+
+			this.coords[i] = xyz[i];
+		}
+
+		this.refit();
+	}
+
+	/**
+	 * Finds the closest triangle hit by the ray origin + t * direction
+	 * with 0 &lt;= t &lt;= maxT.
+	 * @param origin the origin of the ray
+	 * @param direction the direction of the ray, need not be normalized
+	 * @param maxT the largest accepted ray parameter
+	 * @param hit receives the hit point if a triangle is hit; may be null
+	 * @return the index of the triangle hit or -1
+	 * @throws IllegalStateException if this is a point hierarchy
+	 */
+	public final int intersectRay(Tuple3d origin, Tuple3d direction, double maxT, Point3d hit) {
+
+		if(this.indices == null) {
+
+			throw new IllegalStateException("ray queries need a triangle hierarchy");
+		}
+
+		double ox = origin.x;
+		double oy = origin.y;
+		double oz = origin.z;
+		double dx = direction.x;
+		double dy = direction.y;
+		double dz = direction.z;
+		double ix = 1.0D / dx;
+		double iy = 1.0D / dy;
+		double iz = 1.0D / dz;
+
+		double bestT = maxT;
+		int best = -1;
+		int stack[] = new int[this.depth + 1];
+		int top = 0;
+
+		if(this.primitiveCount > 0 && this.rayBox(0, ox, oy, oz, ix, iy, iz, bestT) >= 0.0D) {
+
+			stack[top++] = 0;
+		}
+
+		while(top > 0) {
+
+			int node = stack[--top];
+			int count = this.nodeCount[node];
+
+			if(count > 0) {
+
+				for(int i = this.nodeFirst[node], end = i + count; i < end; i++) {
+
+					int tri = this.primitives[i];
+					double t = this.rayTriangle(tri, ox, oy, oz, dx, dy, dz);
+
+					if(t >= 0.0D && t <= bestT) {
+
+						bestT = t;
+						best = tri;
+					}
+				}
+
+			} else {
+
+				int left = this.nodeFirst[node];
+				int right = left + 1;
+				double tl = this.rayBox(left, ox, oy, oz, ix, iy, iz, bestT);
+				double tr = this.rayBox(right, ox, oy, oz, ix, iy, iz, bestT);
+
+				// push the farther child first so that the nearer one is visited first.
+				if(tl >= 0.0D && tr >= 0.0D) {
+
+					top = push(stack, top, tl <= tr ? right : left);
+					top = push(stack, top, tl <= tr ? left : right);
+
+				} else if(tl >= 0.0D) {
+
+					top = push(stack, top, left);
+
+				} else if(tr >= 0.0D) {
+
+					top = push(stack, top, right);
+				}
+			}
+		}
+
+		if(best >= 0 && hit != null) {
+
+			hit.set(ox + dx * bestT, oy + dy * bestT, oz + dz * bestT);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Finds the primitive closest to the specified point.
+	 * @param p the query point
+	 * @param maxDistance primitives farther away than this are ignored
+	 * @param closest receives the closest point on the primitive; may be null
+	 * @return the index of the closest primitive or -1 if none is within maxDistance
+	 */
+	public final int closestPoint(Tuple3d p, double maxDistance, Point3d closest) {
+
+		double px = p.x;
+		double py = p.y;
+		double pz = p.z;
+		double bestD2 = maxDistance * maxDistance;
+		int best = -1;
+		double point[] = new double[3];
+		double bestPoint[] = new double[3];
+		int stack[] = new int[this.depth + 1];
+		int top = 0;
+
+		if(this.primitiveCount > 0 && this.boxDistanceSquared(0, px, py, pz) <= bestD2) {
+
+			stack[top++] = 0;
+		}
+
+		while(top > 0) {
+
+			int node = stack[--top];
+
+			// the bound may have shrunk since the node was pushed.
+			if(this.boxDistanceSquared(node, px, py, pz) > bestD2) {
+
+				continue;
+			}
+
+			int count = this.nodeCount[node];
+
+			if(count > 0) {
+
+				for(int i = this.nodeFirst[node], end = i + count; i < end; i++) {
+
+					int prim = this.primitives[i];
+					double d2 = this.closestPoint(prim, px, py, pz, point);
+
+					if(d2 <= bestD2) {
+
+						bestD2 = d2;
+						best = prim;
+						bestPoint[0] = point[0];
+						bestPoint[1] = point[1];
+						bestPoint[2] = point[2];
+					}
+				}
+
+			} else {
+
+				int left = this.nodeFirst[node];
+				int right = left + 1;
+				double dl = this.boxDistanceSquared(left, px, py, pz);
+				double dr = this.boxDistanceSquared(right, px, py, pz);
+				int near = dl <= dr ? left : right;
+				int far = dl <= dr ? right : left;
+
+				if(Math.max(dl, dr) <= bestD2) {
+
+					top = push(stack, top, far);
+				}
+
+				if(Math.min(dl, dr) <= bestD2) {
+
+					top = push(stack, top, near);
+				}
+			}
+		}
+
+		if(best >= 0 && closest != null) {
+
+			closest.set(bestPoint[0], bestPoint[1], bestPoint[2]);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Finds all primitives whose bounds overlap the box b1.
+	 * @param b1 the query box
+	 * @param result receives the primitive indices; only the first result.length are stored
+	 * @return the number of overlapping primitives, which may exceed result.length
+	 */
+	public final int overlap(BoundingBox3d b1, int result[]) {
+
+		int found = 0;
+		double primitive[] = new double[6];
+		int stack[] = new int[this.depth + 1];
+		int top = 0;
+
+		if(this.primitiveCount > 0 && this.boxOverlap(this.bounds, 0, b1)) {
+
+			stack[top++] = 0;
+		}
+
+		while(top > 0) {
+
+			int node = stack[--top];
+			int count = this.nodeCount[node];
+
+			if(count > 0) {
+
+				for(int i = this.nodeFirst[node], end = i + count; i < end; i++) {
+
+					int prim = this.primitives[i];
+					this.primitiveBounds(prim, primitive, 0);
+
+					if(this.boxOverlap(primitive, 0, b1)) {
+
+						if(found < result.length) {
+
+							result[found] = prim;
+						}
+
+						found++;
+					}
+				}
+
+			} else {
+
+				int left = this.nodeFirst[node];
+
+				if(this.boxOverlap(this.bounds, left * 6, b1)) {
+
+					top = push(stack, top, left);
+				}
+
+				if(this.boxOverlap(this.bounds, (left + 1) * 6, b1)) {
+
+					top = push(stack, top, left + 1);
+				}
+			}
+		}
+
+		return found;
+	}
+
+	private void refit() {
+
+		// children are always allocated after their parent.
+		for(int node = this.nodes - 1; node >= 0; node--) {
+
+			int o = node * 6;
+			int count = this.nodeCount[node];
+
+			if(count > 0) {
+
+				setEmpty(this.bounds, o);
+
+				for(int i = this.nodeFirst[node], end = i + count; i < end; i++) {
+
+					this.extendByPrimitive(this.primitives[i], this.bounds, o);
+				}
+
+			} else if(this.primitiveCount > 0) {
+
+				int l = this.nodeFirst[node] * 6;
+				int r = l + 6;
+
+				for(int k = 0; k < 3; k++) {
+
+					this.bounds[o + k] = Math.min(this.bounds[l + k], this.bounds[r + k]);
+					this.bounds[o + 3 + k] = Math.max(this.bounds[l + 3 + k], this.bounds[r + 3 + k]);
+				}
+			}
+		}
+	}
+
+	private static int push(int stack[], int top, int node) {
+
+		stack[top] = node;
+		return top + 1;
+	}
+
+	private void primitiveBounds(int prim, double out[], int o) {
+
+		setEmpty(out, o);
+		this.extendByPrimitive(prim, out, o);
+	}
+
+	private void extendByPrimitive(int prim, double out[], int o) {
+
+		if(this.indices == null) {
+
+			extend(out, o, this.coords, prim * 3);
+
+		} else {
+
+			extend(out, o, this.coords, this.indices[prim * 3] * 3);
+			extend(out, o, this.coords, this.indices[prim * 3 + 1] * 3);
+			extend(out, o, this.coords, this.indices[prim * 3 + 2] * 3);
+		}
+	}
+
+	private boolean boxOverlap(double b[], int o, BoundingBox3d b1) {
+
+		return b[o] <= b1.maxX && b[o + 3] >= b1.minX &&
+			   b[o + 1] <= b1.maxY && b[o + 4] >= b1.minY &&
+			   b[o + 2] <= b1.maxZ && b[o + 5] >= b1.minZ;
+	}
+
+	private double boxDistanceSquared(int node, double px, double py, double pz) {
+
+		int o = node * 6;
+		double dx = Math.max(Math.max(this.bounds[o] - px, px - this.bounds[o + 3]), 0.0D);
+		double dy = Math.max(Math.max(this.bounds[o + 1] - py, py - this.bounds[o + 4]), 0.0D);
+		double dz = Math.max(Math.max(this.bounds[o + 2] - pz, pz - this.bounds[o + 5]), 0.0D);
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Slab test. Returns the entry parameter of the ray into the node box,
+	 * or -1 if the ray misses the box within [0, maxT].
+	 */
+	private double rayBox(int node, double ox, double oy, double oz, double ix, double iy, double iz, double maxT) {
+
+		int o = node * 6;
+		double t0 = (this.bounds[o] - ox) * ix;
+		double t1 = (this.bounds[o + 3] - ox) * ix;
+		double tmin = Math.min(t0, t1);
+		double tmax = Math.max(t0, t1);
+
+		t0 = (this.bounds[o + 1] - oy) * iy;
+		t1 = (this.bounds[o + 4] - oy) * iy;
+		tmin = Math.max(tmin, Math.min(t0, t1));
+		tmax = Math.min(tmax, Math.max(t0, t1));
+
+		t0 = (this.bounds[o + 2] - oz) * iz;
+		t1 = (this.bounds[o + 5] - oz) * iz;
+		tmin = Math.max(tmin, Math.min(t0, t1));
+		tmax = Math.min(tmax, Math.max(t0, t1));
+
+		// NaN only occurs for a ray in the plane of a box face, count it as a hit.
+		if(Double.isNaN(tmin) || Double.isNaN(tmax)) {
+
+			return 0.0D;
+		}
+
+		tmin = Math.max(tmin, 0.0D);
+
+		return tmax >= tmin && tmin <= maxT ? tmin : -1.0D;
+	}
+
+	/**
+	 * Moller-Trumbore. Returns the ray parameter of the hit or -1.
+	 */
+	private double rayTriangle(int tri, double ox, double oy, double oz, double dx, double dy, double dz) {
+
+		int a = this.indices[tri * 3] * 3;
+		int b = this.indices[tri * 3 + 1] * 3;
+		int c = this.indices[tri * 3 + 2] * 3;
+		double ax = this.coords[a];
+		double ay = this.coords[a + 1];
+		double az = this.coords[a + 2];
+		double e1x = this.coords[b] - ax;
+		double e1y = this.coords[b + 1] - ay;
+		double e1z = this.coords[b + 2] - az;
+		double e2x = this.coords[c] - ax;
+		double e2y = this.coords[c + 1] - ay;
+		double e2z = this.coords[c + 2] - az;
+
+		double px = dy * e2z - dz * e2y;
+		double py = dz * e2x - dx * e2z;
+		double pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+
+		if(det == 0.0D) {
+
+			return -1.0D;
+		}
+
+		double inv = 1.0D / det;
+		double tx = ox - ax;
+		double ty = oy - ay;
+		double tz = oz - az;
+		double u = (tx * px + ty * py + tz * pz) * inv;
+
+		if(u < 0.0D || u > 1.0D) {
+
+			return -1.0D;
+		}
+
+		double qx = ty * e1z - tz * e1y;
+		double qy = tz * e1x - tx * e1z;
+		double qz = tx * e1y - ty * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * inv;
+
+		if(v < 0.0D || u + v > 1.0D) {
+
+			return -1.0D;
+		}
+
+		return (e2x * qx + e2y * qy + e2z * qz) * inv;
+	}
+
+	/**
+	 * Computes the point of the primitive closest to p, stores it into out
+	 * and returns its squared distance to p.
+	 */
+	private double closestPoint(int prim, double px, double py, double pz, double out[]) {
+
+		if(this.indices == null) {
+
+			out[0] = this.coords[prim * 3];
+			out[1] = this.coords[prim * 3 + 1];
+			out[2] = this.coords[prim * 3 + 2];
+
+		} else {
+
+			int a = this.indices[prim * 3] * 3;
+			int b = this.indices[prim * 3 + 1] * 3;
+			int c = this.indices[prim * 3 + 2] * 3;
+			closestPointOnTriangle(px, py, pz,
+								   this.coords[a], this.coords[a + 1], this.coords[a + 2],
+								   this.coords[b], this.coords[b + 1], this.coords[b + 2],
+								   this.coords[c], this.coords[c + 1], this.coords[c + 2], out);
+		}
+
+		double dx = out[0] - px;
+		double dy = out[1] - py;
+		double dz = out[2] - pz;
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Closest point on triangle abc to p by Voronoi region classification (Ericson).
+	 */
+	private static void closestPointOnTriangle(double px, double py, double pz,
+											   double ax, double ay, double az,
+											   double bx, double by, double bz,
+											   double cx, double cy, double cz, double out[]) {
+
+		double abx = bx - ax, aby = by - ay, abz = bz - az;
+		double acx = cx - ax, acy = cy - ay, acz = cz - az;
+		double apx = px - ax, apy = py - ay, apz = pz - az;
+		double d1 = abx * apx + aby * apy + abz * apz;
+		double d2 = acx * apx + acy * apy + acz * apz;
+
+		if(d1 <= 0.0D && d2 <= 0.0D) {
+
+			set(out, ax, ay, az);
+			return;
+		}
+
+		double bpx = px - bx, bpy = py - by, bpz = pz - bz;
+		double d3 = abx * bpx + aby * bpy + abz * bpz;
+		double d4 = acx * bpx + acy * bpy + acz * bpz;
+
+		if(d3 >= 0.0D && d4 <= d3) {
+
+			set(out, bx, by, bz);
+			return;
+		}
+
+		double vc = d1 * d4 - d3 * d2;
+
+		if(vc <= 0.0D && d1 >= 0.0D && d3 <= 0.0D) {
+
+			double v = d1 / (d1 - d3);
+			set(out, ax + abx * v, ay + aby * v, az + abz * v);
+			return;
+		}
+
+		double cpx = px - cx, cpy = py - cy, cpz = pz - cz;
+		double d5 = abx * cpx + aby * cpy + abz * cpz;
+		double d6 = acx * cpx + acy * cpy + acz * cpz;
+
+		if(d6 >= 0.0D && d5 <= d6) {
+
+			set(out, cx, cy, cz);
+			return;
+		}
+
+		double vb = d5 * d2 - d1 * d6;
+
+		if(vb <= 0.0D && d2 >= 0.0D && d6 <= 0.0D) {
+
+			double w = d2 / (d2 - d6);
+			set(out, ax + acx * w, ay + acy * w, az + acz * w);
+			return;
+		}
+
+		double va = d3 * d6 - d5 * d4;
+
+		if(va <= 0.0D && (d4 - d3) >= 0.0D && (d5 - d6) >= 0.0D) {
+
+			double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			set(out, bx + (cx - bx) * w, by + (cy - by) * w, bz + (cz - bz) * w);
+			return;
+		}
+
+		double denom = 1.0D / (va + vb + vc);
+		double v = vb * denom;
+		double w = vc * denom;
+		set(out, ax + abx * v + acx * w, ay + aby * v + acy * w, az + abz * v + acz * w);
+	}
+
+	private static void set(double out[], double x, double y, double z) {
+
+		out[0] = x;
+		out[1] = y;
+		out[2] = z;
+	}
+
+	private static void setEmpty(double b[], int o) {
+
+		b[o] = b[o + 1] = b[o + 2] = Double.POSITIVE_INFINITY;
+		b[o + 3] = b[o + 4] = b[o + 5] = Double.NEGATIVE_INFINITY;
+	}
+
+	private static void extend(double b[], int o, double p[], int po) {
+
+		for(int k = 0; k < 3; k++) {
+
+			double v = p[po + k];
+
+			if(v < b[o + k]) b[o + k] = v;
+			if(v > b[o + 3 + k]) b[o + 3 + k] = v;
+		}
+	}
+
+	private static double halfArea(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+
+		double ex = maxX - minX;
+		double ey = maxY - minY;
+		double ez = maxZ - minZ;
+
+		return ex * ey + ey * ez + ez * ex;
+	}
+
+	private static double[] toDouble(float xyz[]) {
+
+		double result[] = new double[xyz.length];
+
+		for(int i = 0; i < xyz.length; i++) {
+
+			result[i] = xyz[i];
+		}
+
+		return result;
+	}
+
+	private static double[] toDouble(Tuple3d points[]) {
+
+		double result[] = new double[points.length * 3];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 3] = points[i].x;
+			result[i * 3 + 1] = points[i].y;
+			result[i * 3 + 2] = points[i].z;
+		}
+
+		return result;
+	}
+
+	private static double[] toDouble(Tuple3f points[]) {
+
+		double result[] = new double[points.length * 3];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 3] = points[i].x;
+			result[i * 3 + 1] = points[i].y;
+			result[i * 3 + 2] = points[i].z;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Builds the subtree of one node over a range of the primitive array.
+	 * Nodes are allocated in pairs so that the right child always follows
+	 * the left one; ranges above the parallel grain are forked.
+	 */
+	private static final class BuildTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -3326150627286312645L;
+
+		private final BoundingVolumeHierarchy bvh;
+		private final double centroids[];
+		private final double primitiveBounds[];
+		private final AtomicInteger allocator;
+		private final AtomicInteger maxDepth;
+		private final int node;
+		private final int level;
+		private final int start;
+		private final int end;
+		private final boolean parallel;
+
+		BuildTask(BoundingVolumeHierarchy bvh, double centroids[], double primitiveBounds[], AtomicInteger allocator, AtomicInteger maxDepth, int node, int level, int start, int end, boolean parallel) {
+
+			this.bvh = bvh;
+			this.centroids = centroids;
+			this.primitiveBounds = primitiveBounds;
+			this.allocator = allocator;
+			this.maxDepth = maxDepth;
+			this.node = node;
+			this.level = level;
+			this.start = start;
+			this.end = end;
+			this.parallel = parallel;
+		}
+
+		@Override
+		protected void compute() {
+
+			this.build(this.node, this.level, this.start, this.end);
+		}
+
+		private void build(int node, int level, int start, int end) {
+
+			int prims[] = this.bvh.primitives;
+			double b[] = this.bvh.bounds;
+			int o = node * 6;
+			double cminX = Double.POSITIVE_INFINITY, cminY = Double.POSITIVE_INFINITY, cminZ = Double.POSITIVE_INFINITY;
+			double cmaxX = Double.NEGATIVE_INFINITY, cmaxY = Double.NEGATIVE_INFINITY, cmaxZ = Double.NEGATIVE_INFINITY;
+
+			setEmpty(b, o);
+
+			for(int i = start; i < end; i++) {
+
+				int p = prims[i];
+
+				for(int k = 0; k < 3; k++) {
+
+					b[o + k] = Math.min(b[o + k], this.primitiveBounds[p * 6 + k]);
+					b[o + 3 + k] = Math.max(b[o + 3 + k], this.primitiveBounds[p * 6 + 3 + k]);
+				}
+
+				double cx = this.centroids[p * 3];
+				double cy = this.centroids[p * 3 + 1];
+				double cz = this.centroids[p * 3 + 2];
+				cminX = Math.min(cminX, cx); cmaxX = Math.max(cmaxX, cx);
+				cminY = Math.min(cminY, cy); cmaxY = Math.max(cmaxY, cy);
+				cminZ = Math.min(cminZ, cz); cmaxZ = Math.max(cmaxZ, cz);
+			}
+
+			int count = end - start;
+
+			if(level > this.maxDepth.get()) {
+
+				this.maxDepth.accumulateAndGet(level, Math::max);
+			}
+
+			if(count <= MAX_LEAF_SIZE) {
+
+				this.makeLeaf(node, start, count);
+				return;
+			}
+
+			// binned SAH over the axis of largest centroid extent.
+			double ex = cmaxX - cminX;
+			double ey = cmaxY - cminY;
+			double ez = cmaxZ - cminZ;
+			int axis = ex >= ey && ex >= ez ? 0 : (ey >= ez ? 1 : 2);
+			double cmin = axis == 0 ? cminX : (axis == 1 ? cminY : cminZ);
+			double extent = axis == 0 ? ex : (axis == 1 ? ey : ez);
+
+			int mid;
+
+			if(extent <= 0.0D) {
+
+				// all centroids coincide, split by count.
+				mid = start + count / 2;
+
+			} else {
+
+				int binCount[] = new int[BIN_COUNT];
+				double binBounds[] = new double[BIN_COUNT * 6];
+				double scale = BIN_COUNT / extent;
+
+				for(int i = 0; i < BIN_COUNT; i++) {
+
+					setEmpty(binBounds, i * 6);
+				}
+
+				for(int i = start; i < end; i++) {
+
+					int p = prims[i];
+					int bin = Math.min(BIN_COUNT - 1, (int)((this.centroids[p * 3 + axis] - cmin) * scale));
+					binCount[bin]++;
+
+					for(int k = 0; k < 3; k++) {
+
+						binBounds[bin * 6 + k] = Math.min(binBounds[bin * 6 + k], this.primitiveBounds[p * 6 + k]);
+						binBounds[bin * 6 + 3 + k] = Math.max(binBounds[bin * 6 + 3 + k], this.primitiveBounds[p * 6 + 3 + k]);
+					}
+				}
+
+				// sweep from the right to get the cost of every right side.
+				double rightArea[] = new double[BIN_COUNT];
+				int rightCount[] = new int[BIN_COUNT];
+				double acc[] = new double[6];
+				setEmpty(acc, 0);
+				int n = 0;
+
+				for(int i = BIN_COUNT - 1; i > 0; i--) {
+
+					n += binCount[i];
+					mergeBounds(acc, binBounds, i * 6);
+					rightCount[i] = n;
+					rightArea[i] = n > 0 ? halfArea(acc[0], acc[1], acc[2], acc[3], acc[4], acc[5]) : 0.0D;
+				}
+
+				setEmpty(acc, 0);
+				n = 0;
+				double bestCost = Double.POSITIVE_INFINITY;
+				int bestSplit = -1;
+
+				for(int i = 0; i < BIN_COUNT - 1; i++) {
+
+					n += binCount[i];
+					mergeBounds(acc, binBounds, i * 6);
+
+					if(n == 0 || rightCount[i + 1] == 0) {
+
+						continue;
+					}
+
+					double cost = n * halfArea(acc[0], acc[1], acc[2], acc[3], acc[4], acc[5]) + rightCount[i + 1] * rightArea[i + 1];
+
+					if(cost < bestCost) {
+
+						bestCost = cost;
+						bestSplit = i;
+					}
+				}
+
+				double nodeArea = halfArea(b[o], b[o + 1], b[o + 2], b[o + 3], b[o + 4], b[o + 5]);
+
+				if(bestSplit < 0) {
+
+					mid = start + count / 2;
+
+				} else if(count <= MAX_LEAF_SIZE * 4 && bestCost / nodeArea + TRAVERSAL_COST >= count) {
+
+					// splitting does not pay off.
+					this.makeLeaf(node, start, count);
+					return;
+
+				} else {
+
+					// partition the range by bin.
+					int i = start;
+					int j = end - 1;
+
+					while(i <= j) {
+
+						int p = prims[i];
+						int bin = Math.min(BIN_COUNT - 1, (int)((this.centroids[p * 3 + axis] - cmin) * scale));
+
+						if(bin <= bestSplit) {
+
+							i++;
+
+						} else {
+
+							prims[i] = prims[j];
+							prims[j--] = p;
+						}
+					}
+
+					mid = i;
+				}
+			}
+
+			if(mid == start || mid == end) {
+
+				mid = start + count / 2;
+			}
+
+			int left = this.allocator.getAndAdd(2);
+			this.bvh.nodeFirst[node] = left;
+			this.bvh.nodeCount[node] = 0;
+
+			if(this.parallel && count > PARALLEL_GRAIN) {
+
+				invokeAll(new BuildTask(this.bvh, this.centroids, this.primitiveBounds, this.allocator, this.maxDepth, left, level + 1, start, mid, true),
+						  new BuildTask(this.bvh, this.centroids, this.primitiveBounds, this.allocator, this.maxDepth, left + 1, level + 1, mid, end, true));
+
+			} else {
+
+				this.build(left, level + 1, start, mid);
+				this.build(left + 1, level + 1, mid, end);
+			}
+		}
+
+		private void makeLeaf(int node, int start, int count) {
+
+			this.bvh.nodeFirst[node] = start;
+			this.bvh.nodeCount[node] = count;
+		}
+
+		private static void mergeBounds(double acc[], double b[], int o) {
+
+			for(int k = 0; k < 3; k++) {
+
+				acc[k] = Math.min(acc[k], b[o + k]);
+				acc[3 + k] = Math.max(acc[3 + k], b[o + 3 + k]);
+			}
+		}
+	}
+}
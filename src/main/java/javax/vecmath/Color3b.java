@@ -66,6 +66,16 @@ public final class Color3b extends Tuple3b implements Serializable {
     	super(t1);
     }
 
+    /**
+     * Constructs and initializes a Color3b from a packed RGB value.
+     * @param rgb the color, red in bits 16-23, green and blue below; other bits are ignored
+     */
+    public Color3b(int rgb) {
+	
+    	super();
+    	this.setRGB(rgb);
+    }
+
     /**
      * Constructs and initializes a Color3b to (0,0,0).
      */
@@ -73,4 +83,27 @@ public final class Color3b extends Tuple3b implements Serializable {
 	
     	super();
     }
+
+    /**
+     * Returns this color as a packed ARGB value with an alpha of 255: red (x)
+     * in bits 16-23, green (y) in bits 8-15 and blue (z) in bits 0-7. The
+     * components are taken as unsigned values 0 to 255.
+     * @return the packed color
+     */
+    public final int getRGB() {
+	
+    	return 0xFF000000 | ((this.x & 0xFF) << 16) | ((this.y & 0xFF) << 8) | (this.z & 0xFF);
+    }
+
+    /**
+     * Sets this color from a packed RGB value; bits 24-31 are ignored.
+     * See {@link #getRGB()}.
+     * @param rgb the packed color
+     */
+    public final void setRGB(int rgb) {
+	
+    	this.x = (byte)(rgb >>> 16);
+    	this.y = (byte)(rgb >>> 8);
+    	this.z = (byte)rgb;
+    }
 }
@@ -67,6 +67,16 @@ public final class Color4b extends Tuple4b implements Serializable {
     	super(t1);
     }
 
+    /**
+     * Constructs and initializes a Color4b from a packed ARGB value.
+     * @param argb the color, alpha in bits 24-31, red, green and blue below
+     */
+    public Color4b(int argb) {
+	
+    	super();
+    	this.setARGB(argb);
+    }
+
     /**
      * Constructs and initializes a Color4b to (0,0,0,0).
      */
@@ -74,4 +84,27 @@ public final class Color4b extends Tuple4b implements Serializable {
 	
     	super();
     }
+
+    /**
+     * Returns this color as a packed ARGB value: alpha (w) in bits 24-31,
+     * red (x) in bits 16-23, green (y) in bits 8-15 and blue (z) in bits 0-7.
+     * The components are taken as unsigned values 0 to 255.
+     * @return the packed color
+     */
+    public final int getARGB() {
+	
+    	return ((this.w & 0xFF) << 24) | ((this.x & 0xFF) << 16) | ((this.y & 0xFF) << 8) | (this.z & 0xFF);
+    }
+
+    /**
+     * Sets this color from a packed ARGB value. See {@link #getARGB()}.
+     * @param argb the packed color
+     */
+    public final void setARGB(int argb) {
+	
+    	this.w = (byte)(argb >>> 24);
+    	this.x = (byte)(argb >>> 16);
+    	this.y = (byte)(argb >>> 8);
+    	this.z = (byte)argb;
+    }
 }
@@ -0,0 +1,745 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Color space conversions of Color3f and Color4f values and of packed float
+ * arrays.
+ * <p>
+ * Packed arrays hold channels floats per pixel, 3 for RGB or 4 for RGBA;
+ * the fourth channel is alpha and is never changed. All conversions work in
+ * place. Components are in [0, 1], hue included.
+ * <p>
+ * The sRGB transfer functions are read from tables with linear
+ * interpolation instead of calling {@link Math#pow(double, double)}: the
+ * decoding table is indexed by the encoded value and the encoding table by
+ * the square root of the linear value, which keeps the interpolation error
+ * near black small. Both are within 1e-6 of the exact functions; inputs are
+ * clamped to [0, 1]. 8 bit components are decoded from an exact table.
+ * <p>
+ * YCbCr is the full range BT.601 (JPEG) encoding, a {@link Matrix3f} plus
+ * an offset of 0.5 for the chroma components. {@link #rgbToXyz(float, float,
+ * float, float, float, float, float, float, Matrix3f)} builds the 3x3
+ * primaries matrix of any RGB space, and {@link #transform(Matrix3f, float[],
+ * int, int, int, ForkJoinPool)} applies a matrix to packed pixels, to convert
+ * between RGB spaces for example.
+ * <p>
+ * The bulk methods take a ForkJoinPool; with a null pool the calling thread
+ * does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class ColorConversion {
+
+	private static final int TABLE_SIZE = 4096;
+
+	// pixels per parallel task.
+	private static final int GRAIN = 1 << 14;
+
+	// linear at i / TABLE_SIZE encoded, and encoded at (i / TABLE_SIZE)^2 linear.
+	private static final float DECODE[] = new float[TABLE_SIZE + 1];
+	private static final float ENCODE[] = new float[TABLE_SIZE + 1];
+	private static final float DECODE_BYTE[] = new float[256];
+
+	private static final float YCBCR[] = {
+		0.299F, 0.587F, 0.114F,
+		-0.168736F, -0.331264F, 0.5F,
+		0.5F, -0.418688F, -0.081312F
+	};
+
+	private static final float RGB_FROM_YCBCR[] = {
+		1.0F, 0.0F, 1.402F,
+		1.0F, -0.344136F, -0.714136F,
+		1.0F, 1.772F, 0.0F
+	};
+
+	static {
+
+		for(int i = 0; i <= TABLE_SIZE; i++) {
+
+			double u = (double)i / TABLE_SIZE;
+			DECODE[i] = (float)decode(u);
+			ENCODE[i] = (float)encode(u * u);
+		}
+
+		for(int i = 0; i < 256; i++) {
+
+			DECODE_BYTE[i] = (float)decode(i / 255.0D);
+		}
+	}
+
+	private ColorConversion() {
+
+	}
+
+	/**
+	 * Returns the linear value of an sRGB encoded component.
+	 * @param v the encoded component, clamped to [0, 1]
+	 * @return the linear component
+	 */
+	public static float srgbToLinear(float v) {
+
+		return lookup(DECODE, v);
+	}
+
+	/**
+	 * Returns the linear value of an 8 bit sRGB encoded component.
+	 * @param v the encoded component; only the low 8 bits are used
+	 * @return the linear component
+	 */
+	public static float srgbToLinear(int v) {
+
+		return DECODE_BYTE[v & 0xFF];
+	}
+
+	/**
+	 * Returns the sRGB encoded value of a linear component.
+	 * @param v the linear component, clamped to [0, 1]
+	 * @return the encoded component
+	 */
+	public static float linearToSrgb(float v) {
+
+		return lookup(ENCODE, v > 0.0F ? (float)Math.sqrt(v) : 0.0F);
+	}
+
+	/**
+	 * Converts the color from sRGB to linear RGB.
+	 * @param c the color
+	 */
+	public static void srgbToLinear(Tuple3f c) {
+
+		c.x = srgbToLinear(c.x);
+		c.y = srgbToLinear(c.y);
+		c.z = srgbToLinear(c.z);
+	}
+
+	/**
+	 * Converts the color from sRGB to linear RGB; alpha is unchanged.
+	 * @param c the color
+	 */
+	public static void srgbToLinear(Tuple4f c) {
+
+		c.x = srgbToLinear(c.x);
+		c.y = srgbToLinear(c.y);
+		c.z = srgbToLinear(c.z);
+	}
+
+	/**
+	 * Converts the color from linear RGB to sRGB.
+	 * @param c the color
+	 */
+	public static void linearToSrgb(Tuple3f c) {
+
+		c.x = linearToSrgb(c.x);
+		c.y = linearToSrgb(c.y);
+		c.z = linearToSrgb(c.z);
+	}
+
+	/**
+	 * Converts the color from linear RGB to sRGB; alpha is unchanged.
+	 * @param c the color
+	 */
+	public static void linearToSrgb(Tuple4f c) {
+
+		c.x = linearToSrgb(c.x);
+		c.y = linearToSrgb(c.y);
+		c.z = linearToSrgb(c.z);
+	}
+
+	/**
+	 * Converts packed pixels from sRGB to linear RGB.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void srgbToLinear(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * channels;
+				data[o] = lookup(DECODE, data[o]);
+				data[o + 1] = lookup(DECODE, data[o + 1]);
+				data[o + 2] = lookup(DECODE, data[o + 2]);
+			}
+		});
+	}
+
+	/**
+	 * Converts packed pixels from linear RGB to sRGB.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void linearToSrgb(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * channels;
+				data[o] = linearToSrgb(data[o]);
+				data[o + 1] = linearToSrgb(data[o + 1]);
+				data[o + 2] = linearToSrgb(data[o + 2]);
+			}
+		});
+	}
+
+	/**
+	 * Decodes sRGB ARGB ints, see {@link PackedColor}, into linear RGBA floats.
+	 * Alpha is scaled to [0, 1] without a transfer function.
+	 * @param argb the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param rgba the array that receives 4 floats per color
+	 * @param rgbaOffset the index of the first float in rgba
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void argbToLinear(int argb[], int argbOffset, float rgba[], int rgbaOffset, int count, ForkJoinPool pool) {
+
+		check(argb.length, argbOffset, count, 1);
+		check(rgba.length, rgbaOffset, count, 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int c = argb[argbOffset + i];
+				int o = rgbaOffset + i * 4;
+				rgba[o] = DECODE_BYTE[(c >>> 16) & 0xFF];
+				rgba[o + 1] = DECODE_BYTE[(c >>> 8) & 0xFF];
+				rgba[o + 2] = DECODE_BYTE[c & 0xFF];
+				rgba[o + 3] = (c >>> 24) * (1.0F / 255.0F);
+			}
+		});
+	}
+
+	/**
+	 * Encodes linear RGBA floats into sRGB ARGB ints, rounding to the nearest
+	 * 8 bit value. Alpha is scaled from [0, 1] without a transfer function.
+	 * @param rgba the colors, 4 floats each
+	 * @param rgbaOffset the index of the first float in rgba
+	 * @param argb the array that receives the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void linearToArgb(float rgba[], int rgbaOffset, int argb[], int argbOffset, int count, ForkJoinPool pool) {
+
+		check(rgba.length, rgbaOffset, count, 4);
+		check(argb.length, argbOffset, count, 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = rgbaOffset + i * 4;
+				int r = toByte(linearToSrgb(rgba[o]));
+				int g = toByte(linearToSrgb(rgba[o + 1]));
+				int b = toByte(linearToSrgb(rgba[o + 2]));
+				int a = toByte(rgba[o + 3]);
+				argb[argbOffset + i] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+		});
+	}
+
+	/**
+	 * Converts the color from RGB to HSV in place: x becomes the hue, y the
+	 * saturation and z the value.
+	 * @param c the color
+	 */
+	public static void rgbToHsv(Tuple3f c) {
+
+		float hsv[] = {c.x, c.y, c.z};
+
+		rgbToHsv(hsv, 0);
+		c.set(hsv);
+	}
+
+	/**
+	 * Converts the color from HSV to RGB in place. See {@link #rgbToHsv(Tuple3f)}.
+	 * @param c the color
+	 */
+	public static void hsvToRgb(Tuple3f c) {
+
+		float rgb[] = {c.x, c.y, c.z};
+
+		hsvToRgb(rgb, 0);
+		c.set(rgb);
+	}
+
+	/**
+	 * Converts the color from RGB to HSL in place: x becomes the hue, y the
+	 * saturation and z the lightness.
+	 * @param c the color
+	 */
+	public static void rgbToHsl(Tuple3f c) {
+
+		float hsl[] = {c.x, c.y, c.z};
+
+		rgbToHsl(hsl, 0);
+		c.set(hsl);
+	}
+
+	/**
+	 * Converts the color from HSL to RGB in place. See {@link #rgbToHsl(Tuple3f)}.
+	 * @param c the color
+	 */
+	public static void hslToRgb(Tuple3f c) {
+
+		float rgb[] = {c.x, c.y, c.z};
+
+		hslToRgb(rgb, 0);
+		c.set(rgb);
+	}
+
+	/**
+	 * Converts packed pixels from RGB to HSV.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void rgbToHsv(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				rgbToHsv(data, offset + i * channels);
+			}
+		});
+	}
+
+	/**
+	 * Converts packed pixels from HSV to RGB.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void hsvToRgb(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				hsvToRgb(data, offset + i * channels);
+			}
+		});
+	}
+
+	/**
+	 * Converts packed pixels from RGB to HSL.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void rgbToHsl(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				rgbToHsl(data, offset + i * channels);
+			}
+		});
+	}
+
+	/**
+	 * Converts packed pixels from HSL to RGB.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void hslToRgb(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				hslToRgb(data, offset + i * channels);
+			}
+		});
+	}
+
+	/**
+	 * Sets m to the matrix of the full range BT.601 RGB to YCbCr conversion,
+	 * without the offset of 0.5 that is added to Cb and Cr.
+	 * @param m the matrix that receives the conversion
+	 */
+	public static void getRgbToYCbCr(Matrix3f m) {
+
+		m.set(YCBCR);
+	}
+
+	/**
+	 * Converts the color from RGB to full range BT.601 YCbCr in place: x
+	 * becomes Y, y becomes Cb and z becomes Cr.
+	 * @param c the color
+	 */
+	public static void rgbToYCbCr(Tuple3f c) {
+
+		float r = c.x;
+		float g = c.y;
+		float b = c.z;
+
+		c.x = YCBCR[0] * r + YCBCR[1] * g + YCBCR[2] * b;
+		c.y = YCBCR[3] * r + YCBCR[4] * g + YCBCR[5] * b + 0.5F;
+		c.z = YCBCR[6] * r + YCBCR[7] * g + YCBCR[8] * b + 0.5F;
+	}
+
+	/**
+	 * Converts the color from YCbCr to RGB in place. See {@link #rgbToYCbCr(Tuple3f)}.
+	 * @param c the color
+	 */
+	public static void yCbCrToRgb(Tuple3f c) {
+
+		float y = c.x;
+		float cb = c.y - 0.5F;
+		float cr = c.z - 0.5F;
+
+		c.x = y + RGB_FROM_YCBCR[2] * cr;
+		c.y = y + RGB_FROM_YCBCR[4] * cb + RGB_FROM_YCBCR[5] * cr;
+		c.z = y + RGB_FROM_YCBCR[7] * cb;
+	}
+
+	/**
+	 * Converts packed pixels from RGB to full range BT.601 YCbCr.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void rgbToYCbCr(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			float m[] = YCBCR;
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * channels;
+				float r = data[o];
+				float g = data[o + 1];
+				float b = data[o + 2];
+				data[o] = m[0] * r + m[1] * g + m[2] * b;
+				data[o + 1] = m[3] * r + m[4] * g + m[5] * b + 0.5F;
+				data[o + 2] = m[6] * r + m[7] * g + m[8] * b + 0.5F;
+			}
+		});
+	}
+
+	/**
+	 * Converts packed pixels from full range BT.601 YCbCr to RGB.
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void yCbCrToRgb(float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			float m[] = RGB_FROM_YCBCR;
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * channels;
+				float y = data[o];
+				float cb = data[o + 1] - 0.5F;
+				float cr = data[o + 2] - 0.5F;
+				data[o] = y + m[2] * cr;
+				data[o + 1] = y + m[4] * cb + m[5] * cr;
+				data[o + 2] = y + m[7] * cb;
+			}
+		});
+	}
+
+	/**
+	 * Sets m to the matrix that converts linear RGB of the specified primaries
+	 * and white point to CIE XYZ, with the white point at Y = 1.
+	 * @param xr the x chromaticity of the red primary
+	 * @param yr the y chromaticity of the red primary
+	 * @param xg the x chromaticity of the green primary
+	 * @param yg the y chromaticity of the green primary
+	 * @param xb the x chromaticity of the blue primary
+	 * @param yb the y chromaticity of the blue primary
+	 * @param xw the x chromaticity of the white point
+	 * @param yw the y chromaticity of the white point
+	 * @param m the matrix that receives the conversion
+	 */
+	public static void rgbToXyz(float xr, float yr, float xg, float yg, float xb, float yb, float xw, float yw, Matrix3f m) {
+
+		// the columns are the XYZ of the primaries, scaled so that they add up to the white point.
+		Matrix3d p = new Matrix3d(xr / yr, xg / yg, xb / yb,
+			1.0D, 1.0D, 1.0D,
+			(1.0D - xr - yr) / yr, (1.0D - xg - yg) / yg, (1.0D - xb - yb) / yb);
+		Vector3d white = new Vector3d((double)xw / yw, 1.0D, (1.0D - xw - yw) / yw);
+		Matrix3d inverse = new Matrix3d(p);
+
+		inverse.invert();
+		inverse.transform(white);
+		p.mul(p, new Matrix3d(white.x, 0.0D, 0.0D, 0.0D, white.y, 0.0D, 0.0D, 0.0D, white.z));
+		m.set(p);
+	}
+
+	/**
+	 * Sets m to the matrix that converts linear sRGB (BT.709 primaries, D65
+	 * white point) to CIE XYZ.
+	 * @param m the matrix that receives the conversion
+	 */
+	public static void srgbToXyz(Matrix3f m) {
+
+		rgbToXyz(0.64F, 0.33F, 0.30F, 0.60F, 0.15F, 0.06F, 0.3127F, 0.3290F, m);
+	}
+
+	/**
+	 * Multiplies the first three channels of packed pixels by m, to convert
+	 * between linear RGB spaces or to XYZ for example.
+	 * @param m the matrix
+	 * @param data the pixels
+	 * @param offset the index of the first pixel's first channel
+	 * @param count the number of pixels
+	 * @param channels 3 for RGB, 4 for RGBA
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void transform(Matrix3f m, float data[], int offset, int count, int channels, ForkJoinPool pool) {
+
+		checkPixels(data.length, offset, count, channels);
+
+		float m00 = m.m00, m01 = m.m01, m02 = m.m02;
+		float m10 = m.m10, m11 = m.m11, m12 = m.m12;
+		float m20 = m.m20, m21 = m.m21, m22 = m.m22;
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * channels;
+				float r = data[o];
+				float g = data[o + 1];
+				float b = data[o + 2];
+				data[o] = m00 * r + m01 * g + m02 * b;
+				data[o + 1] = m10 * r + m11 * g + m12 * b;
+				data[o + 2] = m20 * r + m21 * g + m22 * b;
+			}
+		});
+	}
+
+	private static void rgbToHsv(float c[], int o) {
+
+		float r = c[o];
+		float g = c[o + 1];
+		float b = c[o + 2];
+		float max = Math.max(r, Math.max(g, b));
+		float delta = max - Math.min(r, Math.min(g, b));
+
+		c[o] = hue(r, g, b, max, delta);
+		c[o + 1] = max > 0.0F ? delta / max : 0.0F;
+		c[o + 2] = max;
+	}
+
+	private static void rgbToHsl(float c[], int o) {
+
+		float r = c[o];
+		float g = c[o + 1];
+		float b = c[o + 2];
+		float max = Math.max(r, Math.max(g, b));
+		float min = Math.min(r, Math.min(g, b));
+		float delta = max - min;
+		float l = 0.5F * (max + min);
+		float d = 1.0F - Math.abs(2.0F * l - 1.0F);
+
+		c[o] = hue(r, g, b, max, delta);
+		c[o + 1] = d > 0.0F ? delta / d : 0.0F;
+		c[o + 2] = l;
+	}
+
+	// the hue in [0, 1) of the color with the largest component max.
+	private static float hue(float r, float g, float b, float max, float delta) {
+
+		if(!(delta > 0.0F)) {
+
+			return 0.0F;
+		}
+
+		float h;
+
+		if(max == r) {
+
+			h = (g - b) / delta;
+
+			if(h < 0.0F) {
+
+				h += 6.0F;
+			}
+
+		} else if(max == g) {
+
+			h = (b - r) / delta + 2.0F;
+
+		} else {
+
+			h = (r - g) / delta + 4.0F;
+		}
+
+		h *= 1.0F / 6.0F;
+
+		return h < 1.0F ? h : 0.0F;
+	}
+
+	private static void hsvToRgb(float c[], int o) {
+
+		float v = c[o + 2];
+		float chroma = v * c[o + 1];
+
+		sector(c, o, chroma, v - chroma);
+	}
+
+	private static void hslToRgb(float c[], int o) {
+
+		float l = c[o + 2];
+		float chroma = (1.0F - Math.abs(2.0F * l - 1.0F)) * c[o + 1];
+
+		sector(c, o, chroma, l - 0.5F * chroma);
+	}
+
+	// sets the RGB of hue c[o] with the chroma and the smallest component m.
+	private static void sector(float c[], int o, float chroma, float m) {
+
+		float h = c[o] - (float)Math.floor(c[o]);
+		float h6 = h * 6.0F;
+		int sector = Math.min((int)h6, 5);
+		float x = chroma * (1.0F - Math.abs(h6 - 2.0F * (sector >> 1) - 1.0F)) + m;
+		float v = chroma + m;
+		float r, g, b;
+
+		switch(sector) {
+
+			case 0:
+				r = v; g = x; b = m;
+				break;
+
+			case 1:
+				r = x; g = v; b = m;
+				break;
+
+			case 2:
+				r = m; g = v; b = x;
+				break;
+
+			case 3:
+				r = m; g = x; b = v;
+				break;
+
+			case 4:
+				r = x; g = m; b = v;
+				break;
+
+			default:
+				r = v; g = m; b = x;
+				break;
+		}
+
+		c[o] = r;
+		c[o + 1] = g;
+		c[o + 2] = b;
+	}
+
+	private static float lookup(float table[], float v) {
+
+		if(!(v > 0.0F)) {
+
+			return table[0];
+		}
+
+		if(v >= 1.0F) {
+
+			return table[TABLE_SIZE];
+		}
+
+		float x = v * TABLE_SIZE;
+		int i = (int)x;
+		float a = table[i];
+
+		return a + (x - i) * (table[i + 1] - a);
+	}
+
+	private static int toByte(float v) {
+
+		return v > 0.0F ? (v < 1.0F ? (int)(v * 255.0F + 0.5F) : 255) : 0;
+	}
+
+	private static double decode(double v) {
+
+		return v <= 0.04045D ? v / 12.92D : Math.pow((v + 0.055D) / 1.055D, 2.4D);
+	}
+
+	private static double encode(double v) {
+
+		return v <= 0.0031308D ? v * 12.92D : 1.055D * Math.pow(v, 1.0D / 2.4D) - 0.055D;
+	}
+
+	private static void checkPixels(int length, int offset, int count, int channels) {
+
+		if(channels != 3 && channels != 4) {
+
+			throw new IllegalArgumentException("channels:" + channels);
+		}
+
+		check(length, offset, count, channels);
+	}
+
+	private static void check(int length, int offset, int count, int stride) {
+
+		if(offset < 0 || count < 0 || offset + (long)count * stride > length) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " count:" + count + " length:" + length);
+		}
+	}
+}
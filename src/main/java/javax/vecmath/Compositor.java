@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compositing of premultiplied linear RGBA colors held in packed float
+ * arrays, 4 floats per pixel, or in Color4f values.
+ * <p>
+ * Every operation writes its result over the destination. The blend
+ * {@link Mode}s are applied to all four channels alike, alpha included, so
+ * the inner loops are straight-line arithmetic the JIT can vectorize.
+ * {@link #lerp(float[], int, float[], int, float, int, ForkJoinPool)} is the
+ * packed form of {@link Tuple4f#interpolate(Tuple4f, float)}.
+ * <p>
+ * Pixels are independent of each other. The bulk methods split the pixels,
+ * or the rows of a rectangle, into tiles that run in parallel on a
+ * ForkJoinPool; with a null pool the calling thread does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class Compositor {
+
+	/**
+	 * The blend mode of a composite, with s the source and d the destination
+	 * channel and sa, da their alphas.
+	 */
+	public enum Mode {
+
+		/**
+		 * Porter-Duff source over destination: s + d (1 - sa).
+		 */
+		SRC_OVER,
+
+		/**
+		 * Multiply: s d + s (1 - da) + d (1 - sa).
+		 */
+		MULTIPLY,
+
+		/**
+		 * Screen: s + d - s d.
+		 */
+		SCREEN,
+
+		/**
+		 * Porter-Duff plus, clamped: min(s + d, 1).
+		 */
+		ADD
+	}
+
+	// floats per parallel task.
+	private static final int GRAIN = 1 << 16;
+
+	private Compositor() {
+
+	}
+
+	/**
+	 * Composites src onto dst.
+	 * @param mode the blend mode
+	 * @param src the premultiplied source color
+	 * @param dst the premultiplied destination color, which receives the result
+	 */
+	public static void composite(Mode mode, Tuple4f src, Tuple4f dst) {
+
+		float sx = src.x, sy = src.y, sz = src.z, sw = src.w;
+		float dx = dst.x, dy = dst.y, dz = dst.z, dw = dst.w;
+
+		switch(mode) {
+
+			case SRC_OVER:
+				float k = 1.0F - sw;
+				dst.x = sx + dx * k;
+				dst.y = sy + dy * k;
+				dst.z = sz + dz * k;
+				dst.w = sw + dw * k;
+				break;
+
+			case MULTIPLY:
+				float ks = 1.0F - sw;
+				float kd = 1.0F - dw;
+				dst.x = sx * dx + sx * kd + dx * ks;
+				dst.y = sy * dy + sy * kd + dy * ks;
+				dst.z = sz * dz + sz * kd + dz * ks;
+				dst.w = sw * dw + sw * kd + dw * ks;
+				break;
+
+			case SCREEN:
+				dst.x = sx + dx - sx * dx;
+				dst.y = sy + dy - sy * dy;
+				dst.z = sz + dz - sz * dz;
+				dst.w = sw + dw - sw * dw;
+				break;
+
+			default:
+				dst.x = Math.min(sx + dx, 1.0F);
+				dst.y = Math.min(sy + dy, 1.0F);
+				dst.z = Math.min(sz + dz, 1.0F);
+				dst.w = Math.min(sw + dw, 1.0F);
+				break;
+		}
+	}
+
+	/**
+	 * Composites count packed source pixels onto destination pixels.
+	 * @param mode the blend mode
+	 * @param src the premultiplied source pixels
+	 * @param srcOffset the index of the first source float
+	 * @param dst the premultiplied destination pixels, which receive the result
+	 * @param dstOffset the index of the first destination float
+	 * @param count the number of pixels
+	 * @param pool the pool that runs the composite, or null to run it in the calling thread
+	 */
+	public static void composite(Mode mode, float src[], int srcOffset, float dst[], int dstOffset, int count, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, count);
+		check(dst.length, dstOffset, count);
+
+		if(mode == null) {
+
+			throw new NullPointerException("mode");
+		}
+
+		ParallelLoop.run(pool, 0, count, GRAIN / 4, (from, to) -> {
+
+			blend(mode, src, srcOffset + from * 4, dst, dstOffset + from * 4, (to - from) * 4);
+		});
+	}
+
+	/**
+	 * Composites a rectangle of source pixels onto a rectangle of
+	 * destination pixels. Rows start stride floats apart, so the rectangles
+	 * can be parts of larger images.
+	 * @param mode the blend mode
+	 * @param src the premultiplied source pixels
+	 * @param srcOffset the index of the first float of the first source row
+	 * @param srcStride the floats from one source row to the next, at least 4 width
+	 * @param dst the premultiplied destination pixels, which receive the result
+	 * @param dstOffset the index of the first float of the first destination row
+	 * @param dstStride the floats from one destination row to the next, at least 4 width
+	 * @param width the number of pixels per row
+	 * @param height the number of rows
+	 * @param pool the pool that runs the composite, or null to run it in the calling thread
+	 */
+	public static void composite(Mode mode, float src[], int srcOffset, int srcStride, float dst[], int dstOffset, int dstStride, int width, int height, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, srcStride, width, height);
+		check(dst.length, dstOffset, dstStride, width, height);
+
+		if(mode == null) {
+
+			throw new NullPointerException("mode");
+		}
+
+		ParallelLoop.run(pool, 0, height, Math.max(1, GRAIN / 4 / Math.max(1, width)), (from, to) -> {
+
+			for(int row = from; row < to; row++) {
+
+				blend(mode, src, srcOffset + row * srcStride, dst, dstOffset + row * dstStride, width * 4);
+			}
+		});
+	}
+
+	/**
+	 * Interpolates count packed destination pixels towards the source
+	 * pixels: dst = (1 - alpha) dst + alpha src, for all four channels.
+	 * @param src the source pixels
+	 * @param srcOffset the index of the first source float
+	 * @param dst the destination pixels, which receive the result
+	 * @param dstOffset the index of the first destination float
+	 * @param alpha the interpolation weight of src
+	 * @param count the number of pixels
+	 * @param pool the pool that runs the interpolation, or null to run it in the calling thread
+	 */
+	public static void lerp(float src[], int srcOffset, float dst[], int dstOffset, float alpha, int count, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, count);
+		check(dst.length, dstOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN / 4, (from, to) -> {
+
+			lerp(src, srcOffset + from * 4, dst, dstOffset + from * 4, alpha, (to - from) * 4);
+		});
+	}
+
+	/**
+	 * Interpolates a rectangle of destination pixels towards a rectangle of
+	 * source pixels. See {@link #lerp(float[], int, float[], int, float, int,
+	 * ForkJoinPool)} and {@link #composite(Mode, float[], int, int, float[],
+	 * int, int, int, int, ForkJoinPool)}.
+	 * @param src the source pixels
+	 * @param srcOffset the index of the first float of the first source row
+	 * @param srcStride the floats from one source row to the next, at least 4 width
+	 * @param dst the destination pixels, which receive the result
+	 * @param dstOffset the index of the first float of the first destination row
+	 * @param dstStride the floats from one destination row to the next, at least 4 width
+	 * @param alpha the interpolation weight of src
+	 * @param width the number of pixels per row
+	 * @param height the number of rows
+	 * @param pool the pool that runs the interpolation, or null to run it in the calling thread
+	 */
+	public static void lerp(float src[], int srcOffset, int srcStride, float dst[], int dstOffset, int dstStride, float alpha, int width, int height, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, srcStride, width, height);
+		check(dst.length, dstOffset, dstStride, width, height);
+
+		ParallelLoop.run(pool, 0, height, Math.max(1, GRAIN / 4 / Math.max(1, width)), (from, to) -> {
+
+			for(int row = from; row < to; row++) {
+
+				lerp(src, srcOffset + row * srcStride, dst, dstOffset + row * dstStride, alpha, width * 4);
+			}
+		});
+	}
+
+	// blends n floats, a multiple of 4, picking the loop once per run.
+	private static void blend(Mode mode, float src[], int s, float dst[], int d, int n) {
+
+		switch(mode) {
+
+			case SRC_OVER:
+				srcOver(src, s, dst, d, n);
+				break;
+
+			case MULTIPLY:
+				multiply(src, s, dst, d, n);
+				break;
+
+			case SCREEN:
+				screen(src, s, dst, d, n);
+				break;
+
+			default:
+				add(src, s, dst, d, n);
+				break;
+		}
+	}
+
+	private static void srcOver(float src[], int s, float dst[], int d, int n) {
+
+		for(int i = 0; i < n; i += 4) {
+
+			float k = 1.0F - src[s + i + 3];
+			dst[d + i] = src[s + i] + dst[d + i] * k;
+			dst[d + i + 1] = src[s + i + 1] + dst[d + i + 1] * k;
+			dst[d + i + 2] = src[s + i + 2] + dst[d + i + 2] * k;
+			dst[d + i + 3] = src[s + i + 3] + dst[d + i + 3] * k;
+		}
+	}
+
+	private static void multiply(float src[], int s, float dst[], int d, int n) {
+
+		for(int i = 0; i < n; i += 4) {
+
+			float ks = 1.0F - src[s + i + 3];
+			float kd = 1.0F - dst[d + i + 3];
+
+			for(int c = i; c < i + 4; c++) {
+
+				float a = src[s + c];
+				float b = dst[d + c];
+				dst[d + c] = a * b + a * kd + b * ks;
+			}
+		}
+	}
+
+	private static void screen(float src[], int s, float dst[], int d, int n) {
+
+		for(int i = 0; i < n; i++) {
+
+			float a = src[s + i];
+			float b = dst[d + i];
+			dst[d + i] = a + b - a * b;
+		}
+	}
+
+	private static void add(float src[], int s, float dst[], int d, int n) {
+
+		for(int i = 0; i < n; i++) {
+
+			dst[d + i] = Math.min(src[s + i] + dst[d + i], 1.0F);
+		}
+	}
+
+	private static void lerp(float src[], int s, float dst[], int d, float alpha, int n) {
+
+		float beta = 1.0F - alpha;
+
+		for(int i = 0; i < n; i++) {
+
+			dst[d + i] = beta * dst[d + i] + alpha * src[s + i];
+		}
+	}
+
+	private static void check(int length, int offset, int count) {
+
+		if(offset < 0 || count < 0 || offset + 4L * count > length) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " count:" + count + " length:" + length);
+		}
+	}
+
+	private static void check(int length, int offset, int stride, int width, int height) {
+
+		if(width < 0 || height < 0 || stride < 4L * width) {
+
+			throw new IllegalArgumentException("stride:" + stride + " width:" + width + " height:" + height);
+		}
+
+		if(height > 0 && (offset < 0 || offset + (long)stride * (height - 1) + 4L * width > length)) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " stride:" + stride + " height:" + height + " length:" + length);
+		}
+	}
+}
@@ -0,0 +1,1236 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The convex hull of a set of 3D points, computed with the Quickhull
+ * algorithm.
+ * <p>
+ * The hull is a closed triangle mesh over a subset of the input points.
+ * Faces are reported as three input point indices each, counter clockwise
+ * seen from outside. Orientation tests use the tolerance of John Lloyd's
+ * Quickhull3D, 3 eps (max |x| + max |y| + max |z|) with eps the double
+ * precision: points closer than that to a face count as on it and are not
+ * made hull vertices. As in Quickhull3D, the faces are convex polygons, and
+ * after each point is added the new faces that are nearly coplanar with a
+ * neighbour, or not clearly convex with it, are merged into it; the
+ * polygons are split into triangles for the result. The merging keeps
+ * nearly coplanar points from folding the hull, but points that are also
+ * only a few tolerances apart can still give faces whose planes are off by
+ * more than that. The half edges, faces and planes are kept in flat arrays,
+ * and the points outside a face in a linked list threaded through one int
+ * array, so building allocates only when the arrays grow.
+ * <p>
+ * With a ForkJoinPool the points are split into halves that are processed
+ * in parallel, recursively; the hull is then the hull of the vertices of
+ * the halves' hulls, which are usually far fewer than the points. When
+ * most points are on the hull, as on a sphere, this only adds work, and
+ * many small hulls are better built in parallel with a null pool each.
+ * Points that are all coplanar or collinear have no hull and are rejected
+ * with an IllegalArgumentException.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class ConvexHull3d {
+
+	private static final int NONE = -1;
+
+	// points per parallel task.
+	private static final int GRAIN = 8192;
+
+	private final double tolerance;
+
+	// three point indices and four plane coefficients per face.
+	private final int faces[];
+	private final double planes[];
+
+	// the hull vertices, ascending.
+	private final int vertices[];
+
+	/**
+	 * Constructs the hull of packed points.
+	 * @param xyz the packed coordinates
+	 * @param count the number of points, at least 4
+	 * @param pool the pool that runs the computation, or null to run it in the calling thread
+	 * @throws IllegalArgumentException if the points are coplanar
+	 */
+	public ConvexHull3d(double xyz[], int count, ForkJoinPool pool) {
+
+		if(count < 4 || (long)count * 3 > xyz.length) {
+
+			throw new IllegalArgumentException("count:" + count + " length:" + xyz.length);
+		}
+
+		double mx = 0.0D, my = 0.0D, mz = 0.0D;
+
+		for(int i = 0; i < count; i++) {
+
+			mx = Math.max(mx, Math.abs(xyz[i * 3]));
+			my = Math.max(my, Math.abs(xyz[i * 3 + 1]));
+			mz = Math.max(mz, Math.abs(xyz[i * 3 + 2]));
+		}
+
+		this.tolerance = 3.0D * Math.ulp(1.0D) * (mx + my + mz);
+
+		int ids[] = new int[count];
+
+		for(int i = 0; i < count; i++) {
+
+			ids[i] = i;
+		}
+
+		int n = count;
+
+		if(pool != null && count > GRAIN) {
+
+			HullTask root = new HullTask(xyz, ids, 0, count, this.tolerance, true);
+
+			pool.invoke(root);
+			n = root.count;
+		}
+
+		Quickhull hull = new Quickhull(xyz, this.tolerance);
+
+		if(!hull.build(ids, 0, n)) {
+
+			throw new IllegalArgumentException("the points are coplanar");
+		}
+
+		this.faces = hull.getFaces();
+		this.planes = hull.getPlanes();
+
+		int sorted[] = this.faces.clone();
+		int unique = 0;
+
+		Arrays.sort(sorted);
+
+		for(int i = 0; i < sorted.length; i++) {
+
+			if(i == 0 || sorted[i] != sorted[i - 1]) {
+
+				sorted[unique++] = sorted[i];
+			}
+		}
+
+		this.vertices = Arrays.copyOf(sorted, unique);
+	}
+
+	/**
+	 * Constructs the hull of packed points.
+	 * @param xyz the packed coordinates
+	 * @param count the number of points, at least 4
+	 * @param pool the pool that runs the computation, or null to run it in the calling thread
+	 * @throws IllegalArgumentException if the points are coplanar
+	 */
+	public ConvexHull3d(float xyz[], int count, ForkJoinPool pool) {
+
+		this(toDouble(xyz, count), count, pool);
+	}
+
+	/**
+	 * Constructs the hull of points.
+	 * @param points the points, at least 4
+	 * @param pool the pool that runs the computation, or null to run it in the calling thread
+	 * @throws IllegalArgumentException if the points are coplanar
+	 */
+	public ConvexHull3d(Tuple3d points[], ForkJoinPool pool) {
+
+		this(toDouble(points), points.length, pool);
+	}
+
+	/**
+	 * Returns the distance below which points count as on a face.
+	 * @return the tolerance
+	 */
+	public final double getTolerance() {
+
+		return this.tolerance;
+	}
+
+	/**
+	 * Returns the number of hull vertices.
+	 * @return the vertex count
+	 */
+	public final int getVertexCount() {
+
+		return this.vertices.length;
+	}
+
+	/**
+	 * Copies the input indices of the hull vertices, ascending, into dst.
+	 * @param dst the array that receives the indices
+	 */
+	public final void getVertices(int dst[]) {
+
+		System.arraycopy(this.vertices, 0, dst, 0, this.vertices.length);
+	}
+
+	/**
+	 * Returns the number of triangular faces.
+	 * @return the face count
+	 */
+	public final int getFaceCount() {
+
+		return this.faces.length / 3;
+	}
+
+	/**
+	 * Copies the faces into dst, three input indices per face, counter
+	 * clockwise seen from outside.
+	 * @param dst the array that receives the indices
+	 */
+	public final void getFaces(int dst[]) {
+
+		System.arraycopy(this.faces, 0, dst, 0, this.faces.length);
+	}
+
+	/**
+	 * Returns whether a point is inside the hull or within ten times the
+	 * tolerance of its boundary, the distance that the vertices of a face
+	 * merged from nearly coplanar ones can have from its plane.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @return true if the point is in the hull
+	 */
+	public final boolean contains(double x, double y, double z) {
+
+		double p[] = this.planes;
+		double slack = 10.0D * this.tolerance;
+
+		for(int i = 0; i < p.length; i += 4) {
+
+			if(p[i] * x + p[i + 1] * y + p[i + 2] * z + p[i + 3] > slack) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether a point is inside the hull or within ten times the
+	 * tolerance of its boundary.
+	 * @param p1 the point
+	 * @return true if the point is in the hull
+	 */
+	public final boolean contains(Tuple3d p1) {
+
+		return this.contains(p1.x, p1.y, p1.z);
+	}
+
+	// the unit normal and offset of the plane through points a, b and c, counter clockwise.
+	private static void plane(double p[], int a, int b, int c, double plane[], int o) {
+
+		double ax = p[a * 3], ay = p[a * 3 + 1], az = p[a * 3 + 2];
+		double e1x = p[b * 3] - ax, e1y = p[b * 3 + 1] - ay, e1z = p[b * 3 + 2] - az;
+		double e2x = p[c * 3] - ax, e2y = p[c * 3 + 1] - ay, e2z = p[c * 3 + 2] - az;
+		double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+		double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		double s = length > 0.0D ? 1.0D / length : 0.0D;
+
+		plane[o] = nx * s;
+		plane[o + 1] = ny * s;
+		plane[o + 2] = nz * s;
+		plane[o + 3] = -(plane[o] * ax + plane[o + 1] * ay + plane[o + 2] * az);
+	}
+
+	private static double[] toDouble(float xyz[], int count) {
+
+		if(count < 0 || (long)count * 3 > xyz.length) {
+
+			throw new IllegalArgumentException("count:" + count + " length:" + xyz.length);
+		}
+
+		double result[] = new double[count * 3];
+
+		for(int i = 0; i < count * 3; i++) {
+
+			result[i] = xyz[i];
+		}
+
+		return result;
+	}
+
+	private static double[] toDouble(Tuple3d points[]) {
+
+		double result[] = new double[points.length * 3];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 3] = points[i].x;
+			result[i * 3 + 1] = points[i].y;
+			result[i * 3 + 2] = points[i].z;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reduces the points ids[lo, hi) to the vertices of their hull, moved to
+	 * the start of the range: reduces both halves of the range in parallel
+	 * and takes the hull of what is left. Ranges that have no hull are kept
+	 * whole.
+	 */
+	private static final class HullTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 6212803496217830421L;
+
+		private final double p[];
+		private final int ids[];
+		private final int lo;
+		private final int hi;
+		private final double tolerance;
+
+		// the root only reduces its halves; their hull is the result.
+		private final boolean root;
+
+		// the number of points left at the start of the range.
+		int count;
+
+		HullTask(double p[], int ids[], int lo, int hi, double tolerance, boolean root) {
+
+			this.p = p;
+			this.ids = ids;
+			this.lo = lo;
+			this.hi = hi;
+			this.tolerance = tolerance;
+			this.root = root;
+		}
+
+		@Override
+		protected void compute() {
+
+			int hi = this.hi;
+
+			if(hi - this.lo > GRAIN) {
+
+				int m = (this.lo + hi) >>> 1;
+				HullTask left = new HullTask(this.p, this.ids, this.lo, m, this.tolerance, false);
+				HullTask right = new HullTask(this.p, this.ids, m, hi, this.tolerance, false);
+
+				invokeAll(left, right);
+				System.arraycopy(this.ids, m, this.ids, this.lo + left.count, right.count);
+				hi = this.lo + left.count + right.count;
+			}
+
+			if(this.root) {
+
+				this.count = hi - this.lo;
+				return;
+			}
+
+			Quickhull hull = new Quickhull(this.p, this.tolerance);
+
+			this.count = hull.build(this.ids, this.lo, hi) ? hull.getVertices(this.ids, this.lo) : hi - this.lo;
+		}
+	}
+
+	/**
+	 * The serial Quickhull over a range of point indices. Points are
+	 * addressed by their position in the range; faces are convex polygons of
+	 * half edges, addressed by their index in the face and edge arrays, where
+	 * faces and edges removed from the hull stay dead. After a point is added,
+	 * new faces that are coplanar or not convex with a neighbour are merged
+	 * with it, as in Quickhull3D.
+	 */
+	private static final class Quickhull {
+
+		// face marks: on the hull, on it but not convex with a neighbour, or removed.
+		private static final int HULL = 0;
+		private static final int NON_CONVEX = 1;
+		private static final int DELETED = 2;
+
+		private final double p[];
+		private final double tolerance;
+
+		// the input index of every point, and the next point in the same outside list.
+		private int ids[];
+		private int next[];
+		private int n;
+
+		// per half edge: the point it ends at, its face, the next and previous edges of the face and the twin edge.
+		private int heads[] = new int[3 * 64];
+		private int owners[] = new int[3 * 64];
+		private int successors[] = new int[3 * 64];
+		private int predecessors[] = new int[3 * 64];
+		private int twins[] = new int[3 * 64];
+		private int edgeCount;
+
+		// per face: an edge, the mark, the outside list, the plane, centroid, area and number of vertices.
+		private int edges[] = new int[64];
+		private int marks[] = new int[64];
+		private int outside[] = new int[64];
+		private double planes[] = new double[4 * 64];
+		private double centroids[] = new double[3 * 64];
+		private double areas[] = new double[64];
+		private int sizes[] = new int[64];
+		private int faceCount;
+
+		// scratch lists: faces to process, the horizon search, horizon edges, points to reassign and merged faces.
+		private int pending[] = new int[64];
+		private int frames[] = new int[64];
+		private int horizon[] = new int[64];
+		private int unclaimed[] = new int[64];
+		private int unclaimedCount;
+		private final int discarded[] = new int[3];
+		private int discardedCount;
+
+		// the merge check that last met a point on a face.
+		private int seen[];
+		private int stamp;
+
+		Quickhull(double p[], double tolerance) {
+
+			this.p = p;
+			this.tolerance = tolerance;
+		}
+
+		// builds the hull of ids[lo, hi); false if the points have none.
+		boolean build(int ids[], int lo, int hi) {
+
+			this.n = hi - lo;
+			this.ids = Arrays.copyOfRange(ids, lo, hi);
+			this.next = new int[this.n];
+			this.seen = new int[this.n];
+
+			if(this.n < 4 || !this.simplex()) {
+
+				return false;
+			}
+
+			int top = 0;
+
+			for(int f = 0; f < this.faceCount; f++) {
+
+				if(this.outside[f] != NONE) {
+
+					this.pending = push(this.pending, top++, f);
+				}
+			}
+
+			while(top > 0) {
+
+				int f = this.pending[--top];
+
+				if(this.marks[f] == DELETED || this.outside[f] == NONE) {
+
+					continue;
+				}
+
+				int eye = this.farthest(f);
+				int first = this.faceCount;
+
+				this.addPoint(eye, f);
+
+				for(int g = first; g < this.faceCount; g++) {
+
+					if(this.marks[g] != DELETED && this.outside[g] != NONE) {
+
+						this.pending = push(this.pending, top++, g);
+					}
+				}
+			}
+
+			return true;
+		}
+
+		// the input indices of the live faces, split into triangles, three per triangle.
+		int[] getFaces() {
+
+			int result[] = new int[this.triangles() * 3];
+			int count = 0;
+
+			for(int f = 0; f < this.faceCount; f++) {
+
+				if(this.marks[f] != DELETED) {
+
+					int e0 = this.edges[f];
+					int v0 = this.ids[this.heads[e0]];
+
+					for(int e = this.successors[e0]; this.successors[e] != e0; e = this.successors[e]) {
+
+						result[count++] = v0;
+						result[count++] = this.ids[this.heads[e]];
+						result[count++] = this.ids[this.heads[this.successors[e]]];
+					}
+				}
+			}
+
+			return result;
+		}
+
+		// the plane of the face of every triangle of getFaces, four coefficients per triangle.
+		double[] getPlanes() {
+
+			double result[] = new double[this.triangles() * 4];
+			int count = 0;
+
+			for(int f = 0; f < this.faceCount; f++) {
+
+				if(this.marks[f] != DELETED) {
+
+					for(int t = 2; t < this.sizes[f]; t++) {
+
+						System.arraycopy(this.planes, f * 4, result, count, 4);
+						count += 4;
+					}
+				}
+			}
+
+			return result;
+		}
+
+		// writes the input indices of the hull vertices to dst from offset; returns their number.
+		int getVertices(int dst[], int offset) {
+
+			boolean used[] = new boolean[this.n];
+			int count = 0;
+
+			for(int f = 0; f < this.faceCount; f++) {
+
+				if(this.marks[f] != DELETED) {
+
+					int e = this.edges[f];
+
+					do {
+
+						int v = this.heads[e];
+
+						if(!used[v]) {
+
+							used[v] = true;
+							dst[offset + count++] = this.ids[v];
+						}
+
+						e = this.successors[e];
+
+					} while(e != this.edges[f]);
+				}
+			}
+
+			return count;
+		}
+
+		private int triangles() {
+
+			int count = 0;
+
+			for(int f = 0; f < this.faceCount; f++) {
+
+				if(this.marks[f] != DELETED) {
+
+					count += this.sizes[f] - 2;
+				}
+			}
+
+			return count;
+		}
+
+		// the starting tetrahedron of four extreme points, with every point in the outside list of its farthest face.
+		private boolean simplex() {
+
+			int a = 0;
+			int b = 0;
+			double extent = -1.0D;
+
+			for(int axis = 0; axis < 3; axis++) {
+
+				int min = 0;
+				int max = 0;
+
+				for(int i = 1; i < this.n; i++) {
+
+					if(this.coord(i, axis) < this.coord(min, axis)) {
+
+						min = i;
+					}
+
+					if(this.coord(i, axis) > this.coord(max, axis)) {
+
+						max = i;
+					}
+				}
+
+				if(this.coord(max, axis) - this.coord(min, axis) > extent) {
+
+					extent = this.coord(max, axis) - this.coord(min, axis);
+					a = min;
+					b = max;
+				}
+			}
+
+			if(!(extent > this.tolerance)) {
+
+				return false;
+			}
+
+			// the point farthest from the line ab, then from the plane abc.
+			double dx = this.coord(b, 0) - this.coord(a, 0);
+			double dy = this.coord(b, 1) - this.coord(a, 1);
+			double dz = this.coord(b, 2) - this.coord(a, 2);
+			double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			int c = NONE;
+			double best = this.tolerance;
+
+			for(int i = 0; i < this.n; i++) {
+
+				double ex = this.coord(i, 0) - this.coord(a, 0);
+				double ey = this.coord(i, 1) - this.coord(a, 1);
+				double ez = this.coord(i, 2) - this.coord(a, 2);
+				double cx = ey * dz - ez * dy, cy = ez * dx - ex * dz, cz = ex * dy - ey * dx;
+				double distance = Math.sqrt(cx * cx + cy * cy + cz * cz) / length;
+
+				if(distance > best) {
+
+					best = distance;
+					c = i;
+				}
+			}
+
+			if(c == NONE) {
+
+				return false;
+			}
+
+			double q[] = new double[4];
+			int d = NONE;
+			best = this.tolerance;
+
+			plane(this.p, this.ids[a], this.ids[b], this.ids[c], q, 0);
+
+			for(int i = 0; i < this.n; i++) {
+
+				int o = this.ids[i] * 3;
+				double distance = Math.abs(q[0] * this.p[o] + q[1] * this.p[o + 1] + q[2] * this.p[o + 2] + q[3]);
+
+				if(distance > best) {
+
+					best = distance;
+					d = i;
+				}
+			}
+
+			if(d == NONE) {
+
+				return false;
+			}
+
+			int o = this.ids[d] * 3;
+
+			if(q[0] * this.p[o] + q[1] * this.p[o + 1] + q[2] * this.p[o + 2] + q[3] > 0.0D) {
+
+				int t = b;
+				b = c;
+				c = t;
+			}
+
+			// abc faces away from d; the other three faces keep that orientation.
+			this.faceCount = 0;
+			this.edgeCount = 0;
+			this.addTriangle(a, b, c);
+			this.addTriangle(a, d, b);
+			this.addTriangle(b, d, c);
+			this.addTriangle(c, d, a);
+
+			for(int e = 0; e < 12; e++) {
+
+				int tail = this.heads[this.predecessors[e]];
+
+				for(int t = 0; t < 12; t++) {
+
+					if(this.heads[t] == tail && this.heads[this.predecessors[t]] == this.heads[e]) {
+
+						this.twins[e] = t;
+					}
+				}
+			}
+
+			for(int i = 0; i < this.n; i++) {
+
+				if(i != a && i != b && i != c && i != d) {
+
+					this.assign(i, 0, 4);
+				}
+			}
+
+			return true;
+		}
+
+		// adds eye to the hull: removes the faces it sees, closes the hole with faces to the eye and merges them.
+		private void addPoint(int eye, int face) {
+
+			int first = this.faceCount;
+			int horizonCount = 0;
+			int top = 0;
+
+			this.unlink(eye, face);
+			this.unclaimedCount = 0;
+			this.remove(face, NONE);
+			this.frames = push(this.frames, top++, this.edges[face]);
+			this.frames = push(this.frames, top++, this.sizes[face]);
+
+			// the faces the eye sees, depth first, so the horizon edges come in order around the hole.
+			while(top > 0) {
+
+				if(this.frames[top - 1] == 0) {
+
+					top -= 2;
+					continue;
+				}
+
+				int e = this.frames[top - 2];
+
+				this.frames[top - 2] = this.successors[e];
+				this.frames[top - 1]--;
+
+				int g = this.owners[this.twins[e]];
+
+				if(this.marks[g] == DELETED) {
+
+					continue;
+				}
+
+				if(this.distance(g, eye) > this.tolerance) {
+
+					this.remove(g, NONE);
+					this.frames = push(this.frames, top++, this.successors[this.twins[e]]);
+					this.frames = push(this.frames, top++, this.sizes[g] - 1);
+
+				} else {
+
+					this.horizon = push(this.horizon, horizonCount++, e);
+				}
+			}
+
+			int firstSide = NONE;
+			int lastSide = NONE;
+
+			for(int h = 0; h < horizonCount; h++) {
+
+				int e = this.horizon[h];
+				boolean fold = this.folds(e, eye);
+				int f = this.addTriangle(eye, this.heads[this.predecessors[e]], this.heads[e]);
+				int side = this.edges[f];
+				int base = this.predecessors[side];
+
+				this.twins[base] = this.twins[e];
+				this.twins[this.twins[e]] = base;
+				this.horizon[h] = fold ? base : NONE;
+
+				if(lastSide != NONE) {
+
+					this.twins[this.successors[side]] = lastSide;
+					this.twins[lastSide] = this.successors[side];
+
+				} else {
+
+					firstSide = side;
+				}
+
+				lastSide = side;
+			}
+
+			this.twins[this.successors[firstSide]] = lastSide;
+			this.twins[lastSide] = this.successors[firstSide];
+
+			// a new face folded over the face across its horizon edge lies in that face's plane; it goes into it.
+			for(int h = 0; h < horizonCount; h++) {
+
+				int e = this.horizon[h];
+
+				if(e != NONE && this.marks[this.owners[e]] != DELETED && this.joinable(this.owners[e], e)) {
+
+					this.absorb(this.owners[e], e);
+				}
+			}
+
+			// merge new faces that are not clearly convex with a neighbour, judged by the larger face first.
+			for(int f = first; f < this.faceCount; f++) {
+
+				while(this.marks[f] == HULL && this.merge(f, false)) {
+
+					continue;
+				}
+			}
+
+			for(int f = first; f < this.faceCount; f++) {
+
+				if(this.marks[f] == NON_CONVEX) {
+
+					this.marks[f] = HULL;
+
+					while(this.merge(f, true)) {
+
+						continue;
+					}
+				}
+			}
+
+			// the points outside the removed faces move to the new faces or are inside now.
+			for(int u = 0; u < this.unclaimedCount; u++) {
+
+				this.assign(this.unclaimed[u], first, this.faceCount);
+			}
+		}
+
+		// whether the new face from horizon edge e to the eye would lie folded over the face across e,
+		// which is only a rounding error away from the eye seeing that face.
+		private boolean folds(int e, int eye) {
+
+			int f = this.owners[e];
+			int g = this.owners[this.twins[e]];
+			double q[] = this.planes;
+
+			// an eye well below that face, or across a sharp edge, can lie over it and still be right.
+			if(this.distance(g, eye) < -10.0D * this.tolerance || q[f * 4] * q[g * 4] + q[f * 4 + 1] * q[g * 4 + 1] + q[f * 4 + 2] * q[g * 4 + 2] <= 0.0D) {
+
+				return false;
+			}
+
+			int v0 = this.ids[eye] * 3;
+			int v1 = this.ids[this.heads[this.predecessors[e]]] * 3;
+			int v2 = this.ids[this.heads[e]] * 3;
+			double dx = this.p[v1] - this.p[v0], dy = this.p[v1 + 1] - this.p[v0 + 1], dz = this.p[v1 + 2] - this.p[v0 + 2];
+			double ex = this.p[v2] - this.p[v0], ey = this.p[v2 + 1] - this.p[v0 + 1], ez = this.p[v2 + 2] - this.p[v0 + 2];
+
+			return (dy * ez - dz * ey) * q[g * 4] + (dz * ex - dx * ez) * q[g * 4 + 1] + (dx * ey - dy * ex) * q[g * 4 + 2] < 0.0D;
+		}
+
+		// merges face f with the first neighbour it is not convex with; either or, first, the larger one decides.
+		private boolean merge(int f, boolean either) {
+
+			int e = this.edges[f];
+			boolean convex = true;
+
+			do {
+
+				int g = this.owners[this.twins[e]];
+				boolean merge;
+
+				if(either) {
+
+					merge = this.centroidDistance(e) > -this.tolerance || this.centroidDistance(this.twins[e]) > -this.tolerance;
+
+				} else {
+
+					int larger = this.areas[f] > this.areas[g] ? e : this.twins[e];
+					int smaller = this.twins[larger];
+
+					merge = this.centroidDistance(larger) > -this.tolerance;
+					convex &= merge || this.centroidDistance(smaller) <= -this.tolerance;
+				}
+
+				if(merge && this.joinable(f, e)) {
+
+					this.absorb(f, e);
+					return true;
+				}
+
+				e = this.successors[e];
+
+			} while(e != this.edges[f]);
+
+			if(!convex) {
+
+				this.marks[f] = NON_CONVEX;
+			}
+
+			return false;
+		}
+
+		// joins the face across edge e into face f and hands the points of the faces it drops to f.
+		private void absorb(int f, int e) {
+
+			this.discardedCount = 0;
+			this.join(f, e);
+
+			for(int i = 0; i < this.discardedCount; i++) {
+
+				this.remove(this.discarded[i], f);
+			}
+		}
+
+		// whether the face across edge e can be absorbed into face f without a vertex of f showing up
+		// twice in it, around faces that f and that face would enclose; those go first.
+		private boolean joinable(int f, int e) {
+
+			int g = this.owners[this.twins[e]];
+			int previous = this.predecessors[e];
+			int following = this.successors[e];
+			int twinFollowing = this.successors[this.twins[e]];
+			int twinPrevious = this.predecessors[this.twins[e]];
+
+			for(int k = 0; this.owners[this.twins[previous]] == g; k++) {
+
+				if(k == this.sizes[f]) {
+
+					return false;
+				}
+
+				previous = this.predecessors[previous];
+				twinFollowing = this.successors[twinFollowing];
+			}
+
+			while(this.owners[this.twins[following]] == g) {
+
+				twinPrevious = this.predecessors[twinPrevious];
+				following = this.successors[following];
+			}
+
+			// a lone edge left of that face, bordering the same face as the edge after it, would be
+			// dropped by the first relink and then used by the second.
+			if(twinFollowing == twinPrevious && this.owners[this.twins[twinPrevious]] == this.owners[this.twins[following]]) {
+
+				return false;
+			}
+
+			this.stamp++;
+
+			for(int h = following; h != this.successors[previous]; h = this.successors[h]) {
+
+				this.seen[this.heads[h]] = this.stamp;
+			}
+
+			for(int h = twinFollowing; h != twinPrevious; h = this.successors[h]) {
+
+				if(this.seen[this.heads[h]] == this.stamp) {
+
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		// absorbs the face across edge e into face f.
+		private void join(int f, int e) {
+
+			int g = this.owners[this.twins[e]];
+			int twin = this.twins[e];
+			int previous = this.predecessors[e];
+			int following = this.successors[e];
+			int twinPrevious = this.predecessors[twin];
+			int twinFollowing = this.successors[twin];
+
+			this.marks[g] = DELETED;
+			this.discarded[this.discardedCount++] = g;
+
+			// the shared edges can be a chain.
+			while(this.owners[this.twins[previous]] == g) {
+
+				previous = this.predecessors[previous];
+				twinFollowing = this.successors[twinFollowing];
+			}
+
+			while(this.owners[this.twins[following]] == g) {
+
+				twinPrevious = this.predecessors[twinPrevious];
+				following = this.successors[following];
+			}
+
+			for(int h = twinFollowing; h != this.successors[twinPrevious]; h = this.successors[h]) {
+
+				this.owners[h] = f;
+			}
+
+			if(e == this.edges[f]) {
+
+				this.edges[f] = following;
+			}
+
+			this.connect(f, twinPrevious, following);
+			this.connect(f, previous, twinFollowing);
+
+			this.update(f);
+		}
+
+		// links edge e after edge previous in face f; if both border the same face the vertex between them goes.
+		private void connect(int f, int previous, int e) {
+
+			int g = this.owners[this.twins[e]];
+
+			if(this.owners[this.twins[previous]] != g) {
+
+				this.successors[previous] = e;
+				this.predecessors[e] = previous;
+				return;
+			}
+
+			int twin;
+
+			if(previous == this.edges[f]) {
+
+				this.edges[f] = e;
+			}
+
+			if(this.sizes[g] == 3) {
+
+				// a triangle left with one edge outside the merged face goes too.
+				twin = this.twins[this.predecessors[this.twins[e]]];
+				this.marks[g] = DELETED;
+				this.discarded[this.discardedCount++] = g;
+
+			} else {
+
+				twin = this.successors[this.twins[e]];
+
+				if(this.edges[g] == this.predecessors[twin]) {
+
+					this.edges[g] = twin;
+				}
+
+				this.predecessors[twin] = this.predecessors[this.predecessors[twin]];
+				this.successors[this.predecessors[twin]] = twin;
+			}
+
+			this.predecessors[e] = this.predecessors[previous];
+			this.successors[this.predecessors[e]] = e;
+			this.twins[e] = twin;
+			this.twins[twin] = e;
+			this.update(g);
+		}
+
+		// the signed distance of the centroid of the face across edge e above the face of e.
+		private double centroidDistance(int e) {
+
+			int f = this.owners[e];
+			int g = this.owners[this.twins[e]];
+			double q[] = this.planes;
+			double c[] = this.centroids;
+
+			return q[f * 4] * c[g * 3] + q[f * 4 + 1] * c[g * 3 + 1] + q[f * 4 + 2] * c[g * 3 + 2] + q[f * 4 + 3];
+		}
+
+		// marks face f removed and moves its outside points to face into, if above it, or to the unclaimed ones.
+		private void remove(int f, int into) {
+
+			int i = this.outside[f];
+
+			this.marks[f] = DELETED;
+			this.outside[f] = NONE;
+
+			while(i != NONE) {
+
+				int following = this.next[i];
+
+				if(into != NONE && this.distance(into, i) > this.tolerance) {
+
+					this.next[i] = this.outside[into];
+					this.outside[into] = i;
+
+				} else {
+
+					this.unclaimed = push(this.unclaimed, this.unclaimedCount++, i);
+				}
+
+				i = following;
+			}
+		}
+
+		// removes point i from the outside list of face f.
+		private void unlink(int i, int f) {
+
+			if(this.outside[f] == i) {
+
+				this.outside[f] = this.next[i];
+				return;
+			}
+
+			for(int j = this.outside[f]; j != NONE; j = this.next[j]) {
+
+				if(this.next[j] == i) {
+
+					this.next[j] = this.next[i];
+					return;
+				}
+			}
+		}
+
+		// puts point i in the outside list of the live face of [from, to) farthest below it, if any.
+		private void assign(int i, int from, int to) {
+
+			int best = NONE;
+			double max = this.tolerance;
+
+			for(int f = from; f < to; f++) {
+
+				double distance = this.marks[f] != DELETED ? this.distance(f, i) : 0.0D;
+
+				if(distance > max) {
+
+					max = distance;
+					best = f;
+				}
+			}
+
+			if(best != NONE) {
+
+				this.next[i] = this.outside[best];
+				this.outside[best] = i;
+			}
+		}
+
+		private int farthest(int f) {
+
+			int best = this.outside[f];
+			double max = this.distance(f, best);
+
+			for(int i = this.next[best]; i != NONE; i = this.next[i]) {
+
+				double distance = this.distance(f, i);
+
+				if(distance > max) {
+
+					max = distance;
+					best = i;
+				}
+			}
+
+			return best;
+		}
+
+		// adds the triangle abc, its first edge ending at a.
+		private int addTriangle(int a, int b, int c) {
+
+			int f = this.faceCount++;
+			int e = this.edgeCount;
+
+			if(f == this.outside.length) {
+
+				int length = f * 2;
+				this.edges = Arrays.copyOf(this.edges, length);
+				this.marks = Arrays.copyOf(this.marks, length);
+				this.outside = Arrays.copyOf(this.outside, length);
+				this.planes = Arrays.copyOf(this.planes, length * 4);
+				this.centroids = Arrays.copyOf(this.centroids, length * 3);
+				this.areas = Arrays.copyOf(this.areas, length);
+				this.sizes = Arrays.copyOf(this.sizes, length);
+			}
+
+			if(e + 3 > this.heads.length) {
+
+				int length = this.heads.length * 2;
+				this.heads = Arrays.copyOf(this.heads, length);
+				this.owners = Arrays.copyOf(this.owners, length);
+				this.successors = Arrays.copyOf(this.successors, length);
+				this.predecessors = Arrays.copyOf(this.predecessors, length);
+				this.twins = Arrays.copyOf(this.twins, length);
+			}
+
+			this.heads[e] = a;
+			this.heads[e + 1] = b;
+			this.heads[e + 2] = c;
+
+			for(int k = 0; k < 3; k++) {
+
+				this.owners[e + k] = f;
+				this.successors[e + k] = e + (k + 1) % 3;
+				this.predecessors[e + k] = e + (k + 2) % 3;
+			}
+
+			this.edgeCount += 3;
+			this.edges[f] = e;
+			this.marks[f] = HULL;
+			this.outside[f] = NONE;
+			this.update(f);
+
+			return f;
+		}
+
+		// the plane, centroid, area and number of vertices of face f; the normal sums a fan of triangles.
+		private void update(int f) {
+
+			int e0 = this.edges[f];
+			int v0 = this.ids[this.heads[e0]] * 3;
+			double x0 = this.p[v0], y0 = this.p[v0 + 1], z0 = this.p[v0 + 2];
+			double nx = 0.0D, ny = 0.0D, nz = 0.0D;
+			double cx = x0, cy = y0, cz = z0;
+			int v = this.ids[this.heads[this.successors[e0]]] * 3;
+			double dx = this.p[v] - x0, dy = this.p[v + 1] - y0, dz = this.p[v + 2] - z0;
+			int size = 2;
+
+			cx += this.p[v];
+			cy += this.p[v + 1];
+			cz += this.p[v + 2];
+
+			for(int e = this.successors[this.successors[e0]]; e != e0; e = this.successors[e]) {
+
+				v = this.ids[this.heads[e]] * 3;
+
+				double ex = this.p[v] - x0, ey = this.p[v + 1] - y0, ez = this.p[v + 2] - z0;
+
+				nx += dy * ez - dz * ey;
+				ny += dz * ex - dx * ez;
+				nz += dx * ey - dy * ex;
+				dx = ex;
+				dy = ey;
+				dz = ez;
+				cx += this.p[v];
+				cy += this.p[v + 1];
+				cz += this.p[v + 2];
+				size++;
+			}
+
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			double s = length > 0.0D ? 1.0D / length : 0.0D;
+
+			cx /= size;
+			cy /= size;
+			cz /= size;
+			this.planes[f * 4] = nx * s;
+			this.planes[f * 4 + 1] = ny * s;
+			this.planes[f * 4 + 2] = nz * s;
+			this.planes[f * 4 + 3] = -(nx * s * cx + ny * s * cy + nz * s * cz);
+			this.centroids[f * 3] = cx;
+			this.centroids[f * 3 + 1] = cy;
+			this.centroids[f * 3 + 2] = cz;
+			this.areas[f] = length;
+			this.sizes[f] = size;
+		}
+
+		// the signed distance of point i above face f.
+		private double distance(int f, int i) {
+
+			int o = this.ids[i] * 3;
+			double q[] = this.planes;
+
+			return q[f * 4] * this.p[o] + q[f * 4 + 1] * this.p[o + 1] + q[f * 4 + 2] * this.p[o + 2] + q[f * 4 + 3];
+		}
+
+		private double coord(int i, int axis) {
+
+			return this.p[this.ids[i] * 3 + axis];
+		}
+
+		private static int[] push(int list[], int size, int value) {
+
+			if(size == list.length) {
+
+				list = Arrays.copyOf(list, size * 2);
+			}
+
+			list[size] = value;
+
+			return list;
+		}
+	}
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A piecewise cubic curve in 3 space.
+ * <p>
+ * The factory methods build Catmull-Rom, cubic Bezier, uniform B-spline and
+ * Hermite curves. Every segment is converted once into the polynomial
+ * coefficients of its x, y and z coordinates, so evaluating a point costs
+ * one segment lookup and three Horner polynomials whatever the curve type.
+ * <p>
+ * The curve parameter t runs from 0 at the start of the first segment to 1
+ * at the end of the last one; every segment covers an equal part of it.
+ * The methods taking a distance reparameterize the curve by arc length
+ * through a table of cumulative chord lengths that is built on first use
+ * and cached.
+ * <p>
+ * Curves are immutable and can be evaluated by any number of threads.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class CubicCurve3d {
+
+	// coefficients of u^3, u^2, u and 1 (rows) for the four control values (columns).
+	private static final double CATMULL_ROM[] = {
+		-0.5D, 1.5D, -1.5D, 0.5D,
+		1.0D, -2.5D, 2.0D, -0.5D,
+		-0.5D, 0.0D, 0.5D, 0.0D,
+		0.0D, 1.0D, 0.0D, 0.0D
+	};
+
+	private static final double BEZIER[] = {
+		-1.0D, 3.0D, -3.0D, 1.0D,
+		3.0D, -6.0D, 3.0D, 0.0D,
+		-3.0D, 3.0D, 0.0D, 0.0D,
+		1.0D, 0.0D, 0.0D, 0.0D
+	};
+
+	private static final double B_SPLINE[] = {
+		-1.0D / 6.0D, 3.0D / 6.0D, -3.0D / 6.0D, 1.0D / 6.0D,
+		3.0D / 6.0D, -6.0D / 6.0D, 3.0D / 6.0D, 0.0D,
+		-3.0D / 6.0D, 0.0D, 3.0D / 6.0D, 0.0D,
+		1.0D / 6.0D, 4.0D / 6.0D, 1.0D / 6.0D, 0.0D
+	};
+
+	// control values p0, p1, m0, m1.
+	private static final double HERMITE[] = {
+		2.0D, -2.0D, 1.0D, 1.0D,
+		-3.0D, 3.0D, -2.0D, -1.0D,
+		0.0D, 0.0D, 1.0D, 0.0D,
+		1.0D, 0.0D, 0.0D, 0.0D
+	};
+
+	// chords per segment of the arc length table.
+	private static final int ARC_SAMPLES = 32;
+
+	// curve points per parallel task.
+	private static final int GRAIN = 4096;
+
+	private final int segments;
+
+	// 12 per segment: u^3, u^2, u, 1 of x, then of y, then of z.
+	private final double coefficients[];
+
+	// cumulative length at t = i / (segments * ARC_SAMPLES); built on first use.
+	private volatile double arcLength[];
+
+	private CubicCurve3d(int segments) {
+
+		this.segments = segments;
+		this.coefficients = new double[segments * 12];
+	}
+
+	/**
+	 * Returns the Catmull-Rom curve through the points. The curve has a segment
+	 * between every pair of adjacent points; the tangent at a point is half
+	 * the difference of its neighbours, and the end points are extended by
+	 * reflecting their neighbour.
+	 * @param points the points, at least 2
+	 * @return the curve
+	 */
+	public static CubicCurve3d catmullRom(Tuple3d points[]) {
+
+		checkCount(points.length, 2);
+
+		int n = points.length;
+		CubicCurve3d curve = new CubicCurve3d(n - 1);
+		double g[] = new double[12];
+
+		for(int i = 0; i < n - 1; i++) {
+
+			Tuple3d p1 = points[i];
+			Tuple3d p2 = points[i + 1];
+
+			if(i > 0) {
+
+				copy(points[i - 1], g, 0);
+
+			} else {
+
+				g[0] = 2.0D * p1.x - p2.x;
+				g[4] = 2.0D * p1.y - p2.y;
+				g[8] = 2.0D * p1.z - p2.z;
+			}
+
+			copy(p1, g, 1);
+			copy(p2, g, 2);
+
+			if(i < n - 2) {
+
+				copy(points[i + 2], g, 3);
+
+			} else {
+
+				g[3] = 2.0D * p2.x - p1.x;
+				g[7] = 2.0D * p2.y - p1.y;
+				g[11] = 2.0D * p2.z - p1.z;
+			}
+
+			curve.setSegment(i, CATMULL_ROM, g);
+		}
+
+		return curve;
+	}
+
+	/**
+	 * Returns the piecewise cubic Bezier curve of the control points. Every
+	 * segment has 4 control points and shares its first one with the last
+	 * one of the previous segment, so there are 3 * segments + 1 points.
+	 * @param points the control points
+	 * @return the curve
+	 */
+	public static CubicCurve3d bezier(Tuple3d points[]) {
+
+		checkCount(points.length, 4);
+
+		if(points.length % 3 != 1) {
+
+			throw new IllegalArgumentException("points.length:" + points.length + " is not 3 * segments + 1");
+		}
+
+		CubicCurve3d curve = new CubicCurve3d(points.length / 3);
+		double g[] = new double[12];
+
+		for(int i = 0; i < curve.segments; i++) {
+
+			for(int j = 0; j < 4; j++) {
+
+				copy(points[i * 3 + j], g, j);
+			}
+
+			curve.setSegment(i, BEZIER, g);
+		}
+
+		return curve;
+	}
+
+	/**
+	 * Returns the uniform cubic B-spline of the control points. The curve
+	 * has a segment for every 4 consecutive points and does not, in general,
+	 * pass through the points.
+	 * @param points the control points, at least 4
+	 * @return the curve
+	 */
+	public static CubicCurve3d bSpline(Tuple3d points[]) {
+
+		checkCount(points.length, 4);
+
+		CubicCurve3d curve = new CubicCurve3d(points.length - 3);
+		double g[] = new double[12];
+
+		for(int i = 0; i < curve.segments; i++) {
+
+			for(int j = 0; j < 4; j++) {
+
+				copy(points[i + j], g, j);
+			}
+
+			curve.setSegment(i, B_SPLINE, g);
+		}
+
+		return curve;
+	}
+
+	/**
+	 * Returns the Hermite curve through the points with the specified
+	 * tangents. A tangent is the derivative with respect to the parameter of
+	 * a single segment, which runs from 0 to 1.
+	 * @param points the points, at least 2
+	 * @param tangents the tangent at every point
+	 * @return the curve
+	 */
+	public static CubicCurve3d hermite(Tuple3d points[], Tuple3d tangents[]) {
+
+		checkCount(points.length, 2);
+
+		if(tangents.length != points.length) {
+
+			throw new IllegalArgumentException("tangents.length:" + tangents.length + " != points.length:" + points.length);
+		}
+
+		CubicCurve3d curve = new CubicCurve3d(points.length - 1);
+		double g[] = new double[12];
+
+		for(int i = 0; i < curve.segments; i++) {
+
+			copy(points[i], g, 0);
+			copy(points[i + 1], g, 1);
+			copy(tangents[i], g, 2);
+			copy(tangents[i + 1], g, 3);
+			curve.setSegment(i, HERMITE, g);
+		}
+
+		return curve;
+	}
+
+	/**
+	 * Returns the number of cubic segments.
+	 * @return the number of segments
+	 */
+	public final int getSegmentCount() {
+
+		return this.segments;
+	}
+
+	/**
+	 * Sets p to the point of the curve at parameter t.
+	 * @param t the parameter, clamped to [0, 1]
+	 * @param p the tuple that receives the point
+	 */
+	public final void getPoint(double t, Tuple3d p) {
+
+		double u = this.clamp(t) * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double c[] = this.coefficients;
+		int o = s * 12;
+
+		u -= s;
+		p.x = ((c[o] * u + c[o + 1]) * u + c[o + 2]) * u + c[o + 3];
+		p.y = ((c[o + 4] * u + c[o + 5]) * u + c[o + 6]) * u + c[o + 7];
+		p.z = ((c[o + 8] * u + c[o + 9]) * u + c[o + 10]) * u + c[o + 11];
+	}
+
+	/**
+	 * Sets v to the derivative of the curve with respect to t at parameter t.
+	 * @param t the parameter, clamped to [0, 1]
+	 * @param v the tuple that receives the tangent
+	 */
+	public final void getTangent(double t, Tuple3d v) {
+
+		double u = this.clamp(t) * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double c[] = this.coefficients;
+		int o = s * 12;
+		double n = this.segments;
+
+		u -= s;
+		v.x = n * ((3.0D * c[o] * u + 2.0D * c[o + 1]) * u + c[o + 2]);
+		v.y = n * ((3.0D * c[o + 4] * u + 2.0D * c[o + 5]) * u + c[o + 6]);
+		v.z = n * ((3.0D * c[o + 8] * u + 2.0D * c[o + 9]) * u + c[o + 10]);
+	}
+
+	/**
+	 * Evaluates the curve at count parameters.
+	 * @param t the parameters
+	 * @param count the number of parameters
+	 * @param xyz the array that receives 3 coordinates per point
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void evaluate(double t[], int count, double xyz[], ForkJoinPool pool) {
+
+		check(t, count);
+		check(xyz, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.store(t[i], xyz, i * 3);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates the curve at count parameters equally spaced from 0 to 1,
+	 * both included.
+	 * @param count the number of points, at least 2
+	 * @param xyz the array that receives 3 coordinates per point
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void sample(int count, double xyz[], ForkJoinPool pool) {
+
+		checkCount(count, 2);
+		check(xyz, count * 3);
+
+		double step = 1.0D / (count - 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.store(i * step, xyz, i * 3);
+			}
+		});
+	}
+
+	/**
+	 * Returns the length of the curve, approximated by the arc length table.
+	 * @return the length
+	 */
+	public final double getLength() {
+
+		double table[] = this.getArcLengthTable();
+
+		return table[table.length - 1];
+	}
+
+	/**
+	 * Returns the parameter of the point at the specified distance along the curve.
+	 * @param distance the distance from the start of the curve, clamped to [0, getLength()]
+	 * @return the parameter t
+	 */
+	public final double getParameter(double distance) {
+
+		return this.parameter(this.getArcLengthTable(), distance);
+	}
+
+	/**
+	 * Sets p to the point at the specified distance along the curve.
+	 * @param distance the distance from the start of the curve, clamped to [0, getLength()]
+	 * @param p the tuple that receives the point
+	 */
+	public final void getPointAtDistance(double distance, Tuple3d p) {
+
+		this.getPoint(this.getParameter(distance), p);
+	}
+
+	/**
+	 * Evaluates the curve at count distances along it.
+	 * @param distance the distances from the start of the curve
+	 * @param count the number of distances
+	 * @param xyz the array that receives 3 coordinates per point
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void evaluateAtDistance(double distance[], int count, double xyz[], ForkJoinPool pool) {
+
+		check(distance, count);
+		check(xyz, count * 3);
+
+		double table[] = this.getArcLengthTable();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.store(this.parameter(table, distance[i]), xyz, i * 3);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates the curve at count points equally spaced along it, from the
+	 * start to the end, both included.
+	 * @param count the number of points, at least 2
+	 * @param xyz the array that receives 3 coordinates per point
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void sampleByLength(int count, double xyz[], ForkJoinPool pool) {
+
+		checkCount(count, 2);
+		check(xyz, count * 3);
+
+		double table[] = this.getArcLengthTable();
+		double step = table[table.length - 1] / (count - 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.store(this.parameter(table, i * step), xyz, i * 3);
+			}
+		});
+	}
+
+	private void setSegment(int s, double basis[], double g[]) {
+
+		for(int axis = 0; axis < 3; axis++) {
+
+			for(int k = 0; k < 4; k++) {
+
+				double sum = 0.0D;
+
+				for(int j = 0; j < 4; j++) {
+
+					sum += basis[k * 4 + j] * g[axis * 4 + j];
+				}
+
+				this.coefficients[s * 12 + axis * 4 + k] = sum;
+			}
+		}
+	}
+
+	private void store(double t, double xyz[], int o) {
+
+		double u = this.clamp(t) * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double c[] = this.coefficients;
+		int k = s * 12;
+
+		u -= s;
+		xyz[o] = ((c[k] * u + c[k + 1]) * u + c[k + 2]) * u + c[k + 3];
+		xyz[o + 1] = ((c[k + 4] * u + c[k + 5]) * u + c[k + 6]) * u + c[k + 7];
+		xyz[o + 2] = ((c[k + 8] * u + c[k + 9]) * u + c[k + 10]) * u + c[k + 11];
+	}
+
+	// coordinate axis of the point at t.
+	private double coordinate(double t, int axis) {
+
+		double u = this.clamp(t) * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double c[] = this.coefficients;
+		int k = s * 12 + axis * 4;
+
+		u -= s;
+		return ((c[k] * u + c[k + 1]) * u + c[k + 2]) * u + c[k + 3];
+	}
+
+	private double[] getArcLengthTable() {
+
+		double table[] = this.arcLength;
+
+		if(table == null) {
+
+			// racing threads build equal tables; any of them may be kept.
+			int n = this.segments * ARC_SAMPLES;
+			double p[] = new double[6];
+
+			table = new double[n + 1];
+			this.store(0.0D, p, 0);
+
+			for(int i = 1; i <= n; i++) {
+
+				int o = (i & 1) * 3;
+				int q = 3 - o;
+				this.store((double)i / n, p, o);
+
+				double dx = p[o] - p[q];
+				double dy = p[o + 1] - p[q + 1];
+				double dz = p[o + 2] - p[q + 2];
+				table[i] = table[i - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+			}
+
+			this.arcLength = table;
+		}
+
+		return table;
+	}
+
+	// the parameter at the distance, linear between the entries of the table.
+	private double parameter(double table[], double distance) {
+
+		int n = table.length - 1;
+
+		if(!(distance > 0.0D)) {
+
+			return 0.0D;
+		}
+
+		if(distance >= table[n]) {
+
+			return 1.0D;
+		}
+
+		int lo = 0;
+		int hi = n;
+
+		while(hi - lo > 1) {
+
+			int mid = (lo + hi) >>> 1;
+
+			if(table[mid] <= distance) {
+
+				lo = mid;
+
+			} else {
+
+				hi = mid;
+			}
+		}
+
+		double d = table[hi] - table[lo];
+
+		if(!(d > 0.0D)) {
+
+			return (double)lo / n;
+		}
+
+		// linear in the chord, then one Newton step on the distance from its start.
+		double t = (lo + (distance - table[lo]) / d) / n;
+		double t0 = (double)lo / n;
+		double dx = this.coordinate(t, 0) - this.coordinate(t0, 0);
+		double dy = this.coordinate(t, 1) - this.coordinate(t0, 1);
+		double dz = this.coordinate(t, 2) - this.coordinate(t0, 2);
+		double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+		double u = t * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double c[] = this.coefficients;
+		int k = s * 12;
+
+		u -= s;
+		dx = (3.0D * c[k] * u + 2.0D * c[k + 1]) * u + c[k + 2];
+		dy = (3.0D * c[k + 4] * u + 2.0D * c[k + 5]) * u + c[k + 6];
+		dz = (3.0D * c[k + 8] * u + 2.0D * c[k + 9]) * u + c[k + 10];
+		double speed = this.segments * Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+		if(speed > 0.0D) {
+
+			t += (distance - table[lo] - chord) / speed;
+		}
+
+		return Math.max(t0, Math.min((double)hi / n, t));
+	}
+
+	private double clamp(double t) {
+
+		return t > 0.0D ? (t < 1.0D ? t : 1.0D) : 0.0D;
+	}
+
+	// control value j of the three coordinates.
+	private static void copy(Tuple3d t1, double g[], int j) {
+
+		g[j] = t1.x;
+		g[4 + j] = t1.y;
+		g[8 + j] = t1.z;
+	}
+
+	private static void checkCount(int count, int min) {
+
+		if(count < min) {
+
+			throw new IllegalArgumentException("count:" + count + " < " + min);
+		}
+	}
+
+	private static void check(double a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+/**
+ * Sine and cosine from a table with linear interpolation, for building
+ * many rotations when full precision is not needed.
+ * <p>
+ * The table holds one period of the sine at size equally spaced angles,
+ * size a power of two; the cosine reads the same table a quarter period
+ * ahead. Angles beyond PI are first reduced by a multiple of 2 PI held in
+ * two parts, so the reduction is exact to a few ulps of PI at any angle up
+ * to the limit below. Linear interpolation between entries h = 2 PI / size
+ * apart is off by at most h^2 / 8 plus rounding, which {@link #getMaxError()}
+ * reports:
+ * <pre>
+ *   size      table      max error
+ *   1024       8 KiB     4.71e-6
+ *   4096      32 KiB     2.94e-7
+ *   16384    128 KiB     1.84e-8
+ *   65536    512 KiB     1.15e-9
+ * </pre>
+ * Angles of magnitude above 65536 radians fall back to {@link Math#sin(double)}
+ * and {@link Math#cos(double)}. Rotations built from the approximate values
+ * are orthogonal only to the same error.
+ * <p>
+ * The rotation builders of {@link Matrix3d}, {@link Matrix4d} and
+ * {@link Quat4d} take an optional FastTrig. A FastTrig is immutable and can
+ * be shared by any number of threads.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class FastTrig {
+
+	private static final double TWO_PI = 2.0D * Math.PI;
+
+	// above this the multiples of TWO_PI_HIGH are no longer exact.
+	private static final double LIMIT = 65536.0D;
+
+	// 2 PI as TWO_PI_HIGH, with its low 16 bits clear, plus TWO_PI_LOW, which adds the
+	// 2.449e-16 that TWO_PI misses of 2 PI.
+	private static final double TWO_PI_HIGH = Double.longBitsToDouble(Double.doubleToLongBits(TWO_PI) & ~0xFFFFL);
+	private static final double TWO_PI_LOW = (TWO_PI - TWO_PI_HIGH) + 2.4492935982947064E-16D;
+
+	private final int mask;
+	private final int quarter;
+	private final double scale;
+	private final double maxError;
+
+	// size + 1 entries, the last one repeating the first.
+	private final double table[];
+
+	/**
+	 * Constructs a FastTrig with a table of 4096 entries, max error 2.94e-7.
+	 */
+	public FastTrig() {
+
+		this(4096);
+	}
+
+	/**
+	 * Constructs a FastTrig with a table of the specified size.
+	 * @param size the number of entries per period, a power of two of at least 4
+	 */
+	public FastTrig(int size) {
+
+		if(size < 4 || (size & (size - 1)) != 0) {
+
+			throw new IllegalArgumentException("size:" + size + " is not a power of two >= 4");
+		}
+
+		this.mask = size - 1;
+		this.quarter = size >> 2;
+		this.scale = size / TWO_PI;
+		this.table = new double[size + 1];
+
+		for(int i = 0; i < size; i++) {
+
+			this.table[i] = Math.sin(i * TWO_PI / size);
+		}
+
+		this.table[size] = this.table[0];
+
+		this.maxError = errorBound(size);
+	}
+
+	/**
+	 * Returns the FastTrig with the smallest table whose max error is at
+	 * most maxError.
+	 * @param maxError the largest acceptable error, at least 1e-12
+	 * @return the FastTrig
+	 */
+	public static FastTrig forMaxError(double maxError) {
+
+		if(!(maxError >= 1.0e-12D)) {
+
+			throw new IllegalArgumentException("maxError:" + maxError);
+		}
+
+		int size = 4;
+
+		while(errorBound(size) > maxError) {
+
+			size <<= 1;
+		}
+
+		return new FastTrig(size);
+	}
+
+	/**
+	 * Returns the number of table entries per period.
+	 * @return the table size
+	 */
+	public final int getSize() {
+
+		return this.mask + 1;
+	}
+
+	/**
+	 * Returns the upper bound of the absolute error of sin and cos.
+	 * @return the max error
+	 */
+	public final double getMaxError() {
+
+		return this.maxError;
+	}
+
+	/**
+	 * Returns the approximate sine of angle.
+	 * @param angle the angle in radians
+	 * @return the sine
+	 */
+	public final double sin(double angle) {
+
+		return this.lookup(angle, 0);
+	}
+
+	/**
+	 * Returns the approximate cosine of angle.
+	 * @param angle the angle in radians
+	 * @return the cosine
+	 */
+	public final double cos(double angle) {
+
+		return this.lookup(angle, this.quarter);
+	}
+
+	private double lookup(double angle, int shift) {
+
+		if(!(Math.abs(angle) <= LIMIT)) {
+
+			return shift == 0 ? Math.sin(angle) : Math.cos(angle);
+		}
+
+		if(Math.abs(angle) > Math.PI) {
+
+			double k = Math.rint(angle / TWO_PI);
+			angle = (angle - k * TWO_PI_HIGH) - k * TWO_PI_LOW;
+		}
+
+		double x = angle * this.scale;
+		double floor = Math.floor(x);
+		double f = x - floor;
+		int i = ((int)(long)floor + shift) & this.mask;
+		double a = this.table[i];
+
+		return a + f * (this.table[i + 1] - a);
+	}
+
+	// interpolation error h^2 / 8 of sin'' <= 1, plus rounding of the table and the fraction, of the
+	// reduction to [-PI, PI] and of the table index, which is off by at most 2 ulps of PI scale entries.
+	private static double errorBound(int size) {
+
+		double h = TWO_PI / size;
+
+		return h * h / 8.0D + 4.0D * Math.ulp(1.0D) + Math.ulp(Math.PI) + 2.0D * Math.ulp(Math.PI * size / TWO_PI) * h;
+	}
+}
@@ -0,0 +1,493 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+
+/**
+ * A view frustum represented by six double precision planes.
+ * The planes are extracted from a view-projection matrix that maps points
+ * (column vectors) into clip space where -w &lt;= x, y, z &lt;= w.
+ * Every plane (a, b, c, d) is normalized and points inside the frustum,
+ * so a point p is on the inner side if a*p.x + b*p.y + c*p.z + d &gt;= 0.
+ * <p>
+ * The bulk cull methods test bounds stored as structure of arrays and
+ * write one visibility bit per object into a long array, bit i of word
+ * i / 64 standing for object i. They do not allocate.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class Frustum implements Serializable {
+
+	private static final long serialVersionUID = 2218843904581372411L;
+
+	/**
+	 * The index of the left plane.
+	 */
+	public static final int LEFT = 0;
+
+	/**
+	 * The index of the right plane.
+	 */
+	public static final int RIGHT = 1;
+
+	/**
+	 * The index of the bottom plane.
+	 */
+	public static final int BOTTOM = 2;
+
+	/**
+	 * The index of the top plane.
+	 */
+	public static final int TOP = 3;
+
+	/**
+	 * The index of the near plane.
+	 */
+	public static final int NEAR = 4;
+
+	/**
+	 * The index of the far plane.
+	 */
+	public static final int FAR = 5;
+
+	private static final int PLANE_COUNT = 6;
+
+	// plane coefficients, one array per coefficient.
+	private final double a[] = new double[PLANE_COUNT];
+	private final double b[] = new double[PLANE_COUNT];
+	private final double c[] = new double[PLANE_COUNT];
+	private final double d[] = new double[PLANE_COUNT];
+
+	// absolute values of a, b and c used by the box tests.
+	private final double absA[] = new double[PLANE_COUNT];
+	private final double absB[] = new double[PLANE_COUNT];
+	private final double absC[] = new double[PLANE_COUNT];
+
+	/**
+	 * Constructs a frustum from the identity matrix, that is the
+	 * cube -1 &lt;= x, y, z &lt;= 1.
+	 */
+	public Frustum() {
+
+		this.set(1.0D, 0.0D, 0.0D, 0.0D,
+				 0.0D, 1.0D, 0.0D, 0.0D,
+				 0.0D, 0.0D, 1.0D, 0.0D,
+				 0.0D, 0.0D, 0.0D, 1.0D);
+	}
+
+	/**
+	 * Constructs a frustum from the specified view-projection matrix.
+	 * @param m1 the view-projection matrix
+	 */
+	public Frustum(Matrix4d m1) {
+
+		this.set(m1);
+	}
+
+	/**
+	 * Constructs a frustum from the specified view-projection matrix.
+	 * @param m1 the view-projection matrix
+	 */
+	public Frustum(Matrix4f m1) {
+
+		this.set(m1);
+	}
+
+	/**
+	 * Extracts the planes of this frustum from the view-projection matrix m1.
+	 * @param m1 the view-projection matrix
+	 */
+	public final void set(Matrix4d m1) {
+
+		this.set(m1.m00, m1.m01, m1.m02, m1.m03,
+				 m1.m10, m1.m11, m1.m12, m1.m13,
+				 m1.m20, m1.m21, m1.m22, m1.m23,
+				 m1.m30, m1.m31, m1.m32, m1.m33);
+	}
+
+	/**
+	 * Extracts the planes of this frustum from the view-projection matrix m1.
+	 * @param m1 the view-projection matrix
+	 */
+	public final void set(Matrix4f m1) {
+
+		this.set(m1.m00, m1.m01, m1.m02, m1.m03,
+				 m1.m10, m1.m11, m1.m12, m1.m13,
+				 m1.m20, m1.m21, m1.m22, m1.m23,
+				 m1.m30, m1.m31, m1.m32, m1.m33);
+	}
+
+	/**
+	 * Sets the plane at the specified index. The plane is normalized.
+	 * @param index the plane index, one of LEFT, RIGHT, BOTTOM, TOP, NEAR or FAR
+	 * @param plane the plane (a, b, c, d) pointing inside the frustum
+	 */
+	public final void setPlane(int index, Tuple4d plane) {
+
+		this.setPlane(index, plane.x, plane.y, plane.z, plane.w);
+	}
+
+	/**
+	 * Copies the normalized plane at the specified index into plane.
+	 * @param index the plane index, one of LEFT, RIGHT, BOTTOM, TOP, NEAR or FAR
+	 * @param plane the tuple into which the plane (a, b, c, d) is copied
+	 */
+	public final void getPlane(int index, Tuple4d plane) {
+
+		plane.set(this.a[index], this.b[index], this.c[index], this.d[index]);
+	}
+
+	/**
+	 * Returns true if the specified point is on the inner side of all six planes.
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @param z the z coordinate of the point
+	 * @return true if the point is inside the frustum
+	 */
+	public final boolean contains(double x, double y, double z) {
+
+		return this.intersectsSphere(x, y, z, 0.0D);
+	}
+
+	/**
+	 * Returns true if the specified point is on the inner side of all six planes.
+	 * @param p the point
+	 * @return true if the point is inside the frustum
+	 */
+	public final boolean contains(Tuple3d p) {
+
+		return this.intersectsSphere(p.x, p.y, p.z, 0.0D);
+	}
+
+	/**
+	 * Returns true if the sphere s1 is not completely on the outer side of any plane.
+	 * The test is conservative: spheres near a frustum corner may be reported
+	 * as intersecting although they are outside.
+	 * @param s1 the sphere
+	 * @return true if the sphere is potentially visible
+	 */
+	public final boolean intersects(BoundingSphere3d s1) {
+
+		return !s1.isEmpty() && this.intersectsSphere(s1.x, s1.y, s1.z, s1.radius);
+	}
+
+	/**
+	 * Returns true if the sphere s1 is not completely on the outer side of any plane.
+	 * @param s1 the sphere
+	 * @return true if the sphere is potentially visible
+	 */
+	public final boolean intersects(BoundingSphere3f s1) {
+
+		return !s1.isEmpty() && this.intersectsSphere(s1.x, s1.y, s1.z, s1.radius);
+	}
+
+	/**
+	 * Returns true if the box b1 is not completely on the outer side of any plane.
+	 * The test is conservative: boxes near a frustum corner may be reported
+	 * as intersecting although they are outside.
+	 * @param b1 the box
+	 * @return true if the box is potentially visible
+	 */
+	public final boolean intersects(BoundingBox3d b1) {
+
+		return !b1.isEmpty() && this.intersectsBox(b1.minX, b1.minY, b1.minZ, b1.maxX, b1.maxY, b1.maxZ);
+	}
+
+	/**
+	 * Returns true if the box b1 is not completely on the outer side of any plane.
+	 * @param b1 the box
+	 * @return true if the box is potentially visible
+	 */
+	public final boolean intersects(BoundingBox3f b1) {
+
+		return !b1.isEmpty() && this.intersectsBox(b1.minX, b1.minY, b1.minZ, b1.maxX, b1.maxY, b1.maxZ);
+	}
+
+	/**
+	 * Tests count spheres starting at index offset and stores one visibility
+	 * bit per sphere into visible. Bits of other objects are left unchanged.
+	 * @param x the x coordinates of the centers
+	 * @param y the y coordinates of the centers
+	 * @param z the z coordinates of the centers
+	 * @param radius the radii
+	 * @param offset the index of the first sphere
+	 * @param count the number of spheres
+	 * @param visible the bit set receiving the results
+	 * @return the number of visible spheres
+	 */
+	public final int cullSpheres(double x[], double y[], double z[], double radius[], int offset, int count, long visible[]) {
+
+		int visibleCount = 0;
+		int end = offset + count;
+		int i = offset;
+
+		while(i < end) {
+
+			int word = i >>> 6;
+			int wordEnd = Math.min(end, (word + 1) << 6);
+			long bits = 0L;
+			long mask = 0L;
+
+			for(; i < wordEnd; i++) {
+
+				long bit = 1L << i;
+				mask |= bit;
+
+				if(this.intersectsSphere(x[i], y[i], z[i], radius[i])) {
+
+					bits |= bit;
+					visibleCount++;
+				}
+			}
+
+			visible[word] = (visible[word] & ~mask) | bits;
+		}
+
+		return visibleCount;
+	}
+
+	/**
+	 * Tests count spheres starting at index offset and stores one visibility
+	 * bit per sphere into visible. Bits of other objects are left unchanged.
+	 * @param x the x coordinates of the centers
+	 * @param y the y coordinates of the centers
+	 * @param z the z coordinates of the centers
+	 * @param radius the radii
+	 * @param offset the index of the first sphere
+	 * @param count the number of spheres
+	 * @param visible the bit set receiving the results
+	 * @return the number of visible spheres
+	 */
+	public final int cullSpheres(float x[], float y[], float z[], float radius[], int offset, int count, long visible[]) {
+
+		int visibleCount = 0;
+		int end = offset + count;
+		int i = offset;
+
+		while(i < end) {
+
+			int word = i >>> 6;
+			int wordEnd = Math.min(end, (word + 1) << 6);
+			long bits = 0L;
+			long mask = 0L;
+
+			for(; i < wordEnd; i++) {
+
+				long bit = 1L << i;
+				mask |= bit;
+
+				if(this.intersectsSphere(x[i], y[i], z[i], radius[i])) {
+
+					bits |= bit;
+					visibleCount++;
+				}
+			}
+
+			visible[word] = (visible[word] & ~mask) | bits;
+		}
+
+		return visibleCount;
+	}
+
+	/**
+	 * Tests count axis aligned boxes starting at index offset and stores one
+	 * visibility bit per box into visible. Bits of other objects are left unchanged.
+	 * @param minX the x coordinates of the lower corners
+	 * @param minY the y coordinates of the lower corners
+	 * @param minZ the z coordinates of the lower corners
+	 * @param maxX the x coordinates of the upper corners
+	 * @param maxY the y coordinates of the upper corners
+	 * @param maxZ the z coordinates of the upper corners
+	 * @param offset the index of the first box
+	 * @param count the number of boxes
+	 * @param visible the bit set receiving the results
+	 * @return the number of visible boxes
+	 */
+	public final int cullBoxes(double minX[], double minY[], double minZ[], double maxX[], double maxY[], double maxZ[], int offset, int count, long visible[]) {
+
+		int visibleCount = 0;
+		int end = offset + count;
+		int i = offset;
+
+		while(i < end) {
+
+			int word = i >>> 6;
+			int wordEnd = Math.min(end, (word + 1) << 6);
+			long bits = 0L;
+			long mask = 0L;
+
+			for(; i < wordEnd; i++) {
+
+				long bit = 1L << i;
+				mask |= bit;
+
+				if(this.intersectsBox(minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i])) {
+
+					bits |= bit;
+					visibleCount++;
+				}
+			}
+
+			visible[word] = (visible[word] & ~mask) | bits;
+		}
+
+		return visibleCount;
+	}
+
+	/**
+	 * Tests count axis aligned boxes starting at index offset and stores one
+	 * visibility bit per box into visible. Bits of other objects are left unchanged.
+	 * @param minX the x coordinates of the lower corners
+	 * @param minY the y coordinates of the lower corners
+	 * @param minZ the z coordinates of the lower corners
+	 * @param maxX the x coordinates of the upper corners
+	 * @param maxY the y coordinates of the upper corners
+	 * @param maxZ the z coordinates of the upper corners
+	 * @param offset the index of the first box
+	 * @param count the number of boxes
+	 * @param visible the bit set receiving the results
+	 * @return the number of visible boxes
+	 */
+	public final int cullBoxes(float minX[], float minY[], float minZ[], float maxX[], float maxY[], float maxZ[], int offset, int count, long visible[]) {
+
+		int visibleCount = 0;
+		int end = offset + count;
+		int i = offset;
+
+		while(i < end) {
+
+			int word = i >>> 6;
+			int wordEnd = Math.min(end, (word + 1) << 6);
+			long bits = 0L;
+			long mask = 0L;
+
+			for(; i < wordEnd; i++) {
+
+				long bit = 1L << i;
+				mask |= bit;
+
+				if(this.intersectsBox(minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i])) {
+
+					bits |= bit;
+					visibleCount++;
+				}
+			}
+
+			visible[word] = (visible[word] & ~mask) | bits;
+		}
+
+		return visibleCount;
+	}
+
+	/**
+	 * Returns true if bit index is set in the bit set written by the cull methods.
+	 * @param visible the bit set
+	 * @param index the object index
+	 * @return true if the object is visible
+	 */
+	public static boolean isVisible(long visible[], int index) {
+
+		return (visible[index >>> 6] & (1L << index)) != 0L;
+	}
+
+	@Override
+	public final String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
+
+		for(int i = 0; i < PLANE_COUNT; i++) {
+
+			if(i > 0) {
+
+				builder.append(", ");
+			}
+
+			builder.append(String.format("(%s, %s, %s, %s)", this.a[i], this.b[i], this.c[i], this.d[i]));
+		}
+
+		return builder.append(']').toString();
+	}
+
+	private boolean intersectsSphere(double x, double y, double z, double r) {
+
+		for(int i = 0; i < PLANE_COUNT; i++) {
+
+			if(this.a[i] * x + this.b[i] * y + this.c[i] * z + this.d[i] < -r) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean intersectsBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+
+		double cx = (minX + maxX) * 0.5D;
+		double cy = (minY + maxY) * 0.5D;
+		double cz = (minZ + maxZ) * 0.5D;
+		double ex = (maxX - minX) * 0.5D;
+		double ey = (maxY - minY) * 0.5D;
+		double ez = (maxZ - minZ) * 0.5D;
+
+		for(int i = 0; i < PLANE_COUNT; i++) {
+
+			// signed distance of the center against the projected half extent.
+			double dist = this.a[i] * cx + this.b[i] * cy + this.c[i] * cz + this.d[i];
+			double r = this.absA[i] * ex + this.absB[i] * ey + this.absC[i] * ez;
+
+			if(dist < -r) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void set(double m00, double m01, double m02, double m03,
+					 double m10, double m11, double m12, double m13,
+					 double m20, double m21, double m22, double m23,
+					 double m30, double m31, double m32, double m33) {
+
+		// Gribb and Hartmann: every plane is the sum or the difference
+		// of the last row and one of the first three rows.
+		this.setPlane(LEFT,   m30 + m00, m31 + m01, m32 + m02, m33 + m03);
+		this.setPlane(RIGHT,  m30 - m00, m31 - m01, m32 - m02, m33 - m03);
+		this.setPlane(BOTTOM, m30 + m10, m31 + m11, m32 + m12, m33 + m13);
+		this.setPlane(TOP,    m30 - m10, m31 - m11, m32 - m12, m33 - m13);
+		this.setPlane(NEAR,   m30 + m20, m31 + m21, m32 + m22, m33 + m23);
+		this.setPlane(FAR,    m30 - m20, m31 - m21, m32 - m22, m33 - m23);
+	}
+
+	private void setPlane(int index, double pa, double pb, double pc, double pd) {
+
+		double len = Math.sqrt(pa * pa + pb * pb + pc * pc);
+
+		// a degenerate plane accepts everything.
+		double s = len > 0.0D ? 1.0D / len : 0.0D;
+
+		this.a[index] = pa * s;
+		this.b[index] = pb * s;
+		this.c[index] = pc * s;
+		this.d[index] = len > 0.0D ? pd * s : 0.0D;
+		this.absA[index] = Math.abs(this.a[index]);
+		this.absB[index] = Math.abs(this.b[index]);
+		this.absC[index] = Math.abs(this.c[index]);
+	}
+}
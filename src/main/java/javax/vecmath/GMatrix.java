@@ -563,6 +563,14 @@ public final class GMatrix implements Serializable {
     public final int getNumCol() {
 	return nCol;
     }
+
+    /**
+     * Returns the row major backing array of this matrix, for fused
+     * evaluation in GVectorExpression. Not a copy.
+     */
+    final double[] getElementData() {
+	return elementData;
+    }
   
     /**
      * Retrieves the value at the specified row and column of this matrix.
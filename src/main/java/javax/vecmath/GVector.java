@@ -17,10 +17,22 @@
 package javax.vecmath;
 
 import java.io.Serializable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A double precision, general, and dynamically resizeable one 
  * dimensional vector class. Index numbering begins with zero.
+ * <p>
+ * The element-wise operations and the reductions (dot, norm, normSquared)
+ * have overloads that run on a ForkJoinPool passed per call. Passing a pool
+ * is the opt-in to parallel work, so there is no size threshold to set:
+ * vectors are split into parts of 65536 elements, and shorter ones, where
+ * a task costs more than it saves, run in the calling thread anyway.
+ * Those reductions sum pairwise over a fixed tree of index ranges, with or
+ * without a pool, so their results do not depend on the pool or the number
+ * of threads; they can differ in the last bits from the left to right sums
+ * of the overloads without a pool.
  * @version specification 1.1, implementation $Revision$, $Date$
  * @author Kenji hiranabe
  */
@@ -34,6 +46,12 @@ public final class GVector implements Serializable {
     private int elementCount;
     private double elementData[];
 
+    // elements per task of the parallel element-wise operations and reductions.
+    private static final int PARALLEL_GRAIN = 1 << 16;
+
+    // the reduction tree halves index ranges down to this many elements.
+    private static final int REDUCTION_LEAF = 1024;
+
     /**
      * Constructs a new generalized mathematic Vector with zero
      * elements; length reprents the number of elements in the vector.
@@ -156,6 +174,28 @@ public final class GVector implements Serializable {
         return s;
     }
 
+    /**
+     * Returns the length of this vector, summing in parallel on pool.
+     * @param pool the pool that runs the sum, or null to run it in the calling thread
+     * @return length of this vector
+     */
+    public final double norm(ForkJoinPool pool) {
+
+        return Math.sqrt(this.normSquared(pool));
+    }
+
+    /**
+     * Returns the length squared of this vector, summing pairwise in
+     * parallel on pool. The result is the same with or without a pool and
+     * for any number of threads.
+     * @param pool the pool that runs the sum, or null to run it in the calling thread
+     * @return length squared of this vector
+     */
+    public final double normSquared(ForkJoinPool pool) {
+
+        return reduce(this.elementData, this.elementData, this.elementCount, pool);
+    }
+
     /**
      * Sets the value of this vector to the normalization of vector v1. 
      * @param v1 the un-normalized vector 
@@ -180,6 +220,25 @@ public final class GVector implements Serializable {
         }
     }
 
+    /**
+     * Normalizes this vector in place, in parallel on pool.
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void normalize(ForkJoinPool pool) {
+
+        double len = this.norm(pool);
+        double data[] = this.elementData;
+
+        // zero-div may happen.
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] /= len;
+            }
+        });
+    }
+
     /**
      * Sets the value of this vector to the scalar multiplication of 
      * the scale factor with the vector v1.
@@ -204,6 +263,24 @@ public final class GVector implements Serializable {
         }
     }
 
+    /**
+     * Scales this vector by the scale factor s, in parallel on pool.
+     * @param s the scalar value
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void scale(double s, ForkJoinPool pool) {
+
+        double data[] = this.elementData;
+
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] *= s;
+            }
+        });
+    }
+
     /** 
      * Sets the value of this vector to the scalar multiplication by 
      * s of vector v1 plus vector v2 (this = s*v1 + v2).
@@ -232,6 +309,38 @@ public final class GVector implements Serializable {
         }
     }
 
+    /**
+     * Sets the value of this vector to s*v1 + v2, in parallel on pool.
+     * @param s the scalar value
+     * @param v1 the vector to be multiplied
+     * @param v2 the vector to be added
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void scaleAdd(double s, GVector v1, GVector v2, ForkJoinPool pool) {
+
+        if(this.elementCount != v1.elementCount) {
+
+            throw new ArrayIndexOutOfBoundsException("this.size:" + this.elementCount + " != v1's size:" + v1.elementCount);
+        }
+
+        if(this.elementCount != v2.elementCount) {
+
+            throw new ArrayIndexOutOfBoundsException("this.size:" + this.elementCount + " != v2's size:" + v2.elementCount);
+        }
+
+        double data[] = this.elementData;
+        double v1data[] = v1.elementData;
+        double v2data[] = v2.elementData;
+
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] = s * v1data[i] + v2data[i];
+            }
+        });
+    }
+
 
     /**
      * Sets the value of this vector to sum of itself and the specified vector 
@@ -252,6 +361,31 @@ public final class GVector implements Serializable {
         }
     }
 
+    /**
+     * Sets the value of this vector to sum of itself and the specified
+     * vector, in parallel on pool.
+     * @param vector the second vector
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void add(GVector vector, ForkJoinPool pool) {
+
+        if(this.elementCount != vector.elementCount) {
+
+            throw new ArrayIndexOutOfBoundsException("this.size:" + this.elementCount + " != v2's size:" + vector.elementCount);
+        }
+
+        double data[] = this.elementData;
+        double v1data[] = vector.elementData;
+
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] += v1data[i];
+            }
+        });
+    }
+
     /**
      * Sets the value of this vector to the vector sum of vectors 
      * vector1 and vector2.
@@ -284,6 +418,31 @@ public final class GVector implements Serializable {
         }
     }
 
+    /**
+     * Sets the value of this vector to the vector difference of itself and
+     * vector, in parallel on pool.
+     * @param vector the other vector
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void sub(GVector vector, ForkJoinPool pool) {
+
+        if(this.elementCount != vector.elementCount) {
+
+            throw new ArrayIndexOutOfBoundsException("this.size:" + this.elementCount + " != vector's size:" + vector.elementCount);
+        }
+
+        double data[] = this.elementData;
+        double v1data[] = vector.elementData;
+
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] -= v1data[i];
+            }
+        });
+    }
+
     /**
      * Sets the value of this vector to the vector difference of 
      * vectors vector1 and vector2 (this = vector1 - vector2). 
@@ -510,6 +669,14 @@ public final class GVector implements Serializable {
         return elementCount;
     }
 
+    /**
+     * Returns the backing array of this vector, for fused evaluation in
+     * GVectorExpression. Not a copy; only the first getSize() elements are valid.
+     */
+    final double[] getElementData() {
+        return elementData;
+    }
+
     /**
      * Retrieves the value at the specified index value of this 
      * vector.
@@ -638,6 +805,24 @@ public final class GVector implements Serializable {
         return sum;
     }
 
+    /**
+     * Returns the dot product of this vector and vector v1, summing pairwise
+     * in parallel on pool. The result is the same with or without a pool and
+     * for any number of threads.
+     * @param v1 the other vector
+     * @param pool the pool that runs the sum, or null to run it in the calling thread
+     * @return the dot product of this and v1
+     */
+    public final double dot(GVector v1, ForkJoinPool pool) {
+
+        if(this.elementCount != v1.elementCount) {
+
+            throw new IllegalArgumentException("this.size:" + this.elementCount + " != v1.size:" + v1.elementCount);
+        }
+
+        return reduce(this.elementData, v1.elementData, this.elementCount, pool);
+    }
+
     /**
      * Solves for x in Ax = b, where x is this vector (nx1), 
      * A is mxn, b is mx1, and A = U*W*transpose(V); 
@@ -796,4 +981,99 @@ public final class GVector implements Serializable {
         	this.elementData[i] = beta * this.elementData[i] + alpha * v1data[i];
         }
     }
+
+    /**
+     * Linearly interpolates between this vector and vector v1, in parallel
+     * on pool: this = (1-alpha)*this + alpha*v1.
+     * @param v1 the first vector
+     * @param alpha the alpha interpolation parameter
+     * @param pool the pool that runs the operation, or null to run it in the calling thread
+     */
+    public final void interpolate(GVector v1, double alpha, ForkJoinPool pool) {
+
+        if(this.elementCount != v1.elementCount) {
+
+            throw new IllegalArgumentException(String.format("this.size:%d != v1.size:%d", this.elementCount, v1.elementCount));
+        }
+
+        double data[] = this.elementData;
+        double v1data[] = v1.elementData;
+        double beta = (1.0D - alpha);
+
+        ParallelLoop.run(pool, 0, this.elementCount, PARALLEL_GRAIN, (from, to) -> {
+
+            for(int i = from; i < to; i++) {
+
+                data[i] = beta * data[i] + alpha * v1data[i];
+            }
+        });
+    }
+
+    // the pairwise sum of a[i] * b[i] over [0, count); the tasks on pool only fork the upper levels of the same tree.
+    private static double reduce(double a[], double b[], int count, ForkJoinPool pool) {
+
+        if(pool == null || count <= PARALLEL_GRAIN) {
+
+            return pairwiseDot(a, b, 0, count);
+        }
+
+        return pool.invoke(new Reduction(a, b, 0, count));
+    }
+
+    // the pairwise sum of a[i] * b[i] over [from, to), splitting at the midpoints.
+    private static double pairwiseDot(double a[], double b[], int from, int to) {
+
+        if(to - from <= REDUCTION_LEAF) {
+
+            double sum = 0.0D;
+
+            for(int i = from; i < to; i++) {
+
+                sum += a[i] * b[i];
+            }
+
+            return sum;
+        }
+
+        int mid = (from + to) >>> 1;
+        return pairwiseDot(a, b, from, mid) + pairwiseDot(a, b, mid, to);
+    }
+
+    /**
+     * Forks the upper levels of the pairwise reduction tree. The tree and thus
+     * the order of the additions does not depend on how the tasks are scheduled.
+     */
+    private static final class Reduction extends RecursiveTask<Double> {
+
+        private static final long serialVersionUID = 6158842309217745103L;
+
+        private final double a[];
+        private final double b[];
+        private final int from;
+        private final int to;
+
+        Reduction(double a[], double b[], int from, int to) {
+
+            this.a = a;
+            this.b = b;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+
+            if(this.to - this.from <= PARALLEL_GRAIN) {
+
+                return pairwiseDot(this.a, this.b, this.from, this.to);
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            Reduction left = new Reduction(this.a, this.b, this.from, mid);
+            left.fork();
+            double right = new Reduction(this.a, this.b, mid, this.to).compute();
+
+            return left.join() + right;
+        }
+    }
 }
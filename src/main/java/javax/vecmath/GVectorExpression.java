@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A lazily evaluated vector expression over GVectors and GMatrix times
+ * GVector products.
+ * <p>
+ * Building an expression only records the operations. {@link #evaluate(GVector)}
+ * then computes the whole expression in a single pass over the index range,
+ * a block of elements at a time, so no intermediate GVectors are created
+ * and every operand element is read once. For example one step of the
+ * conjugate gradient method reads
+ * <pre>
+ * GVectorExpression.of(b).sub(GVectorExpression.mul(A, x)).evaluate(r);
+ * GVectorExpression.of(r).add(GVectorExpression.of(p).scale(beta)).evaluate(p);
+ * </pre>
+ * The destination may be an operand of the expression. Element-wise
+ * operands are read before their block is written; if the destination is
+ * the vector of a matrix product, the expression is evaluated into a
+ * temporary first.
+ * <p>
+ * Expressions are immutable but refer to their operands, which are read at
+ * evaluation time.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class GVectorExpression {
+
+	private static final int VECTOR = 0;
+	private static final int PRODUCT = 1;
+	private static final int ADD = 2;
+	private static final int SUB = 3;
+	private static final int SCALE = 4;
+
+	// elements per evaluation block; one block of every level fits in the L1 cache.
+	private static final int BLOCK = 256;
+
+	// blocks per parallel task.
+	private static final int PARALLEL_GRAIN = 64;
+
+	private final int kind;
+	private final int size;
+	private final int height;
+	private final GVectorExpression left;
+	private final GVectorExpression right;
+	private final GVector vector;
+	private final GMatrix matrix;
+	private final double scalar;
+
+	private GVectorExpression(int kind, int size, GVectorExpression left, GVectorExpression right, GVector vector, GMatrix matrix, double scalar) {
+
+		this.kind = kind;
+		this.size = size;
+		this.left = left;
+		this.right = right;
+		this.vector = vector;
+		this.matrix = matrix;
+		this.scalar = scalar;
+		this.height = 1 + Math.max(left != null ? left.height : 0, right != null ? right.height : 0);
+	}
+
+	/**
+	 * Returns the expression that reads the vector v1.
+	 * @param v1 the vector
+	 * @return the expression
+	 */
+	public static GVectorExpression of(GVector v1) {
+
+		return new GVectorExpression(VECTOR, v1.getSize(), null, null, v1, null, 0.0D);
+	}
+
+	/**
+	 * Returns the expression of the product of matrix m1 and vector v1 (m1 * v1).
+	 * @param m1 the matrix
+	 * @param v1 the vector
+	 * @return the expression
+	 */
+	public static GVectorExpression mul(GMatrix m1, GVector v1) {
+
+		if(m1.getNumCol() != v1.getSize()) {
+
+			throw new MismatchedSizeException("v1.size:" + v1.getSize() + " != m1.nCol:" + m1.getNumCol());
+		}
+
+		return new GVectorExpression(PRODUCT, m1.getNumRow(), null, null, v1, m1, 0.0D);
+	}
+
+	/**
+	 * Returns the expression of the sum of this expression and e1.
+	 * @param e1 the other expression
+	 * @return this + e1
+	 */
+	public final GVectorExpression add(GVectorExpression e1) {
+
+		this.checkSize(e1);
+		return new GVectorExpression(ADD, this.size, this, e1, null, null, 0.0D);
+	}
+
+	/**
+	 * Returns the expression of the sum of this expression and v1.
+	 * @param v1 the vector
+	 * @return this + v1
+	 */
+	public final GVectorExpression add(GVector v1) {
+
+		return this.add(of(v1));
+	}
+
+	/**
+	 * Returns the expression of the difference of this expression and e1.
+	 * @param e1 the other expression
+	 * @return this - e1
+	 */
+	public final GVectorExpression sub(GVectorExpression e1) {
+
+		this.checkSize(e1);
+		return new GVectorExpression(SUB, this.size, this, e1, null, null, 0.0D);
+	}
+
+	/**
+	 * Returns the expression of the difference of this expression and v1.
+	 * @param v1 the vector
+	 * @return this - v1
+	 */
+	public final GVectorExpression sub(GVector v1) {
+
+		return this.sub(of(v1));
+	}
+
+	/**
+	 * Returns the expression of this expression multiplied by s.
+	 * @param s the scalar value
+	 * @return s * this
+	 */
+	public final GVectorExpression scale(double s) {
+
+		return new GVectorExpression(SCALE, this.size, this, null, null, null, s);
+	}
+
+	/**
+	 * Returns the expression of the negation of this expression.
+	 * @return -this
+	 */
+	public final GVectorExpression negate() {
+
+		return this.scale(-1.0D);
+	}
+
+	/**
+	 * Returns the number of elements of the value of this expression.
+	 * @return the size
+	 */
+	public final int getSize() {
+
+		return this.size;
+	}
+
+	/**
+	 * Evaluates this expression into v1 in the calling thread.
+	 * @param v1 the vector that receives the value; its size must be getSize()
+	 */
+	public final void evaluate(GVector v1) {
+
+		this.evaluate(v1, null);
+	}
+
+	/**
+	 * Evaluates this expression into v1, running blocks of the index range in parallel.
+	 * @param v1 the vector that receives the value; its size must be getSize()
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void evaluate(GVector v1, ForkJoinPool pool) {
+
+		if(v1.getSize() != this.size) {
+
+			throw new MismatchedSizeException("v1.size:" + v1.getSize() + " != expression size:" + this.size);
+		}
+
+		if(this.readsAcross(v1.getElementData())) {
+
+			// a product reads its whole vector for every element, so
+			// writing block by block into that vector would corrupt it.
+			GVector temp = new GVector(this.size);
+			this.evaluate(temp, pool);
+			v1.set(temp);
+			return;
+		}
+
+		double dst[] = v1.getElementData();
+		int blocks = (this.size + BLOCK - 1) / BLOCK;
+
+		ParallelLoop.run(pool, 0, blocks, PARALLEL_GRAIN, (from, to) -> {
+
+			double scratch[][] = new double[this.height][BLOCK];
+
+			for(int b = from; b < to; b++) {
+
+				int lo = b * BLOCK;
+				int n = Math.min(BLOCK, this.size - lo);
+
+				this.evaluate(lo, n, scratch, 0);
+				System.arraycopy(scratch[0], 0, dst, lo, n);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates this expression into a new GVector.
+	 * @return the value
+	 */
+	public final GVector toGVector() {
+
+		GVector v = new GVector(this.size);
+		this.evaluate(v);
+
+		return v;
+	}
+
+	// computes the elements [lo, lo + n) into scratch[level].
+	private void evaluate(int lo, int n, double scratch[][], int level) {
+
+		double out[] = scratch[level];
+
+		switch(this.kind) {
+
+			case VECTOR:
+
+				System.arraycopy(this.vector.getElementData(), lo, out, 0, n);
+				break;
+
+			case PRODUCT: {
+
+				double m[] = this.matrix.getElementData();
+				double v[] = this.vector.getElementData();
+				int nCol = this.matrix.getNumCol();
+
+				for(int i = 0; i < n; i++) {
+
+					double sum = 0.0D;
+
+					for(int j = 0, row = (lo + i) * nCol; j < nCol; j++) {
+
+						sum += m[row + j] * v[j];
+					}
+
+					out[i] = sum;
+				}
+
+				break;
+			}
+
+			case ADD:
+			case SUB: {
+
+				this.left.evaluate(lo, n, scratch, level);
+
+				// vector operands are read in place instead of through the next level.
+				double r[];
+				int ro;
+
+				if(this.right.kind == VECTOR) {
+
+					r = this.right.vector.getElementData();
+					ro = lo;
+
+				} else {
+
+					this.right.evaluate(lo, n, scratch, level + 1);
+					r = scratch[level + 1];
+					ro = 0;
+				}
+
+				if(this.kind == ADD) {
+
+					for(int i = 0; i < n; i++) {
+
+						out[i] += r[ro + i];
+					}
+
+				} else {
+
+					for(int i = 0; i < n; i++) {
+
+						out[i] -= r[ro + i];
+					}
+				}
+
+				break;
+			}
+
+			case SCALE: {
+
+				double s = this.scalar;
+
+				if(this.left.kind == VECTOR) {
+
+					double v[] = this.left.vector.getElementData();
+
+					for(int i = 0; i < n; i++) {
+
+						out[i] = s * v[lo + i];
+					}
+
+				} else {
+
+					this.left.evaluate(lo, n, scratch, level);
+
+					for(int i = 0; i < n; i++) {
+
+						out[i] *= s;
+					}
+				}
+
+				break;
+			}
+
+			default:
+				throw new IllegalStateException("kind:" + this.kind);
+		}
+	}
+
+	// true if a product of this expression reads the array data.
+	private boolean readsAcross(double data[]) {
+
+		if(this.kind == PRODUCT) {
+
+			return this.vector.getElementData() == data;
+		}
+
+		return (this.left != null && this.left.readsAcross(data)) || (this.right != null && this.right.readsAcross(data));
+	}
+
+	private void checkSize(GVectorExpression e1) {
+
+		if(e1.size != this.size) {
+
+			throw new MismatchedSizeException("this.size:" + this.size + " != e1.size:" + e1.size);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Conversions between float and IEEE 754 half precision (binary16) values
+ * stored in shorts.
+ * <p>
+ * A half has 1 sign bit, 5 exponent bits and 10 mantissa bits: about 3
+ * decimal digits over [6.1e-5, 65504] for normal values, with subnormals
+ * down to 6.0e-8. Every half converts to float exactly, with three lookups
+ * of tables totalling about 8.4 KiB (mantissa by exponent, plus a sign and
+ * exponent base). Floats are rounded to the nearest half, ties to even;
+ * values too large overflow to infinity and NaNs stay NaN.
+ * <p>
+ * {@link HalfFloatArray} stores tuples as halves. The bulk methods take a
+ * ForkJoinPool; with a null pool the calling thread does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class HalfFloat {
+
+	/**
+	 * The largest finite half, 65504.
+	 */
+	public static final float MAX_VALUE = 65504.0F;
+
+	// values per parallel task.
+	private static final int GRAIN = 1 << 16;
+
+	// float bits of a half: MANTISSA[OFFSET[e] + m] + EXPONENT[e], e the sign and exponent bits.
+	private static final int MANTISSA[] = new int[2048];
+	private static final int EXPONENT[] = new int[64];
+	private static final short OFFSET[] = new short[64];
+
+	static {
+
+		for(int i = 1; i < 1024; i++) {
+
+			// subnormal halves are normal floats: shift the leading one out.
+			int m = i << 13;
+			int e = 0;
+
+			while((m & 0x00800000) == 0) {
+
+				e -= 0x00800000;
+				m <<= 1;
+			}
+
+			MANTISSA[i] = (m & ~0x00800000) | (e + 0x38800000);
+		}
+
+		for(int i = 1024; i < 2048; i++) {
+
+			MANTISSA[i] = 0x38000000 + ((i - 1024) << 13);
+		}
+
+		for(int i = 1; i < 31; i++) {
+
+			EXPONENT[i] = i << 23;
+			EXPONENT[i + 32] = 0x80000000 + (i << 23);
+		}
+
+		EXPONENT[31] = 0x47800000;
+		EXPONENT[32] = 0x80000000;
+		EXPONENT[63] = 0xC7800000;
+
+		for(int i = 0; i < 64; i++) {
+
+			OFFSET[i] = (short)((i & 31) == 0 ? 0 : 1024);
+		}
+	}
+
+	private HalfFloat() {
+
+	}
+
+	/**
+	 * Returns the float value of a half.
+	 * @param h the half
+	 * @return the float, exactly
+	 */
+	public static float toFloat(short h) {
+
+		int e = (h >> 10) & 0x3F;
+
+		return Float.intBitsToFloat(MANTISSA[OFFSET[e] + (h & 0x3FF)] + EXPONENT[e]);
+	}
+
+	/**
+	 * Returns the half nearest to a float, ties to even.
+	 * @param f the float
+	 * @return the half
+	 */
+	public static short toHalf(float f) {
+
+		int bits = Float.floatToRawIntBits(f);
+		int sign = (bits >>> 16) & 0x8000;
+		int e = (bits >>> 23) & 0xFF;
+		int m = bits & 0x007FFFFF;
+
+		if(e == 0xFF) {
+
+			// infinity, or a quiet NaN keeping the high payload bits.
+			return (short)(sign | 0x7C00 | (m != 0 ? 0x0200 | (m >>> 13) : 0));
+		}
+
+		int h = e - 112;
+
+		if(h >= 31) {
+
+			return (short)(sign | 0x7C00);
+		}
+
+		if(h <= 0) {
+
+			if(h < -10) {
+
+				return (short)sign;
+			}
+
+			// a subnormal half: the implicit one becomes explicit.
+			m |= 0x00800000;
+			int shift = 14 - h;
+			int r = m >>> shift;
+			int rest = m & ((1 << shift) - 1);
+			int half = 1 << (shift - 1);
+
+			if(rest > half || (rest == half && (r & 1) != 0)) {
+
+				r++;
+			}
+
+			return (short)(sign | r);
+		}
+
+		// rounding up may carry into the exponent, up to infinity.
+		int r = (h << 10) | (m >>> 13);
+		int rest = m & 0x1FFF;
+
+		if(rest > 0x1000 || (rest == 0x1000 && (r & 1) != 0)) {
+
+			r++;
+		}
+
+		return (short)(sign | r);
+	}
+
+	/**
+	 * Converts count halves to floats.
+	 * @param src the halves
+	 * @param srcOffset the index of the first half
+	 * @param dst the array that receives the floats
+	 * @param dstOffset the index of the first float
+	 * @param count the number of values
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void toFloat(short src[], int srcOffset, float dst[], int dstOffset, int count, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, count);
+		check(dst.length, dstOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				dst[dstOffset + i] = toFloat(src[srcOffset + i]);
+			}
+		});
+	}
+
+	/**
+	 * Converts count floats to the nearest halves.
+	 * @param src the floats
+	 * @param srcOffset the index of the first float
+	 * @param dst the array that receives the halves
+	 * @param dstOffset the index of the first half
+	 * @param count the number of values
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void toHalf(float src[], int srcOffset, short dst[], int dstOffset, int count, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, count);
+		check(dst.length, dstOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				dst[dstOffset + i] = toHalf(src[srcOffset + i]);
+			}
+		});
+	}
+
+	static void check(int length, int offset, int count) {
+
+		if(offset < 0 || count < 0 || offset > length - count) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " count:" + count + " length:" + length);
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A fixed number of 2, 3 or 4 component tuples stored as half precision
+ * floats, 2 bytes per component instead of the 4 of a float.
+ * <p>
+ * Texture coordinates ({@link TexCoord2f}), normals ({@link Vector3f}),
+ * positions ({@link Point3f}) and colors ({@link Color4f}) are read and
+ * written through their Tuple2f, Tuple3f and Tuple4f superclasses, and
+ * whole ranges through packed float arrays. Values are rounded as by
+ * {@link HalfFloat#toHalf(float)}, so a stored component is within a
+ * relative 2^-11 of the value written when its magnitude is in the normal
+ * half range.
+ * <p>
+ * The halves are kept in one short array, tuple after tuple, which
+ * {@link #getData()} exposes for upload or serialization.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class HalfFloatArray {
+
+	private final int size;
+	private final int tupleSize;
+	private final short data[];
+
+	/**
+	 * Constructs an array of size zero tuples.
+	 * @param size the number of tuples
+	 * @param tupleSize the number of components per tuple, 2, 3 or 4
+	 */
+	public HalfFloatArray(int size, int tupleSize) {
+
+		if(tupleSize < 2 || tupleSize > 4) {
+
+			throw new IllegalArgumentException("tupleSize:" + tupleSize);
+		}
+
+		if(size < 0 || size > Integer.MAX_VALUE / tupleSize) {
+
+			throw new IllegalArgumentException("size:" + size);
+		}
+
+		this.size = size;
+		this.tupleSize = tupleSize;
+		this.data = new short[size * tupleSize];
+	}
+
+	/**
+	 * Returns the number of tuples.
+	 * @return the number of tuples
+	 */
+	public final int size() {
+
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of components per tuple.
+	 * @return 2, 3 or 4
+	 */
+	public final int getTupleSize() {
+
+		return this.tupleSize;
+	}
+
+	/**
+	 * Returns the halves of all tuples, tupleSize per tuple. The array is
+	 * not copied.
+	 * @return the backing array
+	 */
+	public final short[] getData() {
+
+		return this.data;
+	}
+
+	/**
+	 * Returns a component of a tuple.
+	 * @param index the tuple index
+	 * @param component the component index, less than the tuple size
+	 * @return the component
+	 */
+	public final float get(int index, int component) {
+
+		return HalfFloat.toFloat(this.data[this.offset(index) + this.component(component)]);
+	}
+
+	/**
+	 * Sets a component of a tuple.
+	 * @param index the tuple index
+	 * @param component the component index, less than the tuple size
+	 * @param value the new value
+	 */
+	public final void set(int index, int component, float value) {
+
+		this.data[this.offset(index) + this.component(component)] = HalfFloat.toHalf(value);
+	}
+
+	/**
+	 * Copies the first two components of a tuple into t.
+	 * @param index the tuple index
+	 * @param t the tuple that receives the components
+	 */
+	public final void get(int index, Tuple2f t) {
+
+		int o = this.offset(index);
+
+		t.x = HalfFloat.toFloat(this.data[o]);
+		t.y = HalfFloat.toFloat(this.data[o + 1]);
+	}
+
+	/**
+	 * Sets the first two components of a tuple.
+	 * @param index the tuple index
+	 * @param t the new components
+	 */
+	public final void set(int index, Tuple2f t) {
+
+		int o = this.offset(index);
+
+		this.data[o] = HalfFloat.toHalf(t.x);
+		this.data[o + 1] = HalfFloat.toHalf(t.y);
+	}
+
+	/**
+	 * Copies the first three components of a tuple into t.
+	 * @param index the tuple index
+	 * @param t the tuple that receives the components
+	 */
+	public final void get(int index, Tuple3f t) {
+
+		int o = this.offset(index, 3);
+
+		t.x = HalfFloat.toFloat(this.data[o]);
+		t.y = HalfFloat.toFloat(this.data[o + 1]);
+		t.z = HalfFloat.toFloat(this.data[o + 2]);
+	}
+
+	/**
+	 * Sets the first three components of a tuple.
+	 * @param index the tuple index
+	 * @param t the new components
+	 */
+	public final void set(int index, Tuple3f t) {
+
+		int o = this.offset(index, 3);
+
+		this.data[o] = HalfFloat.toHalf(t.x);
+		this.data[o + 1] = HalfFloat.toHalf(t.y);
+		this.data[o + 2] = HalfFloat.toHalf(t.z);
+	}
+
+	/**
+	 * Copies the four components of a tuple into t.
+	 * @param index the tuple index
+	 * @param t the tuple that receives the components
+	 */
+	public final void get(int index, Tuple4f t) {
+
+		int o = this.offset(index, 4);
+
+		t.x = HalfFloat.toFloat(this.data[o]);
+		t.y = HalfFloat.toFloat(this.data[o + 1]);
+		t.z = HalfFloat.toFloat(this.data[o + 2]);
+		t.w = HalfFloat.toFloat(this.data[o + 3]);
+	}
+
+	/**
+	 * Sets the four components of a tuple.
+	 * @param index the tuple index
+	 * @param t the new components
+	 */
+	public final void set(int index, Tuple4f t) {
+
+		int o = this.offset(index, 4);
+
+		this.data[o] = HalfFloat.toHalf(t.x);
+		this.data[o + 1] = HalfFloat.toHalf(t.y);
+		this.data[o + 2] = HalfFloat.toHalf(t.z);
+		this.data[o + 3] = HalfFloat.toHalf(t.w);
+	}
+
+	/**
+	 * Copies count tuples starting at index into packed floats, tupleSize
+	 * per tuple.
+	 * @param index the first tuple
+	 * @param count the number of tuples
+	 * @param dst the array that receives the components
+	 * @param dstOffset the index of the first component in dst
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public final void get(int index, int count, float dst[], int dstOffset, ForkJoinPool pool) {
+
+		this.checkRange(index, count);
+		HalfFloat.toFloat(this.data, index * this.tupleSize, dst, dstOffset, count * this.tupleSize, pool);
+	}
+
+	/**
+	 * Sets count tuples starting at index from packed floats, tupleSize per
+	 * tuple.
+	 * @param index the first tuple
+	 * @param count the number of tuples
+	 * @param src the new components
+	 * @param srcOffset the index of the first component in src
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public final void set(int index, int count, float src[], int srcOffset, ForkJoinPool pool) {
+
+		this.checkRange(index, count);
+		HalfFloat.toHalf(src, srcOffset, this.data, index * this.tupleSize, count * this.tupleSize, pool);
+	}
+
+	private int offset(int index) {
+
+		if(index < 0 || index >= this.size) {
+
+			throw new IndexOutOfBoundsException("index:" + index);
+		}
+
+		return index * this.tupleSize;
+	}
+
+	// the offset of a tuple read as a tuple of n components.
+	private int offset(int index, int n) {
+
+		if(this.tupleSize < n) {
+
+			throw new IllegalArgumentException("tupleSize:" + this.tupleSize + " < " + n);
+		}
+
+		return this.offset(index);
+	}
+
+	private int component(int component) {
+
+		if(component < 0 || component >= this.tupleSize) {
+
+			throw new IndexOutOfBoundsException("component:" + component);
+		}
+
+		return component;
+	}
+
+	private void checkRange(int index, int count) {
+
+		if(index < 0 || count < 0 || index > this.size - count) {
+
+			throw new IndexOutOfBoundsException("index:" + index + " count:" + count + " size:" + this.size);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+/**
+ * The 64 bit hash of the longHashCode methods.
+ * <p>
+ * Every value goes through a MurmurHash3 x64 block round before it is
+ * combined, so the hash depends on the position of every value and
+ * permuted or transposed elements give different hashes; the MurmurHash3
+ * finalizer then spreads the result over all bits. -0.0 is hashed as 0.0,
+ * since equals compares elements with ==.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+final class HashMix {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	/**
+	 * The initial hash.
+	 */
+	static final long SEED = 0x9e3779b97f4a7c15L;
+
+	private HashMix() {
+
+	}
+
+	/**
+	 * Combines a double value into the hash h.
+	 * @param h the hash so far
+	 * @param v the value
+	 * @return the new hash
+	 */
+	static long mix(long h, double v) {
+
+		return mix(h, Double.doubleToLongBits(v + 0.0D));
+	}
+
+	/**
+	 * Combines a float value into the hash h.
+	 * @param h the hash so far
+	 * @param v the value
+	 * @return the new hash
+	 */
+	static long mix(long h, float v) {
+
+		return mix(h, (long)Float.floatToIntBits(v + 0.0F));
+	}
+
+	/**
+	 * Finishes the hash h of count values.
+	 * @param h the hash of the values
+	 * @param count the number of values
+	 * @return the hash
+	 */
+	static long finish(long h, int count) {
+
+		h ^= count;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+
+		return h;
+	}
+
+	private static long mix(long h, long k) {
+
+		k *= C1;
+		k = Long.rotateLeft(k, 31);
+		k *= C2;
+		h ^= k;
+		h = Long.rotateLeft(h, 27);
+
+		return h * 5L + 0x52dce729L;
+	}
+}
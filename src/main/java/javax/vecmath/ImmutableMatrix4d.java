@@ -0,0 +1,546 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+/**
+ * An immutable 4 by 4 matrix that is represented by double precision
+ * floating point elements, using the conventions of {@link Matrix4d}.
+ * <p>
+ * Instances can be shared between threads without copying. Every operation
+ * returns a new instance, see {@link ImmutableVector3d}. {@link #mul} and
+ * {@link #invert} are larger than the bytecode size up to which HotSpot
+ * inlines hot methods (-XX:FreqInlineSize, 325 bytes by default), so their
+ * arguments and results escape and are allocated even in a hot loop.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class ImmutableMatrix4d implements Serializable {
+
+	private static final long serialVersionUID = -6072184390153326421L;
+
+	/**
+	 * The identity matrix.
+	 */
+	public static final ImmutableMatrix4d IDENTITY = new ImmutableMatrix4d(1.0D, 0.0D, 0.0D, 0.0D,
+																		   0.0D, 1.0D, 0.0D, 0.0D,
+																		   0.0D, 0.0D, 1.0D, 0.0D,
+																		   0.0D, 0.0D, 0.0D, 1.0D);
+
+	/**
+	 * The zeroth row, zeroth column element of the matrix.
+	 */
+	public final double m00;
+
+	/**
+	 * The zeroth row, first column element of the matrix.
+	 */
+	public final double m01;
+
+	/**
+	 * The zeroth row, second column element of the matrix.
+	 */
+	public final double m02;
+
+	/**
+	 * The zeroth row, third column element of the matrix.
+	 */
+	public final double m03;
+
+	/**
+	 * The first row, zeroth column element of the matrix.
+	 */
+	public final double m10;
+
+	/**
+	 * The first row, first column element of the matrix.
+	 */
+	public final double m11;
+
+	/**
+	 * The first row, second column element of the matrix.
+	 */
+	public final double m12;
+
+	/**
+	 * The first row, third column element of the matrix.
+	 */
+	public final double m13;
+
+	/**
+	 * The second row, zeroth column element of the matrix.
+	 */
+	public final double m20;
+
+	/**
+	 * The second row, first column element of the matrix.
+	 */
+	public final double m21;
+
+	/**
+	 * The second row, second column element of the matrix.
+	 */
+	public final double m22;
+
+	/**
+	 * The second row, third column element of the matrix.
+	 */
+	public final double m23;
+
+	/**
+	 * The third row, zeroth column element of the matrix.
+	 */
+	public final double m30;
+
+	/**
+	 * The third row, first column element of the matrix.
+	 */
+	public final double m31;
+
+	/**
+	 * The third row, second column element of the matrix.
+	 */
+	public final double m32;
+
+	/**
+	 * The third row, third column element of the matrix.
+	 */
+	public final double m33;
+
+	/**
+	 * Constructs and initializes an ImmutableMatrix4d from the specified 16 values.
+	 * @param m00 the [0][0] element
+	 * @param m01 the [0][1] element
+	 * @param m02 the [0][2] element
+	 * @param m03 the [0][3] element
+	 * @param m10 the [1][0] element
+	 * @param m11 the [1][1] element
+	 * @param m12 the [1][2] element
+	 * @param m13 the [1][3] element
+	 * @param m20 the [2][0] element
+	 * @param m21 the [2][1] element
+	 * @param m22 the [2][2] element
+	 * @param m23 the [2][3] element
+	 * @param m30 the [3][0] element
+	 * @param m31 the [3][1] element
+	 * @param m32 the [3][2] element
+	 * @param m33 the [3][3] element
+	 */
+	public ImmutableMatrix4d(double m00, double m01, double m02, double m03,
+							 double m10, double m11, double m12, double m13,
+							 double m20, double m21, double m22, double m23,
+							 double m30, double m31, double m32, double m33) {
+
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		this.m30 = m30;
+		this.m31 = m31;
+		this.m32 = m32;
+		this.m33 = m33;
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableMatrix4d from the specified Matrix4d.
+	 * @param m1 the Matrix4d containing the initialization data
+	 */
+	public ImmutableMatrix4d(Matrix4d m1) {
+
+		this(m1.m00, m1.m01, m1.m02, m1.m03,
+			 m1.m10, m1.m11, m1.m12, m1.m13,
+			 m1.m20, m1.m21, m1.m22, m1.m23,
+			 m1.m30, m1.m31, m1.m32, m1.m33);
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableMatrix4d from the specified Matrix4f.
+	 * @param m1 the Matrix4f containing the initialization data
+	 */
+	public ImmutableMatrix4d(Matrix4f m1) {
+
+		this(m1.m00, m1.m01, m1.m02, m1.m03,
+			 m1.m10, m1.m11, m1.m12, m1.m13,
+			 m1.m20, m1.m21, m1.m22, m1.m23,
+			 m1.m30, m1.m31, m1.m32, m1.m33);
+	}
+
+	/**
+	 * Returns an ImmutableMatrix4d with the elements of m1.
+	 * @param m1 the matrix to be copied
+	 * @return the matrix
+	 */
+	public static ImmutableMatrix4d of(Matrix4d m1) {
+
+		return new ImmutableMatrix4d(m1);
+	}
+
+	/**
+	 * Returns the matrix that translates by (x, y, z).
+	 * @param x the x translation
+	 * @param y the y translation
+	 * @param z the z translation
+	 * @return the translation matrix
+	 */
+	public static ImmutableMatrix4d translation(double x, double y, double z) {
+
+		return new ImmutableMatrix4d(1.0D, 0.0D, 0.0D, x,
+									 0.0D, 1.0D, 0.0D, y,
+									 0.0D, 0.0D, 1.0D, z,
+									 0.0D, 0.0D, 0.0D, 1.0D);
+	}
+
+	/**
+	 * Returns the matrix that scales uniformly by s.
+	 * @param s the scale factor
+	 * @return the scale matrix
+	 */
+	public static ImmutableMatrix4d scaling(double s) {
+
+		return new ImmutableMatrix4d(s, 0.0D, 0.0D, 0.0D,
+									 0.0D, s, 0.0D, 0.0D,
+									 0.0D, 0.0D, s, 0.0D,
+									 0.0D, 0.0D, 0.0D, 1.0D);
+	}
+
+	/**
+	 * Returns the matrix built from the rotation q1, the translation t1 and the
+	 * scale s, as {@link Matrix4d#Matrix4d(Quat4d, Vector3d, double)} does.
+	 * The scale applies only to the rotational components.
+	 * @param q1 the rotation, a unit quaternion
+	 * @param t1 the translation
+	 * @param s the scale of the rotational components
+	 * @return the matrix
+	 */
+	public static ImmutableMatrix4d of(ImmutableQuat4d q1, ImmutableVector3d t1, double s) {
+
+		double xx = q1.x * q1.x, yy = q1.y * q1.y, zz = q1.z * q1.z;
+		double xy = q1.x * q1.y, yz = q1.y * q1.z, zx = q1.z * q1.x;
+		double xw = q1.x * q1.w, yw = q1.y * q1.w, zw = q1.z * q1.w;
+
+		return new ImmutableMatrix4d((1.0D - 2.0D * (yy + zz)) * s, 2.0D * (xy - zw) * s, 2.0D * (zx + yw) * s, t1.x,
+									 2.0D * (xy + zw) * s, (1.0D - 2.0D * (zz + xx)) * s, 2.0D * (yz - xw) * s, t1.y,
+									 2.0D * (zx - yw) * s, 2.0D * (yz + xw) * s, (1.0D - 2.0D * (xx + yy)) * s, t1.z,
+									 0.0D, 0.0D, 0.0D, 1.0D);
+	}
+
+	/**
+	 * Returns the element at the specified row and column.
+	 * @param row the row number to be retrieved (zero indexed)
+	 * @param column the column number to be retrieved (zero indexed)
+	 * @return the value at the indexed element
+	 */
+	public final double getElement(int row, int column) {
+
+		switch(row * 4 + column) {
+
+			case 0:
+				return this.m00;
+			case 1:
+				return this.m01;
+			case 2:
+				return this.m02;
+			case 3:
+				return this.m03;
+			case 4:
+				return this.m10;
+			case 5:
+				return this.m11;
+			case 6:
+				return this.m12;
+			case 7:
+				return this.m13;
+			case 8:
+				return this.m20;
+			case 9:
+				return this.m21;
+			case 10:
+				return this.m22;
+			case 11:
+				return this.m23;
+			case 12:
+				return this.m30;
+			case 13:
+				return this.m31;
+			case 14:
+				return this.m32;
+			case 15:
+				return this.m33;
+			default:
+				throw new ArrayIndexOutOfBoundsException("row:" + row + " column:" + column);
+		}
+	}
+
+	/**
+	 * Returns the matrix product of this matrix and m1.
+	 * @param m1 the right matrix
+	 * @return this * m1
+	 */
+	public final ImmutableMatrix4d mul(ImmutableMatrix4d m1) {
+
+		return new ImmutableMatrix4d(this.m00 * m1.m00 + this.m01 * m1.m10 + this.m02 * m1.m20 + this.m03 * m1.m30,
+									 this.m00 * m1.m01 + this.m01 * m1.m11 + this.m02 * m1.m21 + this.m03 * m1.m31,
+									 this.m00 * m1.m02 + this.m01 * m1.m12 + this.m02 * m1.m22 + this.m03 * m1.m32,
+									 this.m00 * m1.m03 + this.m01 * m1.m13 + this.m02 * m1.m23 + this.m03 * m1.m33,
+
+									 this.m10 * m1.m00 + this.m11 * m1.m10 + this.m12 * m1.m20 + this.m13 * m1.m30,
+									 this.m10 * m1.m01 + this.m11 * m1.m11 + this.m12 * m1.m21 + this.m13 * m1.m31,
+									 this.m10 * m1.m02 + this.m11 * m1.m12 + this.m12 * m1.m22 + this.m13 * m1.m32,
+									 this.m10 * m1.m03 + this.m11 * m1.m13 + this.m12 * m1.m23 + this.m13 * m1.m33,
+
+									 this.m20 * m1.m00 + this.m21 * m1.m10 + this.m22 * m1.m20 + this.m23 * m1.m30,
+									 this.m20 * m1.m01 + this.m21 * m1.m11 + this.m22 * m1.m21 + this.m23 * m1.m31,
+									 this.m20 * m1.m02 + this.m21 * m1.m12 + this.m22 * m1.m22 + this.m23 * m1.m32,
+									 this.m20 * m1.m03 + this.m21 * m1.m13 + this.m22 * m1.m23 + this.m23 * m1.m33,
+
+									 this.m30 * m1.m00 + this.m31 * m1.m10 + this.m32 * m1.m20 + this.m33 * m1.m30,
+									 this.m30 * m1.m01 + this.m31 * m1.m11 + this.m32 * m1.m21 + this.m33 * m1.m31,
+									 this.m30 * m1.m02 + this.m31 * m1.m12 + this.m32 * m1.m22 + this.m33 * m1.m32,
+									 this.m30 * m1.m03 + this.m31 * m1.m13 + this.m32 * m1.m23 + this.m33 * m1.m33);
+	}
+
+	/**
+	 * Returns the transpose of this matrix.
+	 * @return the transposed matrix
+	 */
+	public final ImmutableMatrix4d transpose() {
+
+		return new ImmutableMatrix4d(this.m00, this.m10, this.m20, this.m30,
+									 this.m01, this.m11, this.m21, this.m31,
+									 this.m02, this.m12, this.m22, this.m32,
+									 this.m03, this.m13, this.m23, this.m33);
+	}
+
+	/**
+	 * Computes the determinant of this matrix.
+	 * @return the determinant of the matrix
+	 */
+	public final double determinant() {
+
+		return (this.m00 * this.m11 - this.m01 * this.m10) * (this.m22 * this.m33 - this.m23 * this.m32)
+			 - (this.m00 * this.m12 - this.m02 * this.m10) * (this.m21 * this.m33 - this.m23 * this.m31)
+			 + (this.m00 * this.m13 - this.m03 * this.m10) * (this.m21 * this.m32 - this.m22 * this.m31)
+			 + (this.m01 * this.m12 - this.m02 * this.m11) * (this.m20 * this.m33 - this.m23 * this.m30)
+			 - (this.m01 * this.m13 - this.m03 * this.m11) * (this.m20 * this.m32 - this.m22 * this.m30)
+			 + (this.m02 * this.m13 - this.m03 * this.m12) * (this.m20 * this.m31 - this.m21 * this.m30);
+	}
+
+	/**
+	 * Returns the inverse of this matrix.
+	 * @return the inverse
+	 * @throws SingularMatrixException if the determinant of this matrix is zero
+	 */
+	public final ImmutableMatrix4d invert() {
+
+		double s = this.determinant();
+
+		if(s == 0.0D) {
+
+			throw new SingularMatrixException("determinant:" + s);
+		}
+
+		s = 1.0D / s;
+
+		return new ImmutableMatrix4d((this.m11 * (this.m22 * this.m33 - this.m23 * this.m32) + this.m12 * (this.m23 * this.m31 - this.m21 * this.m33) + this.m13 * (this.m21 * this.m32 - this.m22 * this.m31)) * s,
+									 (this.m21 * (this.m02 * this.m33 - this.m03 * this.m32) + this.m22 * (this.m03 * this.m31 - this.m01 * this.m33) + this.m23 * (this.m01 * this.m32 - this.m02 * this.m31)) * s,
+									 (this.m31 * (this.m02 * this.m13 - this.m03 * this.m12) + this.m32 * (this.m03 * this.m11 - this.m01 * this.m13) + this.m33 * (this.m01 * this.m12 - this.m02 * this.m11)) * s,
+									 (this.m01 * (this.m13 * this.m22 - this.m12 * this.m23) + this.m02 * (this.m11 * this.m23 - this.m13 * this.m21) + this.m03 * (this.m12 * this.m21 - this.m11 * this.m22)) * s,
+									 (this.m12 * (this.m20 * this.m33 - this.m23 * this.m30) + this.m13 * (this.m22 * this.m30 - this.m20 * this.m32) + this.m10 * (this.m23 * this.m32 - this.m22 * this.m33)) * s,
+									 (this.m22 * (this.m00 * this.m33 - this.m03 * this.m30) + this.m23 * (this.m02 * this.m30 - this.m00 * this.m32) + this.m20 * (this.m03 * this.m32 - this.m02 * this.m33)) * s,
+									 (this.m32 * (this.m00 * this.m13 - this.m03 * this.m10) + this.m33 * (this.m02 * this.m10 - this.m00 * this.m12) + this.m30 * (this.m03 * this.m12 - this.m02 * this.m13)) * s,
+									 (this.m02 * (this.m13 * this.m20 - this.m10 * this.m23) + this.m03 * (this.m10 * this.m22 - this.m12 * this.m20) + this.m00 * (this.m12 * this.m23 - this.m13 * this.m22)) * s,
+									 (this.m13 * (this.m20 * this.m31 - this.m21 * this.m30) + this.m10 * (this.m21 * this.m33 - this.m23 * this.m31) + this.m11 * (this.m23 * this.m30 - this.m20 * this.m33)) * s,
+									 (this.m23 * (this.m00 * this.m31 - this.m01 * this.m30) + this.m20 * (this.m01 * this.m33 - this.m03 * this.m31) + this.m21 * (this.m03 * this.m30 - this.m00 * this.m33)) * s,
+									 (this.m33 * (this.m00 * this.m11 - this.m01 * this.m10) + this.m30 * (this.m01 * this.m13 - this.m03 * this.m11) + this.m31 * (this.m03 * this.m10 - this.m00 * this.m13)) * s,
+									 (this.m03 * (this.m11 * this.m20 - this.m10 * this.m21) + this.m00 * (this.m13 * this.m21 - this.m11 * this.m23) + this.m01 * (this.m10 * this.m23 - this.m13 * this.m20)) * s,
+									 (this.m10 * (this.m22 * this.m31 - this.m21 * this.m32) + this.m11 * (this.m20 * this.m32 - this.m22 * this.m30) + this.m12 * (this.m21 * this.m30 - this.m20 * this.m31)) * s,
+									 (this.m20 * (this.m02 * this.m31 - this.m01 * this.m32) + this.m21 * (this.m00 * this.m32 - this.m02 * this.m30) + this.m22 * (this.m01 * this.m30 - this.m00 * this.m31)) * s,
+									 (this.m30 * (this.m02 * this.m11 - this.m01 * this.m12) + this.m31 * (this.m00 * this.m12 - this.m02 * this.m10) + this.m32 * (this.m01 * this.m10 - this.m00 * this.m11)) * s,
+									 (this.m00 * (this.m11 * this.m22 - this.m12 * this.m21) + this.m01 * (this.m12 * this.m20 - this.m10 * this.m22) + this.m02 * (this.m10 * this.m21 - this.m11 * this.m20)) * s);
+	}
+
+	/**
+	 * Returns the point p1 transformed by this matrix, the translation included.
+	 * The fourth row is assumed to be (0, 0, 0, 1).
+	 * @param p1 the point
+	 * @return the transformed point
+	 */
+	public final ImmutableVector3d transformPoint(ImmutableVector3d p1) {
+
+		return new ImmutableVector3d(this.m00 * p1.x + this.m01 * p1.y + this.m02 * p1.z + this.m03,
+									 this.m10 * p1.x + this.m11 * p1.y + this.m12 * p1.z + this.m13,
+									 this.m20 * p1.x + this.m21 * p1.y + this.m22 * p1.z + this.m23);
+	}
+
+	/**
+	 * Returns the direction v1 transformed by the upper 3x3 part of this matrix.
+	 * @param v1 the direction
+	 * @return the transformed direction
+	 */
+	public final ImmutableVector3d transformVector(ImmutableVector3d v1) {
+
+		return new ImmutableVector3d(this.m00 * v1.x + this.m01 * v1.y + this.m02 * v1.z,
+									 this.m10 * v1.x + this.m11 * v1.y + this.m12 * v1.z,
+									 this.m20 * v1.x + this.m21 * v1.y + this.m22 * v1.z);
+	}
+
+	/**
+	 * Returns the translational components of this matrix.
+	 * @return (m03, m13, m23)
+	 */
+	public final ImmutableVector3d getTranslation() {
+
+		return new ImmutableVector3d(this.m03, this.m13, this.m23);
+	}
+
+	/**
+	 * Copies the elements of this matrix into m1.
+	 * @param m1 the matrix that receives the elements
+	 */
+	public final void get(Matrix4d m1) {
+
+		m1.m00 = this.m00;
+		m1.m01 = this.m01;
+		m1.m02 = this.m02;
+		m1.m03 = this.m03;
+		m1.m10 = this.m10;
+		m1.m11 = this.m11;
+		m1.m12 = this.m12;
+		m1.m13 = this.m13;
+		m1.m20 = this.m20;
+		m1.m21 = this.m21;
+		m1.m22 = this.m22;
+		m1.m23 = this.m23;
+		m1.m30 = this.m30;
+		m1.m31 = this.m31;
+		m1.m32 = this.m32;
+		m1.m33 = this.m33;
+	}
+
+	/**
+	 * Returns a new mutable Matrix4d with the elements of this matrix.
+	 * @return the Matrix4d
+	 */
+	public final Matrix4d toMatrix4d() {
+
+		Matrix4d m1 = new Matrix4d();
+		this.get(m1);
+
+		return m1;
+	}
+
+	/**
+	 * Returns true if all of the data members of ImmutableMatrix4d m1 are
+	 * equal to the corresponding data members in this matrix.
+	 * @param m1 the matrix with which the comparison is made
+	 * @return true or false
+	 */
+	public final boolean equals(ImmutableMatrix4d m1) {
+
+		return m1 != null
+			&& this.m00 == m1.m00 && this.m01 == m1.m01 && this.m02 == m1.m02 && this.m03 == m1.m03
+			&& this.m10 == m1.m10 && this.m11 == m1.m11 && this.m12 == m1.m12 && this.m13 == m1.m13
+			&& this.m20 == m1.m20 && this.m21 == m1.m21 && this.m22 == m1.m22 && this.m23 == m1.m23
+			&& this.m30 == m1.m30 && this.m31 == m1.m31 && this.m32 == m1.m32 && this.m33 == m1.m33;
+	}
+
+	@Override
+	public final boolean equals(Object o1) {
+
+		return o1 != null && (o1 instanceof ImmutableMatrix4d) && this.equals((ImmutableMatrix4d)o1);
+	}
+
+	/**
+	 * Returns true if the L-infinite distance between this matrix and matrix
+	 * m1 is less than or equal to the epsilon parameter, otherwise returns false.
+	 * @param m1 the matrix to be compared to this matrix
+	 * @param epsilon the threshold value
+	 * @return true or false
+	 */
+	public final boolean epsilonEquals(ImmutableMatrix4d m1, double epsilon) {
+
+		return Math.abs(this.m00 - m1.m00) <= epsilon &&
+			   Math.abs(this.m01 - m1.m01) <= epsilon &&
+			   Math.abs(this.m02 - m1.m02) <= epsilon &&
+			   Math.abs(this.m03 - m1.m03) <= epsilon &&
+			   Math.abs(this.m10 - m1.m10) <= epsilon &&
+			   Math.abs(this.m11 - m1.m11) <= epsilon &&
+			   Math.abs(this.m12 - m1.m12) <= epsilon &&
+			   Math.abs(this.m13 - m1.m13) <= epsilon &&
+			   Math.abs(this.m20 - m1.m20) <= epsilon &&
+			   Math.abs(this.m21 - m1.m21) <= epsilon &&
+			   Math.abs(this.m22 - m1.m22) <= epsilon &&
+			   Math.abs(this.m23 - m1.m23) <= epsilon &&
+			   Math.abs(this.m30 - m1.m30) <= epsilon &&
+			   Math.abs(this.m31 - m1.m31) <= epsilon &&
+			   Math.abs(this.m32 - m1.m32) <= epsilon &&
+			   Math.abs(this.m33 - m1.m33) <= epsilon;
+	}
+
+	/**
+	 * Returns a hash number based on the data values in this object.
+	 * Two different ImmutableMatrix4d objects with identical data values
+	 * (ie, returns true for equals(ImmutableMatrix4d) ) will return the same hash number.
+	 * @return the hash code
+	 */
+	@Override
+	public final int hashCode() {
+
+		long bits = 1L;
+		bits = 31L * bits + Double.doubleToLongBits(this.m00);
+		bits = 31L * bits + Double.doubleToLongBits(this.m01);
+		bits = 31L * bits + Double.doubleToLongBits(this.m02);
+		bits = 31L * bits + Double.doubleToLongBits(this.m03);
+		bits = 31L * bits + Double.doubleToLongBits(this.m10);
+		bits = 31L * bits + Double.doubleToLongBits(this.m11);
+		bits = 31L * bits + Double.doubleToLongBits(this.m12);
+		bits = 31L * bits + Double.doubleToLongBits(this.m13);
+		bits = 31L * bits + Double.doubleToLongBits(this.m20);
+		bits = 31L * bits + Double.doubleToLongBits(this.m21);
+		bits = 31L * bits + Double.doubleToLongBits(this.m22);
+		bits = 31L * bits + Double.doubleToLongBits(this.m23);
+		bits = 31L * bits + Double.doubleToLongBits(this.m30);
+		bits = 31L * bits + Double.doubleToLongBits(this.m31);
+		bits = 31L * bits + Double.doubleToLongBits(this.m32);
+		bits = 31L * bits + Double.doubleToLongBits(this.m33);
+
+		return (int)(bits ^ (bits >> 32));
+	}
+
+	/**
+	 * Returns a string that contains the values of this ImmutableMatrix4d,
+	 * one row per line.
+	 * @return the String representation
+	 */
+	@Override
+	public final String toString() {
+
+		String nl = System.getProperty("line.separator");
+
+		return "[" + nl + "  [" + this.m00 + "\t" + this.m01 + "\t" + this.m02 + "\t" + this.m03 + "]" + nl +
+			   "  [" + this.m10 + "\t" + this.m11 + "\t" + this.m12 + "\t" + this.m13 + "]" + nl +
+			   "  [" + this.m20 + "\t" + this.m21 + "\t" + this.m22 + "\t" + this.m23 + "]" + nl +
+			   "  [" + this.m30 + "\t" + this.m31 + "\t" + this.m32 + "\t" + this.m33 + "] ]";
+	}
+}
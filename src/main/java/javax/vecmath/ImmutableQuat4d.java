@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+
+/**
+ * An immutable quaternion that is represented by double precision floating
+ * point x, y, z, w coordinates, using the conventions of {@link Quat4d}.
+ * <p>
+ * Instances can be shared between threads without copying. Every operation
+ * returns a new instance, see {@link ImmutableVector3d}.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class ImmutableQuat4d implements Serializable {
+
+	private static final long serialVersionUID = 2846104983261570981L;
+
+	/**
+	 * The identity rotation.
+	 */
+	public static final ImmutableQuat4d IDENTITY = new ImmutableQuat4d(0.0D, 0.0D, 0.0D, 1.0D);
+
+	/**
+	 * The x coordinate.
+	 */
+	public final double x;
+
+	/**
+	 * The y coordinate.
+	 */
+	public final double y;
+
+	/**
+	 * The z coordinate.
+	 */
+	public final double z;
+
+	/**
+	 * The w coordinate.
+	 */
+	public final double w;
+
+	/**
+	 * Constructs and initializes an ImmutableQuat4d from the specified xyzw coordinates.
+	 * The quaternion is not normalized.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @param w the w scalar component
+	 */
+	public ImmutableQuat4d(double x, double y, double z, double w) {
+
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableQuat4d from the specified Quat4d.
+	 * @param q1 the Quat4d containing the initialization x y z w data
+	 */
+	public ImmutableQuat4d(Quat4d q1) {
+
+		this(q1.x, q1.y, q1.z, q1.w);
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableQuat4d from the specified Quat4f.
+	 * @param q1 the Quat4f containing the initialization x y z w data
+	 */
+	public ImmutableQuat4d(Quat4f q1) {
+
+		this(q1.x, q1.y, q1.z, q1.w);
+	}
+
+	/**
+	 * Returns an ImmutableQuat4d with the coordinates of q1.
+	 * @param q1 the quaternion to be copied
+	 * @return the quaternion
+	 */
+	public static ImmutableQuat4d of(Quat4d q1) {
+
+		return new ImmutableQuat4d(q1.x, q1.y, q1.z, q1.w);
+	}
+
+	/**
+	 * Returns the unit quaternion of the rotation by angle radians about the axis (ax, ay, az).
+	 * @param ax the x coordinate of the axis
+	 * @param ay the y coordinate of the axis
+	 * @param az the z coordinate of the axis
+	 * @param angle the rotation angle in radians
+	 * @return the rotation; the identity if the axis has zero length
+	 */
+	public static ImmutableQuat4d fromAxisAngle(double ax, double ay, double az, double angle) {
+
+		double n = Math.sqrt(ax * ax + ay * ay + az * az);
+
+		if(n == 0.0D) {
+
+			return IDENTITY;
+		}
+
+		double s = Math.sin(0.5D * angle) / n;
+
+		return new ImmutableQuat4d(ax * s, ay * s, az * s, Math.cos(0.5D * angle));
+	}
+
+	/**
+	 * Returns the unit quaternion of the rotation a1.
+	 * @param a1 the axis and angle
+	 * @return the rotation
+	 */
+	public static ImmutableQuat4d fromAxisAngle(AxisAngle4d a1) {
+
+		return fromAxisAngle(a1.x, a1.y, a1.z, a1.angle);
+	}
+
+	/**
+	 * Returns the quaternion product of this quaternion and q1.
+	 * @param q1 the right quaternion
+	 * @return this * q1
+	 */
+	public final ImmutableQuat4d mul(ImmutableQuat4d q1) {
+
+		return new ImmutableQuat4d(this.x * q1.w + this.w * q1.x + this.y * q1.z - this.z * q1.y,
+								   this.y * q1.w + this.w * q1.y + this.z * q1.x - this.x * q1.z,
+								   this.z * q1.w + this.w * q1.z + this.x * q1.y - this.y * q1.x,
+								   this.w * q1.w - this.x * q1.x - this.y * q1.y - this.z * q1.z);
+	}
+
+	/**
+	 * Returns the conjugate of this quaternion.
+	 * @return the conjugate
+	 */
+	public final ImmutableQuat4d conjugate() {
+
+		return new ImmutableQuat4d(-this.x, -this.y, -this.z, this.w);
+	}
+
+	/**
+	 * Returns the multiplicative inverse of this quaternion.
+	 * @return the inverse; NaN components for the zero quaternion
+	 */
+	public final ImmutableQuat4d inverse() {
+
+		double n = 1.0D / this.norm();
+
+		return new ImmutableQuat4d(-this.x * n, -this.y * n, -this.z * n, this.w * n);
+	}
+
+	/**
+	 * Returns the squared length of this quaternion, as Quat4d.norm() does.
+	 * @return the norm
+	 */
+	public final double norm() {
+
+		return this.x * this.x + this.y * this.y + this.z * this.z + this.w * this.w;
+	}
+
+	/**
+	 * Returns the dot product of this quaternion and q1.
+	 * @param q1 the other quaternion
+	 * @return the dot product
+	 */
+	public final double dot(ImmutableQuat4d q1) {
+
+		return this.x * q1.x + this.y * q1.y + this.z * q1.z + this.w * q1.w;
+	}
+
+	/**
+	 * Returns this quaternion scaled to unit length. The zero quaternion is returned unchanged.
+	 * @return the normalized quaternion
+	 */
+	public final ImmutableQuat4d normalize() {
+
+		double n = this.norm();
+
+		if(n == 0.0D) {
+
+			return this;
+		}
+
+		n = 1.0D / Math.sqrt(n);
+
+		return new ImmutableQuat4d(this.x * n, this.y * n, this.z * n, this.w * n);
+	}
+
+	/**
+	 * Returns the great circle interpolation between this quaternion and q1.
+	 * Both quaternions are normalized first, as in {@link Quat4d#interpolate(Quat4d, double)}.
+	 * @param q1 the other quaternion
+	 * @param alpha the interpolation parameter
+	 * @return the interpolated rotation
+	 */
+	public final ImmutableQuat4d interpolate(ImmutableQuat4d q1, double alpha) {
+
+		ImmutableQuat4d q0 = this.normalize();
+		ImmutableQuat4d q2 = q1.normalize();
+		double t = q0.dot(q2);
+
+		// same quaternion (avoid domain error)
+		if(1.0D <= Math.abs(t)) {
+
+			return q0;
+		}
+
+		t = Math.acos(t);
+		double sinT = Math.sin(t);
+
+		// same quaternion (avoid zero-div)
+		if(sinT == 0.0D) {
+
+			return q0;
+		}
+
+		double s = Math.sin((1.0D - alpha) * t) / sinT;
+		t = Math.sin(alpha * t) / sinT;
+
+		return new ImmutableQuat4d(s * q0.x + t * q2.x, s * q0.y + t * q2.y, s * q0.z + t * q2.z, s * q0.w + t * q2.w);
+	}
+
+	/**
+	 * Returns v1 rotated by this unit quaternion.
+	 * @param v1 the vector to be rotated
+	 * @return the rotated vector
+	 */
+	public final ImmutableVector3d transform(ImmutableVector3d v1) {
+
+		// v + 2w (q x v) + 2 q x (q x v), q = (x, y, z).
+		double tx = 2.0D * (this.y * v1.z - this.z * v1.y);
+		double ty = 2.0D * (this.z * v1.x - this.x * v1.z);
+		double tz = 2.0D * (this.x * v1.y - this.y * v1.x);
+
+		return new ImmutableVector3d(v1.x + this.w * tx + this.y * tz - this.z * ty,
+									 v1.y + this.w * ty + this.z * tx - this.x * tz,
+									 v1.z + this.w * tz + this.x * ty - this.y * tx);
+	}
+
+	/**
+	 * Copies the coordinates of this quaternion into q.
+	 * @param q the quaternion that receives the coordinates
+	 */
+	public final void get(Quat4d q) {
+
+		q.set(this.x, this.y, this.z, this.w);
+	}
+
+	/**
+	 * Returns a new mutable Quat4d with the coordinates of this quaternion.
+	 * @return the Quat4d
+	 */
+	public final Quat4d toQuat4d() {
+
+		return new Quat4d(this.x, this.y, this.z, this.w);
+	}
+
+	/**
+	 * Returns true if all of the data members of ImmutableQuat4d q1 are
+	 * equal to the corresponding data members in this quaternion.
+	 * @param q1 the quaternion with which the comparison is made
+	 * @return true or false
+	 */
+	public final boolean equals(ImmutableQuat4d q1) {
+
+		return q1 != null && this.x == q1.x && this.y == q1.y && this.z == q1.z && this.w == q1.w;
+	}
+
+	@Override
+	public final boolean equals(Object o1) {
+
+		return o1 != null && (o1 instanceof ImmutableQuat4d) && this.equals((ImmutableQuat4d)o1);
+	}
+
+	/**
+	 * Returns true if the L-infinite distance between this quaternion and
+	 * quaternion q1 is less than or equal to the epsilon parameter, otherwise
+	 * returns false.
+	 * @param q1 the quaternion to be compared to this quaternion
+	 * @param epsilon the threshold value
+	 * @return true or false
+	 */
+	public final boolean epsilonEquals(ImmutableQuat4d q1, double epsilon) {
+
+		return Math.abs(q1.x - this.x) <= epsilon &&
+			   Math.abs(q1.y - this.y) <= epsilon &&
+			   Math.abs(q1.z - this.z) <= epsilon &&
+			   Math.abs(q1.w - this.w) <= epsilon;
+	}
+
+	/**
+	 * Returns a hash number based on the data values in this object.
+	 * Two different ImmutableQuat4d objects with identical data values
+	 * (ie, returns true for equals(ImmutableQuat4d) ) will return the same hash number.
+	 * @return the hash code
+	 */
+	@Override
+	public final int hashCode() {
+
+		long bits = 1L;
+		bits = 31L * bits + Double.doubleToLongBits(this.x);
+		bits = 31L * bits + Double.doubleToLongBits(this.y);
+		bits = 31L * bits + Double.doubleToLongBits(this.z);
+		bits = 31L * bits + Double.doubleToLongBits(this.w);
+
+		return (int)(bits ^ (bits >> 32));
+	}
+
+	/**
+	 * Returns a string that contains the values of this ImmutableQuat4d.
+	 * The form is (x,y,z,w).
+	 * @return the String representation
+	 */
+	@Override
+	public final String toString() {
+
+		return String.format("(%s, %s, %s, %s)", this.x, this.y, this.z, this.w);
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.io.Serializable;
+
+/**
+ * An immutable 3 element vector that is represented by double precision
+ * floating point x, y, z coordinates.
+ * <p>
+ * Instances can be shared between threads without copying. Every operation
+ * returns a new instance; the operations are small, final and do not let
+ * their arguments or results escape, so the JIT can usually scalar replace
+ * the intermediate results of a chain of operations in a hot loop. A value
+ * carried from one iteration to the next, such as an accumulator
+ * {@code sum = sum.add(v)}, is still allocated every iteration; HotSpot
+ * 17 does not scalar replace an object that merges values across a loop
+ * back edge. Such loops are better written with a mutable {@link Vector3d}.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class ImmutableVector3d implements Serializable {
+
+	private static final long serialVersionUID = -3518946221458017536L;
+
+	/**
+	 * The zero vector.
+	 */
+	public static final ImmutableVector3d ZERO = new ImmutableVector3d(0.0D, 0.0D, 0.0D);
+
+	/**
+	 * The unit vector along the x axis.
+	 */
+	public static final ImmutableVector3d UNIT_X = new ImmutableVector3d(1.0D, 0.0D, 0.0D);
+
+	/**
+	 * The unit vector along the y axis.
+	 */
+	public static final ImmutableVector3d UNIT_Y = new ImmutableVector3d(0.0D, 1.0D, 0.0D);
+
+	/**
+	 * The unit vector along the z axis.
+	 */
+	public static final ImmutableVector3d UNIT_Z = new ImmutableVector3d(0.0D, 0.0D, 1.0D);
+
+	/**
+	 * The x coordinate.
+	 */
+	public final double x;
+
+	/**
+	 * The y coordinate.
+	 */
+	public final double y;
+
+	/**
+	 * The z coordinate.
+	 */
+	public final double z;
+
+	/**
+	 * Constructs and initializes an ImmutableVector3d from the specified xyz coordinates.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 */
+	public ImmutableVector3d(double x, double y, double z) {
+
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableVector3d from the specified Tuple3d.
+	 * @param t1 the Tuple3d containing the initialization x y z data
+	 */
+	public ImmutableVector3d(Tuple3d t1) {
+
+		this(t1.x, t1.y, t1.z);
+	}
+
+	/**
+	 * Constructs and initializes an ImmutableVector3d from the specified Tuple3f.
+	 * @param t1 the Tuple3f containing the initialization x y z data
+	 */
+	public ImmutableVector3d(Tuple3f t1) {
+
+		this(t1.x, t1.y, t1.z);
+	}
+
+	/**
+	 * Returns an ImmutableVector3d with the specified xyz coordinates.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @return the vector
+	 */
+	public static ImmutableVector3d of(double x, double y, double z) {
+
+		return new ImmutableVector3d(x, y, z);
+	}
+
+	/**
+	 * Returns an ImmutableVector3d with the coordinates of t1.
+	 * @param t1 the tuple to be copied
+	 * @return the vector
+	 */
+	public static ImmutableVector3d of(Tuple3d t1) {
+
+		return new ImmutableVector3d(t1.x, t1.y, t1.z);
+	}
+
+	/**
+	 * Returns the sum of this vector and v1.
+	 * @param v1 the other vector
+	 * @return this + v1
+	 */
+	public final ImmutableVector3d add(ImmutableVector3d v1) {
+
+		return new ImmutableVector3d(this.x + v1.x, this.y + v1.y, this.z + v1.z);
+	}
+
+	/**
+	 * Returns the sum of this vector and the specified coordinates.
+	 * @param x the x coordinate to add
+	 * @param y the y coordinate to add
+	 * @param z the z coordinate to add
+	 * @return this + (x, y, z)
+	 */
+	public final ImmutableVector3d add(double x, double y, double z) {
+
+		return new ImmutableVector3d(this.x + x, this.y + y, this.z + z);
+	}
+
+	/**
+	 * Returns the difference of this vector and v1.
+	 * @param v1 the other vector
+	 * @return this - v1
+	 */
+	public final ImmutableVector3d sub(ImmutableVector3d v1) {
+
+		return new ImmutableVector3d(this.x - v1.x, this.y - v1.y, this.z - v1.z);
+	}
+
+	/**
+	 * Returns this vector multiplied by the scalar s.
+	 * @param s the scalar value
+	 * @return s * this
+	 */
+	public final ImmutableVector3d scale(double s) {
+
+		return new ImmutableVector3d(this.x * s, this.y * s, this.z * s);
+	}
+
+	/**
+	 * Returns this vector multiplied by s and added to v1.
+	 * @param s the scalar value
+	 * @param v1 the vector to be added
+	 * @return s * this + v1
+	 */
+	public final ImmutableVector3d scaleAdd(double s, ImmutableVector3d v1) {
+
+		return new ImmutableVector3d(this.x * s + v1.x, this.y * s + v1.y, this.z * s + v1.z);
+	}
+
+	/**
+	 * Returns the negation of this vector.
+	 * @return -this
+	 */
+	public final ImmutableVector3d negate() {
+
+		return new ImmutableVector3d(-this.x, -this.y, -this.z);
+	}
+
+	/**
+	 * Returns the cross product of this vector and v1.
+	 * @param v1 the other vector
+	 * @return this x v1
+	 */
+	public final ImmutableVector3d cross(ImmutableVector3d v1) {
+
+		return new ImmutableVector3d(this.y * v1.z - this.z * v1.y,
+									 this.z * v1.x - this.x * v1.z,
+									 this.x * v1.y - this.y * v1.x);
+	}
+
+	/**
+	 * Returns the dot product of this vector and v1.
+	 * @param v1 the other vector
+	 * @return the dot product
+	 */
+	public final double dot(ImmutableVector3d v1) {
+
+		return this.x * v1.x + this.y * v1.y + this.z * v1.z;
+	}
+
+	/**
+	 * Returns the squared length of this vector.
+	 * @return the squared length
+	 */
+	public final double lengthSquared() {
+
+		return this.x * this.x + this.y * this.y + this.z * this.z;
+	}
+
+	/**
+	 * Returns the length of this vector.
+	 * @return the length
+	 */
+	public final double length() {
+
+		return Math.sqrt(this.lengthSquared());
+	}
+
+	/**
+	 * Returns this vector scaled to unit length. The zero vector is returned unchanged.
+	 * @return the normalized vector
+	 */
+	public final ImmutableVector3d normalize() {
+
+		double d = this.length();
+
+		return d == 0.0D ? this : this.scale(1.0D / d);
+	}
+
+	/**
+	 * Returns the angle in radians between this vector and v1; the return
+	 * value is constrained to the range [0, PI].
+	 * @param v1 the other vector
+	 * @return the angle in radians in the range [0, PI]
+	 */
+	public final double angle(ImmutableVector3d v1) {
+
+		// |atan2(sin, cos)| is stable near 0 and PI, unlike acos.
+		double cx = this.y * v1.z - this.z * v1.y;
+		double cy = this.z * v1.x - this.x * v1.z;
+		double cz = this.x * v1.y - this.y * v1.x;
+
+		return Math.abs(Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), this.dot(v1)));
+	}
+
+	/**
+	 * Returns the linear interpolation between this vector and v1.
+	 * @param v1 the other vector
+	 * @param alpha the interpolation parameter
+	 * @return (1 - alpha) * this + alpha * v1
+	 */
+	public final ImmutableVector3d interpolate(ImmutableVector3d v1, double alpha) {
+
+		return new ImmutableVector3d(this.x + (v1.x - this.x) * alpha,
+									 this.y + (v1.y - this.y) * alpha,
+									 this.z + (v1.z - this.z) * alpha);
+	}
+
+	/**
+	 * Copies the coordinates of this vector into t.
+	 * @param t the tuple that receives the coordinates
+	 */
+	public final void get(Tuple3d t) {
+
+		t.set(this.x, this.y, this.z);
+	}
+
+	/**
+	 * Returns a new mutable Vector3d with the coordinates of this vector.
+	 * @return the Vector3d
+	 */
+	public final Vector3d toVector3d() {
+
+		return new Vector3d(this.x, this.y, this.z);
+	}
+
+	/**
+	 * Returns a new mutable Point3d with the coordinates of this vector.
+	 * @return the Point3d
+	 */
+	public final Point3d toPoint3d() {
+
+		return new Point3d(this.x, this.y, this.z);
+	}
+
+	/**
+	 * Returns true if all of the data members of ImmutableVector3d v1 are
+	 * equal to the corresponding data members in this vector.
+	 * @param v1 the vector with which the comparison is made
+	 * @return true or false
+	 */
+	public final boolean equals(ImmutableVector3d v1) {
+
+		return v1 != null && this.x == v1.x && this.y == v1.y && this.z == v1.z;
+	}
+
+	@Override
+	public final boolean equals(Object o1) {
+
+		return o1 != null && (o1 instanceof ImmutableVector3d) && this.equals((ImmutableVector3d)o1);
+	}
+
+	/**
+	 * Returns true if the L-infinite distance between this vector and vector
+	 * v1 is less than or equal to the epsilon parameter, otherwise returns false.
+	 * @param v1 the vector to be compared to this vector
+	 * @param epsilon the threshold value
+	 * @return true or false
+	 */
+	public final boolean epsilonEquals(ImmutableVector3d v1, double epsilon) {
+
+		return Math.abs(v1.x - this.x) <= epsilon &&
+			   Math.abs(v1.y - this.y) <= epsilon &&
+			   Math.abs(v1.z - this.z) <= epsilon;
+	}
+
+	/**
+	 * Returns a hash number based on the data values in this object.
+	 * Two different ImmutableVector3d objects with identical data values
+	 * (ie, returns true for equals(ImmutableVector3d) ) will return the same hash number.
+	 * @return the hash code
+	 */
+	@Override
+	public final int hashCode() {
+
+		long bits = 1L;
+		bits = 31L * bits + Double.doubleToLongBits(this.x);
+		bits = 31L * bits + Double.doubleToLongBits(this.y);
+		bits = 31L * bits + Double.doubleToLongBits(this.z);
+
+		return (int)(bits ^ (bits >> 32));
+	}
+
+	/**
+	 * Returns a string that contains the values of this ImmutableVector3d.
+	 * The form is (x,y,z).
+	 * @return the String representation
+	 */
+	@Override
+	public final String toString() {
+
+		return String.format("(%s, %s, %s)", this.x, this.y, this.z);
+	}
+}
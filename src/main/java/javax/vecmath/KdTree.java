@@ -0,0 +1,767 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An immutable k-d tree over 2 or 3 dimensional points for nearest
+ * neighbour, radius and box queries.
+ * <p>
+ * The tree is implicit and balanced: the points are reordered so that the
+ * median of every range [lo, hi) sits at (lo + hi) / 2, with the smaller
+ * coordinates of the split axis on its left. Only the reordered
+ * coordinates, the original point indices and one split axis per point
+ * are stored. Query results are original point indices.
+ * <p>
+ * Distances are measured with one of the {@link Metric}s and reported as
+ * true distances (not squared). Queries may run concurrently from several
+ * threads and do not allocate, except for a scratch array of k doubles
+ * when nearest is called without a distances array: per call for a single
+ * query, per task for a batch.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class KdTree {
+
+	/**
+	 * The distance metric of a query.
+	 */
+	public enum Metric {
+
+		/**
+		 * The euclidean distance, see {@link Point3d#distance(Point3d)}.
+		 */
+		L2,
+
+		/**
+		 * The Manhattan distance, see {@link Point3d#distanceL1(Point3d)}.
+		 */
+		L1,
+
+		/**
+		 * The maximum norm distance, see {@link Point3d#distanceLinf(Point3d)}.
+		 */
+		LINF
+	}
+
+	private static final int PARALLEL_GRAIN = 8192;
+	private static final int QUERY_GRAIN = 256;
+
+	// the result array of queries that only count.
+	private static final int EMPTY[] = new int[0];
+
+	private final int dimensions;
+	private final int size;
+
+	// coordinates in tree order, dimensions values per point.
+	private final double coords[];
+
+	// original index of every point in tree order.
+	private final int ids[];
+
+	// split axis of the node at every tree position.
+	private final byte axis[];
+
+	/**
+	 * Constructs a tree over packed coordinates.
+	 * @param coords the packed coordinates (x0, y0[, z0], x1, ...)
+	 * @param dimensions the number of coordinates per point, 2 or 3
+	 */
+	public KdTree(double coords[], int dimensions) {
+
+		this(coords, dimensions, null);
+	}
+
+	/**
+	 * Constructs a tree over packed coordinates, building large subtrees in parallel.
+	 * @param coords the packed coordinates (x0, y0[, z0], x1, ...)
+	 * @param dimensions the number of coordinates per point, 2 or 3
+	 * @param pool the pool that runs the build
+	 */
+	public KdTree(double coords[], int dimensions, ForkJoinPool pool) {
+
+		if(dimensions != 2 && dimensions != 3) {
+
+			throw new IllegalArgumentException("dimensions:" + dimensions + " must be 2 or 3");
+		}
+
+		this.dimensions = dimensions;
+		this.size = coords.length / dimensions;
+		this.ids = new int[this.size];
+		this.axis = new byte[this.size];
+		this.coords = new double[this.size * dimensions];
+
+		for(int i = 0; i < this.size; i++) {
+
+			this.ids[i] = i;
+		}
+
+		BuildTask root = new BuildTask(this, coords, 0, this.size, pool != null);
+
+		if(pool != null) {
+
+			pool.invoke(root);
+
+		} else {
+
+			root.compute();
+		}
+
+		for(int i = 0; i < this.size; i++) {
+
+			System.arraycopy(coords, this.ids[i] * dimensions, this.coords, i * dimensions, dimensions);
+		}
+	}
+
+	/**
+	 * Constructs a 3 dimensional tree over the points.
+	 * @param points the points
+	 */
+	public KdTree(Tuple3d points[]) {
+
+		this(pack(points), 3, null);
+	}
+
+	/**
+	 * Constructs a 3 dimensional tree over the points.
+	 * @param points the points
+	 */
+	public KdTree(Tuple3f points[]) {
+
+		this(pack(points), 3, null);
+	}
+
+	/**
+	 * Constructs a 2 dimensional tree over the points.
+	 * @param points the points
+	 */
+	public KdTree(Tuple2d points[]) {
+
+		this(pack(points), 2, null);
+	}
+
+	/**
+	 * Returns the number of points in this tree.
+	 * @return the number of points
+	 */
+	public final int size() {
+
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of coordinates per point.
+	 * @return 2 or 3
+	 */
+	public final int getDimensions() {
+
+		return this.dimensions;
+	}
+
+	/**
+	 * Finds the k points nearest to q.
+	 * @param q the query point
+	 * @param k the number of neighbours
+	 * @param metric the distance metric
+	 * @param indices receives the point indices, nearest first
+	 * @param distances receives the distances; may be null, which allocates a scratch array of k doubles
+	 * @return the number of neighbours found, min(k, size())
+	 */
+	public final int nearest(Tuple3d q, int k, Metric metric, int indices[], double distances[]) {
+
+		this.checkDimensions(3);
+		return this.nearest(q.x, q.y, q.z, k, metric, indices, 0, scratch(distances, k), 0);
+	}
+
+	/**
+	 * Finds the k points nearest to q.
+	 * @param q the query point
+	 * @param k the number of neighbours
+	 * @param metric the distance metric
+	 * @param indices receives the point indices, nearest first
+	 * @param distances receives the distances; may be null, which allocates a scratch array of k doubles
+	 * @return the number of neighbours found, min(k, size())
+	 */
+	public final int nearest(Tuple3f q, int k, Metric metric, int indices[], double distances[]) {
+
+		this.checkDimensions(3);
+		return this.nearest(q.x, q.y, q.z, k, metric, indices, 0, scratch(distances, k), 0);
+	}
+
+	/**
+	 * Finds the k points nearest to q.
+	 * @param q the query point
+	 * @param k the number of neighbours
+	 * @param metric the distance metric
+	 * @param indices receives the point indices, nearest first
+	 * @param distances receives the distances; may be null, which allocates a scratch array of k doubles
+	 * @return the number of neighbours found, min(k, size())
+	 */
+	public final int nearest(Tuple2d q, int k, Metric metric, int indices[], double distances[]) {
+
+		this.checkDimensions(2);
+		return this.nearest(q.x, q.y, 0.0D, k, metric, indices, 0, scratch(distances, k), 0);
+	}
+
+	/**
+	 * Finds the k nearest points for each of queryCount packed query points.
+	 * The neighbours of query i are stored at [i * k, i * k + k) of indices
+	 * and distances; unused slots receive -1 and infinity.
+	 * @param queries the packed query coordinates, getDimensions() values per query
+	 * @param queryCount the number of queries
+	 * @param k the number of neighbours per query
+	 * @param metric the distance metric
+	 * @param indices receives queryCount * k point indices
+	 * @param distances receives queryCount * k distances; may be null, which allocates a scratch array of k doubles per task
+	 * @param pool the pool that runs the queries, or null to run them in the calling thread
+	 */
+	public final void nearest(double queries[], int queryCount, int k, Metric metric, int indices[], double distances[], ForkJoinPool pool) {
+
+		int dims = this.dimensions;
+
+		ParallelLoop.run(pool, 0, queryCount, QUERY_GRAIN, (from, to) -> {
+
+			double heap[] = scratch(distances, k);
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * dims;
+				int found = this.nearest(queries[o], queries[o + 1], dims == 3 ? queries[o + 2] : 0.0D, k, metric, indices, i * k, heap, distances != null ? i * k : 0);
+
+				for(int j = found; j < k; j++) {
+
+					indices[i * k + j] = -1;
+
+					if(distances != null) {
+
+						distances[i * k + j] = Double.POSITIVE_INFINITY;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Finds all points within the distance radius of q.
+	 * @param q the query point
+	 * @param radius the search radius
+	 * @param metric the distance metric
+	 * @param result receives the point indices in no particular order; only the first result.length are stored
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(Tuple3d q, double radius, Metric metric, int result[]) {
+
+		this.checkDimensions(3);
+		return this.withinRadius(0, this.size, q.x, q.y, q.z, toMetric(radius, metric), metric, result, 0);
+	}
+
+	/**
+	 * Finds all points within the distance radius of q.
+	 * @param q the query point
+	 * @param radius the search radius
+	 * @param metric the distance metric
+	 * @param result receives the point indices in no particular order; only the first result.length are stored
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(Tuple3f q, double radius, Metric metric, int result[]) {
+
+		this.checkDimensions(3);
+		return this.withinRadius(0, this.size, q.x, q.y, q.z, toMetric(radius, metric), metric, result, 0);
+	}
+
+	/**
+	 * Finds all points within the distance radius of q.
+	 * @param q the query point
+	 * @param radius the search radius
+	 * @param metric the distance metric
+	 * @param result receives the point indices in no particular order; only the first result.length are stored
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(Tuple2d q, double radius, Metric metric, int result[]) {
+
+		this.checkDimensions(2);
+		return this.withinRadius(0, this.size, q.x, q.y, 0.0D, toMetric(radius, metric), metric, result, 0);
+	}
+
+	/**
+	 * Counts, for each of queryCount packed query points, the points within
+	 * the distance radius.
+	 * @param queries the packed query coordinates, getDimensions() values per query
+	 * @param queryCount the number of queries
+	 * @param radius the search radius
+	 * @param metric the distance metric
+	 * @param counts receives the number of points within radius of every query
+	 * @param pool the pool that runs the queries, or null to run them in the calling thread
+	 */
+	public final void countWithinRadius(double queries[], int queryCount, double radius, Metric metric, int counts[], ForkJoinPool pool) {
+
+		int dims = this.dimensions;
+		double r = toMetric(radius, metric);
+
+		ParallelLoop.run(pool, 0, queryCount, QUERY_GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * dims;
+				counts[i] = this.withinRadius(0, this.size, queries[o], queries[o + 1], dims == 3 ? queries[o + 2] : 0.0D, r, metric, EMPTY, 0);
+			}
+		});
+	}
+
+	/**
+	 * Finds all points inside or on the boundary of the box b1.
+	 * @param b1 the query box
+	 * @param result receives the point indices in no particular order; only the first result.length are stored
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int insideBox(BoundingBox3d b1, int result[]) {
+
+		this.checkDimensions(3);
+		return this.insideBox(0, this.size, b1.minX, b1.minY, b1.minZ, b1.maxX, b1.maxY, b1.maxZ, result, 0);
+	}
+
+	/**
+	 * Finds all points inside or on the boundary of the rectangle spanned by lower and upper.
+	 * @param lower the lower corner
+	 * @param upper the upper corner
+	 * @param result receives the point indices in no particular order; only the first result.length are stored
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int insideBox(Tuple2d lower, Tuple2d upper, int result[]) {
+
+		this.checkDimensions(2);
+		return this.insideBox(0, this.size, lower.x, lower.y, 0.0D, upper.x, upper.y, 0.0D, result, 0);
+	}
+
+	// the heap of a nearest query: the distances array, or a scratch array if there is none.
+	private static double[] scratch(double distances[], int k) {
+
+		return distances != null ? distances : new double[Math.max(k, 0)];
+	}
+
+	// a max-heap on the distances of the candidates found so far is kept
+	// in heap from heapOffset, the distances array or a scratch array.
+	private int nearest(double qx, double qy, double qz, int k, Metric metric, int indices[], int offset, double heap[], int heapOffset) {
+
+		if(k <= 0) {
+
+			return 0;
+		}
+
+		int found = this.nearest(0, this.size, qx, qy, qz, k, metric, indices, offset, heap, heapOffset, 0);
+
+		// heap sort, nearest first.
+		for(int n = found - 1; n > 0; n--) {
+
+			swap(indices, offset, heap, heapOffset, 0, n);
+			siftDown(indices, offset, heap, heapOffset, 0, n);
+		}
+
+		if(metric == Metric.L2) {
+
+			for(int i = 0; i < found; i++) {
+
+				heap[heapOffset + i] = Math.sqrt(heap[heapOffset + i]);
+			}
+		}
+
+		return found;
+	}
+
+	private int nearest(int lo, int hi, double qx, double qy, double qz, int k, Metric metric, int indices[], int io, double heap[], int ho, int found) {
+
+		while(lo < hi) {
+
+			int m = (lo + hi) >>> 1;
+			double d = this.distance(m, qx, qy, qz, metric);
+
+			if(found < k) {
+
+				// sift up.
+				int i = found++;
+				indices[io + i] = this.ids[m];
+				heap[ho + i] = d;
+
+				while(i > 0) {
+
+					int p = (i - 1) >>> 1;
+
+					if(heap[ho + p] >= heap[ho + i]) {
+
+						break;
+					}
+
+					swap(indices, io, heap, ho, p, i);
+					i = p;
+				}
+
+			} else if(d < heap[ho]) {
+
+				indices[io] = this.ids[m];
+				heap[ho] = d;
+				siftDown(indices, io, heap, ho, 0, k);
+			}
+
+			int a = this.axis[m];
+			double diff = (a == 0 ? qx : (a == 1 ? qy : qz)) - this.coords[m * this.dimensions + a];
+			double plane = metric == Metric.L2 ? diff * diff : Math.abs(diff);
+
+			// descend into the near side, then the far side while it can hold closer points.
+			if(diff < 0.0D) {
+
+				found = this.nearest(lo, m, qx, qy, qz, k, metric, indices, io, heap, ho, found);
+
+				if(found == k && plane >= heap[ho]) {
+
+					return found;
+				}
+
+				lo = m + 1;
+
+			} else {
+
+				found = this.nearest(m + 1, hi, qx, qy, qz, k, metric, indices, io, heap, ho, found);
+
+				if(found == k && plane >= heap[ho]) {
+
+					return found;
+				}
+
+				hi = m;
+			}
+		}
+
+		return found;
+	}
+
+	private int withinRadius(int lo, int hi, double qx, double qy, double qz, double r, Metric metric, int result[], int found) {
+
+		while(lo < hi) {
+
+			int m = (lo + hi) >>> 1;
+
+			if(this.distance(m, qx, qy, qz, metric) <= r) {
+
+				if(found < result.length) {
+
+					result[found] = this.ids[m];
+				}
+
+				found++;
+			}
+
+			int a = this.axis[m];
+			double diff = (a == 0 ? qx : (a == 1 ? qy : qz)) - this.coords[m * this.dimensions + a];
+			double plane = metric == Metric.L2 ? diff * diff : Math.abs(diff);
+
+			if(plane <= r) {
+
+				found = this.withinRadius(lo, m, qx, qy, qz, r, metric, result, found);
+				lo = m + 1;
+
+			} else if(diff < 0.0D) {
+
+				hi = m;
+
+			} else {
+
+				lo = m + 1;
+			}
+		}
+
+		return found;
+	}
+
+	private int insideBox(int lo, int hi, double minX, double minY, double minZ, double maxX, double maxY, double maxZ, int result[], int found) {
+
+		int dims = this.dimensions;
+
+		while(lo < hi) {
+
+			int m = (lo + hi) >>> 1;
+			int o = m * dims;
+			double x = this.coords[o];
+			double y = this.coords[o + 1];
+			double z = dims == 3 ? this.coords[o + 2] : 0.0D;
+
+			if(x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+
+				if(found < result.length) {
+
+					result[found] = this.ids[m];
+				}
+
+				found++;
+			}
+
+			int a = this.axis[m];
+			double split = this.coords[o + a];
+			double min = a == 0 ? minX : (a == 1 ? minY : minZ);
+			double max = a == 0 ? maxX : (a == 1 ? maxY : maxZ);
+			boolean left = min <= split;
+			boolean right = max >= split;
+
+			if(left && right) {
+
+				found = this.insideBox(lo, m, minX, minY, minZ, maxX, maxY, maxZ, result, found);
+				lo = m + 1;
+
+			} else if(left) {
+
+				hi = m;
+
+			} else {
+
+				lo = m + 1;
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Returns the distance between the point at tree position m and q,
+	 * squared for the L2 metric.
+	 */
+	private double distance(int m, double qx, double qy, double qz, Metric metric) {
+
+		int o = m * this.dimensions;
+		double dx = Math.abs(this.coords[o] - qx);
+		double dy = Math.abs(this.coords[o + 1] - qy);
+		double dz = this.dimensions == 3 ? Math.abs(this.coords[o + 2] - qz) : 0.0D;
+
+		switch(metric) {
+
+			case L1:
+				return dx + dy + dz;
+
+			case LINF:
+				return Math.max(dx, Math.max(dy, dz));
+
+			default:
+				return dx * dx + dy * dy + dz * dz;
+		}
+	}
+
+	private void checkDimensions(int dims) {
+
+		if(this.dimensions != dims) {
+
+			throw new IllegalArgumentException("query has " + dims + " dimensions, tree has " + this.dimensions);
+		}
+	}
+
+	private static double toMetric(double radius, Metric metric) {
+
+		return metric == Metric.L2 ? radius * radius : radius;
+	}
+
+	private static void siftDown(int indices[], int io, double heap[], int ho, int i, int n) {
+
+		while(true) {
+
+			int l = 2 * i + 1;
+
+			if(l >= n) {
+
+				return;
+			}
+
+			int r = l + 1;
+			int c = r < n && heap[ho + r] > heap[ho + l] ? r : l;
+
+			if(heap[ho + i] >= heap[ho + c]) {
+
+				return;
+			}
+
+			swap(indices, io, heap, ho, i, c);
+			i = c;
+		}
+	}
+
+	private static void swap(int indices[], int io, double heap[], int ho, int i, int j) {
+
+		int ti = indices[io + i];
+		indices[io + i] = indices[io + j];
+		indices[io + j] = ti;
+
+		double td = heap[ho + i];
+		heap[ho + i] = heap[ho + j];
+		heap[ho + j] = td;
+	}
+
+	private static double[] pack(Tuple3d points[]) {
+
+		double result[] = new double[points.length * 3];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 3] = points[i].x;
+			result[i * 3 + 1] = points[i].y;
+			result[i * 3 + 2] = points[i].z;
+		}
+
+		return result;
+	}
+
+	private static double[] pack(Tuple3f points[]) {
+
+		double result[] = new double[points.length * 3];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 3] = points[i].x;
+			result[i * 3 + 1] = points[i].y;
+			result[i * 3 + 2] = points[i].z;
+		}
+
+		return result;
+	}
+
+	private static double[] pack(Tuple2d points[]) {
+
+		double result[] = new double[points.length * 2];
+
+		for(int i = 0; i < points.length; i++) {
+
+			result[i * 2] = points[i].x;
+			result[i * 2 + 1] = points[i].y;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Builds the range [lo, hi) of the tree: picks the axis of largest
+	 * extent, moves the median to the middle with a quickselect and
+	 * recurses into both halves. Ranges above the grain are forked.
+	 */
+	private static final class BuildTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -1047290585021447381L;
+
+		private final KdTree tree;
+		private final double source[];
+		private final int lo;
+		private final int hi;
+		private final boolean parallel;
+
+		BuildTask(KdTree tree, double source[], int lo, int hi, boolean parallel) {
+
+			this.tree = tree;
+			this.source = source;
+			this.lo = lo;
+			this.hi = hi;
+			this.parallel = parallel;
+		}
+
+		@Override
+		protected void compute() {
+
+			this.build(this.lo, this.hi);
+		}
+
+		private void build(int lo, int hi) {
+
+			while(hi - lo > 1) {
+
+				int dims = this.tree.dimensions;
+				int ids[] = this.tree.ids;
+				int a = 0;
+				double best = -1.0D;
+
+				for(int d = 0; d < dims; d++) {
+
+					double min = Double.POSITIVE_INFINITY;
+					double max = Double.NEGATIVE_INFINITY;
+
+					for(int i = lo; i < hi; i++) {
+
+						double v = this.source[ids[i] * dims + d];
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+					}
+
+					if(max - min > best) {
+
+						best = max - min;
+						a = d;
+					}
+				}
+
+				int m = (lo + hi) >>> 1;
+				this.select(lo, hi - 1, m, a);
+				this.tree.axis[m] = (byte)a;
+
+				if(this.parallel && hi - lo > PARALLEL_GRAIN) {
+
+					invokeAll(new BuildTask(this.tree, this.source, lo, m, true),
+							  new BuildTask(this.tree, this.source, m + 1, hi, true));
+					return;
+				}
+
+				this.build(lo, m);
+				lo = m + 1;
+			}
+		}
+
+		/**
+		 * Hoare quickselect: reorders ids[left..right] so that the element of
+		 * rank k is at k, smaller or equal ones before and larger or equal ones after it.
+		 */
+		private void select(int left, int right, int k, int a) {
+
+			int dims = this.tree.dimensions;
+			int ids[] = this.tree.ids;
+
+			while(right > left) {
+
+				double pivot = this.source[ids[(left + right) >>> 1] * dims + a];
+				int i = left;
+				int j = right;
+
+				while(i <= j) {
+
+					while(this.source[ids[i] * dims + a] < pivot) i++;
+					while(this.source[ids[j] * dims + a] > pivot) j--;
+
+					if(i <= j) {
+
+						int t = ids[i];
+						ids[i++] = ids[j];
+						ids[j--] = t;
+					}
+				}
+
+				if(k <= j) {
+
+					right = j;
+
+				} else if(k >= i) {
+
+					left = i;
+
+				} else {
+
+					return;
+				}
+			}
+		}
+	}
+}
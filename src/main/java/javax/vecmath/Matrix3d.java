@@ -510,6 +510,115 @@ public final class Matrix3d implements Serializable {
     	return this.SVD(null);
     }
 
+    /**
+     * Computes the polar decomposition this = rotation * stretch, where
+     * rotation is orthogonal and stretch is symmetric positive definite,
+     * with the scaled Newton iteration of Higham. Unlike the SVD
+     * normalization of getScale() and normalize(), the rotation is exact for
+     * matrices with shear. If this matrix has a negative determinant, the
+     * rotation is improper (it includes a reflection). This matrix is not
+     * modified unless it is passed as an argument, and nothing is allocated.
+     * @param rotation the matrix that receives the orthogonal factor
+     * @param stretch the matrix that receives the symmetric factor, or null
+     * @return false if this matrix is singular; rotation and stretch are then unchanged
+     */
+    public final boolean polarDecompose(Matrix3d rotation, Matrix3d stretch) {
+
+    	double a00 = this.m00, a01 = this.m01, a02 = this.m02;
+    	double a10 = this.m10, a11 = this.m11, a12 = this.m12;
+    	double a20 = this.m20, a21 = this.m21, a22 = this.m22;
+
+    	if(!polarRotation(a00, a01, a02, a10, a11, a12, a20, a21, a22, rotation)) {
+
+    		return false;
+    	}
+
+    	if(stretch != null) {
+
+    		polarStretch(rotation, a00, a01, a02, a10, a11, a12, a20, a21, a22, stretch);
+    	}
+
+    	return true;
+    }
+
+    /**
+     * Sets r to the orthogonal polar factor of the matrix a with the scaled
+     * Newton iteration X = (g X + inverse(transpose(X)) / g) / 2, where the
+     * scale g = sqrt(|inverse(X)| / |X|) uses Frobenius norms.
+     * @return false if a is singular, r is then unchanged
+     */
+    static boolean polarRotation(double a00, double a01, double a02,
+    							 double a10, double a11, double a12,
+    							 double a20, double a21, double a22, Matrix3d r) {
+
+    	for(int iteration = 0; iteration < 32; iteration++) {
+
+    		// the cofactors: inverse(transpose(X)) = C / det(X).
+    		double c00 = a11 * a22 - a12 * a21, c01 = a12 * a20 - a10 * a22, c02 = a10 * a21 - a11 * a20;
+    		double c10 = a02 * a21 - a01 * a22, c11 = a00 * a22 - a02 * a20, c12 = a01 * a20 - a00 * a21;
+    		double c20 = a01 * a12 - a02 * a11, c21 = a02 * a10 - a00 * a12, c22 = a00 * a11 - a01 * a10;
+    		double det = a00 * c00 + a01 * c01 + a02 * c02;
+
+    		if(det == 0.0D || Double.isNaN(det) || Double.isInfinite(det)) {
+
+    			return false;
+    		}
+
+    		double na = a00 * a00 + a01 * a01 + a02 * a02 + a10 * a10 + a11 * a11 + a12 * a12 + a20 * a20 + a21 * a21 + a22 * a22;
+    		double nc = c00 * c00 + c01 * c01 + c02 * c02 + c10 * c10 + c11 * c11 + c12 * c12 + c20 * c20 + c21 * c21 + c22 * c22;
+    		double g = Math.sqrt(Math.sqrt(nc / na) / Math.abs(det));
+    		double s = 0.5D * g;
+    		double t = 0.5D / (g * det);
+
+    		double b00 = s * a00 + t * c00, b01 = s * a01 + t * c01, b02 = s * a02 + t * c02;
+    		double b10 = s * a10 + t * c10, b11 = s * a11 + t * c11, b12 = s * a12 + t * c12;
+    		double b20 = s * a20 + t * c20, b21 = s * a21 + t * c21, b22 = s * a22 + t * c22;
+
+    		double d00 = b00 - a00, d01 = b01 - a01, d02 = b02 - a02;
+    		double d10 = b10 - a10, d11 = b11 - a11, d12 = b12 - a12;
+    		double d20 = b20 - a20, d21 = b21 - a21, d22 = b22 - a22;
+    		double nd = d00 * d00 + d01 * d01 + d02 * d02 + d10 * d10 + d11 * d11 + d12 * d12 + d20 * d20 + d21 * d21 + d22 * d22;
+
+    		a00 = b00; a01 = b01; a02 = b02;
+    		a10 = b10; a11 = b11; a12 = b12;
+    		a20 = b20; a21 = b21; a22 = b22;
+
+    		// quadratic convergence: the next step would be below rounding.
+    		if(nd <= 1.0e-18D) {
+
+    			break;
+    		}
+    	}
+
+    	r.set(a00, a01, a02, a10, a11, a12, a20, a21, a22);
+    	return true;
+    }
+
+    /**
+     * Sets s to the symmetric polar factor transpose(r) * a of the matrix a.
+     */
+    static void polarStretch(Matrix3d r, double a00, double a01, double a02,
+    						 double a10, double a11, double a12,
+    						 double a20, double a21, double a22, Matrix3d s) {
+
+    	double s00 = r.m00 * a00 + r.m10 * a10 + r.m20 * a20;
+    	double s01 = r.m00 * a01 + r.m10 * a11 + r.m20 * a21;
+    	double s02 = r.m00 * a02 + r.m10 * a12 + r.m20 * a22;
+    	double s10 = r.m01 * a00 + r.m11 * a10 + r.m21 * a20;
+    	double s11 = r.m01 * a01 + r.m11 * a11 + r.m21 * a21;
+    	double s12 = r.m01 * a02 + r.m11 * a12 + r.m21 * a22;
+    	double s20 = r.m02 * a00 + r.m12 * a10 + r.m22 * a20;
+    	double s21 = r.m02 * a01 + r.m12 * a11 + r.m22 * a21;
+    	double s22 = r.m02 * a02 + r.m12 * a12 + r.m22 * a22;
+
+    	// symmetric up to rounding; make it exactly symmetric.
+    	s01 = 0.5D * (s01 + s10);
+    	s02 = 0.5D * (s02 + s20);
+    	s12 = 0.5D * (s12 + s21);
+
+    	s.set(s00, s01, s02, s01, s11, s12, s02, s12, s22);
+    }
+
     /**
      * Adds a scalar to each component of this matrix.
      * @param scalar The scalar adder.
@@ -651,6 +760,18 @@ public final class Matrix3d implements Serializable {
     	this.setFromAxisAngle(a1.x, a1.y, a1.z, a1.angle);
     }
 
+    /**
+     * Sets the value of this matrix to the matrix conversion of the
+     * double precision axis and angle argument, with the sine and cosine
+     * taken from trig.
+     * @param a1 the axis and angle to be converted
+     * @param trig the sine and cosine table
+     */
+    public final void set(AxisAngle4d a1, FastTrig trig) {
+	
+    	this.setFromAxisAngle(a1.x, a1.y, a1.z, trig.cos(a1.angle), trig.sin(a1.angle));
+    }
+
     /**
      * Sets the value of this matrix to the matrix conversion of the
      * single precision quaternion argument. 
@@ -819,6 +940,54 @@ public final class Matrix3d implements Serializable {
     			 0.0D, 0.0D, 1.0D);
     }
 
+    /**
+     * Sets the value of this matrix to a rotation matrix about the x axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the X axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotX(double angle, FastTrig trig)  {
+	
+    	double c = trig.cos(angle);
+    	double s = trig.sin(angle);
+    	
+    	this.set(1.0D, 0.0D, 0.0D,
+    			 0.0D, c,    -s,
+    			 0.0D, s,    c);
+    }
+
+    /**
+     * Sets the value of this matrix to a rotation matrix about the y axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the Y axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotY(double angle, FastTrig trig)  {
+	
+    	double c = trig.cos(angle);
+    	double s = trig.sin(angle);
+    	
+    	this.set(c,    0.0D, s,
+    			 0.0D, 1.0D, 0.0D,
+    			 -s,   0.0D, c);
+    }
+
+    /**
+     * Sets the value of this matrix to a rotation matrix about the z axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the Z axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotZ(double angle, FastTrig trig)  {
+	
+    	double c = trig.cos(angle);
+    	double s = trig.sin(angle);
+	
+    	this.set(c,    -s,   0.0D,
+    			 s,    c,    0.0D,
+    			 0.0D, 0.0D, 1.0D);
+    }
+
     /**
      * Multiplies each element of this matrix by a scalar.
      * @param scalar The scalar multiplier.
@@ -994,6 +1163,83 @@ public final class Matrix3d implements Serializable {
     	this.normalizeCP();
     }
 
+    /**
+     * Orthonormalizes the columns with the Gram-Schmidt process:
+     * the first column is normalized, the second is made orthogonal to it and
+     * normalized, and the third is replaced by their cross product. The first
+     * column keeps its direction.
+     */
+    public final void orthonormalizeGramSchmidt() {
+
+    	double ax = this.m00, ay = this.m10, az = this.m20;
+    	double bx = this.m01, by = this.m11, bz = this.m21;
+
+    	// zero-div may occur.
+    	double n = 1.0D / Math.sqrt(ax * ax + ay * ay + az * az);
+    	ax *= n; ay *= n; az *= n;
+
+    	double d = ax * bx + ay * by + az * bz;
+    	bx -= d * ax; by -= d * ay; bz -= d * az;
+    	n = 1.0D / Math.sqrt(bx * bx + by * by + bz * bz);
+    	bx *= n; by *= n; bz *= n;
+
+    	this.m00 = ax; this.m10 = ay; this.m20 = az;
+    	this.m01 = bx; this.m11 = by; this.m21 = bz;
+    	this.m02 = ay * bz - az * by; this.m12 = az * bx - ax * bz; this.m22 = ax * by - ay * bx;
+    }
+
+    /**
+     * Orthonormalizes the columns by splitting the error of the
+     * first two columns equally between them and replacing the third by their
+     * cross product, followed by a first order normalization of each column.
+     * Cheaper than orthonormalizeNewton and meant for the small drift of
+     * repeatedly multiplied rotations; it does not favour one column.
+     */
+    public final void orthonormalizeSymmetric() {
+
+    	double ax = this.m00, ay = this.m10, az = this.m20;
+    	double bx = this.m01, by = this.m11, bz = this.m21;
+
+    	// split the error of the first two columns equally between them.
+    	double e = 0.5D * (ax * bx + ay * by + az * bz);
+    	double ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+    	double vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+    	double wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+    	// first order normalization, accurate for small errors.
+    	double n = 0.5D * (3.0D - (ux * ux + uy * uy + uz * uz));
+    	this.m00 = ux * n; this.m10 = uy * n; this.m20 = uz * n;
+    	n = 0.5D * (3.0D - (vx * vx + vy * vy + vz * vz));
+    	this.m01 = vx * n; this.m11 = vy * n; this.m21 = vz * n;
+    	n = 0.5D * (3.0D - (wx * wx + wy * wy + wz * wz));
+    	this.m02 = wx * n; this.m12 = wy * n; this.m22 = wz * n;
+    }
+
+    /**
+     * Performs one Newton-Schulz (Bjorck) step X = X (3I - transpose(X) X) / 2
+     * towards the nearest orthogonal matrix, without a square root or division.
+     * The orthogonality error is squared by every step, so calling it once per
+     * update keeps a slowly drifting rotation orthonormal.
+     */
+    public final void orthonormalizeNewton() {
+
+    	double ax = this.m00, ay = this.m10, az = this.m20;
+    	double bx = this.m01, by = this.m11, bz = this.m21;
+    	double cx = this.m02, cy = this.m12, cz = this.m22;
+
+    	// X = X (3 I - transpose(X) X) / 2
+    	double p00 = 1.5D - 0.5D * (ax * ax + ay * ay + az * az);
+    	double p11 = 1.5D - 0.5D * (bx * bx + by * by + bz * bz);
+    	double p22 = 1.5D - 0.5D * (cx * cx + cy * cy + cz * cz);
+    	double p01 = -0.5D * (ax * bx + ay * by + az * bz);
+    	double p02 = -0.5D * (ax * cx + ay * cy + az * cz);
+    	double p12 = -0.5D * (bx * cx + by * cy + bz * cz);
+
+    	this.m00 = ax * p00 + bx * p01 + cx * p02; this.m10 = ay * p00 + by * p01 + cy * p02; this.m20 = az * p00 + bz * p01 + cz * p02;
+    	this.m01 = ax * p01 + bx * p11 + cx * p12; this.m11 = ay * p01 + by * p11 + cy * p12; this.m21 = az * p01 + bz * p11 + cz * p12;
+    	this.m02 = ax * p02 + bx * p12 + cx * p22; this.m12 = ay * p02 + by * p12 + cy * p22; this.m22 = az * p02 + bz * p12 + cz * p22;
+    }
+
 
 
     /**
@@ -1072,10 +1318,31 @@ public final class Matrix3d implements Serializable {
     
     private final int hash(double val) {
     	
-    	long bits = Double.doubleToLongBits(m00);
+    	long bits = Double.doubleToLongBits(val);
     	return (int)(bits ^ (bits >> 32));
     }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Matrix3d) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	
+    	long h = HashMix.SEED;
+    	h = HashMix.mix(h, this.m00);
+    	h = HashMix.mix(h, this.m01);
+    	h = HashMix.mix(h, this.m02);
+    	h = HashMix.mix(h, this.m10);
+    	h = HashMix.mix(h, this.m11);
+    	h = HashMix.mix(h, this.m12);
+    	h = HashMix.mix(h, this.m20);
+    	h = HashMix.mix(h, this.m21);
+    	h = HashMix.mix(h, this.m22);
+
+    	return HashMix.finish(h, 9);
+    }
+
     /**
      * Sets this matrix to all zeros. 
      */
@@ -1227,6 +1494,11 @@ public final class Matrix3d implements Serializable {
 
     private void setFromAxisAngle(double x, double y, double z, double angle) {
 	
+    	this.setFromAxisAngle(x, y, z, Math.cos(angle), Math.sin(angle));
+    }
+
+    private void setFromAxisAngle(double x, double y, double z, double c, double s) {
+	
     	// Taken from Rick's which is taken from Wertz. pg. 412
     	// Bug Fixed and changed into right-handed by hiranabe
     	double n = Math.sqrt(x * x + y * y + z * z);
@@ -1237,8 +1509,6 @@ public final class Matrix3d implements Serializable {
     	y *= n;
     	z *= n;
     	
-    	double c = Math.cos(angle);
-    	double s = Math.sin(angle);
     	double omc = 1.0D - c;
 	
     	this.m00 = c + x * x * omc;
@@ -977,6 +977,68 @@ public final class Matrix3f implements Serializable {
 	normalizeCP();
     }
 
+    /**
+     * Orthonormalizes the columns as {@link Matrix3d#orthonormalizeGramSchmidt()} does.
+     */
+    public final void orthonormalizeGramSchmidt() {
+	float ax = m00, ay = m10, az = m20;
+	float bx = m01, by = m11, bz = m21;
+
+	// zero-div may occur.
+	float n = (float)(1.0D / Math.sqrt(ax * ax + ay * ay + az * az));
+	ax *= n; ay *= n; az *= n;
+
+	float d = ax * bx + ay * by + az * bz;
+	bx -= d * ax; by -= d * ay; bz -= d * az;
+	n = (float)(1.0D / Math.sqrt(bx * bx + by * by + bz * bz));
+	bx *= n; by *= n; bz *= n;
+
+	m00 = ax; m10 = ay; m20 = az;
+	m01 = bx; m11 = by; m21 = bz;
+	m02 = ay * bz - az * by; m12 = az * bx - ax * bz; m22 = ax * by - ay * bx;
+    }
+
+    /**
+     * Orthonormalizes the columns as {@link Matrix3d#orthonormalizeSymmetric()} does.
+     */
+    public final void orthonormalizeSymmetric() {
+	float ax = m00, ay = m10, az = m20;
+	float bx = m01, by = m11, bz = m21;
+
+	float e = 0.5F * (ax * bx + ay * by + az * bz);
+	float ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+	float vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+	float wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+	float n = 0.5F * (3.0F - (ux * ux + uy * uy + uz * uz));
+	m00 = ux * n; m10 = uy * n; m20 = uz * n;
+	n = 0.5F * (3.0F - (vx * vx + vy * vy + vz * vz));
+	m01 = vx * n; m11 = vy * n; m21 = vz * n;
+	n = 0.5F * (3.0F - (wx * wx + wy * wy + wz * wz));
+	m02 = wx * n; m12 = wy * n; m22 = wz * n;
+    }
+
+    /**
+     * Performs one Newton-Schulz step as {@link Matrix3d#orthonormalizeNewton()} does.
+     */
+    public final void orthonormalizeNewton() {
+	float ax = m00, ay = m10, az = m20;
+	float bx = m01, by = m11, bz = m21;
+	float cx = m02, cy = m12, cz = m22;
+
+	// X = X (3 I - transpose(X) X) / 2
+	float p00 = 1.5F - 0.5F * (ax * ax + ay * ay + az * az);
+	float p11 = 1.5F - 0.5F * (bx * bx + by * by + bz * bz);
+	float p22 = 1.5F - 0.5F * (cx * cx + cy * cy + cz * cz);
+	float p01 = -0.5F * (ax * bx + ay * by + az * bz);
+	float p02 = -0.5F * (ax * cx + ay * cy + az * cz);
+	float p12 = -0.5F * (bx * cx + by * cy + bz * cz);
+
+	m00 = ax * p00 + bx * p01 + cx * p02; m10 = ay * p00 + by * p01 + cy * p02; m20 = az * p00 + bz * p01 + cz * p02;
+	m01 = ax * p01 + bx * p11 + cx * p12; m11 = ay * p01 + by * p11 + cy * p12; m21 = az * p01 + bz * p11 + cz * p12;
+	m02 = ax * p02 + bx * p12 + cx * p22; m12 = ay * p02 + by * p12 + cy * p22; m22 = az * p02 + bz * p12 + cz * p22;
+    }
+
 
 
     /**
@@ -1052,6 +1114,27 @@ public final class Matrix3f implements Serializable {
                Float.floatToIntBits(this.m22);
     }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Matrix3f) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	
+    	long h = HashMix.SEED;
+    	h = HashMix.mix(h, this.m00);
+    	h = HashMix.mix(h, this.m01);
+    	h = HashMix.mix(h, this.m02);
+    	h = HashMix.mix(h, this.m10);
+    	h = HashMix.mix(h, this.m11);
+    	h = HashMix.mix(h, this.m12);
+    	h = HashMix.mix(h, this.m20);
+    	h = HashMix.mix(h, this.m21);
+    	h = HashMix.mix(h, this.m22);
+
+    	return HashMix.finish(h, 9);
+    }
+
     /**
      * Sets this matrix to all zeros. 
      */
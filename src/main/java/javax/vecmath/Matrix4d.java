@@ -436,6 +436,85 @@ public final class Matrix4d implements Serializable {
 	SVD(m1);
     }
 
+    /**
+      * Computes the polar decomposition of the upper 3x3 part of this matrix
+      * into rotation * stretch, see Matrix3d.polarDecompose(Matrix3d, Matrix3d).
+      * Unlike get(Matrix3d), the rotation is exact for matrices with shear.
+      * None of the matrix values are modified and nothing is allocated.
+      * @param rotation the matrix that receives the orthogonal factor
+      * @param stretch the matrix that receives the symmetric factor, or null
+      * @return false if the upper 3x3 part is singular; rotation and stretch are then unchanged
+      */
+    public final boolean polarDecompose(Matrix3d rotation, Matrix3d stretch) {
+	if (!Matrix3d.polarRotation(m00, m01, m02, m10, m11, m12, m20, m21, m22, rotation))
+	    return false;
+	if (stretch != null)
+	    Matrix3d.polarStretch(rotation, m00, m01, m02, m10, m11, m12, m20, m21, m22, stretch);
+	return true;
+    }
+
+    /**
+      * Orthonormalizes the upper 3x3 part as {@link Matrix3d#orthonormalizeGramSchmidt()} does.
+      */
+    public final void orthonormalizeGramSchmidt() {
+	double ax = m00, ay = m10, az = m20;
+	double bx = m01, by = m11, bz = m21;
+
+	// zero-div may occur.
+	double n = 1.0D / Math.sqrt(ax * ax + ay * ay + az * az);
+	ax *= n; ay *= n; az *= n;
+
+	double d = ax * bx + ay * by + az * bz;
+	bx -= d * ax; by -= d * ay; bz -= d * az;
+	n = 1.0D / Math.sqrt(bx * bx + by * by + bz * bz);
+	bx *= n; by *= n; bz *= n;
+
+	m00 = ax; m10 = ay; m20 = az;
+	m01 = bx; m11 = by; m21 = bz;
+	m02 = ay * bz - az * by; m12 = az * bx - ax * bz; m22 = ax * by - ay * bx;
+    }
+
+    /**
+      * Orthonormalizes the upper 3x3 part as {@link Matrix3d#orthonormalizeSymmetric()} does.
+      */
+    public final void orthonormalizeSymmetric() {
+	double ax = m00, ay = m10, az = m20;
+	double bx = m01, by = m11, bz = m21;
+
+	double e = 0.5D * (ax * bx + ay * by + az * bz);
+	double ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+	double vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+	double wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+	double n = 0.5D * (3.0D - (ux * ux + uy * uy + uz * uz));
+	m00 = ux * n; m10 = uy * n; m20 = uz * n;
+	n = 0.5D * (3.0D - (vx * vx + vy * vy + vz * vz));
+	m01 = vx * n; m11 = vy * n; m21 = vz * n;
+	n = 0.5D * (3.0D - (wx * wx + wy * wy + wz * wz));
+	m02 = wx * n; m12 = wy * n; m22 = wz * n;
+    }
+
+    /**
+      * Performs on the upper 3x3 part one Newton-Schulz step as {@link Matrix3d#orthonormalizeNewton()} does.
+      */
+    public final void orthonormalizeNewton() {
+	double ax = m00, ay = m10, az = m20;
+	double bx = m01, by = m11, bz = m21;
+	double cx = m02, cy = m12, cz = m22;
+
+	// X = X (3 I - transpose(X) X) / 2
+	double p00 = 1.5D - 0.5D * (ax * ax + ay * ay + az * az);
+	double p11 = 1.5D - 0.5D * (bx * bx + by * by + bz * bz);
+	double p22 = 1.5D - 0.5D * (cx * cx + cy * cy + cz * cz);
+	double p01 = -0.5D * (ax * bx + ay * by + az * bz);
+	double p02 = -0.5D * (ax * cx + ay * cy + az * cz);
+	double p12 = -0.5D * (bx * cx + by * cy + bz * cz);
+
+	m00 = ax * p00 + bx * p01 + cx * p02; m10 = ay * p00 + by * p01 + cy * p02; m20 = az * p00 + bz * p01 + cz * p02;
+	m01 = ax * p01 + bx * p11 + cx * p12; m11 = ay * p01 + by * p11 + cy * p12; m21 = az * p01 + bz * p11 + cz * p12;
+	m02 = ax * p02 + bx * p12 + cx * p22; m12 = ay * p02 + by * p12 + cy * p22; m22 = az * p02 + bz * p12 + cz * p22;
+    }
+
     /**
       * Performs an SVD normalization of this matrix to calculate the rotation
       * as a 3x3 matrix, the translation, and the scale. None of the matrix values are modified.
@@ -1023,6 +1102,19 @@ public final class Matrix4d implements Serializable {
 	m30 = m[12]; m31 = m[13]; m32 = m[14]; m33 = m[15];
     }
 
+    /**
+      * Copies the values of this Matrix4d into the row-major array parameter
+      * (ie, the first four elements of the array will receive the first
+      * row of this matrix, etc.), the inverse of set(double[]).
+      * @param m the array of length 16 or more that receives the values
+      */
+    public final void get(double m[]) {
+	m[ 0] = m00; m[ 1] = m01; m[ 2] = m02; m[ 3] = m03;
+	m[ 4] = m10; m[ 5] = m11; m[ 6] = m12; m[ 7] = m13;
+	m[ 8] = m20; m[ 9] = m21; m[10] = m22; m[11] = m23;
+	m[12] = m30; m[13] = m31; m[14] = m32; m[15] = m33;
+    }
+
     /**
       * Sets the rotational component (upper 3x3) of this matrix to the matrix
       * values in the single precision Matrix3f argument; the other elements of
@@ -1068,6 +1160,17 @@ public final class Matrix4d implements Serializable {
     public final void set(AxisAngle4d a1) {
 	setFromAxisAngle(a1.x, a1.y, a1.z, a1.angle);
     }
+
+    /**
+      * Sets the rotational component (upper 3x3) of this matrix to the
+      * matrix conversion of the double precision axis and angle argument,
+      * with the sine and cosine taken from trig, as set(AxisAngle4d) does.
+      * @param a1 the axis and angle to be converted
+      * @param trig the sine and cosine table
+      */
+    public final void set(AxisAngle4d a1, FastTrig trig) {
+	setFromAxisAngle(a1.x, a1.y, a1.z, trig.cos(a1.angle), trig.sin(a1.angle));
+    }
     /**
      * Sets the value of this matrix to the matrix conversion of the
      * single precision quaternion argument. 
@@ -1348,6 +1451,51 @@ public final class Matrix4d implements Serializable {
 	m30 = 0.0; m31 = 0.0; m32 = 0.0; m33 = 1.0; 
     }
 
+    /**
+     * Sets the value of this matrix to a rotation matrix about the x axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the X axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotX(double angle, FastTrig trig)  {
+	double c = trig.cos(angle);
+	double s = trig.sin(angle);
+	m00 = 1.0; m01 = 0.0; m02 = 0.0; m03 = 0.0;
+	m10 = 0.0; m11 = c;   m12 = -s;  m13 = 0.0;
+	m20 = 0.0; m21 = s;   m22 = c;   m23 = 0.0;
+	m30 = 0.0; m31 = 0.0; m32 = 0.0; m33 = 1.0;
+    }
+
+    /**
+     * Sets the value of this matrix to a rotation matrix about the y axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the Y axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotY(double angle, FastTrig trig)  {
+	double c = trig.cos(angle);
+	double s = trig.sin(angle);
+	m00 = c;   m01 = 0.0; m02 = s;   m03 = 0.0;
+	m10 = 0.0; m11 = 1.0; m12 = 0.0; m13 = 0.0;
+	m20 = -s;  m21 = 0.0; m22 = c;   m23 = 0.0;
+	m30 = 0.0; m31 = 0.0; m32 = 0.0; m33 = 1.0;
+    }
+
+    /**
+     * Sets the value of this matrix to a rotation matrix about the z axis
+     * by the passed angle, with the sine and cosine taken from trig.
+     * @param angle the angle to rotate about the Z axis in radians
+     * @param trig the sine and cosine table
+     */
+    public final void rotZ(double angle, FastTrig trig)  {
+	double c = trig.cos(angle);
+	double s = trig.sin(angle);
+	m00 = c;   m01 = -s;  m02 = 0.0; m03 = 0.0;
+	m10 = s;   m11 = c;   m12 = 0.0; m13 = 0.0;
+	m20 = 0.0; m21 = 0.0; m22 = 1.0; m23 = 0.0;
+	m30 = 0.0; m31 = 0.0; m32 = 0.0; m33 = 1.0;
+    }
+
     /**
       * Multiplies each element of this matrix by a scalar.
       * @param scalar The scalar multiplier.
@@ -1628,6 +1776,32 @@ public final class Matrix4d implements Serializable {
 	return hash;
     }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Matrix4d) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	long h = HashMix.SEED;
+	h = HashMix.mix(h, m00);
+	h = HashMix.mix(h, m01);
+	h = HashMix.mix(h, m02);
+	h = HashMix.mix(h, m03);
+	h = HashMix.mix(h, m10);
+	h = HashMix.mix(h, m11);
+	h = HashMix.mix(h, m12);
+	h = HashMix.mix(h, m13);
+	h = HashMix.mix(h, m20);
+	h = HashMix.mix(h, m21);
+	h = HashMix.mix(h, m22);
+	h = HashMix.mix(h, m23);
+	h = HashMix.mix(h, m30);
+	h = HashMix.mix(h, m31);
+	h = HashMix.mix(h, m32);
+	h = HashMix.mix(h, m33);
+	return HashMix.finish(h, 16);
+    }
+
     /**
      * Transform the vector vec using this Matrix4d and place the
      * result into vecOut.
@@ -2092,6 +2266,9 @@ public final class Matrix4d implements Serializable {
 	m20 = xz - wy;          m21 = yz + wx;         m22 = 1.0 - (xx + yy);
     }
     private void setFromAxisAngle(double x, double y, double z, double angle) {
+	setFromAxisAngle(x, y, z, Math.cos(angle), Math.sin(angle));
+    }
+    private void setFromAxisAngle(double x, double y, double z, double c, double s) {
 	// Taken from Rick's which is taken from Wertz. pg. 412
 	// Bug Fixed and changed into right-handed by hiranabe
 	double n = Math.sqrt(x*x + y*y + z*z);
@@ -2100,8 +2277,6 @@ public final class Matrix4d implements Serializable {
 	x *= n;
 	y *= n;
 	z *= n;
-	double c = Math.cos(angle);
-	double s = Math.sin(angle);
 	double omc = 1.0 - c;
 	m00 = c + x*x*omc;
 	m11 = c + y*y*omc;
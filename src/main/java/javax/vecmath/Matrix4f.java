@@ -1476,6 +1476,34 @@ public final class Matrix4f implements Serializable {
                Float.floatToIntBits(this.m33);
     }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Matrix4f) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	
+    	long h = HashMix.SEED;
+    	h = HashMix.mix(h, this.m00);
+    	h = HashMix.mix(h, this.m01);
+    	h = HashMix.mix(h, this.m02);
+    	h = HashMix.mix(h, this.m03);
+    	h = HashMix.mix(h, this.m10);
+    	h = HashMix.mix(h, this.m11);
+    	h = HashMix.mix(h, this.m12);
+    	h = HashMix.mix(h, this.m13);
+    	h = HashMix.mix(h, this.m20);
+    	h = HashMix.mix(h, this.m21);
+    	h = HashMix.mix(h, this.m22);
+    	h = HashMix.mix(h, this.m23);
+    	h = HashMix.mix(h, this.m30);
+    	h = HashMix.mix(h, this.m31);
+    	h = HashMix.mix(h, this.m32);
+    	h = HashMix.mix(h, this.m33);
+
+    	return HashMix.finish(h, 16);
+    }
+
     /**
      * Transform the vector vec using this Matrix4f and place the
      * result into vecOut.
@@ -0,0 +1,1416 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Operations on many 3x3 or 4x4 matrices at once.
+ * <p>
+ * A batch of count matrices is a double[] or float[] holding 9 or 16
+ * values per matrix in the row major layout of {@link Matrix3d#set(double[])}
+ * and {@link Matrix4d#set(double[])}: the matrix i occupies [i * 9, i * 9 + 9)
+ * or [i * 16, i * 16 + 16). Vectors and points are packed as 3 values each.
+ * Every operation reads the operands of one element into locals before it
+ * writes its result, so the destination may be one of the sources.
+ * <p>
+ * The loops are plain counted loops over primitive arrays without calls or
+ * allocation, which the JIT compiles and vectorizes well. With a non-null
+ * pool the batch is split into ranges that run in parallel; with a null pool
+ * the calling thread runs the whole batch. The orthonormalizations take a
+ * range of the batch, so that the correction of a large batch can be spread
+ * over several frames.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class MatrixBatch {
+
+	// matrices per parallel task.
+	private static final int GRAIN = 1024;
+
+	private MatrixBatch() {
+
+	}
+
+	/**
+	 * Sets every matrix of dst to the product of the corresponding matrices
+	 * of a and b (dst[i] = a[i] * b[i]).
+	 * @param a the left matrices
+	 * @param b the right matrices
+	 * @param dst the matrices that receive the products
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void mul3(double a[], double b[], double dst[], int count, ForkJoinPool pool) {
+
+		check(a, count * 9);
+		check(b, count * 9);
+		check(dst, count * 9);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				double a00 = a[o]; double a01 = a[o + 1]; double a02 = a[o + 2];
+				double a10 = a[o + 3]; double a11 = a[o + 4]; double a12 = a[o + 5];
+				double a20 = a[o + 6]; double a21 = a[o + 7]; double a22 = a[o + 8];
+				double b00 = b[o]; double b01 = b[o + 1]; double b02 = b[o + 2];
+				double b10 = b[o + 3]; double b11 = b[o + 4]; double b12 = b[o + 5];
+				double b20 = b[o + 6]; double b21 = b[o + 7]; double b22 = b[o + 8];
+
+				dst[o] = a00 * b00 + a01 * b10 + a02 * b20;
+				dst[o + 1] = a00 * b01 + a01 * b11 + a02 * b21;
+				dst[o + 2] = a00 * b02 + a01 * b12 + a02 * b22;
+				dst[o + 3] = a10 * b00 + a11 * b10 + a12 * b20;
+				dst[o + 4] = a10 * b01 + a11 * b11 + a12 * b21;
+				dst[o + 5] = a10 * b02 + a11 * b12 + a12 * b22;
+				dst[o + 6] = a20 * b00 + a21 * b10 + a22 * b20;
+				dst[o + 7] = a20 * b01 + a21 * b11 + a22 * b21;
+				dst[o + 8] = a20 * b02 + a21 * b12 + a22 * b22;
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the transpose of the corresponding matrix of src.
+	 * @param src the matrices to be transposed
+	 * @param dst the matrices that receive the transposes
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transpose3(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count * 9);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2];
+				double m10 = src[o + 3]; double m11 = src[o + 4]; double m12 = src[o + 5];
+				double m20 = src[o + 6]; double m21 = src[o + 7]; double m22 = src[o + 8];
+
+				dst[o] = m00; dst[o + 1] = m10; dst[o + 2] = m20;
+				dst[o + 3] = m01; dst[o + 4] = m11; dst[o + 5] = m21;
+				dst[o + 6] = m02; dst[o + 7] = m12; dst[o + 8] = m22;
+			}
+		});
+	}
+
+	/**
+	 * Computes the determinant of every matrix of src.
+	 * @param src the matrices
+	 * @param dst receives the count determinants
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void determinant3(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2];
+				double m10 = src[o + 3]; double m11 = src[o + 4]; double m12 = src[o + 5];
+				double m20 = src[o + 6]; double m21 = src[o + 7]; double m22 = src[o + 8];
+
+				dst[i] = m00 * (m11 * m22 - m21 * m12)
+					   - m01 * (m10 * m22 - m20 * m12)
+					   + m02 * (m10 * m21 - m20 * m11);
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the inverse of the corresponding matrix of
+	 * src. A singular matrix is copied unchanged, as {@link Matrix3d#invert()}
+	 * leaves it unchanged.
+	 * @param src the matrices to be inverted
+	 * @param dst the matrices that receive the inverses
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 * @return the number of singular matrices
+	 */
+	public static int invert3(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count * 9);
+
+		AtomicInteger singular = new AtomicInteger();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			int found = 0;
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2];
+				double m10 = src[o + 3]; double m11 = src[o + 4]; double m12 = src[o + 5];
+				double m20 = src[o + 6]; double m21 = src[o + 7]; double m22 = src[o + 8];
+
+				double s = m00 * (m11 * m22 - m21 * m12)
+					  - m01 * (m10 * m22 - m20 * m12)
+					  + m02 * (m10 * m21 - m20 * m11);
+
+				if(s == 0.0D) {
+
+					if(src != dst) {
+
+						System.arraycopy(src, o, dst, o, 9);
+					}
+
+					found++;
+					continue;
+				}
+
+				s = 1.0D / s;
+
+				dst[o] = (m11 * m22 - m12 * m21) * s;
+				dst[o + 1] = (m02 * m21 - m01 * m22) * s;
+				dst[o + 2] = (m01 * m12 - m02 * m11) * s;
+				dst[o + 3] = (m12 * m20 - m10 * m22) * s;
+				dst[o + 4] = (m00 * m22 - m02 * m20) * s;
+				dst[o + 5] = (m02 * m10 - m00 * m12) * s;
+				dst[o + 6] = (m10 * m21 - m11 * m20) * s;
+				dst[o + 7] = (m01 * m20 - m00 * m21) * s;
+				dst[o + 8] = (m00 * m11 - m01 * m10) * s;
+			}
+
+			singular.addAndGet(found);
+		});
+
+		return singular.get();
+	}
+
+	/**
+	 * Sets every matrix of dst to the product of the corresponding matrices
+	 * of a and b (dst[i] = a[i] * b[i]).
+	 * @param a the left matrices
+	 * @param b the right matrices
+	 * @param dst the matrices that receive the products
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void mul4(double a[], double b[], double dst[], int count, ForkJoinPool pool) {
+
+		check(a, count * 16);
+		check(b, count * 16);
+		check(dst, count * 16);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				double a00 = a[o]; double a01 = a[o + 1]; double a02 = a[o + 2]; double a03 = a[o + 3];
+				double a10 = a[o + 4]; double a11 = a[o + 5]; double a12 = a[o + 6]; double a13 = a[o + 7];
+				double a20 = a[o + 8]; double a21 = a[o + 9]; double a22 = a[o + 10]; double a23 = a[o + 11];
+				double a30 = a[o + 12]; double a31 = a[o + 13]; double a32 = a[o + 14]; double a33 = a[o + 15];
+				double b00 = b[o]; double b01 = b[o + 1]; double b02 = b[o + 2]; double b03 = b[o + 3];
+				double b10 = b[o + 4]; double b11 = b[o + 5]; double b12 = b[o + 6]; double b13 = b[o + 7];
+				double b20 = b[o + 8]; double b21 = b[o + 9]; double b22 = b[o + 10]; double b23 = b[o + 11];
+				double b30 = b[o + 12]; double b31 = b[o + 13]; double b32 = b[o + 14]; double b33 = b[o + 15];
+
+				dst[o] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+				dst[o + 1] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+				dst[o + 2] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+				dst[o + 3] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+				dst[o + 4] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+				dst[o + 5] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+				dst[o + 6] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+				dst[o + 7] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+				dst[o + 8] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+				dst[o + 9] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+				dst[o + 10] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+				dst[o + 11] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+				dst[o + 12] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+				dst[o + 13] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+				dst[o + 14] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+				dst[o + 15] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the transpose of the corresponding matrix of src.
+	 * @param src the matrices to be transposed
+	 * @param dst the matrices that receive the transposes
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transpose4(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count * 16);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2]; double m03 = src[o + 3];
+				double m10 = src[o + 4]; double m11 = src[o + 5]; double m12 = src[o + 6]; double m13 = src[o + 7];
+				double m20 = src[o + 8]; double m21 = src[o + 9]; double m22 = src[o + 10]; double m23 = src[o + 11];
+				double m30 = src[o + 12]; double m31 = src[o + 13]; double m32 = src[o + 14]; double m33 = src[o + 15];
+
+				dst[o] = m00; dst[o + 1] = m10; dst[o + 2] = m20; dst[o + 3] = m30;
+				dst[o + 4] = m01; dst[o + 5] = m11; dst[o + 6] = m21; dst[o + 7] = m31;
+				dst[o + 8] = m02; dst[o + 9] = m12; dst[o + 10] = m22; dst[o + 11] = m32;
+				dst[o + 12] = m03; dst[o + 13] = m13; dst[o + 14] = m23; dst[o + 15] = m33;
+			}
+		});
+	}
+
+	/**
+	 * Computes the determinant of every matrix of src.
+	 * @param src the matrices
+	 * @param dst receives the count determinants
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void determinant4(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2]; double m03 = src[o + 3];
+				double m10 = src[o + 4]; double m11 = src[o + 5]; double m12 = src[o + 6]; double m13 = src[o + 7];
+				double m20 = src[o + 8]; double m21 = src[o + 9]; double m22 = src[o + 10]; double m23 = src[o + 11];
+				double m30 = src[o + 12]; double m31 = src[o + 13]; double m32 = src[o + 14]; double m33 = src[o + 15];
+
+				dst[i] = (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32)
+					   - (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31)
+					   + (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31)
+					   + (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30)
+					   - (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30)
+					   + (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the inverse of the corresponding matrix of
+	 * src. A singular matrix is copied unchanged, as {@link Matrix4d#invert()}
+	 * leaves it unchanged.
+	 * @param src the matrices to be inverted
+	 * @param dst the matrices that receive the inverses
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 * @return the number of singular matrices
+	 */
+	public static int invert4(double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count * 16);
+
+		AtomicInteger singular = new AtomicInteger();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			int found = 0;
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				double m00 = src[o]; double m01 = src[o + 1]; double m02 = src[o + 2]; double m03 = src[o + 3];
+				double m10 = src[o + 4]; double m11 = src[o + 5]; double m12 = src[o + 6]; double m13 = src[o + 7];
+				double m20 = src[o + 8]; double m21 = src[o + 9]; double m22 = src[o + 10]; double m23 = src[o + 11];
+				double m30 = src[o + 12]; double m31 = src[o + 13]; double m32 = src[o + 14]; double m33 = src[o + 15];
+
+				double s = (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32)
+					- (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31)
+					+ (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31)
+					+ (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30)
+					- (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30)
+					+ (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
+
+				if(s == 0.0D) {
+
+					if(src != dst) {
+
+						System.arraycopy(src, o, dst, o, 16);
+					}
+
+					found++;
+					continue;
+				}
+
+				s = 1.0D / s;
+
+				dst[o] = (m11 * (m22 * m33 - m23 * m32) + m12 * (m23 * m31 - m21 * m33) + m13 * (m21 * m32 - m22 * m31)) * s;
+				dst[o + 1] = (m21 * (m02 * m33 - m03 * m32) + m22 * (m03 * m31 - m01 * m33) + m23 * (m01 * m32 - m02 * m31)) * s;
+				dst[o + 2] = (m31 * (m02 * m13 - m03 * m12) + m32 * (m03 * m11 - m01 * m13) + m33 * (m01 * m12 - m02 * m11)) * s;
+				dst[o + 3] = (m01 * (m13 * m22 - m12 * m23) + m02 * (m11 * m23 - m13 * m21) + m03 * (m12 * m21 - m11 * m22)) * s;
+				dst[o + 4] = (m12 * (m20 * m33 - m23 * m30) + m13 * (m22 * m30 - m20 * m32) + m10 * (m23 * m32 - m22 * m33)) * s;
+				dst[o + 5] = (m22 * (m00 * m33 - m03 * m30) + m23 * (m02 * m30 - m00 * m32) + m20 * (m03 * m32 - m02 * m33)) * s;
+				dst[o + 6] = (m32 * (m00 * m13 - m03 * m10) + m33 * (m02 * m10 - m00 * m12) + m30 * (m03 * m12 - m02 * m13)) * s;
+				dst[o + 7] = (m02 * (m13 * m20 - m10 * m23) + m03 * (m10 * m22 - m12 * m20) + m00 * (m12 * m23 - m13 * m22)) * s;
+				dst[o + 8] = (m13 * (m20 * m31 - m21 * m30) + m10 * (m21 * m33 - m23 * m31) + m11 * (m23 * m30 - m20 * m33)) * s;
+				dst[o + 9] = (m23 * (m00 * m31 - m01 * m30) + m20 * (m01 * m33 - m03 * m31) + m21 * (m03 * m30 - m00 * m33)) * s;
+				dst[o + 10] = (m33 * (m00 * m11 - m01 * m10) + m30 * (m01 * m13 - m03 * m11) + m31 * (m03 * m10 - m00 * m13)) * s;
+				dst[o + 11] = (m03 * (m11 * m20 - m10 * m21) + m00 * (m13 * m21 - m11 * m23) + m01 * (m10 * m23 - m13 * m20)) * s;
+				dst[o + 12] = (m10 * (m22 * m31 - m21 * m32) + m11 * (m20 * m32 - m22 * m30) + m12 * (m21 * m30 - m20 * m31)) * s;
+				dst[o + 13] = (m20 * (m02 * m31 - m01 * m32) + m21 * (m00 * m32 - m02 * m30) + m22 * (m01 * m30 - m00 * m31)) * s;
+				dst[o + 14] = (m30 * (m02 * m11 - m01 * m12) + m31 * (m00 * m12 - m02 * m10) + m32 * (m01 * m10 - m00 * m11)) * s;
+				dst[o + 15] = (m00 * (m11 * m22 - m12 * m21) + m01 * (m12 * m20 - m10 * m22) + m02 * (m10 * m21 - m11 * m20)) * s;
+			}
+
+			singular.addAndGet(found);
+		});
+
+		return singular.get();
+	}
+
+	/**
+	 * Transforms every vector of src by the corresponding 3x3 matrix of m
+	 * (dst[i] = m[i] * src[i]).
+	 * @param m the matrices, 9 values each
+	 * @param src the vectors, 3 values each
+	 * @param dst the vectors that receive the results
+	 * @param count the number of matrices and vectors
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transform3(double m[], double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 9);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				int v = i * 3;
+				double x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z;
+				dst[v + 1] = m[o + 3] * x + m[o + 4] * y + m[o + 5] * z;
+				dst[v + 2] = m[o + 6] * x + m[o + 7] * y + m[o + 8] * z;
+			}
+		});
+	}
+
+	/**
+	 * Transforms every point of src by the corresponding 4x4 matrix of m, as
+	 * {@link Matrix4d#transform(Point3d)} does: the translation is
+	 * applied and the bottom row is assumed to be (0, 0, 0, 1).
+	 * @param m the matrices, 16 values each
+	 * @param src the points, 3 values each
+	 * @param dst the points that receive the results
+	 * @param count the number of matrices and points
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transformPoints4(double m[], double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 16);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				int v = i * 3;
+				double x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z + m[o + 3];
+				dst[v + 1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z + m[o + 7];
+				dst[v + 2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z + m[o + 11];
+			}
+		});
+	}
+
+	/**
+	 * Transforms every vector of src by the upper 3x3 part of the corresponding
+	 * 4x4 matrix of m, as {@link Matrix4d#transform(Vector3d)} does.
+	 * @param m the matrices, 16 values each
+	 * @param src the vectors, 3 values each
+	 * @param dst the vectors that receive the results
+	 * @param count the number of matrices and vectors
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transformVectors4(double m[], double src[], double dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 16);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				int v = i * 3;
+				double x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z;
+				dst[v + 1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z;
+				dst[v + 2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z;
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the product of the corresponding matrices
+	 * of a and b (dst[i] = a[i] * b[i]).
+	 * @param a the left matrices
+	 * @param b the right matrices
+	 * @param dst the matrices that receive the products
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void mul3(float a[], float b[], float dst[], int count, ForkJoinPool pool) {
+
+		check(a, count * 9);
+		check(b, count * 9);
+		check(dst, count * 9);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				float a00 = a[o]; float a01 = a[o + 1]; float a02 = a[o + 2];
+				float a10 = a[o + 3]; float a11 = a[o + 4]; float a12 = a[o + 5];
+				float a20 = a[o + 6]; float a21 = a[o + 7]; float a22 = a[o + 8];
+				float b00 = b[o]; float b01 = b[o + 1]; float b02 = b[o + 2];
+				float b10 = b[o + 3]; float b11 = b[o + 4]; float b12 = b[o + 5];
+				float b20 = b[o + 6]; float b21 = b[o + 7]; float b22 = b[o + 8];
+
+				dst[o] = a00 * b00 + a01 * b10 + a02 * b20;
+				dst[o + 1] = a00 * b01 + a01 * b11 + a02 * b21;
+				dst[o + 2] = a00 * b02 + a01 * b12 + a02 * b22;
+				dst[o + 3] = a10 * b00 + a11 * b10 + a12 * b20;
+				dst[o + 4] = a10 * b01 + a11 * b11 + a12 * b21;
+				dst[o + 5] = a10 * b02 + a11 * b12 + a12 * b22;
+				dst[o + 6] = a20 * b00 + a21 * b10 + a22 * b20;
+				dst[o + 7] = a20 * b01 + a21 * b11 + a22 * b21;
+				dst[o + 8] = a20 * b02 + a21 * b12 + a22 * b22;
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the transpose of the corresponding matrix of src.
+	 * @param src the matrices to be transposed
+	 * @param dst the matrices that receive the transposes
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transpose3(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count * 9);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2];
+				float m10 = src[o + 3]; float m11 = src[o + 4]; float m12 = src[o + 5];
+				float m20 = src[o + 6]; float m21 = src[o + 7]; float m22 = src[o + 8];
+
+				dst[o] = m00; dst[o + 1] = m10; dst[o + 2] = m20;
+				dst[o + 3] = m01; dst[o + 4] = m11; dst[o + 5] = m21;
+				dst[o + 6] = m02; dst[o + 7] = m12; dst[o + 8] = m22;
+			}
+		});
+	}
+
+	/**
+	 * Computes the determinant of every matrix of src.
+	 * @param src the matrices
+	 * @param dst receives the count determinants
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void determinant3(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2];
+				float m10 = src[o + 3]; float m11 = src[o + 4]; float m12 = src[o + 5];
+				float m20 = src[o + 6]; float m21 = src[o + 7]; float m22 = src[o + 8];
+
+				dst[i] = m00 * (m11 * m22 - m21 * m12)
+					   - m01 * (m10 * m22 - m20 * m12)
+					   + m02 * (m10 * m21 - m20 * m11);
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the inverse of the corresponding matrix of
+	 * src. A singular matrix is copied unchanged, as {@link Matrix3f#invert()}
+	 * leaves it unchanged.
+	 * @param src the matrices to be inverted
+	 * @param dst the matrices that receive the inverses
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 * @return the number of singular matrices
+	 */
+	public static int invert3(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(dst, count * 9);
+
+		AtomicInteger singular = new AtomicInteger();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			int found = 0;
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2];
+				float m10 = src[o + 3]; float m11 = src[o + 4]; float m12 = src[o + 5];
+				float m20 = src[o + 6]; float m21 = src[o + 7]; float m22 = src[o + 8];
+
+				float s = m00 * (m11 * m22 - m21 * m12)
+					  - m01 * (m10 * m22 - m20 * m12)
+					  + m02 * (m10 * m21 - m20 * m11);
+
+				if(s == 0.0F) {
+
+					if(src != dst) {
+
+						System.arraycopy(src, o, dst, o, 9);
+					}
+
+					found++;
+					continue;
+				}
+
+				s = 1.0F / s;
+
+				dst[o] = (m11 * m22 - m12 * m21) * s;
+				dst[o + 1] = (m02 * m21 - m01 * m22) * s;
+				dst[o + 2] = (m01 * m12 - m02 * m11) * s;
+				dst[o + 3] = (m12 * m20 - m10 * m22) * s;
+				dst[o + 4] = (m00 * m22 - m02 * m20) * s;
+				dst[o + 5] = (m02 * m10 - m00 * m12) * s;
+				dst[o + 6] = (m10 * m21 - m11 * m20) * s;
+				dst[o + 7] = (m01 * m20 - m00 * m21) * s;
+				dst[o + 8] = (m00 * m11 - m01 * m10) * s;
+			}
+
+			singular.addAndGet(found);
+		});
+
+		return singular.get();
+	}
+
+	/**
+	 * Sets every matrix of dst to the product of the corresponding matrices
+	 * of a and b (dst[i] = a[i] * b[i]).
+	 * @param a the left matrices
+	 * @param b the right matrices
+	 * @param dst the matrices that receive the products
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void mul4(float a[], float b[], float dst[], int count, ForkJoinPool pool) {
+
+		check(a, count * 16);
+		check(b, count * 16);
+		check(dst, count * 16);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				float a00 = a[o]; float a01 = a[o + 1]; float a02 = a[o + 2]; float a03 = a[o + 3];
+				float a10 = a[o + 4]; float a11 = a[o + 5]; float a12 = a[o + 6]; float a13 = a[o + 7];
+				float a20 = a[o + 8]; float a21 = a[o + 9]; float a22 = a[o + 10]; float a23 = a[o + 11];
+				float a30 = a[o + 12]; float a31 = a[o + 13]; float a32 = a[o + 14]; float a33 = a[o + 15];
+				float b00 = b[o]; float b01 = b[o + 1]; float b02 = b[o + 2]; float b03 = b[o + 3];
+				float b10 = b[o + 4]; float b11 = b[o + 5]; float b12 = b[o + 6]; float b13 = b[o + 7];
+				float b20 = b[o + 8]; float b21 = b[o + 9]; float b22 = b[o + 10]; float b23 = b[o + 11];
+				float b30 = b[o + 12]; float b31 = b[o + 13]; float b32 = b[o + 14]; float b33 = b[o + 15];
+
+				dst[o] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+				dst[o + 1] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+				dst[o + 2] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+				dst[o + 3] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+				dst[o + 4] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+				dst[o + 5] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+				dst[o + 6] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+				dst[o + 7] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+				dst[o + 8] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+				dst[o + 9] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+				dst[o + 10] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+				dst[o + 11] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+				dst[o + 12] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+				dst[o + 13] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+				dst[o + 14] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+				dst[o + 15] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the transpose of the corresponding matrix of src.
+	 * @param src the matrices to be transposed
+	 * @param dst the matrices that receive the transposes
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transpose4(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count * 16);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2]; float m03 = src[o + 3];
+				float m10 = src[o + 4]; float m11 = src[o + 5]; float m12 = src[o + 6]; float m13 = src[o + 7];
+				float m20 = src[o + 8]; float m21 = src[o + 9]; float m22 = src[o + 10]; float m23 = src[o + 11];
+				float m30 = src[o + 12]; float m31 = src[o + 13]; float m32 = src[o + 14]; float m33 = src[o + 15];
+
+				dst[o] = m00; dst[o + 1] = m10; dst[o + 2] = m20; dst[o + 3] = m30;
+				dst[o + 4] = m01; dst[o + 5] = m11; dst[o + 6] = m21; dst[o + 7] = m31;
+				dst[o + 8] = m02; dst[o + 9] = m12; dst[o + 10] = m22; dst[o + 11] = m32;
+				dst[o + 12] = m03; dst[o + 13] = m13; dst[o + 14] = m23; dst[o + 15] = m33;
+			}
+		});
+	}
+
+	/**
+	 * Computes the determinant of every matrix of src.
+	 * @param src the matrices
+	 * @param dst receives the count determinants
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void determinant4(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2]; float m03 = src[o + 3];
+				float m10 = src[o + 4]; float m11 = src[o + 5]; float m12 = src[o + 6]; float m13 = src[o + 7];
+				float m20 = src[o + 8]; float m21 = src[o + 9]; float m22 = src[o + 10]; float m23 = src[o + 11];
+				float m30 = src[o + 12]; float m31 = src[o + 13]; float m32 = src[o + 14]; float m33 = src[o + 15];
+
+				dst[i] = (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32)
+					   - (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31)
+					   + (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31)
+					   + (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30)
+					   - (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30)
+					   + (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
+			}
+		});
+	}
+
+	/**
+	 * Sets every matrix of dst to the inverse of the corresponding matrix of
+	 * src. A singular matrix is copied unchanged, as {@link Matrix4f#invert()}
+	 * leaves it unchanged.
+	 * @param src the matrices to be inverted
+	 * @param dst the matrices that receive the inverses
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 * @return the number of singular matrices
+	 */
+	public static int invert4(float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(src, count * 16);
+		check(dst, count * 16);
+
+		AtomicInteger singular = new AtomicInteger();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			int found = 0;
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				float m00 = src[o]; float m01 = src[o + 1]; float m02 = src[o + 2]; float m03 = src[o + 3];
+				float m10 = src[o + 4]; float m11 = src[o + 5]; float m12 = src[o + 6]; float m13 = src[o + 7];
+				float m20 = src[o + 8]; float m21 = src[o + 9]; float m22 = src[o + 10]; float m23 = src[o + 11];
+				float m30 = src[o + 12]; float m31 = src[o + 13]; float m32 = src[o + 14]; float m33 = src[o + 15];
+
+				float s = (m00 * m11 - m01 * m10) * (m22 * m33 - m23 * m32)
+					- (m00 * m12 - m02 * m10) * (m21 * m33 - m23 * m31)
+					+ (m00 * m13 - m03 * m10) * (m21 * m32 - m22 * m31)
+					+ (m01 * m12 - m02 * m11) * (m20 * m33 - m23 * m30)
+					- (m01 * m13 - m03 * m11) * (m20 * m32 - m22 * m30)
+					+ (m02 * m13 - m03 * m12) * (m20 * m31 - m21 * m30);
+
+				if(s == 0.0F) {
+
+					if(src != dst) {
+
+						System.arraycopy(src, o, dst, o, 16);
+					}
+
+					found++;
+					continue;
+				}
+
+				s = 1.0F / s;
+
+				dst[o] = (m11 * (m22 * m33 - m23 * m32) + m12 * (m23 * m31 - m21 * m33) + m13 * (m21 * m32 - m22 * m31)) * s;
+				dst[o + 1] = (m21 * (m02 * m33 - m03 * m32) + m22 * (m03 * m31 - m01 * m33) + m23 * (m01 * m32 - m02 * m31)) * s;
+				dst[o + 2] = (m31 * (m02 * m13 - m03 * m12) + m32 * (m03 * m11 - m01 * m13) + m33 * (m01 * m12 - m02 * m11)) * s;
+				dst[o + 3] = (m01 * (m13 * m22 - m12 * m23) + m02 * (m11 * m23 - m13 * m21) + m03 * (m12 * m21 - m11 * m22)) * s;
+				dst[o + 4] = (m12 * (m20 * m33 - m23 * m30) + m13 * (m22 * m30 - m20 * m32) + m10 * (m23 * m32 - m22 * m33)) * s;
+				dst[o + 5] = (m22 * (m00 * m33 - m03 * m30) + m23 * (m02 * m30 - m00 * m32) + m20 * (m03 * m32 - m02 * m33)) * s;
+				dst[o + 6] = (m32 * (m00 * m13 - m03 * m10) + m33 * (m02 * m10 - m00 * m12) + m30 * (m03 * m12 - m02 * m13)) * s;
+				dst[o + 7] = (m02 * (m13 * m20 - m10 * m23) + m03 * (m10 * m22 - m12 * m20) + m00 * (m12 * m23 - m13 * m22)) * s;
+				dst[o + 8] = (m13 * (m20 * m31 - m21 * m30) + m10 * (m21 * m33 - m23 * m31) + m11 * (m23 * m30 - m20 * m33)) * s;
+				dst[o + 9] = (m23 * (m00 * m31 - m01 * m30) + m20 * (m01 * m33 - m03 * m31) + m21 * (m03 * m30 - m00 * m33)) * s;
+				dst[o + 10] = (m33 * (m00 * m11 - m01 * m10) + m30 * (m01 * m13 - m03 * m11) + m31 * (m03 * m10 - m00 * m13)) * s;
+				dst[o + 11] = (m03 * (m11 * m20 - m10 * m21) + m00 * (m13 * m21 - m11 * m23) + m01 * (m10 * m23 - m13 * m20)) * s;
+				dst[o + 12] = (m10 * (m22 * m31 - m21 * m32) + m11 * (m20 * m32 - m22 * m30) + m12 * (m21 * m30 - m20 * m31)) * s;
+				dst[o + 13] = (m20 * (m02 * m31 - m01 * m32) + m21 * (m00 * m32 - m02 * m30) + m22 * (m01 * m30 - m00 * m31)) * s;
+				dst[o + 14] = (m30 * (m02 * m11 - m01 * m12) + m31 * (m00 * m12 - m02 * m10) + m32 * (m01 * m10 - m00 * m11)) * s;
+				dst[o + 15] = (m00 * (m11 * m22 - m12 * m21) + m01 * (m12 * m20 - m10 * m22) + m02 * (m10 * m21 - m11 * m20)) * s;
+			}
+
+			singular.addAndGet(found);
+		});
+
+		return singular.get();
+	}
+
+	/**
+	 * Transforms every vector of src by the corresponding 3x3 matrix of m
+	 * (dst[i] = m[i] * src[i]).
+	 * @param m the matrices, 9 values each
+	 * @param src the vectors, 3 values each
+	 * @param dst the vectors that receive the results
+	 * @param count the number of matrices and vectors
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transform3(float m[], float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 9);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				int v = i * 3;
+				float x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z;
+				dst[v + 1] = m[o + 3] * x + m[o + 4] * y + m[o + 5] * z;
+				dst[v + 2] = m[o + 6] * x + m[o + 7] * y + m[o + 8] * z;
+			}
+		});
+	}
+
+	/**
+	 * Transforms every point of src by the corresponding 4x4 matrix of m, as
+	 * {@link Matrix4f#transform(Point3f)} does: the translation is
+	 * applied and the bottom row is assumed to be (0, 0, 0, 1).
+	 * @param m the matrices, 16 values each
+	 * @param src the points, 3 values each
+	 * @param dst the points that receive the results
+	 * @param count the number of matrices and points
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transformPoints4(float m[], float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 16);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				int v = i * 3;
+				float x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z + m[o + 3];
+				dst[v + 1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z + m[o + 7];
+				dst[v + 2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z + m[o + 11];
+			}
+		});
+	}
+
+	/**
+	 * Transforms every vector of src by the upper 3x3 part of the corresponding
+	 * 4x4 matrix of m, as {@link Matrix4f#transform(Vector3f)} does.
+	 * @param m the matrices, 16 values each
+	 * @param src the vectors, 3 values each
+	 * @param dst the vectors that receive the results
+	 * @param count the number of matrices and vectors
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void transformVectors4(float m[], float src[], float dst[], int count, ForkJoinPool pool) {
+
+		check(m, count * 16);
+		check(src, count * 3);
+		check(dst, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 16;
+				int v = i * 3;
+				float x = src[v], y = src[v + 1], z = src[v + 2];
+
+				dst[v] = m[o] * x + m[o + 1] * y + m[o + 2] * z;
+				dst[v + 1] = m[o + 4] * x + m[o + 5] * y + m[o + 6] * z;
+				dst[v + 2] = m[o + 8] * x + m[o + 9] * y + m[o + 10] * z;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeGramSchmidt()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeGramSchmidt3(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				double ax = m[o], ay = m[o + 3], az = m[o + 6];
+				double bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+
+				// zero-div may occur.
+				double n = 1.0D / Math.sqrt(ax * ax + ay * ay + az * az);
+				ax *= n; ay *= n; az *= n;
+
+				double d = ax * bx + ay * by + az * bz;
+				bx -= d * ax; by -= d * ay; bz -= d * az;
+				n = 1.0D / Math.sqrt(bx * bx + by * by + bz * bz);
+				bx *= n; by *= n; bz *= n;
+
+				m[o] = ax; m[o + 3] = ay; m[o + 6] = az;
+				m[o + 1] = bx; m[o + 4] = by; m[o + 7] = bz;
+				m[o + 2] = ay * bz - az * by; m[o + 5] = az * bx - ax * bz; m[o + 8] = ax * by - ay * bx;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeSymmetric()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeSymmetric3(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				double ax = m[o], ay = m[o + 3], az = m[o + 6];
+				double bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+
+				double e = 0.5D * (ax * bx + ay * by + az * bz);
+				double ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+				double vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+				double wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+				double n = 0.5D * (3.0D - (ux * ux + uy * uy + uz * uz));
+				m[o] = ux * n; m[o + 3] = uy * n; m[o + 6] = uz * n;
+				n = 0.5D * (3.0D - (vx * vx + vy * vy + vz * vz));
+				m[o + 1] = vx * n; m[o + 4] = vy * n; m[o + 7] = vz * n;
+				n = 0.5D * (3.0D - (wx * wx + wy * wy + wz * wz));
+				m[o + 2] = wx * n; m[o + 5] = wy * n; m[o + 8] = wz * n;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeNewton()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeNewton3(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				double ax = m[o], ay = m[o + 3], az = m[o + 6];
+				double bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+				double cx = m[o + 2], cy = m[o + 5], cz = m[o + 8];
+
+				// X = X (3 I - transpose(X) X) / 2
+				double p00 = 1.5D - 0.5D * (ax * ax + ay * ay + az * az);
+				double p11 = 1.5D - 0.5D * (bx * bx + by * by + bz * bz);
+				double p22 = 1.5D - 0.5D * (cx * cx + cy * cy + cz * cz);
+				double p01 = -0.5D * (ax * bx + ay * by + az * bz);
+				double p02 = -0.5D * (ax * cx + ay * cy + az * cz);
+				double p12 = -0.5D * (bx * cx + by * cy + bz * cz);
+
+				m[o] = ax * p00 + bx * p01 + cx * p02; m[o + 3] = ay * p00 + by * p01 + cy * p02; m[o + 6] = az * p00 + bz * p01 + cz * p02;
+				m[o + 1] = ax * p01 + bx * p11 + cx * p12; m[o + 4] = ay * p01 + by * p11 + cy * p12; m[o + 7] = az * p01 + bz * p11 + cz * p12;
+				m[o + 2] = ax * p02 + bx * p12 + cx * p22; m[o + 5] = ay * p02 + by * p12 + cy * p22; m[o + 8] = az * p02 + bz * p12 + cz * p22;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeGramSchmidt()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeGramSchmidt4(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				double ax = m[o], ay = m[o + 4], az = m[o + 8];
+				double bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+
+				// zero-div may occur.
+				double n = 1.0D / Math.sqrt(ax * ax + ay * ay + az * az);
+				ax *= n; ay *= n; az *= n;
+
+				double d = ax * bx + ay * by + az * bz;
+				bx -= d * ax; by -= d * ay; bz -= d * az;
+				n = 1.0D / Math.sqrt(bx * bx + by * by + bz * bz);
+				bx *= n; by *= n; bz *= n;
+
+				m[o] = ax; m[o + 4] = ay; m[o + 8] = az;
+				m[o + 1] = bx; m[o + 5] = by; m[o + 9] = bz;
+				m[o + 2] = ay * bz - az * by; m[o + 6] = az * bx - ax * bz; m[o + 10] = ax * by - ay * bx;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeSymmetric()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeSymmetric4(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				double ax = m[o], ay = m[o + 4], az = m[o + 8];
+				double bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+
+				double e = 0.5D * (ax * bx + ay * by + az * bz);
+				double ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+				double vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+				double wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+				double n = 0.5D * (3.0D - (ux * ux + uy * uy + uz * uz));
+				m[o] = ux * n; m[o + 4] = uy * n; m[o + 8] = uz * n;
+				n = 0.5D * (3.0D - (vx * vx + vy * vy + vz * vz));
+				m[o + 1] = vx * n; m[o + 5] = vy * n; m[o + 9] = vz * n;
+				n = 0.5D * (3.0D - (wx * wx + wy * wy + wz * wz));
+				m[o + 2] = wx * n; m[o + 6] = wy * n; m[o + 10] = wz * n;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeNewton()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeNewton4(double m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				double ax = m[o], ay = m[o + 4], az = m[o + 8];
+				double bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+				double cx = m[o + 2], cy = m[o + 6], cz = m[o + 10];
+
+				// X = X (3 I - transpose(X) X) / 2
+				double p00 = 1.5D - 0.5D * (ax * ax + ay * ay + az * az);
+				double p11 = 1.5D - 0.5D * (bx * bx + by * by + bz * bz);
+				double p22 = 1.5D - 0.5D * (cx * cx + cy * cy + cz * cz);
+				double p01 = -0.5D * (ax * bx + ay * by + az * bz);
+				double p02 = -0.5D * (ax * cx + ay * cy + az * cz);
+				double p12 = -0.5D * (bx * cx + by * cy + bz * cz);
+
+				m[o] = ax * p00 + bx * p01 + cx * p02; m[o + 4] = ay * p00 + by * p01 + cy * p02; m[o + 8] = az * p00 + bz * p01 + cz * p02;
+				m[o + 1] = ax * p01 + bx * p11 + cx * p12; m[o + 5] = ay * p01 + by * p11 + cy * p12; m[o + 9] = az * p01 + bz * p11 + cz * p12;
+				m[o + 2] = ax * p02 + bx * p12 + cx * p22; m[o + 6] = ay * p02 + by * p12 + cy * p22; m[o + 10] = az * p02 + bz * p12 + cz * p22;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeGramSchmidt()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeGramSchmidt3(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				float ax = m[o], ay = m[o + 3], az = m[o + 6];
+				float bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+
+				// zero-div may occur.
+				float n = (float)(1.0D / Math.sqrt(ax * ax + ay * ay + az * az));
+				ax *= n; ay *= n; az *= n;
+
+				float d = ax * bx + ay * by + az * bz;
+				bx -= d * ax; by -= d * ay; bz -= d * az;
+				n = (float)(1.0D / Math.sqrt(bx * bx + by * by + bz * bz));
+				bx *= n; by *= n; bz *= n;
+
+				m[o] = ax; m[o + 3] = ay; m[o + 6] = az;
+				m[o + 1] = bx; m[o + 4] = by; m[o + 7] = bz;
+				m[o + 2] = ay * bz - az * by; m[o + 5] = az * bx - ax * bz; m[o + 8] = ax * by - ay * bx;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeSymmetric()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeSymmetric3(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				float ax = m[o], ay = m[o + 3], az = m[o + 6];
+				float bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+
+				float e = 0.5F * (ax * bx + ay * by + az * bz);
+				float ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+				float vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+				float wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+				float n = 0.5F * (3.0F - (ux * ux + uy * uy + uz * uz));
+				m[o] = ux * n; m[o + 3] = uy * n; m[o + 6] = uz * n;
+				n = 0.5F * (3.0F - (vx * vx + vy * vy + vz * vz));
+				m[o + 1] = vx * n; m[o + 4] = vy * n; m[o + 7] = vz * n;
+				n = 0.5F * (3.0F - (wx * wx + wy * wy + wz * wz));
+				m[o + 2] = wx * n; m[o + 5] = wy * n; m[o + 8] = wz * n;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix3d#orthonormalizeNewton()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 9 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeNewton3(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 9);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 9;
+				float ax = m[o], ay = m[o + 3], az = m[o + 6];
+				float bx = m[o + 1], by = m[o + 4], bz = m[o + 7];
+				float cx = m[o + 2], cy = m[o + 5], cz = m[o + 8];
+
+				// X = X (3 I - transpose(X) X) / 2
+				float p00 = 1.5F - 0.5F * (ax * ax + ay * ay + az * az);
+				float p11 = 1.5F - 0.5F * (bx * bx + by * by + bz * bz);
+				float p22 = 1.5F - 0.5F * (cx * cx + cy * cy + cz * cz);
+				float p01 = -0.5F * (ax * bx + ay * by + az * bz);
+				float p02 = -0.5F * (ax * cx + ay * cy + az * cz);
+				float p12 = -0.5F * (bx * cx + by * cy + bz * cz);
+
+				m[o] = ax * p00 + bx * p01 + cx * p02; m[o + 3] = ay * p00 + by * p01 + cy * p02; m[o + 6] = az * p00 + bz * p01 + cz * p02;
+				m[o + 1] = ax * p01 + bx * p11 + cx * p12; m[o + 4] = ay * p01 + by * p11 + cy * p12; m[o + 7] = az * p01 + bz * p11 + cz * p12;
+				m[o + 2] = ax * p02 + bx * p12 + cx * p22; m[o + 5] = ay * p02 + by * p12 + cy * p22; m[o + 8] = az * p02 + bz * p12 + cz * p22;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeGramSchmidt()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeGramSchmidt4(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				float ax = m[o], ay = m[o + 4], az = m[o + 8];
+				float bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+
+				// zero-div may occur.
+				float n = (float)(1.0D / Math.sqrt(ax * ax + ay * ay + az * az));
+				ax *= n; ay *= n; az *= n;
+
+				float d = ax * bx + ay * by + az * bz;
+				bx -= d * ax; by -= d * ay; bz -= d * az;
+				n = (float)(1.0D / Math.sqrt(bx * bx + by * by + bz * bz));
+				bx *= n; by *= n; bz *= n;
+
+				m[o] = ax; m[o + 4] = ay; m[o + 8] = az;
+				m[o + 1] = bx; m[o + 5] = by; m[o + 9] = bz;
+				m[o + 2] = ay * bz - az * by; m[o + 6] = az * bx - ax * bz; m[o + 10] = ax * by - ay * bx;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeSymmetric()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeSymmetric4(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				float ax = m[o], ay = m[o + 4], az = m[o + 8];
+				float bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+
+				float e = 0.5F * (ax * bx + ay * by + az * bz);
+				float ux = ax - e * bx, uy = ay - e * by, uz = az - e * bz;
+				float vx = bx - e * ax, vy = by - e * ay, vz = bz - e * az;
+				float wx = uy * vz - uz * vy, wy = uz * vx - ux * vz, wz = ux * vy - uy * vx;
+
+				float n = 0.5F * (3.0F - (ux * ux + uy * uy + uz * uz));
+				m[o] = ux * n; m[o + 4] = uy * n; m[o + 8] = uz * n;
+				n = 0.5F * (3.0F - (vx * vx + vy * vy + vz * vz));
+				m[o + 1] = vx * n; m[o + 5] = vy * n; m[o + 9] = vz * n;
+				n = 0.5F * (3.0F - (wx * wx + wy * wy + wz * wz));
+				m[o + 2] = wx * n; m[o + 6] = wy * n; m[o + 10] = wz * n;
+			}
+		});
+	}
+
+	/**
+	 * Applies {@link Matrix4d#orthonormalizeNewton()} to the matrices [from, from + count) of m.
+	 * @param m the matrices, 16 values each
+	 * @param from the index of the first matrix
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void orthonormalizeNewton4(float m[], int from, int count, ForkJoinPool pool) {
+
+		check(m, (from + count) * 16);
+
+		ParallelLoop.run(pool, from, from + count, GRAIN, (lo, hi) -> {
+
+			for(int i = lo; i < hi; i++) {
+
+				int o = i * 16;
+				float ax = m[o], ay = m[o + 4], az = m[o + 8];
+				float bx = m[o + 1], by = m[o + 5], bz = m[o + 9];
+				float cx = m[o + 2], cy = m[o + 6], cz = m[o + 10];
+
+				// X = X (3 I - transpose(X) X) / 2
+				float p00 = 1.5F - 0.5F * (ax * ax + ay * ay + az * az);
+				float p11 = 1.5F - 0.5F * (bx * bx + by * by + bz * bz);
+				float p22 = 1.5F - 0.5F * (cx * cx + cy * cy + cz * cz);
+				float p01 = -0.5F * (ax * bx + ay * by + az * bz);
+				float p02 = -0.5F * (ax * cx + ay * cy + az * cz);
+				float p12 = -0.5F * (bx * cx + by * cy + bz * cz);
+
+				m[o] = ax * p00 + bx * p01 + cx * p02; m[o + 4] = ay * p00 + by * p01 + cy * p02; m[o + 8] = az * p00 + bz * p01 + cz * p02;
+				m[o + 1] = ax * p01 + bx * p11 + cx * p12; m[o + 5] = ay * p01 + by * p11 + cy * p12; m[o + 9] = az * p01 + bz * p11 + cz * p12;
+				m[o + 2] = ax * p02 + bx * p12 + cx * p22; m[o + 6] = ay * p02 + by * p12 + cy * p22; m[o + 10] = az * p02 + bz * p12 + cz * p22;
+			}
+		});
+	}
+
+	/**
+	 * Computes the polar decomposition src[i] = rotation[i] * stretch[i] of
+	 * every 3x3 matrix of src, see {@link Matrix3d#polarDecompose(Matrix3d, Matrix3d)}.
+	 * The factors of a singular matrix are left unchanged.
+	 * @param src the matrices, 9 values each
+	 * @param rotation the matrices that receive the orthogonal factors; may be src
+	 * @param stretch the matrices that receive the symmetric factors, or null
+	 * @param count the number of matrices
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 * @return the number of singular matrices
+	 */
+	public static int polarDecompose3(double src[], double rotation[], double stretch[], int count, ForkJoinPool pool) {
+
+		check(src, count * 9);
+		check(rotation, count * 9);
+
+		if(stretch != null) {
+
+			check(stretch, count * 9);
+		}
+
+		AtomicInteger singular = new AtomicInteger();
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			Matrix3d r = new Matrix3d();
+			Matrix3d s = new Matrix3d();
+			int found = 0;
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 9;
+				double m00 = src[o], m01 = src[o + 1], m02 = src[o + 2];
+				double m10 = src[o + 3], m11 = src[o + 4], m12 = src[o + 5];
+				double m20 = src[o + 6], m21 = src[o + 7], m22 = src[o + 8];
+
+				if(!Matrix3d.polarRotation(m00, m01, m02, m10, m11, m12, m20, m21, m22, r)) {
+
+					found++;
+					continue;
+				}
+
+				if(stretch != null) {
+
+					Matrix3d.polarStretch(r, m00, m01, m02, m10, m11, m12, m20, m21, m22, s);
+					store(s, stretch, o);
+				}
+
+				store(r, rotation, o);
+			}
+
+			singular.addAndGet(found);
+		});
+
+		return singular.get();
+	}
+
+	private static void store(Matrix3d m1, double dst[], int o) {
+
+		dst[o] = m1.m00;
+		dst[o + 1] = m1.m01;
+		dst[o + 2] = m1.m02;
+		dst[o + 3] = m1.m10;
+		dst[o + 4] = m1.m11;
+		dst[o + 5] = m1.m12;
+		dst[o + 6] = m1.m20;
+		dst[o + 7] = m1.m21;
+		dst[o + 8] = m1.m22;
+	}
+
+	private static void check(double a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+
+	private static void check(float a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+}
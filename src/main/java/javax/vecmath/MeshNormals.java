@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Per vertex normals and tangent frames of an indexed triangle mesh.
+ * <p>
+ * The mesh is given by packed positions (x, y, z per vertex) and three
+ * vertex indices per triangle, counter clockwise seen from the front. The
+ * constructor builds, once, the list of triangle corners at every vertex.
+ * Every vertex then gathers the contributions of its own corners, so
+ * vertices can be processed in parallel without locks, atomics or per
+ * thread buffers, and no vertex is written by two threads.
+ * <p>
+ * Normals are the normalized sum of the face normals at a vertex, weighted
+ * by the face area or by the angle of the face at the vertex
+ * ({@link Weighting}). Tangents are 4 floats per vertex: a unit tangent
+ * orthogonal to the normal, pointing along increasing u of the texture
+ * coordinates, and the handedness w = +1 or -1 of the frame, so that the
+ * bitangent is w (normal x tangent). As in MikkTSpace the face tangents are
+ * projected onto the plane of the vertex normal and weighted by the corner
+ * angle, and faces mirrored in texture space flip their direction; unlike
+ * MikkTSpace, vertices are never split where their faces disagree about
+ * the handedness, so meshes with seams must already have split vertices.
+ * <p>
+ * Vertices without non-degenerate faces get a zero normal; vertices
+ * without usable texture coordinates get an arbitrary tangent orthogonal
+ * to their normal. The arrays are referenced, not copied. The methods take
+ * a ForkJoinPool; with a null pool the calling thread does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class MeshNormals {
+
+	/**
+	 * The weight of the face normals summed at a vertex.
+	 */
+	public enum Weighting {
+
+		/**
+		 * Twice the face area: large faces dominate.
+		 */
+		AREA,
+
+		/**
+		 * The angle of the face at the vertex: independent of how the
+		 * surface is triangulated.
+		 */
+		ANGLE
+	}
+
+	// vertices per parallel task.
+	private static final int GRAIN = 4096;
+
+	private final float xyz[];
+	private final int vertexCount;
+	private final int indices[];
+
+	// the corners (3 triangle + k) at vertex v are corners[first[v]] to corners[first[v + 1] - 1].
+	private final int first[];
+	private final int corners[];
+
+	/**
+	 * Constructs the corner lists of a mesh.
+	 * @param xyz the packed vertex positions
+	 * @param vertexCount the number of vertices
+	 * @param indices the vertex indices, three per triangle
+	 * @param triangleCount the number of triangles
+	 */
+	public MeshNormals(float xyz[], int vertexCount, int indices[], int triangleCount) {
+
+		if(vertexCount < 0 || (long)vertexCount * 3 > xyz.length) {
+
+			throw new IndexOutOfBoundsException("vertexCount:" + vertexCount + " length:" + xyz.length);
+		}
+
+		if(triangleCount < 0 || (long)triangleCount * 3 > indices.length) {
+
+			throw new IndexOutOfBoundsException("triangleCount:" + triangleCount + " length:" + indices.length);
+		}
+
+		int n = triangleCount * 3;
+
+		this.xyz = xyz;
+		this.vertexCount = vertexCount;
+		this.indices = indices;
+		this.first = new int[vertexCount + 1];
+		this.corners = new int[n];
+
+		for(int i = 0; i < n; i++) {
+
+			int v = indices[i];
+
+			if(v < 0 || v >= vertexCount) {
+
+				throw new IndexOutOfBoundsException("indices[" + i + "]:" + v);
+			}
+
+			this.first[v + 1]++;
+		}
+
+		for(int v = 0; v < vertexCount; v++) {
+
+			this.first[v + 1] += this.first[v];
+		}
+
+		int next[] = new int[vertexCount];
+
+		System.arraycopy(this.first, 0, next, 0, vertexCount);
+
+		for(int i = 0; i < n; i++) {
+
+			this.corners[next[indices[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 * @return the vertex count
+	 */
+	public final int getVertexCount() {
+
+		return this.vertexCount;
+	}
+
+	/**
+	 * Computes the unit normal of every vertex.
+	 * @param weighting the weight of the face normals
+	 * @param normals the array that receives 3 floats per vertex
+	 * @param pool the pool that runs the computation, or null to run it in the calling thread
+	 */
+	public final void computeNormals(Weighting weighting, float normals[], ForkJoinPool pool) {
+
+		check("normals", normals.length, this.vertexCount, 3);
+
+		boolean angle = weighting == Weighting.ANGLE;
+
+		ParallelLoop.run(pool, 0, this.vertexCount, GRAIN, (from, to) -> {
+
+			float p[] = this.xyz;
+
+			for(int v = from; v < to; v++) {
+
+				double nx = 0.0D, ny = 0.0D, nz = 0.0D;
+
+				for(int c = this.first[v]; c < this.first[v + 1]; c++) {
+
+					int corner = this.corners[c];
+					int t = corner - corner % 3;
+					int i1 = this.indices[t + (corner + 1) % 3] * 3;
+					int i2 = this.indices[t + (corner + 2) % 3] * 3;
+					double x1 = p[i1] - p[v * 3], y1 = p[i1 + 1] - p[v * 3 + 1], z1 = p[i1 + 2] - p[v * 3 + 2];
+					double x2 = p[i2] - p[v * 3], y2 = p[i2 + 1] - p[v * 3 + 1], z2 = p[i2 + 2] - p[v * 3 + 2];
+					double cx = y1 * z2 - z1 * y2;
+					double cy = z1 * x2 - x1 * z2;
+					double cz = x1 * y2 - y1 * x2;
+					double w = 1.0D;
+
+					if(angle) {
+
+						double length = Math.sqrt(cx * cx + cy * cy + cz * cz);
+						w = length > 0.0D ? Math.atan2(length, x1 * x2 + y1 * y2 + z1 * z2) / length : 0.0D;
+					}
+
+					nx += cx * w;
+					ny += cy * w;
+					nz += cz * w;
+				}
+
+				double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+				double s = length > 0.0D ? 1.0D / length : 0.0D;
+
+				normals[v * 3] = (float)(nx * s);
+				normals[v * 3 + 1] = (float)(ny * s);
+				normals[v * 3 + 2] = (float)(nz * s);
+			}
+		});
+	}
+
+	/**
+	 * Computes the tangent frame of every vertex.
+	 * @param uv the packed texture coordinates, 2 floats per vertex as in TexCoord2f
+	 * @param normals the unit vertex normals, 3 floats per vertex
+	 * @param tangents the array that receives 4 floats per vertex: the unit tangent and the handedness
+	 * @param pool the pool that runs the computation, or null to run it in the calling thread
+	 */
+	public final void computeTangents(float uv[], float normals[], float tangents[], ForkJoinPool pool) {
+
+		check("uv", uv.length, this.vertexCount, 2);
+		check("normals", normals.length, this.vertexCount, 3);
+		check("tangents", tangents.length, this.vertexCount, 4);
+
+		ParallelLoop.run(pool, 0, this.vertexCount, GRAIN, (from, to) -> {
+
+			float p[] = this.xyz;
+
+			for(int v = from; v < to; v++) {
+
+				double nx = normals[v * 3], ny = normals[v * 3 + 1], nz = normals[v * 3 + 2];
+				double tx = 0.0D, ty = 0.0D, tz = 0.0D;
+				double bx = 0.0D, by = 0.0D, bz = 0.0D;
+
+				for(int c = this.first[v]; c < this.first[v + 1]; c++) {
+
+					int corner = this.corners[c];
+					int t = corner - corner % 3;
+					int j1 = this.indices[t + (corner + 1) % 3];
+					int j2 = this.indices[t + (corner + 2) % 3];
+					double x1 = p[j1 * 3] - p[v * 3], y1 = p[j1 * 3 + 1] - p[v * 3 + 1], z1 = p[j1 * 3 + 2] - p[v * 3 + 2];
+					double x2 = p[j2 * 3] - p[v * 3], y2 = p[j2 * 3 + 1] - p[v * 3 + 1], z2 = p[j2 * 3 + 2] - p[v * 3 + 2];
+					double u1 = uv[j1 * 2] - uv[v * 2], v1 = uv[j1 * 2 + 1] - uv[v * 2 + 1];
+					double u2 = uv[j2 * 2] - uv[v * 2], v2 = uv[j2 * 2 + 1] - uv[v * 2 + 1];
+					double area = u1 * v2 - u2 * v1;
+
+					if(area == 0.0D) {
+
+						continue;
+					}
+
+					// the face derivatives of the position along u and v, up to a positive factor.
+					double s = area > 0.0D ? 1.0D : -1.0D;
+					double fx = s * (x1 * v2 - x2 * v1), fy = s * (y1 * v2 - y2 * v1), fz = s * (z1 * v2 - z2 * v1);
+					double gx = s * (x2 * u1 - x1 * u2), gy = s * (y2 * u1 - y1 * u2), gz = s * (z2 * u1 - z1 * u2);
+					double cx = y1 * z2 - z1 * y2, cy = z1 * x2 - x1 * z2, cz = x1 * y2 - y1 * x2;
+					double w = Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), x1 * x2 + y1 * y2 + z1 * z2);
+
+					// both projected onto the tangent plane of the vertex and weighted by the corner angle.
+					double d = fx * nx + fy * ny + fz * nz;
+					fx -= d * nx;
+					fy -= d * ny;
+					fz -= d * nz;
+					d = gx * nx + gy * ny + gz * nz;
+					gx -= d * nx;
+					gy -= d * ny;
+					gz -= d * nz;
+
+					double lf = Math.sqrt(fx * fx + fy * fy + fz * fz);
+					double lg = Math.sqrt(gx * gx + gy * gy + gz * gz);
+
+					if(lf > 0.0D) {
+
+						tx += fx * (w / lf);
+						ty += fy * (w / lf);
+						tz += fz * (w / lf);
+					}
+
+					if(lg > 0.0D) {
+
+						bx += gx * (w / lg);
+						by += gy * (w / lg);
+						bz += gz * (w / lg);
+					}
+				}
+
+				double d = tx * nx + ty * ny + tz * nz;
+				tx -= d * nx;
+				ty -= d * ny;
+				tz -= d * nz;
+				double length = Math.sqrt(tx * tx + ty * ty + tz * tz);
+
+				if(!(length > 1.0e-12D)) {
+
+					// any direction orthogonal to the normal.
+					if(Math.abs(nx) < 0.9D) {
+
+						tx = 0.0D; ty = nz; tz = -ny;
+
+					} else {
+
+						tx = -nz; ty = 0.0D; tz = nx;
+					}
+
+					length = Math.sqrt(tx * tx + ty * ty + tz * tz);
+				}
+
+				double s = length > 0.0D ? 1.0D / length : 0.0D;
+				tx *= s;
+				ty *= s;
+				tz *= s;
+
+				double handedness = (ny * tz - nz * ty) * bx + (nz * tx - nx * tz) * by + (nx * ty - ny * tx) * bz;
+
+				tangents[v * 4] = (float)tx;
+				tangents[v * 4 + 1] = (float)ty;
+				tangents[v * 4 + 2] = (float)tz;
+				tangents[v * 4 + 3] = handedness < 0.0D ? -1.0F : 1.0F;
+			}
+		});
+	}
+
+	private static void check(String name, int length, int count, int stride) {
+
+		if((long)count * stride > length) {
+
+			throw new IndexOutOfBoundsException(name + ".length:" + length + " < " + (long)count * stride);
+		}
+	}
+}
@@ -0,0 +1,915 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simplifies an indexed triangle mesh by edge collapses ordered by the
+ * quadric error metric of Garland and Heckbert.
+ * <p>
+ * Every vertex carries the quadric of the planes of its faces, weighted by
+ * their areas, stored as the 10 distinct values of the symmetric 4x4
+ * matrix Q = sum w p p^T, p = (a, b, c, d) a plane, in one packed double
+ * array. Edges on the boundary of the mesh add planes perpendicular to
+ * their face, so that borders are kept. A collapse merges one end of an
+ * edge into the other, keeping that end's position, and adds their
+ * quadrics. Its error is the root mean square distance of the kept
+ * position to the accumulated planes, sqrt(v^T Q v / sum w).
+ * <p>
+ * Collapses move a vertex onto an existing vertex instead of solving for
+ * an optimal new position, so every level of detail indexes the original
+ * vertex array and the levels can share one vertex buffer. A collapse is
+ * rejected if it would turn a face by more than 60 degrees, either from
+ * its current normal or from its normal in the original mesh, so that
+ * small turns cannot add up to a flip; if it would leave a face whose
+ * doubled area is less than a thousandth of its longest edge squared; or if
+ * it would make the mesh non-manifold, because the ends of the edge share
+ * a neighbour other than the third vertices of their common faces, or
+ * both are on the boundary while the edge is not.
+ * <p>
+ * {@link #simplify(int, double)} collapses the edge of least error first,
+ * using a binary heap whose outdated entries are skipped when they reach
+ * the top. Calling it again with a smaller target continues from the
+ * current mesh, which yields a chain of levels of detail.
+ * {@link #simplify(int, double, ForkJoinPool)} first simplifies the cells
+ * of a coarse grid in parallel: collapses inside a cell only touch
+ * triangles of that cell, so cells need no locking, and vertices with a
+ * face in another cell are left for the final serial pass.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class MeshSimplifier {
+
+	private static final int NONE = -1;
+
+	// the weight of a boundary plane relative to the squared length of its edge.
+	private static final double BOUNDARY_WEIGHT = 10.0D;
+
+	// the smallest cosine between a face normal before and after a collapse, and between it
+	// after a collapse and in the original mesh.
+	private static final double MIN_COSINE = 0.5D;
+
+	// the smallest ratio of twice the area of a face to its longest edge squared after a collapse.
+	private static final double MIN_SHAPE = 1.0e-3D;
+
+	// vertices per parallel task.
+	private static final int GRAIN = 4096;
+
+	private final float xyz[];
+	private final int vertexCount;
+	private final int triangleCount;
+
+	// the current vertex indices, and whether each triangle collapsed.
+	private final int indices[];
+	private final boolean removed[];
+
+	// the corners (3 triangle + k) at every vertex, as linked lists.
+	private final int head[];
+	private final int tail[];
+	private final int next[];
+
+	// 10 values per vertex: a2 ab ac ad b2 bc bd c2 cd d2.
+	private final double quadrics[];
+
+	// the unit normal of every triangle of the original mesh, zero if it has no area.
+	private final double normals[];
+
+	private final boolean collapsed[];
+	private final int version[];
+
+	private int triangles;
+	private double error;
+
+	/**
+	 * Constructs a simplifier of a mesh. The positions are referenced, the
+	 * indices are copied.
+	 * @param xyz the packed vertex positions
+	 * @param vertexCount the number of vertices
+	 * @param indices the vertex indices, three per triangle
+	 * @param triangleCount the number of triangles
+	 * @param pool the pool that computes the quadrics, or null to compute them in the calling thread
+	 */
+	public MeshSimplifier(float xyz[], int vertexCount, int indices[], int triangleCount, ForkJoinPool pool) {
+
+		if(vertexCount < 0 || (long)vertexCount * 3 > xyz.length) {
+
+			throw new IndexOutOfBoundsException("vertexCount:" + vertexCount + " length:" + xyz.length);
+		}
+
+		if(triangleCount < 0 || (long)triangleCount * 3 > indices.length) {
+
+			throw new IndexOutOfBoundsException("triangleCount:" + triangleCount + " length:" + indices.length);
+		}
+
+		int n = triangleCount * 3;
+
+		this.xyz = xyz;
+		this.vertexCount = vertexCount;
+		this.triangleCount = triangleCount;
+		this.triangles = triangleCount;
+		this.indices = Arrays.copyOf(indices, n);
+		this.removed = new boolean[triangleCount];
+		this.head = new int[vertexCount];
+		this.tail = new int[vertexCount];
+		this.next = new int[n];
+		this.quadrics = new double[vertexCount * 10];
+		this.normals = new double[n];
+		this.collapsed = new boolean[vertexCount];
+		this.version = new int[vertexCount];
+
+		Arrays.fill(this.head, NONE);
+
+		for(int i = 0; i < n; i++) {
+
+			int v = this.indices[i];
+
+			if(v < 0 || v >= vertexCount) {
+
+				throw new IndexOutOfBoundsException("indices[" + i + "]:" + v);
+			}
+
+			this.next[i] = NONE;
+
+			if(this.head[v] == NONE) {
+
+				this.head[v] = i;
+
+			} else {
+
+				this.next[this.tail[v]] = i;
+			}
+
+			this.tail[v] = i;
+		}
+
+		ParallelLoop.run(pool, 0, vertexCount, GRAIN, (from, to) -> {
+
+			for(int v = from; v < to; v++) {
+
+				this.initQuadric(v);
+			}
+		});
+
+		ParallelLoop.run(pool, 0, triangleCount, GRAIN, (from, to) -> {
+
+			for(int t = from; t < to; t++) {
+
+				this.initNormal(t);
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of triangles of the original mesh.
+	 * @return the original triangle count
+	 */
+	public final int getOriginalTriangleCount() {
+
+		return this.triangleCount;
+	}
+
+	/**
+	 * Returns the number of triangles of the simplified mesh.
+	 * @return the current triangle count
+	 */
+	public final int getTriangleCount() {
+
+		return this.triangles;
+	}
+
+	/**
+	 * Returns the largest error of the collapses so far.
+	 * @return the max error, in units of the positions
+	 */
+	public final double getError() {
+
+		return this.error;
+	}
+
+	/**
+	 * Copies the vertex indices of the simplified mesh, three per triangle,
+	 * into dst. The indices refer to the original vertex array.
+	 * @param dst the array that receives the indices
+	 * @param offset the index of the first index in dst
+	 * @return the number of triangles copied
+	 */
+	public final int getIndices(int dst[], int offset) {
+
+		if(offset < 0 || offset + (long)this.triangles * 3 > dst.length) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " triangles:" + this.triangles + " length:" + dst.length);
+		}
+
+		int o = offset;
+
+		for(int t = 0; t < this.triangleCount; t++) {
+
+			if(!this.removed[t]) {
+
+				dst[o++] = this.indices[t * 3];
+				dst[o++] = this.indices[t * 3 + 1];
+				dst[o++] = this.indices[t * 3 + 2];
+			}
+		}
+
+		return (o - offset) / 3;
+	}
+
+	/**
+	 * Collapses edges, least error first, until at most targetTriangleCount
+	 * triangles are left or the next collapse has an error above maxError.
+	 * @param targetTriangleCount the wanted number of triangles
+	 * @param maxError the largest error of a collapse
+	 * @return the number of triangles left
+	 */
+	public final int simplify(int targetTriangleCount, double maxError) {
+
+		Heap heap = new Heap();
+		int neighbours[] = new int[16];
+
+		for(int v = 0; v < this.vertexCount; v++) {
+
+			if(!this.collapsed[v]) {
+
+				this.pushEdges(heap, v, true, null, null, 0, neighbours);
+			}
+		}
+
+		heap.order();
+
+		double errors[] = {this.error};
+
+		this.triangles -= this.collapse(heap, this.triangles - targetTriangleCount, maxError, null, null, 0, errors);
+		this.error = errors[0];
+
+		return this.triangles;
+	}
+
+	/**
+	 * Simplifies the cells of a coarse grid over the mesh in parallel, then
+	 * collapses edges serially as {@link #simplify(int, double)} does. Each
+	 * cell removes its share of the triangles; the vertices of faces that
+	 * span cells are only collapsed by the serial pass.
+	 * @param targetTriangleCount the wanted number of triangles
+	 * @param maxError the largest error of a collapse
+	 * @param pool the pool that simplifies the cells, or null to simplify them in the calling thread
+	 * @return the number of triangles left
+	 */
+	public final int simplify(int targetTriangleCount, double maxError, ForkJoinPool pool) {
+
+		int remove = this.triangles - targetTriangleCount;
+
+		if(remove > 0 && this.vertexCount > 0) {
+
+			int parallelism = pool == null ? 1 : pool.getParallelism();
+			int side = Math.max(1, (int)Math.ceil(Math.cbrt(8.0D * parallelism)));
+			int cell[] = new int[this.vertexCount];
+			int first[] = this.cells(side, cell);
+			int members[] = this.members(cell, first);
+			boolean border[] = new boolean[this.vertexCount];
+			int interior[] = new int[first.length - 1];
+
+			ParallelLoop.run(pool, 0, this.vertexCount, GRAIN, (from, to) -> {
+
+				for(int v = from; v < to; v++) {
+
+					border[v] = this.isBorder(v, cell);
+				}
+			});
+
+			// triangles whose vertices are all inside one cell, by their first vertex.
+			for(int t = 0; t < this.triangleCount; t++) {
+
+				int v = this.indices[t * 3];
+
+				if(!this.removed[t] && !border[v]) {
+
+					interior[cell[v]]++;
+				}
+			}
+
+			double fraction = (double)remove / this.triangles;
+			int counts[] = new int[interior.length];
+			double errors[] = new double[interior.length];
+
+			ParallelLoop.run(pool, 0, interior.length, 1, (from, to) -> {
+
+				for(int c = from; c < to; c++) {
+
+					Heap heap = new Heap();
+					int neighbours[] = new int[16];
+
+					for(int i = first[c]; i < first[c + 1]; i++) {
+
+						int v = members[i];
+
+						if(!this.collapsed[v] && !border[v]) {
+
+							this.pushEdges(heap, v, false, cell, border, c, neighbours);
+						}
+					}
+
+					heap.order();
+
+					counts[c] = this.collapse(heap, (int)(fraction * interior[c]), maxError, cell, border, c, errors);
+				}
+			});
+
+			for(int c = 0; c < interior.length; c++) {
+
+				this.triangles -= counts[c];
+				this.error = Math.max(this.error, errors[c]);
+			}
+		}
+
+		return this.simplify(targetTriangleCount, maxError);
+	}
+
+	// collapses edges of the heap until remove triangles are gone, the largest error kept in errors[c].
+	private int collapse(Heap heap, int remove, double maxError, int cell[], boolean border[], int c, double errors[]) {
+
+		int count = 0;
+		int neighbours[] = new int[16];
+
+		while(count < remove && heap.size > 0 && heap.top() <= maxError) {
+
+			int r = heap.pop();
+			int a = heap.from[r];
+			int b = heap.to[r];
+
+			if(this.collapsed[a] || this.collapsed[b] || this.version[a] != heap.fromVersion[r] || this.version[b] != heap.toVersion[r]) {
+
+				continue;
+			}
+
+			if(!this.canCollapse(a, b)) {
+
+				continue;
+			}
+
+			errors[c] = Math.max(errors[c], heap.keys[r]);
+			count += this.merge(a, b);
+			this.pushEdges(heap, b, false, cell, border, c, neighbours);
+		}
+
+		return count;
+	}
+
+	// whether moving a onto b keeps the mesh manifold and the faces that do not collapse oriented and not degenerate.
+	private boolean canCollapse(int a, int b) {
+
+		if(this.onBoundary(a) && this.onBoundary(b) && !this.isBoundary(a, b)) {
+
+			return false;
+		}
+
+		float p[] = this.xyz;
+		double bx = p[b * 3], by = p[b * 3 + 1], bz = p[b * 3 + 2];
+		double ax = p[a * 3], ay = p[a * 3 + 1], az = p[a * 3 + 2];
+
+		for(int corner = this.head[a]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(this.removed[t]) {
+
+				continue;
+			}
+
+			int i1 = this.indices[t * 3 + (corner + 1) % 3];
+			int i2 = this.indices[t * 3 + (corner + 2) % 3];
+
+			if(i1 == b || i2 == b) {
+
+				continue;
+			}
+
+			// the link condition: a neighbour of both ends must be the third vertex of a face of both.
+			if(this.isAdjacent(b, i1) && !this.hasFace(a, b, i1) || this.isAdjacent(b, i2) && !this.hasFace(a, b, i2)) {
+
+				return false;
+			}
+
+			double x1 = p[i1 * 3], y1 = p[i1 * 3 + 1], z1 = p[i1 * 3 + 2];
+			double x2 = p[i2 * 3], y2 = p[i2 * 3 + 1], z2 = p[i2 * 3 + 2];
+			double e1x = x1 - ax, e1y = y1 - ay, e1z = z1 - az;
+			double e2x = x2 - ax, e2y = y2 - ay, e2z = z2 - az;
+			double f1x = x1 - bx, f1y = y1 - by, f1z = z1 - bz;
+			double f2x = x2 - bx, f2y = y2 - by, f2z = z2 - bz;
+			double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+			double mx = f1y * f2z - f1z * f2y, my = f1z * f2x - f1x * f2z, mz = f1x * f2y - f1y * f2x;
+			double dot = nx * mx + ny * my + nz * mz;
+			double n2 = nx * nx + ny * ny + nz * nz;
+			double m2 = mx * mx + my * my + mz * mz;
+
+			if(!(dot > MIN_COSINE * Math.sqrt(n2 * m2))) {
+
+				return false;
+			}
+
+			double o[] = this.normals;
+			double m = Math.sqrt(m2);
+
+			if(o[t * 3] * mx + o[t * 3 + 1] * my + o[t * 3 + 2] * mz < MIN_COSINE * m) {
+
+				return false;
+			}
+
+			double gx = x2 - x1, gy = y2 - y1, gz = z2 - z1;
+			double longest = Math.max(f1x * f1x + f1y * f1y + f1z * f1z, Math.max(f2x * f2x + f2y * f2y + f2z * f2z, gx * gx + gy * gy + gz * gz));
+
+			if(!(m > MIN_SHAPE * longest)) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// whether a live face at v has vertex u.
+	private boolean isAdjacent(int v, int u) {
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(!this.removed[t] && (this.indices[t * 3] == u || this.indices[t * 3 + 1] == u || this.indices[t * 3 + 2] == u)) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// whether a live face at a has vertices b and u.
+	private boolean hasFace(int a, int b, int u) {
+
+		for(int corner = this.head[a]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+			int i1 = this.indices[t * 3 + (corner + 1) % 3];
+			int i2 = this.indices[t * 3 + (corner + 2) % 3];
+
+			if(!this.removed[t] && (i1 == b && i2 == u || i1 == u && i2 == b)) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// whether an edge at v belongs to one live face only.
+	private boolean onBoundary(int v) {
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(!this.removed[t] && (this.isBoundary(v, this.indices[t * 3 + (corner + 1) % 3]) || this.isBoundary(v, this.indices[t * 3 + (corner + 2) % 3]))) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// moves a onto b; returns the number of triangles that collapsed.
+	private int merge(int a, int b) {
+
+		int count = 0;
+
+		for(int corner = this.head[a]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(this.removed[t]) {
+
+				continue;
+			}
+
+			if(this.indices[t * 3 + (corner + 1) % 3] == b || this.indices[t * 3 + (corner + 2) % 3] == b) {
+
+				this.removed[t] = true;
+				count++;
+
+			} else {
+
+				this.indices[corner] = b;
+			}
+		}
+
+		if(this.head[a] != NONE) {
+
+			if(this.head[b] == NONE) {
+
+				this.head[b] = this.head[a];
+
+			} else {
+
+				this.next[this.tail[b]] = this.head[a];
+			}
+
+			this.tail[b] = this.tail[a];
+		}
+
+		for(int k = 0; k < 10; k++) {
+
+			this.quadrics[b * 10 + k] += this.quadrics[a * 10 + k];
+		}
+
+		this.head[a] = NONE;
+		this.collapsed[a] = true;
+		this.version[b]++;
+
+		return count;
+	}
+
+	// pushes the edges from v to its neighbours, or only to those of higher index.
+	private void pushEdges(Heap heap, int v, boolean higher, int cell[], boolean border[], int c, int neighbours[]) {
+
+		int count = 0;
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(this.removed[t]) {
+
+				continue;
+			}
+
+			for(int k = 1; k <= 2; k++) {
+
+				int u = this.indices[t * 3 + (corner + k) % 3];
+
+				if(higher && u < v) {
+
+					continue;
+				}
+
+				boolean seen = false;
+
+				for(int i = 0; i < count && !seen; i++) {
+
+					seen = neighbours[i] == u;
+				}
+
+				if(seen) {
+
+					continue;
+				}
+
+				if(count == neighbours.length) {
+
+					neighbours = Arrays.copyOf(neighbours, count * 2);
+				}
+
+				neighbours[count++] = u;
+				this.pushEdge(heap, v, u, cell, border, c);
+			}
+		}
+	}
+
+	// pushes the cheaper allowed direction of the collapse of edge (u, v).
+	private void pushEdge(Heap heap, int u, int v, int cell[], boolean border[], int c) {
+
+		boolean removeU = cell == null || (cell[u] == c && !border[u]);
+		boolean removeV = cell == null || (cell[v] == c && !border[v]);
+
+		if(!removeU && !removeV) {
+
+			return;
+		}
+
+		// the planes have unit normals, so the trace of the 3x3 part is their total weight.
+		double q[] = this.quadrics;
+		double w = q[u * 10] + q[u * 10 + 4] + q[u * 10 + 7] + q[v * 10] + q[v * 10 + 4] + q[v * 10 + 7];
+		double s = w > 0.0D ? 1.0D / w : 0.0D;
+		double toV = removeU ? Math.sqrt(Math.max(0.0D, (this.evaluate(u, v) + this.evaluate(v, v)) * s)) : Double.POSITIVE_INFINITY;
+		double toU = removeV ? Math.sqrt(Math.max(0.0D, (this.evaluate(u, u) + this.evaluate(v, u)) * s)) : Double.POSITIVE_INFINITY;
+
+		if(toV <= toU) {
+
+			heap.push(toV, u, v, this.version[u], this.version[v]);
+
+		} else {
+
+			heap.push(toU, v, u, this.version[v], this.version[u]);
+		}
+	}
+
+	// the quadric of vertex u at the position of vertex v.
+	private double evaluate(int u, int v) {
+
+		double q[] = this.quadrics;
+		int o = u * 10;
+		double x = this.xyz[v * 3], y = this.xyz[v * 3 + 1], z = this.xyz[v * 3 + 2];
+
+		return q[o] * x * x + 2.0D * (q[o + 1] * x * y + q[o + 2] * x * z + q[o + 3] * x)
+			+ q[o + 4] * y * y + 2.0D * (q[o + 5] * y * z + q[o + 6] * y)
+			+ q[o + 7] * z * z + 2.0D * q[o + 8] * z + q[o + 9];
+	}
+
+	// sums the planes of the faces at v, and of their boundary edges at v.
+	private void initQuadric(int v) {
+
+		float p[] = this.xyz;
+		double q[] = this.quadrics;
+		int o = v * 10;
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+			int i0 = this.indices[t * 3];
+			int i1 = this.indices[t * 3 + 1];
+			int i2 = this.indices[t * 3 + 2];
+			double e1x = p[i1 * 3] - p[i0 * 3], e1y = p[i1 * 3 + 1] - p[i0 * 3 + 1], e1z = p[i1 * 3 + 2] - p[i0 * 3 + 2];
+			double e2x = p[i2 * 3] - p[i0 * 3], e2y = p[i2 * 3 + 1] - p[i0 * 3 + 1], e2z = p[i2 * 3 + 2] - p[i0 * 3 + 2];
+			double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+			if(!(length > 0.0D)) {
+
+				continue;
+			}
+
+			nx /= length;
+			ny /= length;
+			nz /= length;
+			addPlane(q, o, nx, ny, nz, -(nx * p[v * 3] + ny * p[v * 3 + 1] + nz * p[v * 3 + 2]), 0.5D * length);
+
+			// the edges of the corner, (v, next) and (previous, v).
+			for(int k = 1; k <= 2; k++) {
+
+				int u = this.indices[t * 3 + (corner + k) % 3];
+
+				if(u == v || !this.isBoundary(v, u)) {
+
+					continue;
+				}
+
+				double ex = p[u * 3] - p[v * 3], ey = p[u * 3 + 1] - p[v * 3 + 1], ez = p[u * 3 + 2] - p[v * 3 + 2];
+				double mx = ey * nz - ez * ny, my = ez * nx - ex * nz, mz = ex * ny - ey * nx;
+				double m = Math.sqrt(mx * mx + my * my + mz * mz);
+
+				if(m > 0.0D) {
+
+					mx /= m;
+					my /= m;
+					mz /= m;
+					addPlane(q, o, mx, my, mz, -(mx * p[v * 3] + my * p[v * 3 + 1] + mz * p[v * 3 + 2]), BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez));
+				}
+			}
+		}
+	}
+
+	// the unit normal of triangle t.
+	private void initNormal(int t) {
+
+		float p[] = this.xyz;
+		int i0 = this.indices[t * 3] * 3;
+		int i1 = this.indices[t * 3 + 1] * 3;
+		int i2 = this.indices[t * 3 + 2] * 3;
+		double e1x = p[i1] - p[i0], e1y = p[i1 + 1] - p[i0 + 1], e1z = p[i1 + 2] - p[i0 + 2];
+		double e2x = p[i2] - p[i0], e2y = p[i2 + 1] - p[i0 + 1], e2z = p[i2 + 2] - p[i0 + 2];
+		double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+		double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+		if(length > 0.0D) {
+
+			this.normals[t * 3] = nx / length;
+			this.normals[t * 3 + 1] = ny / length;
+			this.normals[t * 3 + 2] = nz / length;
+		}
+	}
+
+	private static void addPlane(double q[], int o, double a, double b, double c, double d, double w) {
+
+		q[o] += w * a * a;
+		q[o + 1] += w * a * b;
+		q[o + 2] += w * a * c;
+		q[o + 3] += w * a * d;
+		q[o + 4] += w * b * b;
+		q[o + 5] += w * b * c;
+		q[o + 6] += w * b * d;
+		q[o + 7] += w * c * c;
+		q[o + 8] += w * c * d;
+		q[o + 9] += w * d * d;
+	}
+
+	// whether a face at v has a vertex in another cell.
+	private boolean isBorder(int v, int cell[]) {
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(!this.removed[t] && (cell[this.indices[t * 3]] != cell[v] || cell[this.indices[t * 3 + 1]] != cell[v] || cell[this.indices[t * 3 + 2]] != cell[v])) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// sets the grid cell of every vertex; returns the cell count plus one sized start array.
+	private int[] cells(int side, int cell[]) {
+
+		float p[] = this.xyz;
+		BoundingBox3f bounds = new BoundingBox3f();
+
+		bounds.set(p, 0, this.vertexCount);
+
+		double sx = side / Math.max(bounds.maxX - bounds.minX, Float.MIN_NORMAL);
+		double sy = side / Math.max(bounds.maxY - bounds.minY, Float.MIN_NORMAL);
+		double sz = side / Math.max(bounds.maxZ - bounds.minZ, Float.MIN_NORMAL);
+		int first[] = new int[side * side * side + 1];
+
+		for(int v = 0; v < this.vertexCount; v++) {
+
+			int x = Math.min(side - 1, (int)((p[v * 3] - bounds.minX) * sx));
+			int y = Math.min(side - 1, (int)((p[v * 3 + 1] - bounds.minY) * sy));
+			int z = Math.min(side - 1, (int)((p[v * 3 + 2] - bounds.minZ) * sz));
+			cell[v] = (z * side + y) * side + x;
+			first[cell[v] + 1]++;
+		}
+
+		for(int c = 1; c < first.length; c++) {
+
+			first[c] += first[c - 1];
+		}
+
+		return first;
+	}
+
+	// the vertices sorted by cell.
+	private int[] members(int cell[], int first[]) {
+
+		int members[] = new int[this.vertexCount];
+		int fill[] = Arrays.copyOf(first, first.length - 1);
+
+		for(int v = 0; v < this.vertexCount; v++) {
+
+			members[fill[cell[v]]++] = v;
+		}
+
+		return members;
+	}
+
+	// whether edge (v, u) belongs to one live face only.
+	private boolean isBoundary(int v, int u) {
+
+		int faces = 0;
+
+		for(int corner = this.head[v]; corner != NONE; corner = this.next[corner]) {
+
+			int t = corner / 3;
+
+			if(!this.removed[t] && (this.indices[t * 3] == u || this.indices[t * 3 + 1] == u || this.indices[t * 3 + 2] == u)) {
+
+				faces++;
+			}
+		}
+
+		return faces == 1;
+	}
+
+	// a binary min heap of directed collapses; entries outdated by later collapses are kept and skipped.
+	private static final class Heap {
+
+		// the key as a float in the high bits, which orders like the key for keys >= 0, and the record.
+		long heap[] = new long[64];
+		int size;
+
+		// false while the heap is seeded, entries are then appended unordered.
+		boolean ordered;
+
+		// the records, written once and never moved.
+		double keys[] = new double[64];
+		int from[] = new int[64];
+		int to[] = new int[64];
+		int fromVersion[] = new int[64];
+		int toVersion[] = new int[64];
+		int records;
+
+		void push(double key, int a, int b, int va, int vb) {
+
+			int r = this.records++;
+
+			if(r == this.keys.length) {
+
+				int length = r * 2;
+				this.keys = Arrays.copyOf(this.keys, length);
+				this.from = Arrays.copyOf(this.from, length);
+				this.to = Arrays.copyOf(this.to, length);
+				this.fromVersion = Arrays.copyOf(this.fromVersion, length);
+				this.toVersion = Arrays.copyOf(this.toVersion, length);
+			}
+
+			this.keys[r] = key;
+			this.from[r] = a;
+			this.to[r] = b;
+			this.fromVersion[r] = va;
+			this.toVersion[r] = vb;
+
+			if(this.size == this.heap.length) {
+
+				this.heap = Arrays.copyOf(this.heap, this.size * 2);
+			}
+
+			long entry = ((long)Float.floatToRawIntBits((float)key) << 32) | r;
+			int i = this.size++;
+
+			while(this.ordered && i > 0) {
+
+				int parent = (i - 1) >> 1;
+
+				if(this.heap[parent] <= entry) {
+
+					break;
+				}
+
+				this.heap[i] = this.heap[parent];
+				i = parent;
+			}
+
+			this.heap[i] = entry;
+		}
+
+		// orders the seeded entries, bottom up.
+		void order() {
+
+			for(int i = (this.size >> 1) - 1; i >= 0; i--) {
+
+				this.siftDown(i, this.heap[i], this.size);
+			}
+
+			this.ordered = true;
+		}
+
+		// the exact key of the smallest entry.
+		double top() {
+
+			return this.keys[(int)this.heap[0]];
+		}
+
+		// removes the smallest entry and returns its record.
+		int pop() {
+
+			int r = (int)this.heap[0];
+
+			this.size--;
+			this.siftDown(0, this.heap[this.size], this.size);
+
+			return r;
+		}
+
+		private void siftDown(int i, long entry, int last) {
+
+			while(true) {
+
+				int child = 2 * i + 1;
+
+				if(child >= last) {
+
+					break;
+				}
+
+				if(child + 1 < last && this.heap[child + 1] < this.heap[child]) {
+
+					child++;
+				}
+
+				if(entry <= this.heap[child]) {
+
+					break;
+				}
+
+				this.heap[i] = this.heap[child];
+				i = child;
+			}
+
+			this.heap[i] = entry;
+		}
+	}
+}
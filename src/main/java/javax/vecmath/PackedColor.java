@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Conversions and blending of colors packed into ints and bytes.
+ * <p>
+ * A packed ARGB int holds alpha in bits 24-31, red in bits 16-23, green in
+ * bits 8-15 and blue in bits 0-7, as {@link Color4b#getARGB()} returns.
+ * Byte buffers hold 4 bytes per pixel in RGBA order, the order of
+ * {@link Tuple4b#get(byte[])}, or in BGRA order. Components are unsigned
+ * values 0 to 255 throughout.
+ * <p>
+ * The byte conversions read and write 4 bytes at a time as one big endian
+ * int, so a pixel is converted with a single rotate or byte reversal. The
+ * blending operations work on two components at once: red and blue, and
+ * alpha and green, each sit in a 16 bit lane of an int (SWAR), and the
+ * division by 255 is the exact rounding (t + (t >>> 8)) >>> 8 of
+ * t = c * a + 128 in both lanes.
+ * <p>
+ * The bulk methods take a ForkJoinPool; with a null pool the calling
+ * thread does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class PackedColor {
+
+	private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final int LANES = 0x00FF00FF;
+	private static final int HALF = 0x00800080;
+
+	// pixels per parallel task.
+	private static final int GRAIN = 1 << 16;
+
+	// 255 * 2^16 / a, rounded, for unpremultiplying.
+	private static final int RECIPROCAL[] = new int[256];
+
+	static {
+
+		for(int a = 1; a < 256; a++) {
+
+			RECIPROCAL[a] = (255 * 65536 + a / 2) / a;
+		}
+	}
+
+	private PackedColor() {
+
+	}
+
+	/**
+	 * Returns the packed ARGB value of the four components, each taken as 0 to 255.
+	 * @param a the alpha
+	 * @param r the red
+	 * @param g the green
+	 * @param b the blue
+	 * @return the packed color
+	 */
+	public static int argb(int a, int r, int g, int b) {
+
+		return ((a & 0xFF) << 24) | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+	}
+
+	/**
+	 * Converts ARGB ints into RGBA bytes.
+	 * @param argb the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param rgba the array that receives 4 bytes per color
+	 * @param rgbaOffset the index of the first byte in rgba
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void argbToRGBA(int argb[], int argbOffset, byte rgba[], int rgbaOffset, int count, ForkJoinPool pool) {
+
+		check(argb.length, argbOffset, count);
+		check(rgba.length, rgbaOffset, count * 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				INT_BE.set(rgba, rgbaOffset + i * 4, Integer.rotateLeft(argb[argbOffset + i], 8));
+			}
+		});
+	}
+
+	/**
+	 * Converts RGBA bytes into ARGB ints.
+	 * @param rgba the colors, 4 bytes each
+	 * @param rgbaOffset the index of the first byte in rgba
+	 * @param argb the array that receives the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void rgbaToARGB(byte rgba[], int rgbaOffset, int argb[], int argbOffset, int count, ForkJoinPool pool) {
+
+		check(rgba.length, rgbaOffset, count * 4);
+		check(argb.length, argbOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				argb[argbOffset + i] = Integer.rotateRight((int)INT_BE.get(rgba, rgbaOffset + i * 4), 8);
+			}
+		});
+	}
+
+	/**
+	 * Converts ARGB ints into BGRA bytes.
+	 * @param argb the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param bgra the array that receives 4 bytes per color
+	 * @param bgraOffset the index of the first byte in bgra
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void argbToBGRA(int argb[], int argbOffset, byte bgra[], int bgraOffset, int count, ForkJoinPool pool) {
+
+		check(argb.length, argbOffset, count);
+		check(bgra.length, bgraOffset, count * 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				INT_BE.set(bgra, bgraOffset + i * 4, Integer.reverseBytes(argb[argbOffset + i]));
+			}
+		});
+	}
+
+	/**
+	 * Converts BGRA bytes into ARGB ints.
+	 * @param bgra the colors, 4 bytes each
+	 * @param bgraOffset the index of the first byte in bgra
+	 * @param argb the array that receives the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param count the number of colors
+	 * @param pool the pool that runs the conversion, or null to run it in the calling thread
+	 */
+	public static void bgraToARGB(byte bgra[], int bgraOffset, int argb[], int argbOffset, int count, ForkJoinPool pool) {
+
+		check(bgra.length, bgraOffset, count * 4);
+		check(argb.length, argbOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				argb[argbOffset + i] = Integer.reverseBytes((int)INT_BE.get(bgra, bgraOffset + i * 4));
+			}
+		});
+	}
+
+	/**
+	 * Packs colors into ARGB ints.
+	 * @param colors the colors
+	 * @param from the index of the first color in colors
+	 * @param argb the array that receives the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param count the number of colors
+	 */
+	public static void pack(Color4b colors[], int from, int argb[], int argbOffset, int count) {
+
+		check(colors.length, from, count);
+		check(argb.length, argbOffset, count);
+
+		for(int i = 0; i < count; i++) {
+
+			argb[argbOffset + i] = colors[from + i].getARGB();
+		}
+	}
+
+	/**
+	 * Unpacks ARGB ints into colors. Null entries of colors are created.
+	 * @param argb the packed colors
+	 * @param argbOffset the index of the first color in argb
+	 * @param colors the colors that receive the values
+	 * @param from the index of the first color in colors
+	 * @param count the number of colors
+	 */
+	public static void unpack(int argb[], int argbOffset, Color4b colors[], int from, int count) {
+
+		check(argb.length, argbOffset, count);
+		check(colors.length, from, count);
+
+		for(int i = 0; i < count; i++) {
+
+			if(colors[from + i] == null) {
+
+				colors[from + i] = new Color4b(argb[argbOffset + i]);
+
+			} else {
+
+				colors[from + i].setARGB(argb[argbOffset + i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the color with red, green and blue multiplied by alpha / 255.
+	 * @param argb the straight alpha color
+	 * @return the premultiplied color
+	 */
+	public static int premultiply(int argb) {
+
+		int a = argb >>> 24;
+		int rb = scale(argb & LANES, a);
+		int g = scale((argb >>> 8) & 0xFF, a);
+
+		return (argb & 0xFF000000) | rb | (g << 8);
+	}
+
+	/**
+	 * Returns the color with red, green and blue divided by alpha / 255,
+	 * clamped to 255. A color with an alpha of 0 becomes 0.
+	 * @param argb the premultiplied color
+	 * @return the straight alpha color
+	 */
+	public static int unpremultiply(int argb) {
+
+		int a = argb >>> 24;
+
+		if(a == 255) {
+
+			return argb;
+		}
+
+		int f = RECIPROCAL[a];
+		int r = Math.min(255, (((argb >>> 16) & 0xFF) * f + 32768) >>> 16);
+		int g = Math.min(255, (((argb >>> 8) & 0xFF) * f + 32768) >>> 16);
+		int b = Math.min(255, ((argb & 0xFF) * f + 32768) >>> 16);
+
+		return (argb & 0xFF000000) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Returns the premultiplied color src composited over the premultiplied
+	 * color dst: src + dst * (255 - src alpha) / 255 in every component.
+	 * @param src the color in front
+	 * @param dst the color behind
+	 * @return the composited color
+	 */
+	public static int blend(int src, int dst) {
+
+		int ia = 255 - (src >>> 24);
+		int rb = scale(dst & LANES, ia);
+		int ag = scale((dst >>> 8) & LANES, ia);
+
+		// no lane carries: every component of a premultiplied result is at most 255.
+		return src + (rb | (ag << 8));
+	}
+
+	/**
+	 * Returns the linear interpolation of every component of two colors,
+	 * c0 + (c1 - c0) * alpha / 255, rounded.
+	 * @param c0 the color at alpha 0
+	 * @param c1 the color at alpha 255
+	 * @param alpha the interpolation parameter, 0 to 255
+	 * @return the interpolated color
+	 */
+	public static int lerp(int c0, int c1, int alpha) {
+
+		int ia = 255 - alpha;
+		int rb = divide((c0 & LANES) * ia + (c1 & LANES) * alpha + HALF);
+		int ag = divide(((c0 >>> 8) & LANES) * ia + ((c1 >>> 8) & LANES) * alpha + HALF);
+
+		return rb | (ag << 8);
+	}
+
+	/**
+	 * Premultiplies count colors in place.
+	 * @param argb the colors
+	 * @param offset the index of the first color
+	 * @param count the number of colors
+	 * @param pool the pool that runs the operation, or null to run it in the calling thread
+	 */
+	public static void premultiply(int argb[], int offset, int count, ForkJoinPool pool) {
+
+		check(argb.length, offset, count);
+
+		ParallelLoop.run(pool, offset, offset + count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				argb[i] = premultiply(argb[i]);
+			}
+		});
+	}
+
+	/**
+	 * Unpremultiplies count colors in place.
+	 * @param argb the colors
+	 * @param offset the index of the first color
+	 * @param count the number of colors
+	 * @param pool the pool that runs the operation, or null to run it in the calling thread
+	 */
+	public static void unpremultiply(int argb[], int offset, int count, ForkJoinPool pool) {
+
+		check(argb.length, offset, count);
+
+		ParallelLoop.run(pool, offset, offset + count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				argb[i] = unpremultiply(argb[i]);
+			}
+		});
+	}
+
+	/**
+	 * Composites count premultiplied colors of src over those of dst, in place in dst.
+	 * @param src the colors in front
+	 * @param srcOffset the index of the first color in src
+	 * @param dst the colors behind, which receive the result
+	 * @param dstOffset the index of the first color in dst
+	 * @param count the number of colors
+	 * @param pool the pool that runs the operation, or null to run it in the calling thread
+	 */
+	public static void blend(int src[], int srcOffset, int dst[], int dstOffset, int count, ForkJoinPool pool) {
+
+		check(src.length, srcOffset, count);
+		check(dst.length, dstOffset, count);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int s = src[srcOffset + i];
+				int a = s >>> 24;
+
+				// opaque and transparent sources are common in images.
+				if(a == 255) {
+
+					dst[dstOffset + i] = s;
+
+				} else if(a != 0 || s != 0) {
+
+					dst[dstOffset + i] = blend(s, dst[dstOffset + i]);
+				}
+			}
+		});
+	}
+
+	// both 8 bit lanes of c times a / 255, rounded.
+	private static int scale(int c, int a) {
+
+		return divide(c * a + HALF);
+	}
+
+	// both 16 bit lanes of t, each at most 255 * 255 + 128, divided by 255.
+	private static int divide(int t) {
+
+		return ((t + ((t >>> 8) & LANES)) >>> 8) & LANES;
+	}
+
+	private static void check(int length, int offset, int count) {
+
+		if(offset < 0 || count < 0 || offset + count > length) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " count:" + count + " length:" + length);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a loop body over an index range on a ForkJoinPool by splitting the
+ * range in halves until a part is not larger than the grain size.
+ * The bodies of different parts must not write to the same locations.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+final class ParallelLoop extends RecursiveAction {
+
+	private static final long serialVersionUID = 4739017653278340148L;
+
+	/**
+	 * The body of a loop over the half-open index range [from, to).
+	 */
+	interface Body {
+
+		void run(int from, int to);
+	}
+
+	private final Body body;
+	private final int from;
+	private final int to;
+	private final int grain;
+
+	private ParallelLoop(Body body, int from, int to, int grain) {
+
+		this.body = body;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+	/**
+	 * Runs body over [from, to). The range is processed in the calling
+	 * thread if pool is null or the range is not larger than grain.
+	 */
+	static void run(ForkJoinPool pool, int from, int to, int grain, Body body) {
+
+		if(pool == null || to - from <= grain) {
+
+			if(from < to) {
+
+				body.run(from, to);
+			}
+
+		} else {
+
+			pool.invoke(new ParallelLoop(body, from, to, Math.max(1, grain)));
+		}
+	}
+
+	@Override
+	protected void compute() {
+
+		if(this.to - this.from <= this.grain) {
+
+			this.body.run(this.from, this.to);
+
+		} else {
+
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new ParallelLoop(this.body, this.from, mid, this.grain),
+					  new ParallelLoop(this.body, mid, this.to, this.grain));
+		}
+	}
+}
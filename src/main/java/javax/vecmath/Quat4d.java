@@ -63,6 +63,12 @@ public final class Quat4d extends Tuple4d implements Serializable {
  *
  */
 
+    // squared angle below which exp uses its Taylor series, and squared
+    // ratio |(x, y, z)| / |w| below which log does; both series are then
+    // exact to double precision.
+    static final double SMALL_ANGLE_SQUARED = 1.0e-4;
+    static final double SMALL_RATIO_SQUARED = 1.0e-8;
+
     /**
      * Constructs and initializes a Quat4d from the specified xyzw coordinates.
      * @param x the x coordinate
@@ -271,6 +277,138 @@ public final class Quat4d extends Tuple4d implements Serializable {
 	w /= n;
     }
 
+    /**
+     * Sets the value of this quaternion to the exponential of the rotation
+     * vector v1, the rotation by |v1| radians about the axis v1 / |v1|.
+     * Small angles are computed from a Taylor series without a square
+     * root or trigonometric function.
+     * @param v1 the rotation vector
+     */
+    public final void exp(Tuple3d v1) {
+	double vx = v1.x, vy = v1.y, vz = v1.z;
+
+	double t2 = vx * vx + vy * vy + vz * vz;
+	double s = halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+	double c = halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+	x = vx * s;
+	y = vy * s;
+	z = vz * s;
+	w = c;
+    }
+
+    // sin(t / 2) / t for the angle t = sqrt(t2), from its Taylor series below small.
+    static double halfAngleSin(double t2, double small) {
+	if (t2 < small)
+	    return 0.5D - t2 * (1.0D / 48.0D) + t2 * t2 * (1.0D / 3840.0D);
+	double t = Math.sqrt(t2);
+	return Math.sin(0.5D * t) / t;
+    }
+
+    // cos(t / 2) for the angle t = sqrt(t2), from its Taylor series below small.
+    static double halfAngleCos(double t2, double small) {
+	if (t2 < small)
+	    return 1.0D - t2 * 0.125D + t2 * t2 * (1.0D / 384.0D);
+	return Math.cos(0.5D * Math.sqrt(t2));
+    }
+
+    /**
+     * Sets v1 to the logarithm of this unit quaternion, the rotation vector
+     * whose direction is the rotation axis and whose length is the rotation
+     * angle in [0, PI]. This is the inverse of exp.
+     * @param v1 the tuple that receives the rotation vector
+     */
+    public final void log(Tuple3d v1) {
+	double qx = x, qy = y, qz = z, qw = w;
+
+	// q and -q are the same rotation; use the one with w >= 0 for an angle <= PI.
+	double sign = qw < 0.0D ? -1.0D : 1.0D;
+	double aw = Math.abs(qw);
+	double s2 = qx * qx + qy * qy + qz * qz;
+	double f;
+
+	if (s2 < SMALL_RATIO_SQUARED * aw * aw) {
+	    // 2 atan(s / w) / s to second order in s / w.
+	    f = 2.0D / aw * (1.0D - s2 / (3.0D * aw * aw));
+	} else {
+	    double s = Math.sqrt(s2);
+	    f = 2.0D * Math.atan2(s, aw) / s;
+	}
+
+	f *= sign;
+	v1.x = qx * f;
+	v1.y = qy * f;
+	v1.z = qz * f;
+    }
+
+    /**
+     * Rotates this unit quaternion by the angular velocity omega, given in
+     * the world frame, over the time step dt: this = exp(omega * dt) * this.
+     * The result is renormalized to first order.
+     * @param omega the angular velocity in radians per unit of time
+     * @param dt the time step
+     */
+    public final void integrate(Tuple3d omega, double dt) {
+	double vx = omega.x, vy = omega.y, vz = omega.z;
+	double qx = x, qy = y, qz = z, qw = w;
+
+	vx *= dt;
+	vy *= dt;
+	vz *= dt;
+	double t2 = vx * vx + vy * vy + vz * vz;
+	double s = halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+	double c = halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+	double ex = vx * s, ey = vy * s, ez = vz * s;
+
+	// exp(omega dt) * q: omega is given in the world frame.
+	double rx = ex * qw + c * qx + ey * qz - ez * qy;
+	double ry = ey * qw + c * qy + ez * qx - ex * qz;
+	double rz = ez * qw + c * qz + ex * qy - ey * qx;
+	double rw = c * qw - ex * qx - ey * qy - ez * qz;
+
+	// first order renormalization against drift.
+	double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+	x = rx * n;
+	y = ry * n;
+	z = rz * n;
+	w = rw * n;
+    }
+
+    /**
+     * Rotates this unit quaternion by the angular velocity omega, given in
+     * the body frame, over the time step dt: this = this * exp(omega * dt).
+     * The result is renormalized to first order.
+     * @param omega the angular velocity in radians per unit of time
+     * @param dt the time step
+     */
+    public final void integrateLocal(Tuple3d omega, double dt) {
+	double vx = omega.x, vy = omega.y, vz = omega.z;
+	double qx = x, qy = y, qz = z, qw = w;
+
+	vx *= dt;
+	vy *= dt;
+	vz *= dt;
+	double t2 = vx * vx + vy * vy + vz * vz;
+	double s = halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+	double c = halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+	double ex = vx * s, ey = vy * s, ez = vz * s;
+
+	// q * exp(omega dt): omega is given in the body frame.
+	double rx = qx * c + qw * ex + qy * ez - qz * ey;
+	double ry = qy * c + qw * ey + qz * ex - qx * ez;
+	double rz = qz * c + qw * ez + qx * ey - qy * ex;
+	double rw = qw * c - qx * ex - qy * ey - qz * ez;
+
+	// first order renormalization against drift.
+	double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+	x = rx * n;
+	y = ry * n;
+	z = rz * n;
+	w = rw * n;
+    }
+
     /**
      * Sets the value of this quaternion to the rotational component of
      * the passed matrix.
@@ -359,6 +497,25 @@ public final class Quat4d extends Tuple4d implements Serializable {
 	w = Math.cos(0.5*a1.angle);
     }
 
+    /**
+     * Sets the value of this quaternion to the equivalent rotation of the
+     * AxisAngle argument, with the sine and cosine taken from trig.
+     * @param a1 the axis-angle
+     * @param trig the sine and cosine table
+     */
+    public final void set(AxisAngle4d a1, FastTrig trig) {
+	x = a1.x;
+	y = a1.y;
+	z = a1.z;
+	double n = Math.sqrt(x*x + y*y + z*z);
+	// zero-div may occur.
+	double s = trig.sin(0.5*a1.angle)/n;
+	x *= s;
+	y *= s;
+	z *= s;
+	w = trig.cos(0.5*a1.angle);
+    }
+
     /**
       * Performs a great circle interpolation between this quaternion and the
       * quaternion parameter and places the result into this quaternion.
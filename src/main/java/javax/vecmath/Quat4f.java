@@ -28,6 +28,11 @@ public final class Quat4f extends Tuple4f implements Serializable {
 
 	private static final long serialVersionUID = -7322329863794129255L;
 
+	// thresholds of the Taylor series of exp and log, see Quat4d; the
+	// series are exact to float precision below them.
+	private static final double SMALL_ANGLE_SQUARED = 1.0e-2D;
+	private static final double SMALL_RATIO_SQUARED = 1.0e-4D;
+
 	/**
      * Constructs and initializes a Quat4f from the specified xyzw coordinates.
      * @param x the x coordinate
@@ -249,6 +254,130 @@ public final class Quat4f extends Tuple4f implements Serializable {
 		this.w /= n;
     }
 
+    /**
+     * Sets the value of this quaternion to the exponential of the rotation
+     * vector v1, the rotation by |v1| radians about the axis v1 / |v1|.
+     * Small angles are computed from a Taylor series without a square
+     * root or trigonometric function.
+     * @param v1 the rotation vector
+     */
+    public final void exp(Tuple3f v1) {
+
+    	double vx = v1.x, vy = v1.y, vz = v1.z;
+
+    	double t2 = vx * vx + vy * vy + vz * vz;
+    	double s = Quat4d.halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+    	double c = Quat4d.halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+    	this.x = (float)(vx * s);
+    	this.y = (float)(vy * s);
+    	this.z = (float)(vz * s);
+    	this.w = (float)(c);
+    }
+
+    /**
+     * Sets v1 to the logarithm of this unit quaternion, the rotation vector
+     * whose direction is the rotation axis and whose length is the rotation
+     * angle in [0, PI]. This is the inverse of exp.
+     * @param v1 the tuple that receives the rotation vector
+     */
+    public final void log(Tuple3f v1) {
+
+    	double qx = this.x, qy = this.y, qz = this.z, qw = this.w;
+
+    	// q and -q are the same rotation; use the one with w >= 0 for an angle <= PI.
+    	double sign = qw < 0.0D ? -1.0D : 1.0D;
+    	double aw = Math.abs(qw);
+    	double s2 = qx * qx + qy * qy + qz * qz;
+    	double f;
+
+    	if(s2 < SMALL_RATIO_SQUARED * aw * aw) {
+
+    		// 2 atan(s / w) / s to second order in s / w.
+    		f = 2.0D / aw * (1.0D - s2 / (3.0D * aw * aw));
+
+    	} else {
+
+    		double s = Math.sqrt(s2);
+    		f = 2.0D * Math.atan2(s, aw) / s;
+    	}
+
+    	f *= sign;
+    	v1.x = (float)(qx * f);
+    	v1.y = (float)(qy * f);
+    	v1.z = (float)(qz * f);
+    }
+
+    /**
+     * Rotates this unit quaternion by the angular velocity omega, given in
+     * the world frame, over the time step dt: this = exp(omega * dt) * this.
+     * The result is renormalized to first order.
+     * @param omega the angular velocity in radians per unit of time
+     * @param dt the time step
+     */
+    public final void integrate(Tuple3f omega, float dt) {
+
+    	double vx = omega.x, vy = omega.y, vz = omega.z;
+    	double qx = this.x, qy = this.y, qz = this.z, qw = this.w;
+
+    	vx *= dt;
+    	vy *= dt;
+    	vz *= dt;
+    	double t2 = vx * vx + vy * vy + vz * vz;
+    	double s = Quat4d.halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+    	double c = Quat4d.halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+    	double ex = vx * s, ey = vy * s, ez = vz * s;
+
+    	// exp(omega dt) * q: omega is given in the world frame.
+    	double rx = ex * qw + c * qx + ey * qz - ez * qy;
+    	double ry = ey * qw + c * qy + ez * qx - ex * qz;
+    	double rz = ez * qw + c * qz + ex * qy - ey * qx;
+    	double rw = c * qw - ex * qx - ey * qy - ez * qz;
+
+    	// first order renormalization against drift.
+    	double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+    	this.x = (float)(rx * n);
+    	this.y = (float)(ry * n);
+    	this.z = (float)(rz * n);
+    	this.w = (float)(rw * n);
+    }
+
+    /**
+     * Rotates this unit quaternion by the angular velocity omega, given in
+     * the body frame, over the time step dt: this = this * exp(omega * dt).
+     * The result is renormalized to first order.
+     * @param omega the angular velocity in radians per unit of time
+     * @param dt the time step
+     */
+    public final void integrateLocal(Tuple3f omega, float dt) {
+
+    	double vx = omega.x, vy = omega.y, vz = omega.z;
+    	double qx = this.x, qy = this.y, qz = this.z, qw = this.w;
+
+    	vx *= dt;
+    	vy *= dt;
+    	vz *= dt;
+    	double t2 = vx * vx + vy * vy + vz * vz;
+    	double s = Quat4d.halfAngleSin(t2, SMALL_ANGLE_SQUARED);
+    	double c = Quat4d.halfAngleCos(t2, SMALL_ANGLE_SQUARED);
+
+    	double ex = vx * s, ey = vy * s, ez = vz * s;
+
+    	// q * exp(omega dt): omega is given in the body frame.
+    	double rx = qx * c + qw * ex + qy * ez - qz * ey;
+    	double ry = qy * c + qw * ey + qz * ex - qx * ez;
+    	double rz = qz * c + qw * ez + qx * ey - qy * ex;
+    	double rw = qw * c - qx * ex - qy * ey - qz * ez;
+
+    	// first order renormalization against drift.
+    	double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+    	this.x = (float)(rx * n);
+    	this.y = (float)(ry * n);
+    	this.z = (float)(rz * n);
+    	this.w = (float)(rw * n);
+    }
+
     /**
      * Sets the value of this quaternion to the rotational component of
      * the passed matrix.
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Operations on many quaternions at once.
+ * <p>
+ * Quaternions are packed as 4 values (x, y, z, w) each and rotation
+ * vectors and angular velocities as 3 values (x, y, z) each, in double[]
+ * or float[] arrays. The operations match {@link Quat4d#exp(Tuple3d)},
+ * {@link Quat4d#log(Tuple3d)}, {@link Quat4d#integrate(Tuple3d, double)} and
+ * {@link Quat4d#integrateLocal(Tuple3d, double)}; float data is computed
+ * in double precision. With a non-null pool the batch is split into ranges
+ * that run in parallel; with a null pool the calling thread runs the whole
+ * batch.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class QuatBatch {
+
+	// quaternions per parallel task.
+	private static final int GRAIN = 2048;
+
+	private QuatBatch() {
+
+	}
+
+	/**
+	 * Sets every quaternion of q to the exponential of the corresponding
+	 * rotation vector of v.
+	 * @param v the rotation vectors
+	 * @param q the quaternions that receive the rotations
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void exp(double v[], double q[], int count, ForkJoinPool pool) {
+
+		check(v, count * 3);
+		check(q, count * 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = v[p], vy = v[p + 1], vz = v[p + 2];
+
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				q[o] = vx * s;
+				q[o + 1] = vy * s;
+				q[o + 2] = vz * s;
+				q[o + 3] = c;
+			}
+		});
+	}
+
+	/**
+	 * Sets every rotation vector of v to the logarithm of the corresponding
+	 * unit quaternion of q.
+	 * @param q the unit quaternions
+	 * @param v the rotation vectors that receive the logarithms
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void log(double q[], double v[], int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(v, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				// q and -q are the same rotation; use the one with w >= 0 for an angle <= PI.
+				double sign = qw < 0.0D ? -1.0D : 1.0D;
+				double aw = Math.abs(qw);
+				double s2 = qx * qx + qy * qy + qz * qz;
+				double f;
+
+				if(s2 < Quat4d.SMALL_RATIO_SQUARED * aw * aw) {
+
+					// 2 atan(s / w) / s to second order in s / w.
+					f = 2.0D / aw * (1.0D - s2 / (3.0D * aw * aw));
+
+				} else {
+
+					double s = Math.sqrt(s2);
+					f = 2.0D * Math.atan2(s, aw) / s;
+				}
+
+				f *= sign;
+				v[p] = qx * f;
+				v[p + 1] = qy * f;
+				v[p + 2] = qz * f;
+			}
+		});
+	}
+
+	/**
+	 * Rotates every unit quaternion of q by the corresponding world frame
+	 * angular velocity of omega over the time step dt.
+	 * @param q the unit quaternions, updated in place
+	 * @param omega the angular velocities in radians per unit of time
+	 * @param dt the time step
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void integrate(double q[], double omega[], double dt, int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(omega, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = omega[p], vy = omega[p + 1], vz = omega[p + 2];
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				vx *= dt;
+				vy *= dt;
+				vz *= dt;
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				double ex = vx * s, ey = vy * s, ez = vz * s;
+
+				// exp(omega dt) * q: omega is given in the world frame.
+				double rx = ex * qw + c * qx + ey * qz - ez * qy;
+				double ry = ey * qw + c * qy + ez * qx - ex * qz;
+				double rz = ez * qw + c * qz + ex * qy - ey * qx;
+				double rw = c * qw - ex * qx - ey * qy - ez * qz;
+
+				// first order renormalization against drift.
+				double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+				q[o] = rx * n;
+				q[o + 1] = ry * n;
+				q[o + 2] = rz * n;
+				q[o + 3] = rw * n;
+			}
+		});
+	}
+
+	/**
+	 * Rotates every unit quaternion of q by the corresponding body frame
+	 * angular velocity of omega over the time step dt.
+	 * @param q the unit quaternions, updated in place
+	 * @param omega the angular velocities in radians per unit of time
+	 * @param dt the time step
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void integrateLocal(double q[], double omega[], double dt, int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(omega, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = omega[p], vy = omega[p + 1], vz = omega[p + 2];
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				vx *= dt;
+				vy *= dt;
+				vz *= dt;
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				double ex = vx * s, ey = vy * s, ez = vz * s;
+
+				// q * exp(omega dt): omega is given in the body frame.
+				double rx = qx * c + qw * ex + qy * ez - qz * ey;
+				double ry = qy * c + qw * ey + qz * ex - qx * ez;
+				double rz = qz * c + qw * ez + qx * ey - qy * ex;
+				double rw = qw * c - qx * ex - qy * ey - qz * ez;
+
+				// first order renormalization against drift.
+				double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+				q[o] = rx * n;
+				q[o + 1] = ry * n;
+				q[o + 2] = rz * n;
+				q[o + 3] = rw * n;
+			}
+		});
+	}
+
+	/**
+	 * Sets every quaternion of q to the exponential of the corresponding
+	 * rotation vector of v.
+	 * @param v the rotation vectors
+	 * @param q the quaternions that receive the rotations
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void exp(float v[], float q[], int count, ForkJoinPool pool) {
+
+		check(v, count * 3);
+		check(q, count * 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = v[p], vy = v[p + 1], vz = v[p + 2];
+
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				q[o] = (float)(vx * s);
+				q[o + 1] = (float)(vy * s);
+				q[o + 2] = (float)(vz * s);
+				q[o + 3] = (float)(c);
+			}
+		});
+	}
+
+	/**
+	 * Sets every rotation vector of v to the logarithm of the corresponding
+	 * unit quaternion of q.
+	 * @param q the unit quaternions
+	 * @param v the rotation vectors that receive the logarithms
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void log(float q[], float v[], int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(v, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				// q and -q are the same rotation; use the one with w >= 0 for an angle <= PI.
+				double sign = qw < 0.0D ? -1.0D : 1.0D;
+				double aw = Math.abs(qw);
+				double s2 = qx * qx + qy * qy + qz * qz;
+				double f;
+
+				if(s2 < Quat4d.SMALL_RATIO_SQUARED * aw * aw) {
+
+					// 2 atan(s / w) / s to second order in s / w.
+					f = 2.0D / aw * (1.0D - s2 / (3.0D * aw * aw));
+
+				} else {
+
+					double s = Math.sqrt(s2);
+					f = 2.0D * Math.atan2(s, aw) / s;
+				}
+
+				f *= sign;
+				v[p] = (float)(qx * f);
+				v[p + 1] = (float)(qy * f);
+				v[p + 2] = (float)(qz * f);
+			}
+		});
+	}
+
+	/**
+	 * Rotates every unit quaternion of q by the corresponding world frame
+	 * angular velocity of omega over the time step dt.
+	 * @param q the unit quaternions, updated in place
+	 * @param omega the angular velocities in radians per unit of time
+	 * @param dt the time step
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void integrate(float q[], float omega[], float dt, int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(omega, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = omega[p], vy = omega[p + 1], vz = omega[p + 2];
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				vx *= dt;
+				vy *= dt;
+				vz *= dt;
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				double ex = vx * s, ey = vy * s, ez = vz * s;
+
+				// exp(omega dt) * q: omega is given in the world frame.
+				double rx = ex * qw + c * qx + ey * qz - ez * qy;
+				double ry = ey * qw + c * qy + ez * qx - ex * qz;
+				double rz = ez * qw + c * qz + ex * qy - ey * qx;
+				double rw = c * qw - ex * qx - ey * qy - ez * qz;
+
+				// first order renormalization against drift.
+				double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+				q[o] = (float)(rx * n);
+				q[o + 1] = (float)(ry * n);
+				q[o + 2] = (float)(rz * n);
+				q[o + 3] = (float)(rw * n);
+			}
+		});
+	}
+
+	/**
+	 * Rotates every unit quaternion of q by the corresponding body frame
+	 * angular velocity of omega over the time step dt.
+	 * @param q the unit quaternions, updated in place
+	 * @param omega the angular velocities in radians per unit of time
+	 * @param dt the time step
+	 * @param count the number of quaternions
+	 * @param pool the pool that runs the batch, or null to run it in the calling thread
+	 */
+	public static void integrateLocal(float q[], float omega[], float dt, int count, ForkJoinPool pool) {
+
+		check(q, count * 4);
+		check(omega, count * 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = i * 4;
+				int p = i * 3;
+				double vx = omega[p], vy = omega[p + 1], vz = omega[p + 2];
+				double qx = q[o], qy = q[o + 1], qz = q[o + 2], qw = q[o + 3];
+
+				vx *= dt;
+				vy *= dt;
+				vz *= dt;
+				double t2 = vx * vx + vy * vy + vz * vz;
+				double s = Quat4d.halfAngleSin(t2, Quat4d.SMALL_ANGLE_SQUARED);
+				double c = Quat4d.halfAngleCos(t2, Quat4d.SMALL_ANGLE_SQUARED);
+
+				double ex = vx * s, ey = vy * s, ez = vz * s;
+
+				// q * exp(omega dt): omega is given in the body frame.
+				double rx = qx * c + qw * ex + qy * ez - qz * ey;
+				double ry = qy * c + qw * ey + qz * ex - qx * ez;
+				double rz = qz * c + qw * ez + qx * ey - qy * ex;
+				double rw = qw * c - qx * ex - qy * ey - qz * ez;
+
+				// first order renormalization against drift.
+				double n = 0.5D * (3.0D - (rx * rx + ry * ry + rz * rz + rw * rw));
+				q[o] = (float)(rx * n);
+				q[o + 1] = (float)(ry * n);
+				q[o + 2] = (float)(rz * n);
+				q[o + 3] = (float)(rw * n);
+			}
+		});
+	}
+
+	private static void check(double a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+
+	private static void check(float a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+}
@@ -0,0 +1,662 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over moving points, stored as a spatial hash of the
+ * occupied cells.
+ * <p>
+ * Points are identified by non-negative integer ids chosen by the caller.
+ * The cell of a point is (floor(x / cellSize), floor(y / cellSize),
+ * floor(z / cellSize)); its three coordinates are packed with 21 bits each
+ * into a long key of a primitive open addressing table. Cell coordinates
+ * therefore wrap every 2^21 cells: cells that far apart share a bucket,
+ * which only matters for {@link #getFirst(Tuple3i)}; the radius queries
+ * test the actual distances.
+ * <p>
+ * The points of a cell form a doubly linked list through per-id arrays, so
+ * insert, move and remove take constant time and do not allocate unless
+ * the tables grow. A move inside the same cell only updates the position.
+ * The grid is not synchronized; queries may run concurrently with each
+ * other but not with updates.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class SpatialHashGrid {
+
+	private static final int BITS = 21;
+	private static final long MASK = (1L << BITS) - 1L;
+
+	// marks an unused slot of the cell table and a point that is not in the grid.
+	private static final long NO_CELL = -1L;
+
+	private static final int NONE = -1;
+
+	private final double cellSize;
+	private final double inverseCellSize;
+
+	// cell table: packed cell keys and the first point of every cell.
+	private long keys[];
+	private int heads[];
+	private int cells;
+
+	// per point id: cell key, list links and position.
+	private long cellOf[];
+	private int next[];
+	private int prev[];
+	private double positions[];
+	private int size;
+
+	/**
+	 * Constructs an empty grid.
+	 * @param cellSize the edge length of the cubic cells, usually the query radius
+	 */
+	public SpatialHashGrid(double cellSize) {
+
+		this(cellSize, 16);
+	}
+
+	/**
+	 * Constructs an empty grid with room for the ids [0, capacity).
+	 * @param cellSize the edge length of the cubic cells, usually the query radius
+	 * @param capacity the expected number of point ids
+	 */
+	public SpatialHashGrid(double cellSize, int capacity) {
+
+		if(!(cellSize > 0.0D) || Double.isInfinite(cellSize)) {
+
+			throw new IllegalArgumentException("cellSize:" + cellSize);
+		}
+
+		if(capacity < 0) {
+
+			throw new IllegalArgumentException("capacity:" + capacity);
+		}
+
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1.0D / cellSize;
+		this.allocateTable(tableSizeFor(capacity));
+		this.allocatePoints(Math.max(capacity, 1));
+	}
+
+	/**
+	 * Returns the cell edge length.
+	 * @return the cell size
+	 */
+	public final double getCellSize() {
+
+		return this.cellSize;
+	}
+
+	/**
+	 * Returns the number of points in this grid.
+	 * @return the number of points
+	 */
+	public final int size() {
+
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of non-empty cells.
+	 * @return the number of cells
+	 */
+	public final int getCellCount() {
+
+		return this.cells;
+	}
+
+	/**
+	 * Removes all points.
+	 */
+	public final void clear() {
+
+		Arrays.fill(this.keys, NO_CELL);
+		Arrays.fill(this.cellOf, NO_CELL);
+		this.cells = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Computes the coordinates of the cell that contains the specified point.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @param cell receives the cell coordinates
+	 */
+	public final void getCell(double x, double y, double z, Tuple3i cell) {
+
+		cell.set(this.cell(x), this.cell(y), this.cell(z));
+	}
+
+	/**
+	 * Computes the coordinates of the cell that contains the specified point.
+	 * @param p the point
+	 * @param cell receives the cell coordinates
+	 */
+	public final void getCell(Tuple3d p, Tuple3i cell) {
+
+		this.getCell(p.x, p.y, p.z, cell);
+	}
+
+	/**
+	 * Computes the coordinates of the cell that contains the specified point.
+	 * @param p the point
+	 * @param cell receives the cell coordinates
+	 */
+	public final void getCell(Tuple3f p, Tuple3i cell) {
+
+		this.getCell(p.x, p.y, p.z, cell);
+	}
+
+	/**
+	 * Returns true if the point id is in this grid.
+	 * @param id the point id
+	 * @return true if the point has been inserted and not removed
+	 */
+	public final boolean contains(int id) {
+
+		return id >= 0 && id < this.cellOf.length && this.cellOf[id] != NO_CELL;
+	}
+
+	/**
+	 * Copies the position of the point id into p.
+	 * @param id the point id
+	 * @param p receives the position
+	 */
+	public final void getPosition(int id, Tuple3d p) {
+
+		this.check(id);
+		p.set(this.positions[id * 3], this.positions[id * 3 + 1], this.positions[id * 3 + 2]);
+	}
+
+	/**
+	 * Inserts the point id at the specified position, or moves it there if it is
+	 * already in this grid.
+	 * @param id the point id, not negative
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 */
+	public final void insert(int id, double x, double y, double z) {
+
+		if(id < 0) {
+
+			throw new IndexOutOfBoundsException("id:" + id);
+		}
+
+		if(this.contains(id)) {
+
+			this.move(id, x, y, z);
+			return;
+		}
+
+		if(id >= this.cellOf.length) {
+
+			this.allocatePoints(Math.max(id + 1, this.cellOf.length * 2));
+		}
+
+		this.setPosition(id, x, y, z);
+		this.link(id, this.key(this.cell(x), this.cell(y), this.cell(z)));
+		this.size++;
+	}
+
+	/**
+	 * Inserts the point id at position p, or moves it there if it is already in this grid.
+	 * @param id the point id, not negative
+	 * @param p the position
+	 */
+	public final void insert(int id, Tuple3d p) {
+
+		this.insert(id, p.x, p.y, p.z);
+	}
+
+	/**
+	 * Inserts the point id at position p, or moves it there if it is already in this grid.
+	 * @param id the point id, not negative
+	 * @param p the position
+	 */
+	public final void insert(int id, Tuple3f p) {
+
+		this.insert(id, p.x, p.y, p.z);
+	}
+
+	/**
+	 * Moves the point id to the specified position.
+	 * @param id the point id
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @return true if the point changed its cell
+	 */
+	public final boolean move(int id, double x, double y, double z) {
+
+		this.check(id);
+		this.setPosition(id, x, y, z);
+
+		long key = this.key(this.cell(x), this.cell(y), this.cell(z));
+
+		if(key == this.cellOf[id]) {
+
+			return false;
+		}
+
+		this.unlink(id);
+		this.link(id, key);
+		return true;
+	}
+
+	/**
+	 * Moves the point id to position p.
+	 * @param id the point id
+	 * @param p the new position
+	 * @return true if the point changed its cell
+	 */
+	public final boolean move(int id, Tuple3d p) {
+
+		return this.move(id, p.x, p.y, p.z);
+	}
+
+	/**
+	 * Moves the point id to position p.
+	 * @param id the point id
+	 * @param p the new position
+	 * @return true if the point changed its cell
+	 */
+	public final boolean move(int id, Tuple3f p) {
+
+		return this.move(id, p.x, p.y, p.z);
+	}
+
+	/**
+	 * Moves every point i in [0, count) to (xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]),
+	 * inserting the points that are not yet in this grid.
+	 * @param xyz the packed positions
+	 * @param count the number of points
+	 */
+	public final void update(float xyz[], int count) {
+
+		for(int i = 0; i < count; i++) {
+
+			this.insert(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+		}
+	}
+
+	/**
+	 * Moves every point i in [0, count) to (xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]),
+	 * inserting the points that are not yet in this grid.
+	 * @param xyz the packed positions
+	 * @param count the number of points
+	 */
+	public final void update(double xyz[], int count) {
+
+		for(int i = 0; i < count; i++) {
+
+			this.insert(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+		}
+	}
+
+	/**
+	 * Removes the point id from this grid.
+	 * @param id the point id
+	 * @return true if the point was in this grid
+	 */
+	public final boolean remove(int id) {
+
+		if(!this.contains(id)) {
+
+			return false;
+		}
+
+		this.unlink(id);
+		this.cellOf[id] = NO_CELL;
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Returns the first point of the specified cell. The other points of the
+	 * cell follow through {@link #getNext(int)}.
+	 * @param cellX the x coordinate of the cell
+	 * @param cellY the y coordinate of the cell
+	 * @param cellZ the z coordinate of the cell
+	 * @return the first point id or -1 if the cell is empty
+	 */
+	public final int getFirst(int cellX, int cellY, int cellZ) {
+
+		int slot = this.find(this.key(cellX, cellY, cellZ));
+		return slot >= 0 ? this.heads[slot] : NONE;
+	}
+
+	/**
+	 * Returns the first point of the specified cell. The other points of the
+	 * cell follow through {@link #getNext(int)}.
+	 * @param cell the cell coordinates
+	 * @return the first point id or -1 if the cell is empty
+	 */
+	public final int getFirst(Tuple3i cell) {
+
+		return this.getFirst(cell.x, cell.y, cell.z);
+	}
+
+	/**
+	 * Returns the point that follows id in its cell.
+	 * @param id the point id
+	 * @return the next point id or -1 if id is the last point of its cell
+	 */
+	public final int getNext(int id) {
+
+		this.check(id);
+		return this.next[id];
+	}
+
+	/**
+	 * Collects the points of the 3x3x3 block of cells around the specified cell.
+	 * @param cell the center cell
+	 * @param result receives the point ids
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int getNeighbours(Tuple3i cell, int result[]) {
+
+		int found = 0;
+
+		for(int dz = -1; dz <= 1; dz++) {
+
+			for(int dy = -1; dy <= 1; dy++) {
+
+				for(int dx = -1; dx <= 1; dx++) {
+
+					for(int id = this.getFirst(cell.x + dx, cell.y + dy, cell.z + dz); id != NONE; id = this.next[id]) {
+
+						if(found < result.length) {
+
+							result[found] = id;
+						}
+
+						found++;
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Collects the points whose distance to the specified position is not larger than radius.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param z the z coordinate
+	 * @param radius the query radius
+	 * @param result receives the point ids
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(double x, double y, double z, double radius, int result[]) {
+
+		int found = 0;
+		double r2 = radius * radius;
+		int x0 = this.cell(x - radius), x1 = this.cell(x + radius);
+		int y0 = this.cell(y - radius), y1 = this.cell(y + radius);
+		int z0 = this.cell(z - radius), z1 = this.cell(z + radius);
+
+		for(int cz = z0; cz <= z1; cz++) {
+
+			for(int cy = y0; cy <= y1; cy++) {
+
+				for(int cx = x0; cx <= x1; cx++) {
+
+					for(int id = this.getFirst(cx, cy, cz); id != NONE; id = this.next[id]) {
+
+						double dx = this.positions[id * 3] - x;
+						double dy = this.positions[id * 3 + 1] - y;
+						double dz = this.positions[id * 3 + 2] - z;
+
+						if(dx * dx + dy * dy + dz * dz <= r2) {
+
+							if(found < result.length) {
+
+								result[found] = id;
+							}
+
+							found++;
+						}
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Collects the points whose distance to p is not larger than radius.
+	 * @param p the query position
+	 * @param radius the query radius
+	 * @param result receives the point ids
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(Tuple3d p, double radius, int result[]) {
+
+		return this.withinRadius(p.x, p.y, p.z, radius, result);
+	}
+
+	/**
+	 * Collects the points whose distance to p is not larger than radius.
+	 * @param p the query position
+	 * @param radius the query radius
+	 * @param result receives the point ids
+	 * @return the number of points found, which may exceed result.length
+	 */
+	public final int withinRadius(Tuple3f p, double radius, int result[]) {
+
+		return this.withinRadius(p.x, p.y, p.z, radius, result);
+	}
+
+	private int cell(double v) {
+
+		return (int)Math.floor(v * this.inverseCellSize);
+	}
+
+	private long key(int cx, int cy, int cz) {
+
+		return ((cx & MASK) << (2 * BITS)) | ((cy & MASK) << BITS) | (cz & MASK);
+	}
+
+	private static int hash(long key) {
+
+		// the 64 bit finalizer of MurmurHash3.
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+
+		return (int)key;
+	}
+
+	private int find(long key) {
+
+		int mask = this.keys.length - 1;
+
+		for(int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+
+			long k = this.keys[slot];
+
+			if(k == key) {
+
+				return slot;
+			}
+
+			if(k == NO_CELL) {
+
+				return NONE;
+			}
+		}
+	}
+
+	private void link(int id, long key) {
+
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while(this.keys[slot] != NO_CELL && this.keys[slot] != key) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		if(this.keys[slot] == NO_CELL) {
+
+			this.keys[slot] = key;
+			this.heads[slot] = NONE;
+			this.cells++;
+		}
+
+		int head = this.heads[slot];
+		this.next[id] = head;
+		this.prev[id] = NONE;
+
+		if(head != NONE) {
+
+			this.prev[head] = id;
+		}
+
+		this.heads[slot] = id;
+		this.cellOf[id] = key;
+
+		// keep the load factor at or below one half.
+		if(this.cells * 2 > this.keys.length) {
+
+			this.rehash(this.keys.length * 2);
+		}
+	}
+
+	private void unlink(int id) {
+
+		int p = this.prev[id];
+		int n = this.next[id];
+
+		if(n != NONE) {
+
+			this.prev[n] = p;
+		}
+
+		if(p != NONE) {
+
+			this.next[p] = n;
+			return;
+		}
+
+		int slot = this.find(this.cellOf[id]);
+
+		if(n != NONE) {
+
+			this.heads[slot] = n;
+			return;
+		}
+
+		// the cell became empty: delete its slot and shift the following
+		// entries of the probe sequence back so that lookups stay correct.
+		int mask = this.keys.length - 1;
+		int hole = slot;
+
+		for(int i = (hole + 1) & mask; this.keys[i] != NO_CELL; i = (i + 1) & mask) {
+
+			int home = hash(this.keys[i]) & mask;
+
+			if(((i - home) & mask) >= ((i - hole) & mask)) {
+
+				this.keys[hole] = this.keys[i];
+				this.heads[hole] = this.heads[i];
+				hole = i;
+			}
+		}
+
+		this.keys[hole] = NO_CELL;
+		this.cells--;
+	}
+
+	private void rehash(int length) {
+
+		long oldKeys[] = this.keys;
+		int oldHeads[] = this.heads;
+		this.allocateTable(length);
+
+		int mask = length - 1;
+
+		for(int i = 0; i < oldKeys.length; i++) {
+
+			if(oldKeys[i] != NO_CELL) {
+
+				int slot = hash(oldKeys[i]) & mask;
+
+				while(this.keys[slot] != NO_CELL) {
+
+					slot = (slot + 1) & mask;
+				}
+
+				this.keys[slot] = oldKeys[i];
+				this.heads[slot] = oldHeads[i];
+			}
+		}
+	}
+
+	private void allocateTable(int length) {
+
+		this.keys = new long[length];
+		this.heads = new int[length];
+		Arrays.fill(this.keys, NO_CELL);
+	}
+
+	private void allocatePoints(int capacity) {
+
+		int old = this.cellOf != null ? this.cellOf.length : 0;
+
+		this.cellOf = this.cellOf != null ? Arrays.copyOf(this.cellOf, capacity) : new long[capacity];
+		this.next = this.next != null ? Arrays.copyOf(this.next, capacity) : new int[capacity];
+		this.prev = this.prev != null ? Arrays.copyOf(this.prev, capacity) : new int[capacity];
+		this.positions = this.positions != null ? Arrays.copyOf(this.positions, capacity * 3) : new double[capacity * 3];
+		Arrays.fill(this.cellOf, old, capacity, NO_CELL);
+	}
+
+	private void setPosition(int id, double x, double y, double z) {
+
+		this.positions[id * 3] = x;
+		this.positions[id * 3 + 1] = y;
+		this.positions[id * 3 + 2] = z;
+	}
+
+	private void check(int id) {
+
+		if(!this.contains(id)) {
+
+			throw new IndexOutOfBoundsException("id:" + id + " is not in the grid");
+		}
+	}
+
+	private static int tableSizeFor(int capacity) {
+
+		int n = 16;
+
+		while(n < capacity * 2 && n < (1 << 30)) {
+
+			n <<= 1;
+		}
+
+		return n;
+	}
+}
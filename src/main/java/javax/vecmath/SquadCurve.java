@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A smooth rotation curve through key rotations, interpolated with
+ * spherical quadrangle interpolation (SQUAD).
+ * <p>
+ * Between the keys q[i] and q[i + 1] the curve is
+ * slerp(slerp(q[i], q[i + 1], h), slerp(s[i], s[i + 1], h), 2h(1 - h)), where
+ * the inner control rotations
+ * s[i] = q[i] exp(-(log(q[i]^-1 q[i + 1]) + log(q[i]^-1 q[i - 1])) / 4)
+ * make the angular velocity continuous at the keys. The control rotations and
+ * the angles of both inner slerps of every segment are computed when the curve
+ * is built, so an evaluation needs a single inverse cosine.
+ * <p>
+ * Consecutive keys are flipped into the same hemisphere, so the curve takes
+ * the short way between them. The parameter t runs from 0 at the first key
+ * to 1 at the last one, with the keys equally spaced. Curves are immutable
+ * and can be evaluated by any number of threads.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class SquadCurve {
+
+	// curve points per parallel task.
+	private static final int GRAIN = 2048;
+
+	private final int segments;
+
+	// 4 per key: the unit keys and the inner control rotations.
+	private final double keys[];
+	private final double controls[];
+
+	// 4 per segment: the angle and 1 / sin(angle) of the key slerp and of the control slerp.
+	private final double angles[];
+
+	/**
+	 * Constructs the curve through the key rotations.
+	 * @param rotations the key rotations, at least 2; they are normalized
+	 */
+	public SquadCurve(Quat4d rotations[]) {
+
+		int n = rotations.length;
+
+		if(n < 2) {
+
+			throw new IllegalArgumentException("rotations.length:" + n + " < 2");
+		}
+
+		this.segments = n - 1;
+		this.keys = new double[n * 4];
+		this.controls = new double[n * 4];
+		this.angles = new double[this.segments * 4];
+
+		Quat4d q = new Quat4d();
+		Quat4d previous = new Quat4d();
+
+		for(int i = 0; i < n; i++) {
+
+			q.set(rotations[i]);
+			q.normalize();
+
+			if(i > 0 && q.x * previous.x + q.y * previous.y + q.z * previous.z + q.w * previous.w < 0.0D) {
+
+				q.negate();
+			}
+
+			store(q, this.keys, i * 4);
+			previous.set(q);
+		}
+
+		Quat4d qi = new Quat4d();
+		Quat4d d = new Quat4d();
+		Vector3d next = new Vector3d();
+		Vector3d last = new Vector3d();
+
+		for(int i = 0; i < n; i++) {
+
+			load(this.keys, i * 4, qi);
+
+			if(i == 0 || i == n - 1) {
+
+				store(qi, this.controls, i * 4);
+				continue;
+			}
+
+			load(this.keys, (i + 1) * 4, q);
+			d.conjugate(qi);
+			d.mul(q);
+			d.log(next);
+
+			load(this.keys, (i - 1) * 4, q);
+			d.conjugate(qi);
+			d.mul(q);
+			d.log(last);
+
+			next.add(last);
+			next.scale(-0.25D);
+			d.exp(next);
+			qi.mul(d);
+			store(qi, this.controls, i * 4);
+		}
+
+		for(int i = 0; i < this.segments; i++) {
+
+			this.angle(this.keys, i * 4, i * 4);
+			this.angle(this.controls, i * 4, i * 4 + 2);
+		}
+	}
+
+	/**
+	 * Returns the number of segments, one less than the number of keys.
+	 * @return the number of segments
+	 */
+	public final int getSegmentCount() {
+
+		return this.segments;
+	}
+
+	/**
+	 * Sets q1 to the rotation of the curve at parameter t.
+	 * @param t the parameter, clamped to [0, 1]
+	 * @param q1 the quaternion that receives the unit rotation
+	 */
+	public final void getRotation(double t, Quat4d q1) {
+
+		double u = (t > 0.0D ? (t < 1.0D ? t : 1.0D) : 0.0D) * this.segments;
+		int s = Math.min((int)u, this.segments - 1);
+		double h = u - s;
+		int a = s * 4;
+		int b = a + 4;
+		double k[] = this.keys;
+		double c[] = this.controls;
+
+		// the inner slerps with their precomputed angles.
+		double w0 = this.weight(s * 4, 1.0D - h);
+		double w1 = this.weight(s * 4, h);
+		double px = w0 * k[a] + w1 * k[b];
+		double py = w0 * k[a + 1] + w1 * k[b + 1];
+		double pz = w0 * k[a + 2] + w1 * k[b + 2];
+		double pw = w0 * k[a + 3] + w1 * k[b + 3];
+
+		w0 = this.weight(s * 4 + 2, 1.0D - h);
+		w1 = this.weight(s * 4 + 2, h);
+		double qx = w0 * c[a] + w1 * c[b];
+		double qy = w0 * c[a + 1] + w1 * c[b + 1];
+		double qz = w0 * c[a + 2] + w1 * c[b + 2];
+		double qw = w0 * c[a + 3] + w1 * c[b + 3];
+
+		// the outer slerp; both ends are close, so no hemisphere check is needed.
+		double g = 2.0D * h * (1.0D - h);
+		double cos = px * qx + py * qy + pz * qz + pw * qw;
+
+		if(cos < 0.9999D) {
+
+			double theta = Math.acos(cos > -1.0D ? cos : -1.0D);
+			double sin = Math.sin(theta);
+			w0 = Math.sin((1.0D - g) * theta) / sin;
+			w1 = Math.sin(g * theta) / sin;
+
+		} else {
+
+			w0 = 1.0D - g;
+			w1 = g;
+		}
+
+		double x = w0 * px + w1 * qx;
+		double y = w0 * py + w1 * qy;
+		double z = w0 * pz + w1 * qz;
+		double w = w0 * pw + w1 * qw;
+		double n = 1.0D / Math.sqrt(x * x + y * y + z * z + w * w);
+
+		q1.x = x * n;
+		q1.y = y * n;
+		q1.z = z * n;
+		q1.w = w * n;
+	}
+
+	/**
+	 * Evaluates the curve at count parameters.
+	 * @param t the parameters
+	 * @param count the number of parameters
+	 * @param xyzw the array that receives 4 quaternion coordinates per rotation
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void evaluate(double t[], int count, double xyzw[], ForkJoinPool pool) {
+
+		check(t, count);
+		check(xyzw, count * 4);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			Quat4d q = new Quat4d();
+
+			for(int i = from; i < to; i++) {
+
+				this.getRotation(t[i], q);
+				store(q, xyzw, i * 4);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates the curve at count parameters equally spaced from 0 to 1,
+	 * both included.
+	 * @param count the number of rotations, at least 2
+	 * @param xyzw the array that receives 4 quaternion coordinates per rotation
+	 * @param pool the pool that runs the evaluation, or null to run it in the calling thread
+	 */
+	public final void sample(int count, double xyzw[], ForkJoinPool pool) {
+
+		if(count < 2) {
+
+			throw new IllegalArgumentException("count:" + count + " < 2");
+		}
+
+		check(xyzw, count * 4);
+
+		double step = 1.0D / (count - 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			Quat4d q = new Quat4d();
+
+			for(int i = from; i < to; i++) {
+
+				this.getRotation(i * step, q);
+				store(q, xyzw, i * 4);
+			}
+		});
+	}
+
+	// the slerp weight of the fraction f with the angle at angles[i].
+	private double weight(int i, double f) {
+
+		double theta = this.angles[i];
+
+		return theta > 0.0D ? Math.sin(f * theta) * this.angles[i + 1] : f;
+	}
+
+	// the angle and 1 / sin(angle) between the rotations at o and o + 4, stored at angles[i].
+	private void angle(double q[], int o, int i) {
+
+		double cos = q[o] * q[o + 4] + q[o + 1] * q[o + 5] + q[o + 2] * q[o + 6] + q[o + 3] * q[o + 7];
+
+		if(cos < 0.9999D) {
+
+			double theta = Math.acos(cos > -1.0D ? cos : -1.0D);
+			this.angles[i] = theta;
+			this.angles[i + 1] = 1.0D / Math.sin(theta);
+
+		} else {
+
+			// nearly equal: linear weights, renormalized after the outer slerp.
+			this.angles[i] = 0.0D;
+			this.angles[i + 1] = 0.0D;
+		}
+	}
+
+	private static void store(Quat4d q, double a[], int o) {
+
+		a[o] = q.x;
+		a[o + 1] = q.y;
+		a[o + 2] = q.z;
+		a[o + 3] = q.w;
+	}
+
+	private static void load(double a[], int o, Quat4d q) {
+
+		q.set(a[o], a[o + 1], a[o + 2], a[o + 3]);
+	}
+
+	private static void check(double a[], int length) {
+
+		if(a.length < length) {
+
+			throw new IndexOutOfBoundsException("length:" + a.length + " < " + length);
+		}
+	}
+}
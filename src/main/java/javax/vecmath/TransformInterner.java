@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded cache that maps equal transforms to one shared canonical
+ * instance, so that many users of the same value can share one object and
+ * recognize it by identity.
+ * <p>
+ * {@link #intern(Object)} returns the canonical instance equal to its
+ * argument, storing a copy of the argument if there is none. Canonical
+ * instances are shared and must not be modified.
+ * <p>
+ * Values are looked up by their 64 bit longHashCode and compared with
+ * equals. The cache is split into independently locked segments selected
+ * by the hash, and every segment evicts its least recently used value when
+ * it is full, so at most about the capacity values are kept. Evicted values
+ * stay valid for their users; interning an equal value later just creates a
+ * new canonical instance.
+ * @param <T> the type of the values
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class TransformInterner<T> {
+
+	private final Segment<T> segments[];
+	private final int segmentShift;
+	private final int capacity;
+
+	private final ToLongFunction<T> hash;
+	private final BiPredicate<T, T> equality;
+	private final UnaryOperator<T> copy;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private TransformInterner(int capacity, ToLongFunction<T> hash, BiPredicate<T, T> equality, UnaryOperator<T> copy) {
+
+		if(capacity < 1) {
+
+			throw new IllegalArgumentException("capacity:" + capacity);
+		}
+
+		// about four segments per processor, but at least 16 values per segment.
+		int count = 1;
+		int wanted = 4 * Runtime.getRuntime().availableProcessors();
+
+		while(count < wanted && count * 32 <= capacity) {
+
+			count <<= 1;
+		}
+
+		this.capacity = capacity;
+		this.segments = new Segment[count];
+		this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+		this.hash = hash;
+		this.equality = equality;
+		this.copy = copy;
+
+		for(int i = 0; i < count; i++) {
+
+			this.segments[i] = new Segment<T>((capacity + count - 1) / count);
+		}
+	}
+
+	/**
+	 * Returns an interner of Matrix4d values.
+	 * @param capacity the largest number of values kept
+	 * @return the interner
+	 */
+	public static TransformInterner<Matrix4d> forMatrix4d(int capacity) {
+
+		return new TransformInterner<Matrix4d>(capacity, Matrix4d::longHashCode, Matrix4d::equals, Matrix4d::new);
+	}
+
+	/**
+	 * Returns an interner of Matrix4f values.
+	 * @param capacity the largest number of values kept
+	 * @return the interner
+	 */
+	public static TransformInterner<Matrix4f> forMatrix4f(int capacity) {
+
+		return new TransformInterner<Matrix4f>(capacity, Matrix4f::longHashCode, Matrix4f::equals, Matrix4f::new);
+	}
+
+	/**
+	 * Returns an interner of Matrix3d values.
+	 * @param capacity the largest number of values kept
+	 * @return the interner
+	 */
+	public static TransformInterner<Matrix3d> forMatrix3d(int capacity) {
+
+		return new TransformInterner<Matrix3d>(capacity, Matrix3d::longHashCode, Matrix3d::equals, Matrix3d::new);
+	}
+
+	/**
+	 * Returns an interner of Quat4d values.
+	 * @param capacity the largest number of values kept
+	 * @return the interner
+	 */
+	public static TransformInterner<Quat4d> forQuat4d(int capacity) {
+
+		return new TransformInterner<Quat4d>(capacity, Quat4d::longHashCode, Quat4d::equals, Quat4d::new);
+	}
+
+	/**
+	 * Returns the canonical instance equal to value. If there is none, a copy
+	 * of value becomes the canonical instance.
+	 * @param value the value; it is not retained
+	 * @return the canonical instance, which must not be modified
+	 */
+	public final T intern(T value) {
+
+		long h = this.hash.applyAsLong(value);
+		Segment<T> segment = this.segments[(int)(h >>> this.segmentShift) & (this.segments.length - 1)];
+		Long key = Long.valueOf(h);
+
+		synchronized(segment) {
+
+			T canonical = segment.get(key);
+
+			if(canonical != null) {
+
+				if(this.equality.test(canonical, value)) {
+
+					this.hits.increment();
+					return canonical;
+				}
+
+				// a 64 bit hash collision: the older value keeps the slot.
+				this.misses.increment();
+				return this.copy.apply(value);
+			}
+
+			canonical = this.copy.apply(value);
+			segment.put(key, canonical);
+			this.misses.increment();
+
+			return canonical;
+		}
+	}
+
+	/**
+	 * Returns the number of values kept.
+	 * @return the number of canonical instances in the cache
+	 */
+	public final int size() {
+
+		int size = 0;
+
+		for(Segment<T> segment : this.segments) {
+
+			synchronized(segment) {
+
+				size += segment.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Returns the largest number of values kept.
+	 * @return the capacity
+	 */
+	public final int getCapacity() {
+
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the number of intern calls that found a canonical instance.
+	 * @return the hit count
+	 */
+	public final long getHitCount() {
+
+		return this.hits.sum();
+	}
+
+	/**
+	 * Returns the number of intern calls that returned a new instance.
+	 * @return the miss count
+	 */
+	public final long getMissCount() {
+
+		return this.misses.sum();
+	}
+
+	/**
+	 * Removes all values and resets the hit and miss counts.
+	 */
+	public final void clear() {
+
+		for(Segment<T> segment : this.segments) {
+
+			synchronized(segment) {
+
+				segment.clear();
+			}
+		}
+
+		this.hits.reset();
+		this.misses.reset();
+	}
+
+	// an access ordered map that drops its least recently used entry when full.
+	private static final class Segment<T> extends LinkedHashMap<Long, T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int limit;
+
+		Segment(int limit) {
+
+			super(16, 0.75F, true);
+			this.limit = limit;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+
+			return this.size() > this.limit;
+		}
+	}
+}
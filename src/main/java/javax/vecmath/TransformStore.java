@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed number of 4x4 poses shared between one writer thread and any
+ * number of reader threads without locks.
+ * <p>
+ * Every pose is stored as 16 doubles in row major order, the layout of
+ * {@link Matrix4d#set(double[])} and {@link Matrix4d#get(double[])}. The
+ * writer modifies a private working copy with the set methods and makes
+ * the changes visible with {@link #publish()}. Published poses are double
+ * buffered: publish copies the poses changed since a buffer was last
+ * written into the buffer that readers are not directed to, then switches
+ * the readers over.
+ * <p>
+ * Each buffer is guarded by a sequence number that is odd while the buffer
+ * is being written (a seqlock). Readers never block the writer; a read that
+ * overlaps a write of its buffer, which needs the writer to publish twice
+ * during the read, is retried. All poses read in one call of a get method
+ * belong to the same publication.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class TransformStore {
+
+	private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final int size;
+
+	// the writer's working copy and the publication each pose was last changed in.
+	private final double working[];
+	private final long changed[];
+
+	// the two published buffers, their sequence numbers and the publication they hold.
+	private final double buffers[][];
+	private final long sequence[];
+	private final long bufferEpoch[];
+
+	// the buffer readers are directed to.
+	private volatile int current;
+
+	private long epoch;
+
+	/**
+	 * Constructs a store of size identity poses.
+	 * @param size the number of poses
+	 */
+	public TransformStore(int size) {
+
+		if(size < 0) {
+
+			throw new IllegalArgumentException("size:" + size);
+		}
+
+		this.size = size;
+		this.working = new double[size * 16];
+		this.changed = new long[size];
+		this.buffers = new double[][] {new double[size * 16], new double[size * 16]};
+		this.sequence = new long[2];
+		this.bufferEpoch = new long[2];
+
+		for(int i = 0; i < size; i++) {
+
+			for(int k = 0; k < 16; k += 5) {
+
+				this.working[i * 16 + k] = 1.0D;
+				this.buffers[0][i * 16 + k] = 1.0D;
+				this.buffers[1][i * 16 + k] = 1.0D;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of poses.
+	 * @return the number of poses
+	 */
+	public final int size() {
+
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of publications so far. Called by the writer.
+	 * @return the number of calls of publish
+	 */
+	public final long getEpoch() {
+
+		return this.epoch;
+	}
+
+	/**
+	 * Sets the working copy of a pose. Called by the writer.
+	 * @param index the pose index
+	 * @param m1 the pose
+	 */
+	public final void set(int index, Matrix4d m1) {
+
+		int o = this.offset(index);
+		double w[] = this.working;
+
+		w[o] = m1.m00; w[o + 1] = m1.m01; w[o + 2] = m1.m02; w[o + 3] = m1.m03;
+		w[o + 4] = m1.m10; w[o + 5] = m1.m11; w[o + 6] = m1.m12; w[o + 7] = m1.m13;
+		w[o + 8] = m1.m20; w[o + 9] = m1.m21; w[o + 10] = m1.m22; w[o + 11] = m1.m23;
+		w[o + 12] = m1.m30; w[o + 13] = m1.m31; w[o + 14] = m1.m32; w[o + 15] = m1.m33;
+		this.changed[index] = this.epoch + 1;
+	}
+
+	/**
+	 * Sets the working copy of a pose from 16 row major values. Called by the writer.
+	 * @param index the pose index
+	 * @param m the values
+	 * @param offset the index of the first value in m
+	 */
+	public final void set(int index, double m[], int offset) {
+
+		System.arraycopy(m, offset, this.working, this.offset(index), 16);
+		this.changed[index] = this.epoch + 1;
+	}
+
+	/**
+	 * Sets the working copy of a pose from the rotation q1 and the translation t1.
+	 * Called by the writer.
+	 * @param index the pose index
+	 * @param q1 the rotation, a unit quaternion
+	 * @param t1 the translation
+	 */
+	public final void set(int index, Quat4d q1, Tuple3d t1) {
+
+		int o = this.offset(index);
+		double w[] = this.working;
+		double xx = q1.x * q1.x, yy = q1.y * q1.y, zz = q1.z * q1.z;
+		double xy = q1.x * q1.y, yz = q1.y * q1.z, zx = q1.z * q1.x;
+		double xw = q1.x * q1.w, yw = q1.y * q1.w, zw = q1.z * q1.w;
+
+		w[o] = 1.0D - 2.0D * (yy + zz); w[o + 1] = 2.0D * (xy - zw); w[o + 2] = 2.0D * (zx + yw); w[o + 3] = t1.x;
+		w[o + 4] = 2.0D * (xy + zw); w[o + 5] = 1.0D - 2.0D * (zz + xx); w[o + 6] = 2.0D * (yz - xw); w[o + 7] = t1.y;
+		w[o + 8] = 2.0D * (zx - yw); w[o + 9] = 2.0D * (yz + xw); w[o + 10] = 1.0D - 2.0D * (xx + yy); w[o + 11] = t1.z;
+		w[o + 12] = 0.0D; w[o + 13] = 0.0D; w[o + 14] = 0.0D; w[o + 15] = 1.0D;
+		this.changed[index] = this.epoch + 1;
+	}
+
+	/**
+	 * Makes all poses set since the last publication visible to the readers.
+	 * Called by the writer.
+	 * @return the number of this publication
+	 */
+	public final long publish() {
+
+		int target = 1 - this.current;
+		double buffer[] = this.buffers[target];
+		long since = this.bufferEpoch[target];
+		long s = this.sequence[target];
+
+		// odd: the buffer is being written; the data stores must not move above this store.
+		SEQUENCE.setOpaque(this.sequence, target, s + 1L);
+		VarHandle.storeStoreFence();
+
+		for(int i = 0; i < this.size; i++) {
+
+			if(this.changed[i] > since) {
+
+				System.arraycopy(this.working, i * 16, buffer, i * 16, 16);
+			}
+		}
+
+		this.epoch++;
+		this.bufferEpoch[target] = this.epoch;
+		SEQUENCE.setRelease(this.sequence, target, s + 2L);
+		this.current = target;
+
+		return this.epoch;
+	}
+
+	/**
+	 * Copies the published value of a pose into m1.
+	 * @param index the pose index
+	 * @param m1 the matrix that receives the pose
+	 */
+	public final void get(int index, Matrix4d m1) {
+
+		int o = this.offset(index);
+
+		while(true) {
+
+			int b = this.current;
+			long s = (long)SEQUENCE.getAcquire(this.sequence, b);
+			double r[] = this.buffers[b];
+
+			m1.m00 = r[o]; m1.m01 = r[o + 1]; m1.m02 = r[o + 2]; m1.m03 = r[o + 3];
+			m1.m10 = r[o + 4]; m1.m11 = r[o + 5]; m1.m12 = r[o + 6]; m1.m13 = r[o + 7];
+			m1.m20 = r[o + 8]; m1.m21 = r[o + 9]; m1.m22 = r[o + 10]; m1.m23 = r[o + 11];
+			m1.m30 = r[o + 12]; m1.m31 = r[o + 13]; m1.m32 = r[o + 14]; m1.m33 = r[o + 15];
+
+			if(this.validate(b, s)) {
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Copies the published rotation and translation of a pose. The rotation
+	 * part of the pose must be a rotation matrix.
+	 * @param index the pose index
+	 * @param q1 the quaternion that receives the rotation
+	 * @param t1 the tuple that receives the translation
+	 */
+	public final void get(int index, Quat4d q1, Tuple3d t1) {
+
+		int o = this.offset(index);
+		double m00, m01, m02, m10, m11, m12, m20, m21, m22;
+
+		while(true) {
+
+			int b = this.current;
+			long s = (long)SEQUENCE.getAcquire(this.sequence, b);
+			double r[] = this.buffers[b];
+
+			m00 = r[o]; m01 = r[o + 1]; m02 = r[o + 2]; t1.x = r[o + 3];
+			m10 = r[o + 4]; m11 = r[o + 5]; m12 = r[o + 6]; t1.y = r[o + 7];
+			m20 = r[o + 8]; m21 = r[o + 9]; m22 = r[o + 10]; t1.z = r[o + 11];
+
+			if(this.validate(b, s)) {
+
+				break;
+			}
+		}
+
+		// Shepperd's method: divide by the largest of the four diagonal combinations.
+		double trace = m00 + m11 + m22;
+
+		if(trace >= m00 && trace >= m11 && trace >= m22) {
+
+			double w = 2.0D * Math.sqrt(1.0D + trace);
+			q1.set((m21 - m12) / w, (m02 - m20) / w, (m10 - m01) / w, 0.25D * w);
+
+		} else if(m00 >= m11 && m00 >= m22) {
+
+			double w = 2.0D * Math.sqrt(1.0D + m00 - m11 - m22);
+			q1.set(0.25D * w, (m01 + m10) / w, (m02 + m20) / w, (m21 - m12) / w);
+
+		} else if(m11 >= m22) {
+
+			double w = 2.0D * Math.sqrt(1.0D + m11 - m00 - m22);
+			q1.set((m01 + m10) / w, 0.25D * w, (m12 + m21) / w, (m02 - m20) / w);
+
+		} else {
+
+			double w = 2.0D * Math.sqrt(1.0D + m22 - m00 - m11);
+			q1.set((m02 + m20) / w, (m12 + m21) / w, 0.25D * w, (m10 - m01) / w);
+		}
+	}
+
+	/**
+	 * Copies the published values of the poses [from, from + count) into m as
+	 * 16 row major values each. All poses belong to the same publication.
+	 * @param from the first pose index
+	 * @param count the number of poses
+	 * @param m the array that receives the values
+	 * @param offset the index in m of the first value
+	 * @return the number of the publication that was read
+	 */
+	public final long get(int from, int count, double m[], int offset) {
+
+		if(from < 0 || count < 0 || from + count > this.size) {
+
+			throw new IndexOutOfBoundsException("from:" + from + " count:" + count);
+		}
+
+		while(true) {
+
+			int b = this.current;
+			long s = (long)SEQUENCE.getAcquire(this.sequence, b);
+
+			System.arraycopy(this.buffers[b], from * 16, m, offset, count * 16);
+
+			if(this.validate(b, s)) {
+
+				// buffers hold the publications of alternating parity.
+				return this.readEpoch(b, s);
+			}
+		}
+	}
+
+	/**
+	 * Copies the published values of all poses into m. See {@link #get(int, int, double[], int)}.
+	 * @param m the array that receives size() * 16 values
+	 * @return the number of the publication that was read
+	 */
+	public final long get(double m[]) {
+
+		return this.get(0, this.size, m, 0);
+	}
+
+	// true if buffer b was not written during a read that started at sequence s.
+	private boolean validate(int b, long s) {
+
+		VarHandle.loadLoadFence();
+		return (s & 1L) == 0L && (long)SEQUENCE.getOpaque(this.sequence, b) == s;
+	}
+
+	// the publication held by buffer b at the even sequence s.
+	private long readEpoch(int b, long s) {
+
+		// every publication writes one buffer, alternating, starting with buffer 1.
+		long writes = s >> 1;
+
+		return writes == 0L ? 0L : (b == 1 ? 2L * writes - 1L : 2L * writes);
+	}
+
+	private int offset(int index) {
+
+		if(index < 0 || index >= this.size) {
+
+			throw new IndexOutOfBoundsException("index:" + index);
+		}
+
+		return index * 16;
+	}
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A hierarchy of 4x4 transforms stored in flat arrays.
+ * Every node holds a local transform relative to its parent. The world
+ * transform of a node is the product of the world transform of its parent
+ * and its own local transform (world = parentWorld * local).
+ * Both are kept in the row-major layout of {@link Matrix4d#set(double[])},
+ * 16 doubles per node.
+ * <p>
+ * Changing a local transform marks the node dirty. {@link #update()} then
+ * recomputes the world transforms of the dirty nodes and of their
+ * descendants only, always parents before children.
+ * {@link #update(ForkJoinPool)} does the same but processes independent
+ * subtrees in parallel.
+ * <p>
+ * A node can only be attached to a parent that already exists, so node
+ * indices are always ordered parent before child.
+ * This class is not thread-safe; the tree must not be modified while an
+ * update is running.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class TransformTree {
+
+	/**
+	 * The parent index of a root node.
+	 */
+	public static final int NO_PARENT = -1;
+
+	private static final int STRIDE = 16;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+	private int nodeCount;
+	private int parent[];
+	private int firstChild[];
+	private int nextSibling[];
+	private int subtreeSize[];
+	private int firstRoot = NO_PARENT;
+	private boolean subtreeSizeValid;
+	private double local[];
+	private double world[];
+
+	// 1 if the local transform changed since the last update.
+	// during an update, 1 also means "the world transform was recomputed".
+	private byte dirty[];
+	private boolean anyDirty;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * Constructs an empty tree.
+	 */
+	public TransformTree() {
+
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty tree with room for the given number of nodes.
+	 * @param capacity the initial node capacity
+	 */
+	public TransformTree(int capacity) {
+
+		if(capacity < 1) {
+
+			capacity = 1;
+		}
+
+		this.parent = new int[capacity];
+		this.firstChild = new int[capacity];
+		this.nextSibling = new int[capacity];
+		this.local = new double[capacity * STRIDE];
+		this.world = new double[capacity * STRIDE];
+		this.dirty = new byte[capacity];
+	}
+
+	/**
+	 * Adds a new node with an identity local transform.
+	 * @param parentNode the index of the parent node or {@link #NO_PARENT} for a root
+	 * @return the index of the new node
+	 */
+	public final int addNode(int parentNode) {
+
+		if(parentNode < NO_PARENT || parentNode >= this.nodeCount) {
+
+			throw new IndexOutOfBoundsException("parent:" + parentNode + " nodeCount:" + this.nodeCount);
+		}
+
+		if(this.nodeCount == this.parent.length) {
+
+			this.grow(this.nodeCount * 2);
+		}
+
+		int node = this.nodeCount++;
+		this.parent[node] = parentNode;
+		this.firstChild[node] = NO_PARENT;
+
+		if(parentNode == NO_PARENT) {
+
+			this.nextSibling[node] = this.firstRoot;
+			this.firstRoot = node;
+
+		} else {
+
+			this.nextSibling[node] = this.firstChild[parentNode];
+			this.firstChild[parentNode] = node;
+		}
+
+		setIdentity(this.local, node * STRIDE);
+		this.dirty[node] = 1;
+		this.anyDirty = true;
+		this.subtreeSizeValid = false;
+
+		return node;
+	}
+
+	/**
+	 * Returns the number of nodes in this tree.
+	 * @return the number of nodes
+	 */
+	public final int getNodeCount() {
+
+		return this.nodeCount;
+	}
+
+	/**
+	 * Returns the parent of the given node.
+	 * @param node the node index
+	 * @return the parent index or {@link #NO_PARENT} for a root
+	 */
+	public final int getParent(int node) {
+
+		this.check(node);
+		return this.parent[node];
+	}
+
+	/**
+	 * Sets the minimum number of nodes a subtree must contain to be
+	 * processed as a separate task by {@link #update(ForkJoinPool)}.
+	 * @param threshold the subtree size threshold (at least 1)
+	 */
+	public final void setParallelThreshold(int threshold) {
+
+		this.parallelThreshold = Math.max(1, threshold);
+	}
+
+	/**
+	 * Returns the subtree size threshold used by {@link #update(ForkJoinPool)}.
+	 * @return the subtree size threshold
+	 */
+	public final int getParallelThreshold() {
+
+		return this.parallelThreshold;
+	}
+
+	/**
+	 * Sets the local transform of a node and marks it dirty.
+	 * @param node the node index
+	 * @param m1 the new local transform
+	 */
+	public final void setLocal(int node, Matrix4d m1) {
+
+		this.check(node);
+		double m[] = this.local;
+		int o = node * STRIDE;
+		m[o]      = m1.m00; m[o + 1]  = m1.m01; m[o + 2]  = m1.m02; m[o + 3]  = m1.m03;
+		m[o + 4]  = m1.m10; m[o + 5]  = m1.m11; m[o + 6]  = m1.m12; m[o + 7]  = m1.m13;
+		m[o + 8]  = m1.m20; m[o + 9]  = m1.m21; m[o + 10] = m1.m22; m[o + 11] = m1.m23;
+		m[o + 12] = m1.m30; m[o + 13] = m1.m31; m[o + 14] = m1.m32; m[o + 15] = m1.m33;
+		this.markDirty(node);
+	}
+
+	/**
+	 * Sets the local transform of a node and marks it dirty.
+	 * @param node the node index
+	 * @param m1 the new local transform
+	 */
+	public final void setLocal(int node, Matrix4f m1) {
+
+		this.check(node);
+		double m[] = this.local;
+		int o = node * STRIDE;
+		m[o]      = m1.m00; m[o + 1]  = m1.m01; m[o + 2]  = m1.m02; m[o + 3]  = m1.m03;
+		m[o + 4]  = m1.m10; m[o + 5]  = m1.m11; m[o + 6]  = m1.m12; m[o + 7]  = m1.m13;
+		m[o + 8]  = m1.m20; m[o + 9]  = m1.m21; m[o + 10] = m1.m22; m[o + 11] = m1.m23;
+		m[o + 12] = m1.m30; m[o + 13] = m1.m31; m[o + 14] = m1.m32; m[o + 15] = m1.m33;
+		this.markDirty(node);
+	}
+
+	/**
+	 * Sets the local transform of a node from the 16 row-major values
+	 * in the array and marks it dirty.
+	 * @param node the node index
+	 * @param m the array of length 16 containing the transform
+	 */
+	public final void setLocal(int node, double m[]) {
+
+		this.check(node);
+		System.arraycopy(m, 0, this.local, node * STRIDE, STRIDE);
+		this.markDirty(node);
+	}
+
+	/**
+	 * Sets the local transform of a node from a rotation, a translation
+	 * and a uniform scale and marks it dirty.
+	 * @param node the node index
+	 * @param q1 the rotation
+	 * @param t1 the translation
+	 * @param s the uniform scale
+	 */
+	public final void setLocal(int node, Quat4d q1, Tuple3d t1, double s) {
+
+		this.check(node);
+
+		double n = q1.x * q1.x + q1.y * q1.y + q1.z * q1.z + q1.w * q1.w;
+		double k = (n > 0.0D) ? (2.0D / n) : 0.0D;
+
+		double xs = q1.x * k;
+		double ys = q1.y * k;
+		double zs = q1.z * k;
+		double wx = q1.w * xs;
+		double wy = q1.w * ys;
+		double wz = q1.w * zs;
+		double xx = q1.x * xs;
+		double xy = q1.x * ys;
+		double xz = q1.x * zs;
+		double yy = q1.y * ys;
+		double yz = q1.y * zs;
+		double zz = q1.z * zs;
+
+		double m[] = this.local;
+		int o = node * STRIDE;
+		m[o]      = (1.0D - (yy + zz)) * s; m[o + 1]  = (xy - wz) * s;          m[o + 2]  = (xz + wy) * s;          m[o + 3]  = t1.x;
+		m[o + 4]  = (xy + wz) * s;          m[o + 5]  = (1.0D - (xx + zz)) * s; m[o + 6]  = (yz - wx) * s;          m[o + 7]  = t1.y;
+		m[o + 8]  = (xz - wy) * s;          m[o + 9]  = (yz + wx) * s;          m[o + 10] = (1.0D - (xx + yy)) * s; m[o + 11] = t1.z;
+		m[o + 12] = 0.0D;                   m[o + 13] = 0.0D;                   m[o + 14] = 0.0D;                   m[o + 15] = 1.0D;
+		this.markDirty(node);
+	}
+
+	/**
+	 * Copies the local transform of a node into m1.
+	 * @param node the node index
+	 * @param m1 the matrix into which the transform is copied
+	 */
+	public final void getLocal(int node, Matrix4d m1) {
+
+		this.check(node);
+		get(this.local, node * STRIDE, m1);
+	}
+
+	/**
+	 * Copies the world transform of a node into m1.
+	 * The value is only valid after an update.
+	 * @param node the node index
+	 * @param m1 the matrix into which the transform is copied
+	 */
+	public final void getWorld(int node, Matrix4d m1) {
+
+		this.check(node);
+		get(this.world, node * STRIDE, m1);
+	}
+
+	/**
+	 * Copies the world transform of a node into m1.
+	 * The value is only valid after an update.
+	 * @param node the node index
+	 * @param m1 the matrix into which the transform is copied
+	 */
+	public final void getWorld(int node, Matrix4f m1) {
+
+		this.check(node);
+		double m[] = this.world;
+		int o = node * STRIDE;
+		m1.m00 = (float)m[o];      m1.m01 = (float)m[o + 1];  m1.m02 = (float)m[o + 2];  m1.m03 = (float)m[o + 3];
+		m1.m10 = (float)m[o + 4];  m1.m11 = (float)m[o + 5];  m1.m12 = (float)m[o + 6];  m1.m13 = (float)m[o + 7];
+		m1.m20 = (float)m[o + 8];  m1.m21 = (float)m[o + 9];  m1.m22 = (float)m[o + 10]; m1.m23 = (float)m[o + 11];
+		m1.m30 = (float)m[o + 12]; m1.m31 = (float)m[o + 13]; m1.m32 = (float)m[o + 14]; m1.m33 = (float)m[o + 15];
+	}
+
+	/**
+	 * Copies the world transform of a node into the array as 16 row-major values.
+	 * The value is only valid after an update.
+	 * @param node the node index
+	 * @param m the array of length 16 into which the transform is copied
+	 */
+	public final void getWorld(int node, double m[]) {
+
+		this.check(node);
+		System.arraycopy(this.world, node * STRIDE, m, 0, STRIDE);
+	}
+
+	/**
+	 * Marks a node dirty so that the next update recomputes the world
+	 * transform of the node and of all its descendants.
+	 * @param node the node index
+	 */
+	public final void markDirty(int node) {
+
+		this.check(node);
+		this.dirty[node] = 1;
+		this.anyDirty = true;
+	}
+
+	/**
+	 * Returns true if the local transform of the node changed since the last update.
+	 * @param node the node index
+	 * @return true if the node is dirty
+	 */
+	public final boolean isDirty(int node) {
+
+		this.check(node);
+		return this.dirty[node] != 0;
+	}
+
+	/**
+	 * Recomputes the world transforms of all dirty nodes and their
+	 * descendants in the calling thread.
+	 */
+	public final void update() {
+
+		if(!this.anyDirty) {
+
+			return;
+		}
+
+		// node indices are ordered parent before child.
+		for(int i = 0; i < this.nodeCount; i++) {
+
+			this.propagate(i);
+		}
+
+		this.clearDirty();
+	}
+
+	/**
+	 * Recomputes the world transforms of all dirty nodes and their
+	 * descendants, processing independent subtrees in parallel.
+	 * Subtrees with less nodes than the parallel threshold are processed
+	 * by the task that reached them.
+	 * @param pool the pool that runs the update, or null to run it in the calling thread
+	 */
+	public final void update(ForkJoinPool pool) {
+
+		if(pool == null) {
+
+			this.update();
+			return;
+		}
+
+		if(!this.anyDirty) {
+
+			return;
+		}
+
+		if(!this.subtreeSizeValid) {
+
+			this.computeSubtreeSizes();
+		}
+
+		pool.invoke(new PropagateTask(this, NO_PARENT));
+		this.clearDirty();
+	}
+
+	private void propagate(int node) {
+
+		int p = this.parent[node];
+
+		if(p == NO_PARENT) {
+
+			if(this.dirty[node] != 0) {
+
+				System.arraycopy(this.local, node * STRIDE, this.world, node * STRIDE, STRIDE);
+			}
+
+		} else if(this.dirty[node] != 0 || this.dirty[p] != 0) {
+
+			this.dirty[node] = 1;
+			mul(this.world, p * STRIDE, this.local, node * STRIDE, this.world, node * STRIDE);
+		}
+	}
+
+	private void clearDirty() {
+
+		Arrays.fill(this.dirty, 0, this.nodeCount, (byte)0);
+		this.anyDirty = false;
+	}
+
+	private void computeSubtreeSizes() {
+
+		if(this.subtreeSize == null || this.subtreeSize.length < this.nodeCount) {
+
+			this.subtreeSize = new int[this.parent.length];
+		}
+
+		Arrays.fill(this.subtreeSize, 0, this.nodeCount, 1);
+
+		// children always have a larger index than their parent.
+		for(int i = this.nodeCount - 1; i >= 0; i--) {
+
+			int p = this.parent[i];
+
+			if(p != NO_PARENT) {
+
+				this.subtreeSize[p] += this.subtreeSize[i];
+			}
+		}
+
+		this.subtreeSizeValid = true;
+	}
+
+	private void grow(int capacity) {
+
+		this.parent = Arrays.copyOf(this.parent, capacity);
+		this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+		this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+		this.local = Arrays.copyOf(this.local, capacity * STRIDE);
+		this.world = Arrays.copyOf(this.world, capacity * STRIDE);
+		this.dirty = Arrays.copyOf(this.dirty, capacity);
+	}
+
+	private void check(int node) {
+
+		if(node < 0 || node >= this.nodeCount) {
+
+			throw new IndexOutOfBoundsException("node:" + node + " nodeCount:" + this.nodeCount);
+		}
+	}
+
+	private static void setIdentity(double m[], int o) {
+
+		Arrays.fill(m, o, o + STRIDE, 0.0D);
+		m[o] = 1.0D;
+		m[o + 5] = 1.0D;
+		m[o + 10] = 1.0D;
+		m[o + 15] = 1.0D;
+	}
+
+	private static void get(double m[], int o, Matrix4d m1) {
+
+		m1.m00 = m[o];      m1.m01 = m[o + 1];  m1.m02 = m[o + 2];  m1.m03 = m[o + 3];
+		m1.m10 = m[o + 4];  m1.m11 = m[o + 5];  m1.m12 = m[o + 6];  m1.m13 = m[o + 7];
+		m1.m20 = m[o + 8];  m1.m21 = m[o + 9];  m1.m22 = m[o + 10]; m1.m23 = m[o + 11];
+		m1.m30 = m[o + 12]; m1.m31 = m[o + 13]; m1.m32 = m[o + 14]; m1.m33 = m[o + 15];
+	}
+
+	/**
+	 * Multiplies the row-major 4x4 matrices a and b and places the result
+	 * into c. c must not overlap a or b.
+	 */
+	private static void mul(double a[], int ao, double b[], int bo, double c[], int co) {
+
+		for(int r = 0; r < 4; r++) {
+
+			int ar = ao + r * 4;
+			double a0 = a[ar];
+			double a1 = a[ar + 1];
+			double a2 = a[ar + 2];
+			double a3 = a[ar + 3];
+			int cr = co + r * 4;
+
+			c[cr]     = a0 * b[bo]     + a1 * b[bo + 4] + a2 * b[bo + 8]  + a3 * b[bo + 12];
+			c[cr + 1] = a0 * b[bo + 1] + a1 * b[bo + 5] + a2 * b[bo + 9]  + a3 * b[bo + 13];
+			c[cr + 2] = a0 * b[bo + 2] + a1 * b[bo + 6] + a2 * b[bo + 10] + a3 * b[bo + 14];
+			c[cr + 3] = a0 * b[bo + 3] + a1 * b[bo + 7] + a2 * b[bo + 11] + a3 * b[bo + 15];
+		}
+	}
+
+	/**
+	 * Propagates the world transforms of one subtree. Child subtrees that
+	 * reach the parallel threshold are forked as tasks of their own after
+	 * their parent has been processed.
+	 */
+	private static final class PropagateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 6181306424781549172L;
+
+		private final TransformTree tree;
+		private final int root;
+
+		PropagateTask(TransformTree tree, int root) {
+
+			this.tree = tree;
+			this.root = root;
+		}
+
+		@Override
+		protected void compute() {
+
+			TransformTree tree = this.tree;
+			int threshold = tree.parallelThreshold;
+			List<PropagateTask> forked = null;
+			int stack[] = new int[this.root == NO_PARENT ? tree.nodeCount + 1 : tree.subtreeSize[this.root]];
+			int top = 0;
+			stack[top++] = this.root;
+
+			while(top > 0) {
+
+				int node = stack[--top];
+				int child;
+
+				if(node == NO_PARENT) {
+
+					child = tree.firstRoot;
+
+				} else {
+
+					tree.propagate(node);
+					child = tree.firstChild[node];
+				}
+
+				for(; child != NO_PARENT; child = tree.nextSibling[child]) {
+
+					if(tree.subtreeSize[child] >= threshold) {
+
+						if(forked == null) {
+
+							forked = new ArrayList<>();
+						}
+
+						PropagateTask task = new PropagateTask(tree, child);
+						task.fork();
+						forked.add(task);
+
+					} else {
+
+						stack[top++] = child;
+					}
+				}
+			}
+
+			if(forked != null) {
+
+				for(PropagateTask task : forked) {
+
+					task.join();
+				}
+			}
+		}
+	}
+}
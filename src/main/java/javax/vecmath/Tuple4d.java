@@ -346,6 +346,20 @@ public abstract class Tuple4d implements Serializable {
 		  wbits ^ (wbits >> 32));
       }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Tuple4d) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	long h = HashMix.SEED;
+	h = HashMix.mix(h, x);
+	h = HashMix.mix(h, y);
+	h = HashMix.mix(h, z);
+	h = HashMix.mix(h, w);
+	return HashMix.finish(h, 4);
+    }
+
     /**
       * Returns true if all of the data members of Tuple4d t1 are equal to the corresponding
       * data members in this
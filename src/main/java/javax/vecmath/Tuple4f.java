@@ -288,7 +288,7 @@ public abstract class Tuple4f implements Serializable {
     	this.x = s * this.x + t1.x;
 		this.y = s * this.y + t1.y;
 		this.z = s * this.z + t1.z;
-		this.w = s * this.z + t1.w;
+		this.w = s * this.w + t1.w;
     }
 
     /**
@@ -307,6 +307,22 @@ public abstract class Tuple4f implements Serializable {
                Float.floatToIntBits(this.w);
     }
 
+    /**
+     * Returns a 64 bit hash of the data values in this object, mixed by
+     * {@link HashMix}; objects equal by equals(Tuple4f) have equal hashes.
+     * @return the 64 bit hash value
+     */
+    public final long longHashCode() {
+	
+    	long h = HashMix.SEED;
+    	h = HashMix.mix(h, this.x);
+    	h = HashMix.mix(h, this.y);
+    	h = HashMix.mix(h, this.z);
+    	h = HashMix.mix(h, this.w);
+
+    	return HashMix.finish(h, 4);
+    }
+
     /**
      * Returns true if all of the data members of Tuple4f t1 are equal to the corresponding
      * data members in this
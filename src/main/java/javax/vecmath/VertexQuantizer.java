@@ -0,0 +1,653 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Quantizes points to integer grid coordinates relative to a bounding box,
+ * and unit normals to octahedral codes.
+ * <p>
+ * Each axis of the box is divided into 2^bits - 1 equal steps, bits from 1
+ * to 21, and a coordinate is rounded to the nearest grid line; points
+ * outside the box are clamped to it. A dequantized coordinate is therefore
+ * within half a step of the original, the bound {@link #getMaxError()}
+ * reports. With up to 16 bits the grid coordinates fit in three unsigned
+ * shorts (6 bytes per point instead of 12 or 24), with up to 21 bits in one
+ * long as x | y &lt;&lt; 21 | z &lt;&lt; 42 (8 bytes per point). Single
+ * points are quantized to a {@link Tuple3i}.
+ * <p>
+ * Octahedral codes map the unit sphere onto a square, folding the lower
+ * hemisphere over the diagonals, and quantize the two square coordinates.
+ * With b bits per coordinate a code takes 2b bits of an int; 2 x 8 bits
+ * give an angular error below 0.64 degrees, 2 x 12 bits below 0.06 degrees.
+ * Encoding tries the four neighbouring grid points and keeps the one that
+ * decodes closest to the normal.
+ * <p>
+ * A VertexQuantizer is immutable. The bulk methods take a ForkJoinPool;
+ * with a null pool the calling thread does all the work.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class VertexQuantizer {
+
+	/**
+	 * The largest number of bits per axis.
+	 */
+	public static final int MAX_BITS = 21;
+
+	// points per parallel task.
+	private static final int GRAIN = 1 << 14;
+
+	private static final long MASK_21 = (1L << 21) - 1L;
+
+	private final int bits;
+	private final int levels;
+
+	private final double minX, minY, minZ;
+	private final double stepX, stepY, stepZ;
+	private final double scaleX, scaleY, scaleZ;
+
+	/**
+	 * Constructs a quantizer over a box.
+	 * @param bounds the box, not empty
+	 * @param bits the number of bits per axis, from 1 to 21
+	 */
+	public VertexQuantizer(BoundingBox3d bounds, int bits) {
+
+		if(bits < 1 || bits > MAX_BITS) {
+
+			throw new IllegalArgumentException("bits:" + bits);
+		}
+
+		if(bounds.isEmpty()) {
+
+			throw new IllegalArgumentException("bounds:" + bounds);
+		}
+
+		this.bits = bits;
+		this.levels = (1 << bits) - 1;
+		this.minX = bounds.minX;
+		this.minY = bounds.minY;
+		this.minZ = bounds.minZ;
+		this.stepX = (bounds.maxX - bounds.minX) / this.levels;
+		this.stepY = (bounds.maxY - bounds.minY) / this.levels;
+		this.stepZ = (bounds.maxZ - bounds.minZ) / this.levels;
+		this.scaleX = this.stepX > 0.0D ? 1.0D / this.stepX : 0.0D;
+		this.scaleY = this.stepY > 0.0D ? 1.0D / this.stepY : 0.0D;
+		this.scaleZ = this.stepZ > 0.0D ? 1.0D / this.stepZ : 0.0D;
+	}
+
+	/**
+	 * Constructs a quantizer over a box.
+	 * @param bounds the box, not empty
+	 * @param bits the number of bits per axis, from 1 to 21
+	 */
+	public VertexQuantizer(BoundingBox3f bounds, int bits) {
+
+		this(new BoundingBox3d(bounds), bits);
+	}
+
+	/**
+	 * Returns the quantizer over a box with the fewest bits whose max error
+	 * is at most maxError.
+	 * @param bounds the box, not empty
+	 * @param maxError the largest acceptable error of a coordinate
+	 * @return the quantizer
+	 * @throws IllegalArgumentException if even 21 bits are too coarse
+	 */
+	public static VertexQuantizer forMaxError(BoundingBox3d bounds, double maxError) {
+
+		for(int bits = 1; bits <= MAX_BITS; bits++) {
+
+			VertexQuantizer q = new VertexQuantizer(bounds, bits);
+
+			if(q.getMaxError() <= maxError) {
+
+				return q;
+			}
+		}
+
+		throw new IllegalArgumentException("maxError:" + maxError + " needs more than " + MAX_BITS + " bits");
+	}
+
+	/**
+	 * Returns the number of bits per axis.
+	 * @return the bits
+	 */
+	public final int getBits() {
+
+		return this.bits;
+	}
+
+	/**
+	 * Copies the grid spacing along each axis into t.
+	 * @param t the tuple that receives the steps
+	 */
+	public final void getStep(Tuple3d t) {
+
+		t.set(this.stepX, this.stepY, this.stepZ);
+	}
+
+	/**
+	 * Returns the largest distance along any axis between a point in the
+	 * box and its dequantized value, half the largest step.
+	 * @return the max error
+	 */
+	public final double getMaxError() {
+
+		return 0.5D * Math.max(this.stepX, Math.max(this.stepY, this.stepZ));
+	}
+
+	/**
+	 * Returns the largest error of a set of points: the largest distance
+	 * along any axis between a point and its dequantized value, points
+	 * outside the box included.
+	 * @param xyz the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param count the number of points
+	 * @return the max error of the points
+	 */
+	public final double measureError(double xyz[], int offset, int count) {
+
+		check(xyz.length, offset, count, 3);
+
+		double error = 0.0D;
+
+		for(int i = 0; i < count; i++) {
+
+			int o = offset + i * 3;
+			error = Math.max(error, Math.abs(this.x(this.qx(xyz[o])) - xyz[o]));
+			error = Math.max(error, Math.abs(this.y(this.qy(xyz[o + 1])) - xyz[o + 1]));
+			error = Math.max(error, Math.abs(this.z(this.qz(xyz[o + 2])) - xyz[o + 2]));
+		}
+
+		return error;
+	}
+
+	/**
+	 * Quantizes a point.
+	 * @param p the point
+	 * @param q the tuple that receives the grid coordinates
+	 */
+	public final void quantize(Tuple3d p, Tuple3i q) {
+
+		q.set(this.qx(p.x), this.qy(p.y), this.qz(p.z));
+	}
+
+	/**
+	 * Quantizes a point.
+	 * @param p the point
+	 * @param q the tuple that receives the grid coordinates
+	 */
+	public final void quantize(Tuple3f p, Tuple3i q) {
+
+		q.set(this.qx(p.x), this.qy(p.y), this.qz(p.z));
+	}
+
+	/**
+	 * Sets p to the point of grid coordinates q.
+	 * @param q the grid coordinates
+	 * @param p the tuple that receives the point
+	 */
+	public final void dequantize(Tuple3i q, Tuple3d p) {
+
+		p.set(this.x(q.x), this.y(q.y), this.z(q.z));
+	}
+
+	/**
+	 * Sets p to the point of grid coordinates q.
+	 * @param q the grid coordinates
+	 * @param p the tuple that receives the point
+	 */
+	public final void dequantize(Tuple3i q, Tuple3f p) {
+
+		p.set((float)this.x(q.x), (float)this.y(q.y), (float)this.z(q.z));
+	}
+
+	/**
+	 * Quantizes count points into three unsigned shorts each. Needs at most 16 bits.
+	 * @param xyz the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param q the array that receives the grid coordinates
+	 * @param qOffset the index of the first grid coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the quantization, or null to run it in the calling thread
+	 */
+	public final void quantize(float xyz[], int offset, short q[], int qOffset, int count, ForkJoinPool pool) {
+
+		this.checkShort();
+		check(xyz.length, offset, count, 3);
+		check(q.length, qOffset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * 3;
+				int d = qOffset + i * 3;
+				q[d] = (short)this.qx(xyz[o]);
+				q[d + 1] = (short)this.qy(xyz[o + 1]);
+				q[d + 2] = (short)this.qz(xyz[o + 2]);
+			}
+		});
+	}
+
+	/**
+	 * Quantizes count points into three unsigned shorts each. Needs at most 16 bits.
+	 * @param xyz the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param q the array that receives the grid coordinates
+	 * @param qOffset the index of the first grid coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the quantization, or null to run it in the calling thread
+	 */
+	public final void quantize(double xyz[], int offset, short q[], int qOffset, int count, ForkJoinPool pool) {
+
+		this.checkShort();
+		check(xyz.length, offset, count, 3);
+		check(q.length, qOffset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * 3;
+				int d = qOffset + i * 3;
+				q[d] = (short)this.qx(xyz[o]);
+				q[d + 1] = (short)this.qy(xyz[o + 1]);
+				q[d + 2] = (short)this.qz(xyz[o + 2]);
+			}
+		});
+	}
+
+	/**
+	 * Quantizes count points into one long each.
+	 * @param xyz the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param q the array that receives the packed grid coordinates
+	 * @param qOffset the index of the first packed point
+	 * @param count the number of points
+	 * @param pool the pool that runs the quantization, or null to run it in the calling thread
+	 */
+	public final void quantize(float xyz[], int offset, long q[], int qOffset, int count, ForkJoinPool pool) {
+
+		check(xyz.length, offset, count, 3);
+		check(q.length, qOffset, count, 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * 3;
+				q[qOffset + i] = pack(this.qx(xyz[o]), this.qy(xyz[o + 1]), this.qz(xyz[o + 2]));
+			}
+		});
+	}
+
+	/**
+	 * Quantizes count points into one long each.
+	 * @param xyz the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param q the array that receives the packed grid coordinates
+	 * @param qOffset the index of the first packed point
+	 * @param count the number of points
+	 * @param pool the pool that runs the quantization, or null to run it in the calling thread
+	 */
+	public final void quantize(double xyz[], int offset, long q[], int qOffset, int count, ForkJoinPool pool) {
+
+		check(xyz.length, offset, count, 3);
+		check(q.length, qOffset, count, 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * 3;
+				q[qOffset + i] = pack(this.qx(xyz[o]), this.qy(xyz[o + 1]), this.qz(xyz[o + 2]));
+			}
+		});
+	}
+
+	/**
+	 * Dequantizes count points of three unsigned shorts each.
+	 * @param q the grid coordinates
+	 * @param qOffset the index of the first grid coordinate
+	 * @param xyz the array that receives the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the dequantization, or null to run it in the calling thread
+	 */
+	public final void dequantize(short q[], int qOffset, float xyz[], int offset, int count, ForkJoinPool pool) {
+
+		check(q.length, qOffset, count, 3);
+		check(xyz.length, offset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int s = qOffset + i * 3;
+				int o = offset + i * 3;
+				xyz[o] = (float)this.x(q[s] & 0xFFFF);
+				xyz[o + 1] = (float)this.y(q[s + 1] & 0xFFFF);
+				xyz[o + 2] = (float)this.z(q[s + 2] & 0xFFFF);
+			}
+		});
+	}
+
+	/**
+	 * Dequantizes count points of three unsigned shorts each.
+	 * @param q the grid coordinates
+	 * @param qOffset the index of the first grid coordinate
+	 * @param xyz the array that receives the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the dequantization, or null to run it in the calling thread
+	 */
+	public final void dequantize(short q[], int qOffset, double xyz[], int offset, int count, ForkJoinPool pool) {
+
+		check(q.length, qOffset, count, 3);
+		check(xyz.length, offset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int s = qOffset + i * 3;
+				int o = offset + i * 3;
+				xyz[o] = this.x(q[s] & 0xFFFF);
+				xyz[o + 1] = this.y(q[s + 1] & 0xFFFF);
+				xyz[o + 2] = this.z(q[s + 2] & 0xFFFF);
+			}
+		});
+	}
+
+	/**
+	 * Dequantizes count points of one long each.
+	 * @param q the packed grid coordinates
+	 * @param qOffset the index of the first packed point
+	 * @param xyz the array that receives the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the dequantization, or null to run it in the calling thread
+	 */
+	public final void dequantize(long q[], int qOffset, float xyz[], int offset, int count, ForkJoinPool pool) {
+
+		check(q.length, qOffset, count, 1);
+		check(xyz.length, offset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				long p = q[qOffset + i];
+				int o = offset + i * 3;
+				xyz[o] = (float)this.x((int)(p & MASK_21));
+				xyz[o + 1] = (float)this.y((int)((p >>> 21) & MASK_21));
+				xyz[o + 2] = (float)this.z((int)((p >>> 42) & MASK_21));
+			}
+		});
+	}
+
+	/**
+	 * Dequantizes count points of one long each.
+	 * @param q the packed grid coordinates
+	 * @param qOffset the index of the first packed point
+	 * @param xyz the array that receives the packed coordinates
+	 * @param offset the index of the first coordinate
+	 * @param count the number of points
+	 * @param pool the pool that runs the dequantization, or null to run it in the calling thread
+	 */
+	public final void dequantize(long q[], int qOffset, double xyz[], int offset, int count, ForkJoinPool pool) {
+
+		check(q.length, qOffset, count, 1);
+		check(xyz.length, offset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				long p = q[qOffset + i];
+				int o = offset + i * 3;
+				xyz[o] = this.x((int)(p & MASK_21));
+				xyz[o + 1] = this.y((int)((p >>> 21) & MASK_21));
+				xyz[o + 2] = this.z((int)((p >>> 42) & MASK_21));
+			}
+		});
+	}
+
+	/**
+	 * Returns the octahedral code of a unit normal.
+	 * @param n the normal; it need not be normalized but must not be zero
+	 * @param bits the number of bits per code coordinate, from 2 to 16
+	 * @return the code, u &lt;&lt; bits | v
+	 */
+	public static int encodeNormal(Tuple3f n, int bits) {
+
+		checkNormalBits(bits);
+
+		return encode(n.x, n.y, n.z, bits);
+	}
+
+	/**
+	 * Sets n to the unit normal of an octahedral code.
+	 * @param code the code
+	 * @param bits the number of bits per code coordinate, from 2 to 16
+	 * @param n the tuple that receives the normal
+	 */
+	public static void decodeNormal(int code, int bits, Tuple3f n) {
+
+		checkNormalBits(bits);
+
+		float t[] = new float[3];
+
+		decode(code, bits, t, 0);
+		n.set(t);
+	}
+
+	/**
+	 * Encodes count packed normals into octahedral codes.
+	 * @param xyz the packed normals
+	 * @param offset the index of the first coordinate
+	 * @param codes the array that receives the codes
+	 * @param codesOffset the index of the first code
+	 * @param count the number of normals
+	 * @param bits the number of bits per code coordinate, from 2 to 16
+	 * @param pool the pool that runs the encoding, or null to run it in the calling thread
+	 */
+	public static void encodeNormals(float xyz[], int offset, int codes[], int codesOffset, int count, int bits, ForkJoinPool pool) {
+
+		checkNormalBits(bits);
+		check(xyz.length, offset, count, 3);
+		check(codes.length, codesOffset, count, 1);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				int o = offset + i * 3;
+				codes[codesOffset + i] = encode(xyz[o], xyz[o + 1], xyz[o + 2], bits);
+			}
+		});
+	}
+
+	/**
+	 * Decodes count octahedral codes into packed unit normals.
+	 * @param codes the codes
+	 * @param codesOffset the index of the first code
+	 * @param xyz the array that receives the packed normals
+	 * @param offset the index of the first coordinate
+	 * @param count the number of normals
+	 * @param bits the number of bits per code coordinate, from 2 to 16
+	 * @param pool the pool that runs the decoding, or null to run it in the calling thread
+	 */
+	public static void decodeNormals(int codes[], int codesOffset, float xyz[], int offset, int count, int bits, ForkJoinPool pool) {
+
+		checkNormalBits(bits);
+		check(codes.length, codesOffset, count, 1);
+		check(xyz.length, offset, count, 3);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				decode(codes[codesOffset + i], bits, xyz, offset + i * 3);
+			}
+		});
+	}
+
+	private int qx(double v) {
+
+		return this.round((v - this.minX) * this.scaleX);
+	}
+
+	private int qy(double v) {
+
+		return this.round((v - this.minY) * this.scaleY);
+	}
+
+	private int qz(double v) {
+
+		return this.round((v - this.minZ) * this.scaleZ);
+	}
+
+	// the nearest grid line of a coordinate in steps, clamped to the box.
+	private int round(double steps) {
+
+		return steps > 0.0D ? (int)Math.min(steps + 0.5D, this.levels) : 0;
+	}
+
+	private double x(int q) {
+
+		return this.minX + q * this.stepX;
+	}
+
+	private double y(int q) {
+
+		return this.minY + q * this.stepY;
+	}
+
+	private double z(int q) {
+
+		return this.minZ + q * this.stepZ;
+	}
+
+	private static long pack(int x, int y, int z) {
+
+		return x | ((long)y << 21) | ((long)z << 42);
+	}
+
+	private static int encode(float x, float y, float z, int bits) {
+
+		float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		float u = x / l1;
+		float v = y / l1;
+
+		if(z < 0.0F) {
+
+			float fu = (1.0F - Math.abs(v)) * (u >= 0.0F ? 1.0F : -1.0F);
+			v = (1.0F - Math.abs(u)) * (v >= 0.0F ? 1.0F : -1.0F);
+			u = fu;
+		}
+
+		// the four grid points around (u, v); keep the one decoding closest to n.
+		int levels = (1 << bits) - 1;
+		float su = (u + 1.0F) * 0.5F * levels;
+		float sv = (v + 1.0F) * 0.5F * levels;
+		int u0 = Math.min((int)su, levels - 1);
+		int v0 = Math.min((int)sv, levels - 1);
+		float best = Float.NEGATIVE_INFINITY;
+		int code = 0;
+
+		for(int k = 0; k < 4; k++) {
+
+			int c = ((u0 + (k & 1)) << bits) | (v0 + (k >> 1));
+			float dot = dot(c, bits, x, y, z);
+
+			if(dot > best) {
+
+				best = dot;
+				code = c;
+			}
+		}
+
+		return code;
+	}
+
+	// the cosine of the angle between the normal of a code and (x, y, z), times |(x, y, z)|.
+	private static float dot(int code, int bits, float x, float y, float z) {
+
+		int levels = (1 << bits) - 1;
+		float u = (code >>> bits) * 2.0F / levels - 1.0F;
+		float v = (code & levels) * 2.0F / levels - 1.0F;
+		float w = 1.0F - Math.abs(u) - Math.abs(v);
+
+		if(w < 0.0F) {
+
+			float fu = (1.0F - Math.abs(v)) * (u >= 0.0F ? 1.0F : -1.0F);
+			v = (1.0F - Math.abs(u)) * (v >= 0.0F ? 1.0F : -1.0F);
+			u = fu;
+		}
+
+		return (u * x + v * y + w * z) / (float)Math.sqrt(u * u + v * v + w * w);
+	}
+
+	private static void decode(int code, int bits, float n[], int o) {
+
+		int levels = (1 << bits) - 1;
+		float u = (code >>> bits) * 2.0F / levels - 1.0F;
+		float v = (code & levels) * 2.0F / levels - 1.0F;
+		float z = 1.0F - Math.abs(u) - Math.abs(v);
+
+		if(z < 0.0F) {
+
+			float fu = (1.0F - Math.abs(v)) * (u >= 0.0F ? 1.0F : -1.0F);
+			v = (1.0F - Math.abs(u)) * (v >= 0.0F ? 1.0F : -1.0F);
+			u = fu;
+		}
+
+		float s = 1.0F / (float)Math.sqrt(u * u + v * v + z * z);
+
+		n[o] = u * s;
+		n[o + 1] = v * s;
+		n[o + 2] = z * s;
+	}
+
+	private void checkShort() {
+
+		if(this.bits > 16) {
+
+			throw new IllegalStateException("bits:" + this.bits + " do not fit in a short");
+		}
+	}
+
+	private static void checkNormalBits(int bits) {
+
+		if(bits < 2 || bits > 16) {
+
+			throw new IllegalArgumentException("bits:" + bits);
+		}
+	}
+
+	private static void check(int length, int offset, int count, int stride) {
+
+		if(offset < 0 || count < 0 || offset + (long)count * stride > length) {
+
+			throw new IndexOutOfBoundsException("offset:" + offset + " count:" + count + " length:" + length);
+		}
+	}
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 1997,1998,1999
+ * Kenji Hiranabe, Eiwa System Management, Inc.
+ *
+ * This program is free software.
+ * Implemented by Kenji Hiranabe(hiranabe@esm.co.jp),
+ * conforming to the Java(TM) 3D API specification by Sun Microsystems.
+ *
+ * Permission to use, copy, modify, distribute and sell this software
+ * and its documentation for any purpose is hereby granted without fee,
+ * provided that the above copyright notice appear in all copies and
+ * that both that copyright notice and this permission notice appear
+ * in supporting documentation. Kenji Hiranabe and Eiwa System Management,Inc.
+ * makes no representations about the suitability of this software for any
+ * purpose.  It is provided "AS IS" with NO WARRANTY.
+ */
+package javax.vecmath;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Merges the vertices of a packed xyz array that are within epsilon of each
+ * other, in the sense of {@link Tuple3d#epsilonEquals(Tuple3d, double)}:
+ * every coordinate differs by at most epsilon.
+ * <p>
+ * Vertices are quantized to a grid of cells 2 * epsilon wide. A vertex can
+ * only be within epsilon of vertices in its own cell or in the adjacent
+ * cell on the side of each axis it is closer to, so at most 8 cells are
+ * searched. The cells are kept in an open addressing table of packed long
+ * keys with a MurmurHash3 mix; every cell refers to a chain of the
+ * representative vertices found in it.
+ * <p>
+ * {@link #weld(float[], int, int[], ForkJoinPool)} produces a remap table:
+ * remap[i] is the index of the welded vertex of vertex i, numbered in the
+ * order of their first occurrence. A vertex is merged into the first earlier
+ * representative within epsilon, searching its own cell first; points that
+ * are each within epsilon of the next are not merged transitively. The cell
+ * keys of all vertices are computed in parallel, and the merging pass is
+ * serial so the result does not depend on the pool. With an epsilon of 0
+ * only vertices with equal coordinates are merged.
+ * <p>
+ * A VertexWelder reuses its buffers between calls and must not be used by
+ * several threads at once.
+ * @version specification 1.2, implementation $Revision$, $Date$
+ */
+public final class VertexWelder {
+
+	private static final int BITS = 21;
+	private static final long MASK = (1L << BITS) - 1L;
+
+	private static final int NONE = -1;
+
+	// vertices per parallel task of the key phase.
+	private static final int GRAIN = 8192;
+
+	private final double epsilon;
+	private final double inverseCellSize;
+
+	// per vertex: the cell key, the sides of the nearer neighbour cells and the next representative of the cell.
+	private long cellKeys[] = new long[0];
+	private byte near[] = new byte[0];
+	private int next[] = new int[0];
+
+	// cell key -> first representative.
+	private long keys[];
+	private int heads[];
+	private int cells;
+
+	/**
+	 * Constructs a welder with the specified tolerance.
+	 * @param epsilon the largest coordinate difference of merged vertices, at least 0
+	 */
+	public VertexWelder(double epsilon) {
+
+		if(!(epsilon >= 0.0D) || Double.isInfinite(epsilon)) {
+
+			throw new IllegalArgumentException("epsilon:" + epsilon);
+		}
+
+		this.epsilon = epsilon;
+		this.inverseCellSize = epsilon > 0.0D ? 0.5D / epsilon : 0.0D;
+		this.allocateTable(16);
+	}
+
+	/**
+	 * Returns the tolerance.
+	 * @return epsilon
+	 */
+	public final double getEpsilon() {
+
+		return this.epsilon;
+	}
+
+	/**
+	 * Computes the remap table of count vertices.
+	 * @param xyz the vertices, 3 coordinates each
+	 * @param count the number of vertices
+	 * @param remap the array that receives the welded index of every vertex
+	 * @param pool the pool that computes the cell keys, or null to run in the calling thread
+	 * @return the number of welded vertices
+	 */
+	public final int weld(float xyz[], int count, int remap[], ForkJoinPool pool) {
+
+		this.prepare(xyz.length, count, remap);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.quantize(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+			}
+		});
+
+		int searched = this.epsilon > 0.0D ? 8 : 1;
+		float e = (float)this.epsilon;
+		int unique = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			float x = xyz[i * 3];
+			float y = xyz[i * 3 + 1];
+			float z = xyz[i * 3 + 2];
+			long key = this.cellKeys[i];
+			int found = NONE;
+
+			for(int c = 0; c < searched && found == NONE; c++) {
+
+				int slot = this.find(c == 0 ? key : neighbour(key, this.near[i], c));
+
+				for(int j = slot == NONE ? NONE : this.heads[slot]; j != NONE; j = this.next[j]) {
+
+					if(Math.abs(xyz[j * 3] - x) <= e && Math.abs(xyz[j * 3 + 1] - y) <= e && Math.abs(xyz[j * 3 + 2] - z) <= e) {
+
+						found = j;
+						break;
+					}
+				}
+			}
+
+			if(found != NONE) {
+
+				remap[i] = remap[found];
+
+			} else {
+
+				remap[i] = unique++;
+				this.link(i, key);
+			}
+		}
+
+		return unique;
+	}
+
+	/**
+	 * Computes the remap table of count vertices.
+	 * See {@link #weld(float[], int, int[], ForkJoinPool)}.
+	 * @param xyz the vertices, 3 coordinates each
+	 * @param count the number of vertices
+	 * @param remap the array that receives the welded index of every vertex
+	 * @param pool the pool that computes the cell keys, or null to run in the calling thread
+	 * @return the number of welded vertices
+	 */
+	public final int weld(double xyz[], int count, int remap[], ForkJoinPool pool) {
+
+		this.prepare(xyz.length, count, remap);
+
+		ParallelLoop.run(pool, 0, count, GRAIN, (from, to) -> {
+
+			for(int i = from; i < to; i++) {
+
+				this.quantize(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+			}
+		});
+
+		int searched = this.epsilon > 0.0D ? 8 : 1;
+		double e = this.epsilon;
+		int unique = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			double x = xyz[i * 3];
+			double y = xyz[i * 3 + 1];
+			double z = xyz[i * 3 + 2];
+			long key = this.cellKeys[i];
+			int found = NONE;
+
+			for(int c = 0; c < searched && found == NONE; c++) {
+
+				int slot = this.find(c == 0 ? key : neighbour(key, this.near[i], c));
+
+				for(int j = slot == NONE ? NONE : this.heads[slot]; j != NONE; j = this.next[j]) {
+
+					if(Math.abs(xyz[j * 3] - x) <= e && Math.abs(xyz[j * 3 + 1] - y) <= e && Math.abs(xyz[j * 3 + 2] - z) <= e) {
+
+						found = j;
+						break;
+					}
+				}
+			}
+
+			if(found != NONE) {
+
+				remap[i] = remap[found];
+
+			} else {
+
+				remap[i] = unique++;
+				this.link(i, key);
+			}
+		}
+
+		return unique;
+	}
+
+	/**
+	 * Copies the first occurrence of every welded vertex into dst.
+	 * @param xyz the vertices, 3 coordinates each
+	 * @param count the number of vertices
+	 * @param remap the remap table computed by weld
+	 * @param dst the array that receives the welded vertices, 3 coordinates each
+	 */
+	public static void compact(float xyz[], int count, int remap[], float dst[]) {
+
+		for(int i = 0, unique = 0; i < count; i++) {
+
+			if(remap[i] == unique) {
+
+				System.arraycopy(xyz, i * 3, dst, unique * 3, 3);
+				unique++;
+			}
+		}
+	}
+
+	/**
+	 * Copies the first occurrence of every welded vertex into dst.
+	 * @param xyz the vertices, 3 coordinates each
+	 * @param count the number of vertices
+	 * @param remap the remap table computed by weld
+	 * @param dst the array that receives the welded vertices, 3 coordinates each
+	 */
+	public static void compact(double xyz[], int count, int remap[], double dst[]) {
+
+		for(int i = 0, unique = 0; i < count; i++) {
+
+			if(remap[i] == unique) {
+
+				System.arraycopy(xyz, i * 3, dst, unique * 3, 3);
+				unique++;
+			}
+		}
+	}
+
+	/**
+	 * Replaces every index of indices by its welded index.
+	 * @param indices the vertex indices, of triangles for example
+	 * @param count the number of indices
+	 * @param remap the remap table computed by weld
+	 */
+	public static void remapIndices(int indices[], int count, int remap[]) {
+
+		for(int i = 0; i < count; i++) {
+
+			indices[i] = remap[indices[i]];
+		}
+	}
+
+	private void prepare(int length, int count, int remap[]) {
+
+		if(count < 0 || length < count * 3 || remap.length < count) {
+
+			throw new IndexOutOfBoundsException("count:" + count + " xyz.length:" + length + " remap.length:" + remap.length);
+		}
+
+		if(this.cellKeys.length < count) {
+
+			this.cellKeys = new long[count];
+			this.near = new byte[count];
+			this.next = new int[count];
+		}
+
+		Arrays.fill(this.heads, NONE);
+		this.cells = 0;
+	}
+
+	private void quantize(int i, double x, double y, double z) {
+
+		if(this.epsilon == 0.0D) {
+
+			// exact welding: the cell is the bit pattern, with -0.0 taken as 0.0.
+			long key = Double.doubleToLongBits(x + 0.0D);
+			key = 31L * key + Double.doubleToLongBits(y + 0.0D);
+			key = 31L * key + Double.doubleToLongBits(z + 0.0D);
+			this.cellKeys[i] = key;
+			return;
+		}
+
+		double fx = x * this.inverseCellSize;
+		double fy = y * this.inverseCellSize;
+		double fz = z * this.inverseCellSize;
+		double cx = Math.floor(fx);
+		double cy = Math.floor(fy);
+		double cz = Math.floor(fz);
+		int side = 0;
+
+		// the upper neighbour is the nearer one when the vertex is in the upper half of its cell.
+		if(fx - cx >= 0.5D) {
+
+			side |= 4;
+		}
+
+		if(fy - cy >= 0.5D) {
+
+			side |= 2;
+		}
+
+		if(fz - cz >= 0.5D) {
+
+			side |= 1;
+		}
+
+		// coordinates wrap at 2^21 cells; wrapped cells only cost extra distance checks.
+		this.cellKeys[i] = ((((long)cx) & MASK) << (2 * BITS)) | ((((long)cy) & MASK) << BITS) | (((long)cz) & MASK);
+		this.near[i] = (byte)side;
+	}
+
+	// the key of the cell offset towards the near sides on the axes selected by c.
+	private static long neighbour(long key, int side, int c) {
+
+		long x = key >>> (2 * BITS);
+		long y = key >>> BITS;
+		long z = key;
+
+		if((c & 4) != 0) {
+
+			x += (side & 4) != 0 ? 1L : -1L;
+		}
+
+		if((c & 2) != 0) {
+
+			y += (side & 2) != 0 ? 1L : -1L;
+		}
+
+		if((c & 1) != 0) {
+
+			z += (side & 1) != 0 ? 1L : -1L;
+		}
+
+		return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+	}
+
+	private static int hash(long key) {
+
+		// the 64 bit finalizer of MurmurHash3.
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+
+		return (int)key;
+	}
+
+	private int find(long key) {
+
+		int mask = this.keys.length - 1;
+
+		for(int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+
+			if(this.heads[slot] == NONE) {
+
+				return NONE;
+			}
+
+			if(this.keys[slot] == key) {
+
+				return slot;
+			}
+		}
+	}
+
+	// makes vertex i the first representative of its cell.
+	private void link(int i, long key) {
+
+		int mask = this.keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while(this.heads[slot] != NONE && this.keys[slot] != key) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		if(this.heads[slot] == NONE) {
+
+			this.keys[slot] = key;
+			this.cells++;
+		}
+
+		this.next[i] = this.heads[slot];
+		this.heads[slot] = i;
+
+		if(this.cells * 2 > this.keys.length) {
+
+			this.rehash(this.keys.length * 2);
+		}
+	}
+
+	private void rehash(int length) {
+
+		long oldKeys[] = this.keys;
+		int oldHeads[] = this.heads;
+		this.allocateTable(length);
+
+		int mask = length - 1;
+
+		for(int i = 0; i < oldKeys.length; i++) {
+
+			if(oldHeads[i] != NONE) {
+
+				int slot = hash(oldKeys[i]) & mask;
+
+				while(this.heads[slot] != NONE) {
+
+					slot = (slot + 1) & mask;
+				}
+
+				this.keys[slot] = oldKeys[i];
+				this.heads[slot] = oldHeads[i];
+			}
+		}
+	}
+
+	private void allocateTable(int length) {
+
+		this.keys = new long[length];
+		this.heads = new int[length];
+		Arrays.fill(this.heads, NONE);
+	}
+}
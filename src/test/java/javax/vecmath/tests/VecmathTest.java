@@ -2,19 +2,62 @@ package javax.vecmath.tests;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.ForkJoinPool;
+
 import javax.vecmath.AxisAngle4d;
+import javax.vecmath.BoundingBox3d;
+import javax.vecmath.BoundingBox3f;
+import javax.vecmath.BoundingSphere3d;
+import javax.vecmath.BoundingVolumeHierarchy;
+import javax.vecmath.Color3b;
+import javax.vecmath.Color3f;
+import javax.vecmath.Color4b;
+import javax.vecmath.Color4f;
+import javax.vecmath.ColorConversion;
+import javax.vecmath.Compositor;
+import javax.vecmath.ConvexHull3d;
+import javax.vecmath.CubicCurve3d;
+import javax.vecmath.FastTrig;
+import javax.vecmath.Frustum;
 import javax.vecmath.GMatrix;
 import javax.vecmath.GVector;
+import javax.vecmath.GVectorExpression;
+import javax.vecmath.HalfFloat;
+import javax.vecmath.HalfFloatArray;
+import javax.vecmath.ImmutableMatrix4d;
+import javax.vecmath.ImmutableQuat4d;
+import javax.vecmath.ImmutableVector3d;
+import javax.vecmath.KdTree;
 import javax.vecmath.Matrix3d;
+import javax.vecmath.Matrix3f;
 import javax.vecmath.Matrix4d;
+import javax.vecmath.Matrix4f;
+import javax.vecmath.MatrixBatch;
+import javax.vecmath.MeshNormals;
+import javax.vecmath.MeshSimplifier;
+import javax.vecmath.MismatchedSizeException;
+import javax.vecmath.PackedColor;
 import javax.vecmath.Point3d;
+import javax.vecmath.Point3f;
+import javax.vecmath.Point3i;
 import javax.vecmath.Quat4d;
+import javax.vecmath.Quat4f;
+import javax.vecmath.QuatBatch;
+import javax.vecmath.SingularMatrixException;
+import javax.vecmath.SpatialHashGrid;
+import javax.vecmath.SquadCurve;
+import javax.vecmath.TexCoord2f;
+import javax.vecmath.TransformInterner;
+import javax.vecmath.TransformStore;
+import javax.vecmath.TransformTree;
 import javax.vecmath.Tuple3d;
 import javax.vecmath.Tuple3f;
 import javax.vecmath.Tuple4d;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4d;
+import javax.vecmath.VertexQuantizer;
+import javax.vecmath.VertexWelder;
 
 import org.junit.jupiter.api.Test;
 
@@ -486,6 +529,30 @@ class VecmathTest {
 		assertTrue(equals(m1, m2));
     }
 
+    @Test
+    void Matrix3dHashCodeTest() {
+
+    	// every element counts, not just m00.
+    	Matrix3d a = new Matrix3d(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    	Matrix3d b = new Matrix3d(a);
+    	assertTrue(a.hashCode() == b.hashCode());
+
+    	for(int i = 0; i < 3; i++) {
+
+    		for(int j = 0; j < 3; j++) {
+
+    			b.set(a);
+    			b.setElement(i, j, -a.getElement(i, j));
+    			assertTrue(a.hashCode() != b.hashCode());
+    		}
+    	}
+
+    	// equal matrices, as by equals, hash alike.
+    	b.set(a);
+    	b.m11 = 5.0;
+    	assertTrue(b.equals(a) && a.hashCode() == b.hashCode());
+    }
+
     @Test
     void Matrix4dTest() {
     	
@@ -761,4 +828,2333 @@ class VecmathTest {
         
         assertTrue(equals(matTEMP, matA));
     }
+
+    @Test
+    void TransformTreeTest() {
+
+    	TransformTree tree = new TransformTree(2);
+    	int root = tree.addNode(TransformTree.NO_PARENT);
+    	int arm = tree.addNode(root);
+    	int hand = tree.addNode(arm);
+    	int other = tree.addNode(TransformTree.NO_PARENT);
+
+    	Matrix4d mRoot = new Matrix4d();
+    	mRoot.rotZ(0.3);
+    	mRoot.setTranslation(new Vector3d(1, 2, 3));
+    	Matrix4d mArm = new Matrix4d();
+    	mArm.rotX(-0.7);
+    	mArm.setTranslation(new Vector3d(0, 4, 0));
+    	Matrix4d mHand = new Matrix4d(new Quat4d(0, 0.6, 0, 0.8), new Vector3d(0, 0, 2), 0.5);
+
+    	tree.setLocal(root, mRoot);
+    	tree.setLocal(arm, mArm);
+    	tree.setLocal(hand, new Quat4d(0, 0.6, 0, 0.8), new Vector3d(0, 0, 2), 0.5);
+    	tree.update();
+
+    	Matrix4d expected = new Matrix4d();
+    	Matrix4d actual = new Matrix4d();
+    	expected.mul(mRoot, mArm);
+    	expected.mul(mHand);
+    	tree.getWorld(hand, actual);
+    	assertTrue(equals(expected, actual));
+    	assertTrue(!tree.isDirty(hand));
+
+    	// only the root moved, the parallel update must still reach the hand.
+    	tree.setParallelThreshold(1);
+    	mRoot.rotY(1.1);
+    	tree.setLocal(root, mRoot);
+    	tree.update(ForkJoinPool.commonPool());
+    	expected.mul(mRoot, mArm);
+    	expected.mul(mHand);
+    	tree.getWorld(hand, actual);
+    	assertTrue(equals(expected, actual));
+
+    	expected.setIdentity();
+    	tree.getWorld(other, actual);
+    	assertTrue(equals(expected, actual));
+
+    	// without a pool the calling thread does the update.
+    	mRoot.rotY(0.4);
+    	tree.setLocal(root, mRoot);
+    	tree.update(null);
+    	expected.mul(mRoot, mArm);
+    	expected.mul(mHand);
+    	tree.getWorld(hand, actual);
+    	assertTrue(equals(expected, actual) && !tree.isDirty(hand));
+    }
+
+    @Test
+    void FrustumTest() {
+
+    	Frustum frustum = new Frustum();
+
+    	// the identity matrix gives the cube -1 <= x, y, z <= 1.
+    	assertTrue(frustum.contains(new Point3d(0.5, -0.5, 0.9)));
+    	assertTrue(!frustum.contains(new Point3d(0.5, -1.5, 0.9)));
+    	assertTrue(frustum.intersects(new BoundingSphere3d(1.5, 0, 0, 1)));
+    	assertTrue(!frustum.intersects(new BoundingSphere3d(3, 0, 0, 1)));
+    	assertTrue(frustum.intersects(new BoundingBox3f(0.9f, 0.9f, 0.9f, 2, 2, 2)));
+    	assertTrue(!frustum.intersects(new BoundingBox3d(1.1, -2, -2, 2, 2, 2)));
+
+    	// translated frustum, planes are normalized and point inside.
+    	Matrix4d m = new Matrix4d();
+    	m.setIdentity();
+    	m.setTranslation(new Vector3d(-10, 0, 0));
+    	frustum.set(m);
+    	assertTrue(frustum.contains(new Point3d(10.5, 0, 0)));
+    	Vector4d plane = new Vector4d();
+    	frustum.getPlane(Frustum.LEFT, plane);
+    	assertTrue(equals(plane, new Vector4d(1, 0, 0, -9)));
+
+    	int n = 150;
+    	double x[] = new double[n];
+    	double y[] = new double[n];
+    	double z[] = new double[n];
+    	double r[] = new double[n];
+    	double maxX[] = new double[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		x[i] = 9 + i * 0.1;
+    		r[i] = 0.05;
+    		maxX[i] = x[i] + 0.05;
+    	}
+
+    	long visible[] = new long[3];
+    	visible[0] = -1L;
+    	int count = frustum.cullSpheres(x, y, z, r, 5, n - 5, visible);
+    	assertTrue(count == 16);
+    	assertTrue(Frustum.isVisible(visible, 3));
+    	assertTrue(Frustum.isVisible(visible, 20) && !Frustum.isVisible(visible, 21));
+
+    	BoundingBox3d box = new BoundingBox3d();
+
+    	for(int i = 0; i < n; i++) {
+
+    		box.set(x[i] - 0.05, -0.05, -0.05, maxX[i], 0.05, 0.05);
+    		assertTrue(frustum.intersects(box) == Frustum.isVisible(visible, i) || i < 5);
+    	}
+
+    	assertTrue(frustum.cullBoxes(x, y, z, maxX, y, z, 0, n, visible) == 21);
+    }
+
+    @Test
+    void BoundingVolumeHierarchyTest() {
+
+    	// a 40x40 grid of quads in the plane z = 0, two triangles per quad.
+    	int n = 40;
+    	double xyz[] = new double[(n + 1) * (n + 1) * 3];
+    	int indices[] = new int[n * n * 6];
+
+    	for(int j = 0; j <= n; j++) {
+
+    		for(int i = 0; i <= n; i++) {
+
+    			int v = (j * (n + 1) + i) * 3;
+    			xyz[v] = i;
+    			xyz[v + 1] = j;
+    		}
+    	}
+
+    	for(int j = 0, t = 0; j < n; j++) {
+
+    		for(int i = 0; i < n; i++) {
+
+    			int v = j * (n + 1) + i;
+    			indices[t++] = v;
+    			indices[t++] = v + 1;
+    			indices[t++] = v + n + 2;
+    			indices[t++] = v;
+    			indices[t++] = v + n + 2;
+    			indices[t++] = v + n + 1;
+    		}
+    	}
+
+    	BoundingVolumeHierarchy serial = BoundingVolumeHierarchy.forTriangles(xyz, indices);
+    	BoundingVolumeHierarchy parallel = BoundingVolumeHierarchy.forTriangles(xyz, indices, ForkJoinPool.commonPool());
+    	assertTrue(serial.getPrimitiveCount() == n * n * 2);
+
+    	Point3d hit = new Point3d();
+    	int tri = serial.intersectRay(new Point3d(10.25, 3.75, 5), new Vector3d(0, 0, -1), 100, hit);
+    	assertTrue(tri == (3 * n + 10) * 2 + 1);
+    	assertTrue(equals(hit, new Point3d(10.25, 3.75, 0)));
+    	assertTrue(parallel.intersectRay(new Point3d(10.25, 3.75, 5), new Vector3d(0, 0, -1), 100, null) == tri);
+    	assertTrue(serial.intersectRay(new Point3d(10.25, 3.75, 5), new Vector3d(0, 0, -1), 4, null) == -1);
+    	assertTrue(serial.intersectRay(new Point3d(10.25, 3.75, 5), new Vector3d(0, 0, 1), 100, null) == -1);
+
+    	Point3d closest = new Point3d();
+    	assertTrue(parallel.closestPoint(new Point3d(-3, 20.5, 4), 100, closest) >= 0);
+    	assertTrue(equals(closest, new Point3d(0, 20.5, 0)));
+    	assertTrue(parallel.closestPoint(new Point3d(-3, 20.5, 4), 4, closest) == -1);
+
+    	int result[] = new int[8];
+    	assertTrue(serial.overlap(new BoundingBox3d(4.5, 4.5, -1, 5.5, 5.5, 1), result) == 8);
+    	assertTrue(serial.overlap(new BoundingBox3d(4.5, 4.5, 1, 5.5, 5.5, 2), result) == 0);
+
+    	// deform the mesh and refit, the topology is kept.
+    	for(int v = 2; v < xyz.length; v += 3) {
+
+    		xyz[v] = 7;
+    	}
+
+    	serial.refit(xyz);
+    	assertTrue(serial.intersectRay(new Point3d(10.25, 3.75, 10), new Vector3d(0, 0, -1), 100, hit) == tri);
+    	assertTrue(equals(hit, new Point3d(10.25, 3.75, 7)));
+
+    	BoundingVolumeHierarchy points = BoundingVolumeHierarchy.forPoints(new Point3d[] {
+
+    		new Point3d(0, 0, 0), new Point3d(1, 2, 3), new Point3d(-4, 1, 0), new Point3d(5, 5, 5),
+    		new Point3d(2, 2, 2), new Point3d(9, -1, 0), new Point3d(0, 7, 1)
+    	});
+
+    	assertTrue(points.closestPoint(new Point3d(2.2, 2.1, 2.4), Double.POSITIVE_INFINITY, closest) == 4);
+    	assertTrue(equals(closest, new Point3d(2, 2, 2)));
+    	boolean thrown = false;
+
+    	try {
+
+    		points.intersectRay(new Point3d(), new Vector3d(0, 0, 1), 100, null);
+
+    	} catch(IllegalStateException e) {
+
+    		thrown = true;
+    	}
+
+    	assertTrue(thrown);
+    }
+
+    @Test
+    void KdTreeTest() {
+
+    	java.util.Random random = new java.util.Random(29);
+    	int n = 2000;
+    	Point3d points[] = new Point3d[n];
+    	double coords[] = new double[n * 3];
+
+    	for(int i = 0; i < n; i++) {
+
+    		// coarse coordinates produce many ties on the split axes.
+    		points[i] = new Point3d(random.nextInt(20), random.nextInt(20), random.nextGaussian());
+    		coords[i * 3] = points[i].x;
+    		coords[i * 3 + 1] = points[i].y;
+    		coords[i * 3 + 2] = points[i].z;
+    	}
+
+    	KdTree tree = new KdTree(points);
+    	KdTree parallel = new KdTree(coords, 3, ForkJoinPool.commonPool());
+    	int k = 7;
+    	int indices[] = new int[k];
+    	double distances[] = new double[k];
+    	Point3d q = new Point3d();
+
+    	for(int j = 0; j < 50; j++) {
+
+    		q.set(random.nextDouble() * 20, random.nextDouble() * 20, random.nextGaussian());
+
+    		for(KdTree.Metric metric : KdTree.Metric.values()) {
+
+    			assertTrue(tree.nearest(q, k, metric, indices, distances) == k);
+
+    			double all[] = new double[n];
+
+    			for(int i = 0; i < n; i++) {
+
+    				all[i] = metric == KdTree.Metric.L2 ? q.distance(points[i]) : (metric == KdTree.Metric.L1 ? q.distanceL1(points[i]) : q.distanceLinf(points[i]));
+    			}
+
+    			java.util.Arrays.sort(all);
+
+    			for(int i = 0; i < k; i++) {
+
+    				assertTrue(equals(distances[i], all[i]));
+    			}
+
+    			int inside = 0;
+
+    			while(inside < n && all[inside] <= 1.5) {
+
+    				inside++;
+    			}
+
+    			assertTrue(parallel.withinRadius(q, 1.5, metric, new int[0]) == inside);
+    		}
+    	}
+
+    	// batched queries give the same answers as single ones.
+    	double queries[] = new double[] {1, 2, 0, 15.5, 3.2, -1, 7, 7, 7};
+    	int batch[] = new int[3 * k];
+    	parallel.nearest(queries, 3, k, KdTree.Metric.L2, batch, null, ForkJoinPool.commonPool());
+    	tree.nearest(new Point3d(15.5, 3.2, -1), k, KdTree.Metric.L2, indices, null);
+    	assertTrue(java.util.Arrays.equals(java.util.Arrays.copyOfRange(batch, k, 2 * k), indices));
+
+    	int inBox = 0;
+
+    	for(int i = 0; i < n; i++) {
+
+    		inBox += points[i].x >= 3 && points[i].x <= 5 && points[i].y >= 2 && points[i].y <= 11 && points[i].z >= 0 ? 1 : 0;
+    	}
+
+    	assertTrue(tree.insideBox(new BoundingBox3d(3, 2, 0, 5, 11, 100), new int[n]) == inBox);
+    }
+
+    @Test
+    void SpatialHashGridTest() {
+
+    	java.util.Random random = new java.util.Random(30);
+    	int n = 3000;
+    	float xyz[] = new float[n * 3];
+    	SpatialHashGrid grid = new SpatialHashGrid(0.5);
+
+    	for(int i = 0; i < xyz.length; i++) {
+
+    		xyz[i] = random.nextFloat() * 10.0F - 5.0F;
+    	}
+
+    	grid.update(xyz, n);
+    	assertTrue(grid.size() == n);
+
+    	Point3i cell = new Point3i();
+    	grid.getCell(new Point3f(-0.2F, 0.7F, 1.0F), cell);
+    	assertTrue(cell.equals(new Point3i(-1, 1, 2)));
+
+    	int result[] = new int[n];
+
+    	for(int step = 0; step < 20; step++) {
+
+    		// move, remove and re-insert some points, then compare with brute force.
+    		for(int i = 0; i < n; i++) {
+
+    			xyz[i * 3] += random.nextFloat() - 0.5F;
+    			grid.move(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+    		}
+
+    		for(int i = step; i < n; i += 7) {
+
+    			assertTrue(grid.remove(i));
+    		}
+
+    		assertTrue(!grid.remove(step));
+
+    		Point3d q = new Point3d(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+    		int expected = 0;
+
+    		for(int i = 0; i < n; i++) {
+
+    			double dx = xyz[i * 3] - q.x, dy = xyz[i * 3 + 1] - q.y, dz = xyz[i * 3 + 2] - q.z;
+    			expected += (i - step) % 7 != 0 || i < step ? (dx * dx + dy * dy + dz * dz <= 1.2 ? 1 : 0) : 0;
+    		}
+
+    		assertTrue(grid.withinRadius(q, Math.sqrt(1.2), result) == expected);
+
+    		int listed = 0;
+    		grid.getCell(q, cell);
+
+    		for(int id = grid.getFirst(cell); id != -1; id = grid.getNext(id)) {
+
+    			listed++;
+    		}
+
+    		assertTrue(grid.getNeighbours(cell, result) >= listed);
+
+    		for(int i = step; i < n; i += 7) {
+
+    			grid.insert(i, xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+    		}
+
+    		assertTrue(grid.size() == n);
+    	}
+
+    	for(int i = 0; i < n; i++) {
+
+    		grid.remove(i);
+    	}
+
+    	assertTrue(grid.size() == 0 && grid.getCellCount() == 0);
+    }
+
+    @Test
+    void ImmutableMatrix4dTest() {
+
+    	Matrix4d m = new Matrix4d(new Quat4d(0.2, -0.4, 0.1, 0.8), new Vector3d(1, 2, 3), 1.5);
+    	m.m30 = 0.1;
+    	ImmutableMatrix4d im = ImmutableMatrix4d.of(m);
+    	assertTrue(equals(im.toMatrix4d(), m));
+    	assertTrue(equals(im.determinant(), m.determinant()));
+
+    	Matrix4d inv = new Matrix4d(m);
+    	inv.invert();
+    	assertTrue(equals(im.invert().toMatrix4d(), inv));
+    	assertTrue(im.mul(im.invert()).epsilonEquals(ImmutableMatrix4d.IDENTITY, 1.0e-9));
+
+    	Matrix4d product = new Matrix4d();
+    	product.mul(m, inv);
+    	product.mul(m);
+    	assertTrue(equals(im.mul(im.invert()).mul(im).toMatrix4d(), product));
+
+    	Matrix4d transposed = new Matrix4d(m);
+    	transposed.transpose();
+    	assertTrue(im.transpose().equals(new ImmutableMatrix4d(transposed)));
+    	assertTrue(im.getElement(3, 0) == 0.1 && im.getElement(1, 3) == 2.0);
+
+    	// rotation, translation and scale agree with the mutable types.
+    	Quat4d q = new Quat4d(0.2, -0.4, 0.1, 0.8);
+    	q.normalize();
+    	ImmutableQuat4d iq = ImmutableQuat4d.of(q);
+    	ImmutableMatrix4d trs = ImmutableMatrix4d.of(iq, ImmutableVector3d.of(1, 2, 3), 1.5);
+    	assertTrue(equals(trs.toMatrix4d(), new Matrix4d(q, new Vector3d(1, 2, 3), 1.5)));
+
+    	Point3d p = new Point3d(0.5, -2, 4);
+    	new Matrix4d(q, new Vector3d(1, 2, 3), 1.5).transform(p);
+    	assertTrue(equals(trs.transformPoint(ImmutableVector3d.of(0.5, -2, 4)).toPoint3d(), p));
+
+    	Vector3d v = new Vector3d(0.5, -2, 4);
+    	new Matrix4d(q, new Vector3d(), 1.0).transform(v);
+    	assertTrue(equals(iq.transform(ImmutableVector3d.of(0.5, -2, 4)).toVector3d(), v));
+
+    	Quat4d q2 = new Quat4d();
+    	q2.set(new AxisAngle4d(1, 1, 0, 0.7));
+    	Quat4d expected = new Quat4d();
+    	expected.mul(q, q2);
+    	assertTrue(equals(iq.mul(ImmutableQuat4d.fromAxisAngle(1, 1, 0, 0.7)).toQuat4d(), expected));
+    	expected.interpolate(q, q2, 0.3);
+    	assertTrue(equals(iq.interpolate(ImmutableQuat4d.of(q2), 0.3).toQuat4d(), expected));
+    	assertTrue(iq.mul(iq.inverse()).epsilonEquals(ImmutableQuat4d.IDENTITY, 1.0e-12));
+
+    	ImmutableVector3d a = new ImmutableVector3d(new Vector3d(1, 2, 3));
+    	ImmutableVector3d b = ImmutableVector3d.of(-2, 0.5, 1);
+    	Vector3d cross = new Vector3d();
+    	cross.cross(new Vector3d(1, 2, 3), new Vector3d(-2, 0.5, 1));
+    	assertTrue(equals(a.cross(b).toVector3d(), cross));
+    	assertTrue(equals(a.angle(b), new Vector3d(1, 2, 3).angle(new Vector3d(-2, 0.5, 1))));
+    	assertTrue(a.add(b).sub(b).equals(a) && a.hashCode() == ImmutableVector3d.of(1, 2, 3).hashCode());
+    	assertTrue(equals(a.normalize().length(), 1.0));
+
+    	boolean thrown = false;
+
+    	try {
+
+    		new ImmutableMatrix4d(new Matrix4d()).invert();
+
+    	} catch(SingularMatrixException e) {
+
+    		thrown = true;
+    	}
+
+    	assertTrue(thrown);
+    }
+
+    @Test
+    void TransformStoreTest() throws InterruptedException {
+
+    	TransformStore store = new TransformStore(64);
+    	Matrix4d m = new Matrix4d();
+    	store.get(5, m);
+    	assertTrue(equals(m, new Matrix4d(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1)));
+
+    	Quat4d q = new Quat4d(0.3, -0.2, 0.6, 0.7);
+    	q.normalize();
+    	store.set(5, q, new Vector3d(1, 2, 3));
+    	store.get(5, m);
+    	assertTrue(m.m03 == 0.0);
+    	assertTrue(store.publish() == 1);
+    	store.get(5, m);
+    	assertTrue(equals(m, new Matrix4d(q, new Vector3d(1, 2, 3), 1.0)));
+
+    	Quat4d q2 = new Quat4d();
+    	Vector3d t = new Vector3d();
+    	store.get(5, q2, t);
+    	assertTrue(equals(q2, q) && equals(t, new Vector3d(1, 2, 3)));
+
+    	// a pose set once must stay in both buffers.
+    	store.set(6, m);
+    	store.publish();
+    	store.publish();
+    	Matrix4d m6 = new Matrix4d();
+    	store.get(6, m6);
+    	assertTrue(equals(m6, m));
+
+    	double values[] = new double[16];
+    	m.get(values);
+    	Matrix4d copy = new Matrix4d();
+    	copy.set(values);
+    	assertTrue(equals(copy, m));
+
+    	// every snapshot a reader takes while the writer publishes is one whole publication.
+    	double snapshot[] = new double[64 * 16];
+    	boolean consistent[] = {true};
+    	Thread reader = new Thread(() -> {
+
+    		for(int i = 0; i < 2000; i++) {
+
+    			long epoch = store.get(snapshot);
+
+    			for(int k = 0; k < snapshot.length; k += 16) {
+
+    				if(epoch > 3 && snapshot[k + 3] != epoch) {
+
+    					consistent[0] = false;
+    				}
+    			}
+    		}
+    	});
+    	reader.start();
+
+    	Matrix4d pose = new Matrix4d();
+    	pose.setIdentity();
+
+    	for(int i = 4; i <= 3000; i++) {
+
+    		pose.m03 = i;
+
+    		for(int k = 0; k < 64; k++) {
+
+    			store.set(k, pose);
+    		}
+
+    		assertTrue(store.publish() == i);
+    	}
+
+    	reader.join();
+    	assertTrue(consistent[0]);
+    	assertTrue(store.get(snapshot) == 3000 && snapshot[63 * 16 + 3] == 3000.0);
+    }
+
+    @Test
+    void GVectorParallelTest() {
+
+    	java.util.Random random = new java.util.Random(33);
+    	int n = 300001;
+    	double a[] = new double[n];
+    	double b[] = new double[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		a[i] = random.nextGaussian() * 1.0e3;
+    		b[i] = random.nextGaussian();
+    	}
+
+    	GVector serial = new GVector(a);
+    	serial.scaleAdd(0.5, new GVector(a), new GVector(b));
+    	serial.sub(new GVector(b));
+    	serial.interpolate(new GVector(b), 0.25);
+    	double serialDot = serial.dot(new GVector(b));
+
+    	ForkJoinPool one = new ForkJoinPool(1);
+    	ForkJoinPool four = new ForkJoinPool(4);
+
+    	try {
+
+    		GVector parallel = new GVector(a);
+    		parallel.scaleAdd(0.5, new GVector(a), new GVector(b), four);
+    		parallel.sub(new GVector(b), four);
+    		parallel.interpolate(new GVector(b), 0.25, four);
+    		assertTrue(parallel.equals(serial));
+    		assertTrue(equals(parallel.dot(new GVector(b), four), serialDot));
+
+    		// the reductions give identical bits on any number of threads, and without a pool.
+    		double dot1 = parallel.dot(new GVector(b), one);
+    		double norm1 = parallel.norm(one);
+    		assertTrue(parallel.dot(new GVector(b), four) == dot1 && parallel.dot(new GVector(b), null) == dot1);
+    		assertTrue(parallel.norm(four) == norm1 && parallel.norm(null) == norm1);
+
+    		parallel.normalize(four);
+    		assertTrue(equals(parallel.norm(four), 1.0));
+
+    	} finally {
+
+    		one.shutdown();
+    		four.shutdown();
+    	}
+    }
+
+    @Test
+    void GVectorExpressionTest() {
+
+    	java.util.Random random = new java.util.Random(34);
+    	int n = 1000;
+    	double values[] = new double[n * n];
+
+    	for(int i = 0; i < values.length; i++) {
+
+    		values[i] = random.nextGaussian();
+    	}
+
+    	GMatrix a = new GMatrix(n, n, values);
+    	GVector b = new GVector(n);
+    	GVector x = new GVector(n);
+    	GVector p = new GVector(n);
+
+    	for(int i = 0; i < n; i++) {
+
+    		b.setElement(i, random.nextGaussian());
+    		x.setElement(i, random.nextGaussian());
+    		p.setElement(i, random.nextGaussian());
+    	}
+
+    	// r = b - A * x; p = r + beta * p
+    	GVector ax = new GVector(n);
+    	ax.mul(a, x);
+    	GVector r = new GVector(b);
+    	r.sub(ax);
+    	GVector expected = new GVector(p);
+    	expected.scaleAdd(0.75, p, r);
+
+    	GVector r2 = new GVector(n);
+    	GVectorExpression.of(b).sub(GVectorExpression.mul(a, x)).evaluate(r2);
+    	assertTrue(equals(r2, r));
+
+    	GVector p2 = new GVector(p);
+    	GVectorExpression.of(r2).add(GVectorExpression.of(p2).scale(0.75)).evaluate(p2, ForkJoinPool.commonPool());
+    	assertTrue(equals(p2, expected));
+
+    	// the destination is the vector of the product: x = A * x - x.
+    	GVector expectedX = new GVector(ax);
+    	expectedX.sub(x);
+    	GVectorExpression.mul(a, x).sub(x).evaluate(x);
+    	assertTrue(equals(x, expectedX));
+
+    	GVector negated = GVectorExpression.of(b).scale(2.0).add(b).negate().toGVector();
+    	GVector expectedNegated = new GVector(b);
+    	expectedNegated.scale(-3.0);
+    	assertTrue(equals(negated, expectedNegated));
+
+    	boolean thrown = false;
+
+    	try {
+
+    		GVectorExpression.of(b).add(new GVector(3));
+
+    	} catch(MismatchedSizeException e) {
+
+    		thrown = true;
+    	}
+
+    	assertTrue(thrown);
+    }
+
+    @Test
+    void MatrixBatchTest() {
+
+    	java.util.Random random = new java.util.Random(35);
+    	int count = 3000;
+    	double a[] = new double[count * 16];
+    	double b[] = new double[count * 16];
+
+    	for(int i = 0; i < a.length; i++) {
+
+    		a[i] = random.nextGaussian();
+    		b[i] = random.nextGaussian();
+    	}
+
+    	// one singular matrix: two equal rows.
+    	System.arraycopy(a, 0, a, 4, 4);
+
+    	double product[] = new double[count * 16];
+    	double inverse[] = a.clone();
+    	double determinant[] = new double[count];
+    	double points[] = new double[count * 3];
+    	double transformed[] = new double[count * 3];
+
+    	for(int i = 0; i < points.length; i++) {
+
+    		points[i] = random.nextGaussian();
+    	}
+
+    	MatrixBatch.mul4(a, b, product, count, ForkJoinPool.commonPool());
+    	assertTrue(MatrixBatch.invert4(inverse, inverse, count, ForkJoinPool.commonPool()) == 1);
+    	MatrixBatch.determinant4(a, determinant, count, null);
+    	MatrixBatch.transformPoints4(a, points, transformed, count, null);
+
+    	double values[] = new double[16];
+    	Matrix4d m = new Matrix4d();
+    	Matrix4d n = new Matrix4d();
+
+    	for(int i = 0; i < count; i += 7) {
+
+    		System.arraycopy(a, i * 16, values, 0, 16);
+    		m.set(values);
+    		System.arraycopy(b, i * 16, values, 0, 16);
+    		n.set(values);
+    		assertTrue(equals(determinant[i], m.determinant()));
+
+    		Point3d p = new Point3d(points[i * 3], points[i * 3 + 1], points[i * 3 + 2]);
+    		m.transform(p);
+    		assertTrue(equals(p, new Point3d(transformed[i * 3], transformed[i * 3 + 1], transformed[i * 3 + 2])));
+
+    		n.mul(m, n);
+    		System.arraycopy(product, i * 16, values, 0, 16);
+    		Matrix4d batched = new Matrix4d();
+    		batched.set(values);
+    		assertTrue(equals(batched, n));
+
+    		m.invert();
+    		System.arraycopy(inverse, i * 16, values, 0, 16);
+    		batched.set(values);
+    		assertTrue(equals(batched, m));
+    	}
+
+    	float f[] = new float[count * 9];
+    	float g[] = new float[count * 9];
+    	float fv[] = new float[count * 3];
+
+    	for(int i = 0; i < f.length; i++) {
+
+    		f[i] = (float)random.nextGaussian();
+    	}
+
+    	MatrixBatch.transpose3(f, g, count, ForkJoinPool.commonPool());
+    	MatrixBatch.mul3(f, g, g, count, null);
+
+    	// f * transpose(f) is symmetric.
+    	for(int i = 0; i < count; i++) {
+
+    		assertTrue(Math.abs(g[i * 9 + 1] - g[i * 9 + 3]) < 1.0e-4F && Math.abs(g[i * 9 + 5] - g[i * 9 + 7]) < 1.0e-4F);
+    	}
+
+    	Matrix3f m3 = new Matrix3f(f[9], f[10], f[11], f[12], f[13], f[14], f[15], f[16], f[17]);
+    	Vector3f v = new Vector3f(1, 2, 3);
+    	fv[3] = 1;
+    	fv[4] = 2;
+    	fv[5] = 3;
+    	MatrixBatch.transform3(f, fv, fv, count, null);
+    	m3.transform(v);
+    	assertTrue(equals(v, new Vector3f(fv[3], fv[4], fv[5])));
+    }
+
+    @Test
+    void PolarDecompositionTest() {
+
+    	// rotation times a sheared, non-uniform stretch.
+    	Matrix3d rotation = new Matrix3d();
+    	rotation.set(new AxisAngle4d(0.3, -1, 0.5, 1.1));
+    	Matrix3d stretch = new Matrix3d(2.0, 0.4, 0.1, 0.4, 0.5, -0.2, 0.1, -0.2, 1.3);
+    	Matrix3d m = new Matrix3d();
+    	m.mul(rotation, stretch);
+
+    	Matrix3d r = new Matrix3d();
+    	Matrix3d s = new Matrix3d();
+    	assertTrue(m.polarDecompose(r, s));
+    	assertTrue(equals(r, rotation));
+    	assertTrue(equals(s, stretch));
+
+    	Matrix4d m4 = new Matrix4d(m, new Vector3d(1, 2, 3), 1.0);
+    	Matrix3d r4 = new Matrix3d();
+    	assertTrue(m4.polarDecompose(r4, null));
+    	assertTrue(equals(r4, rotation));
+
+    	// aliasing the source and the rotation.
+    	Matrix3d alias = new Matrix3d(m);
+    	assertTrue(alias.polarDecompose(alias, s));
+    	assertTrue(equals(alias, rotation) && equals(s, stretch));
+
+    	assertTrue(!new Matrix3d(1, 2, 3, 2, 4, 6, 0, 0, 1).polarDecompose(r, s));
+
+    	double batch[] = new double[] {m.m00, m.m01, m.m02, m.m10, m.m11, m.m12, m.m20, m.m21, m.m22, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    	double rotations[] = new double[18];
+    	assertTrue(MatrixBatch.polarDecompose3(batch, rotations, null, 2, null) == 1);
+    	Matrix3d batched = new Matrix3d();
+    	batched.set(rotations);
+    	assertTrue(equals(batched, rotation));
+    }
+
+    @Test
+    void OrthonormalizeTest() {
+
+    	Matrix3d rotation = new Matrix3d();
+    	rotation.set(new AxisAngle4d(0.3, -1, 0.5, 1.1));
+    	Matrix3d identity = new Matrix3d();
+    	identity.setIdentity();
+
+    	// a drifted rotation.
+    	Matrix3d drifted = new Matrix3d(rotation);
+    	drifted.m01 += 1.0e-3;
+    	drifted.m12 -= 2.0e-3;
+    	drifted.m20 += 1.5e-3;
+
+    	Matrix3d m = new Matrix3d(drifted);
+    	m.orthonormalizeGramSchmidt();
+    	Matrix3d check = new Matrix3d();
+    	check.mulTransposeLeft(m, m);
+    	assertTrue(equals(check, identity) && equals(m.determinant(), 1.0));
+
+    	m.set(drifted);
+    	m.orthonormalizeSymmetric();
+    	check.mulTransposeLeft(m, m);
+    	assertTrue(check.epsilonEquals(identity, 1.0e-4));
+
+    	// Newton steps converge to the polar factor.
+    	m.set(drifted);
+    	Matrix3d polar = new Matrix3d();
+    	drifted.polarDecompose(polar, null);
+    	m.orthonormalizeNewton();
+    	m.orthonormalizeNewton();
+    	m.orthonormalizeNewton();
+    	assertTrue(equals(m, polar));
+
+    	Matrix3f f = new Matrix3f(drifted);
+    	f.orthonormalizeNewton();
+    	f.orthonormalizeNewton();
+    	assertTrue(new Matrix3f(polar).epsilonEquals(f, 1.0e-6F));
+
+    	Matrix4d m4 = new Matrix4d(drifted, new Vector3d(1, 2, 3), 1.0);
+    	m4.orthonormalizeGramSchmidt();
+    	Matrix3d upper = new Matrix3d();
+    	m4.getRotationScale(upper);
+    	m.set(drifted);
+    	m.orthonormalizeGramSchmidt();
+    	assertTrue(equals(upper, m) && m4.m03 == 1.0 && m4.m23 == 3.0);
+
+    	double batch[] = new double[27];
+
+    	for(int i = 0; i < 3; i++) {
+
+    		batch[i * 9] = drifted.m00; batch[i * 9 + 1] = drifted.m01; batch[i * 9 + 2] = drifted.m02;
+    		batch[i * 9 + 3] = drifted.m10; batch[i * 9 + 4] = drifted.m11; batch[i * 9 + 5] = drifted.m12;
+    		batch[i * 9 + 6] = drifted.m20; batch[i * 9 + 7] = drifted.m21; batch[i * 9 + 8] = drifted.m22;
+    	}
+
+    	MatrixBatch.orthonormalizeSymmetric3(batch, 1, 1, null);
+    	m.set(drifted);
+    	m.orthonormalizeSymmetric();
+    	Matrix3d batched = new Matrix3d();
+    	batched.set(java.util.Arrays.copyOfRange(batch, 9, 18));
+    	assertTrue(equals(batched, m));
+    	batched.set(java.util.Arrays.copyOfRange(batch, 18, 27));
+    	assertTrue(batched.equals(drifted));
+    }
+
+    @Test
+    void QuatExpLogTest() {
+
+    	java.util.Random random = new java.util.Random(38);
+    	Quat4d q = new Quat4d();
+    	Quat4d r = new Quat4d();
+    	Vector3d v = new Vector3d();
+    	Vector3d u = new Vector3d();
+    	double angles[] = {0.0, 1.0e-9, 1.0e-3, 0.5, 2.0, 3.0};
+
+    	for(int i = 0; i < angles.length; i++) {
+
+    		v.set(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+    		v.normalize();
+    		v.scale(angles[i]);
+
+    		// exp agrees with the axis-angle conversion.
+    		q.exp(v);
+    		if(angles[i] > 0.0) {
+
+    			r.set(new AxisAngle4d(v.x / angles[i], v.y / angles[i], v.z / angles[i], angles[i]));
+    			assertTrue(q.epsilonEquals(r, 1.0e-12));
+    		}
+
+    		// log is the inverse of exp, also for -q.
+    		q.log(u);
+    		assertTrue(u.epsilonEquals(v, 1.0e-12));
+    		q.negate();
+    		q.log(u);
+    		assertTrue(u.epsilonEquals(v, 1.0e-12));
+
+    		Quat4f qf = new Quat4f();
+    		Vector3f uf = new Vector3f();
+    		qf.exp(new Vector3f(v));
+    		qf.log(uf);
+    		assertTrue(uf.epsilonEquals(new Vector3f(v), 1.0e-6F));
+    	}
+
+    	// integrate rotates by exp(omega dt) on the left, integrateLocal on the right.
+    	Vector3d omega = new Vector3d(0.3, -1.2, 0.7);
+    	double dt = 0.01;
+    	Quat4d q0 = new Quat4d();
+    	q0.exp(new Vector3d(0.4, 0.1, -0.9));
+    	Quat4d e = new Quat4d();
+    	v.scale(dt, omega);
+    	e.exp(v);
+
+    	q.set(q0);
+    	q.integrate(omega, dt);
+    	r.mul(e, q0);
+    	assertTrue(q.epsilonEquals(r, 1.0e-12));
+
+    	q.set(q0);
+    	q.integrateLocal(omega, dt);
+    	r.mul(q0, e);
+    	assertTrue(q.epsilonEquals(r, 1.0e-12));
+
+    	// many steps stay unit length.
+    	q.set(q0);
+    	Quat4f qf = new Quat4f(q0);
+    	Vector3f omegaf = new Vector3f(omega);
+    	for(int i = 0; i < 10000; i++) {
+
+    		q.integrate(omega, dt);
+    		qf.integrate(omegaf, (float)dt);
+    	}
+    	assertTrue(equals(q.x * q.x + q.y * q.y + q.z * q.z + q.w * q.w, 1.0));
+    	assertTrue(Math.abs(qf.x * qf.x + qf.y * qf.y + qf.z * qf.z + qf.w * qf.w - 1.0F) < 1.0e-5F);
+    	v.scale(10000 * dt, omega);
+    	e.exp(v);
+    	r.mul(e, q0);
+    	assertTrue(q.epsilonEquals(r, 1.0e-9));
+
+    	// batch versions match the single ones.
+    	int n = 100;
+    	double vs[] = new double[n * 3];
+    	double qs[] = new double[n * 4];
+    	float vsf[] = new float[n * 3];
+    	float qsf[] = new float[n * 4];
+    	for(int i = 0; i < vs.length; i++) {
+
+    		vs[i] = i % 7 == 0 ? 1.0e-5 * random.nextDouble() : 2.0 * random.nextDouble() - 1.0;
+    		vsf[i] = (float)vs[i];
+    	}
+    	QuatBatch.exp(vs, qs, n, null);
+    	QuatBatch.exp(vsf, qsf, n, ForkJoinPool.commonPool());
+    	for(int i = 0; i < n; i++) {
+
+    		q.exp(new Vector3d(vs[i * 3], vs[i * 3 + 1], vs[i * 3 + 2]));
+    		assertTrue(q.epsilonEquals(new Quat4d(qs[i * 4], qs[i * 4 + 1], qs[i * 4 + 2], qs[i * 4 + 3]), 1.0e-15));
+    		assertTrue(new Quat4f(q).epsilonEquals(new Quat4f(qsf[i * 4], qsf[i * 4 + 1], qsf[i * 4 + 2], qsf[i * 4 + 3]), 1.0e-6F));
+    	}
+    	double back[] = new double[n * 3];
+    	QuatBatch.log(qs, back, n, null);
+    	for(int i = 0; i < back.length; i++) {
+
+    		assertTrue(equals(back[i], vs[i]));
+    	}
+    	double qi[] = qs.clone();
+    	double ql[] = qs.clone();
+    	QuatBatch.integrate(qi, vs, dt, n, null);
+    	QuatBatch.integrateLocal(ql, vs, dt, n, null);
+    	for(int i = 0; i < n; i++) {
+
+    		Vector3d w = new Vector3d(vs[i * 3], vs[i * 3 + 1], vs[i * 3 + 2]);
+    		q.set(qs[i * 4], qs[i * 4 + 1], qs[i * 4 + 2], qs[i * 4 + 3]);
+    		q.integrate(w, dt);
+    		assertTrue(q.epsilonEquals(new Quat4d(qi[i * 4], qi[i * 4 + 1], qi[i * 4 + 2], qi[i * 4 + 3]), 1.0e-15));
+    		q.set(qs[i * 4], qs[i * 4 + 1], qs[i * 4 + 2], qs[i * 4 + 3]);
+    		q.integrateLocal(w, dt);
+    		assertTrue(q.epsilonEquals(new Quat4d(ql[i * 4], ql[i * 4 + 1], ql[i * 4 + 2], ql[i * 4 + 3]), 1.0e-15));
+    	}
+    }
+
+    @Test
+    void CurveTest() {
+
+    	Point3d points[] = {
+    		new Point3d(0, 0, 0), new Point3d(1, 2, 0), new Point3d(3, 2, 1), new Point3d(4, 0, 1), new Point3d(6, 1, 2)
+    	};
+    	Point3d p = new Point3d();
+    	Vector3d v = new Vector3d();
+
+    	// Catmull-Rom passes through every point.
+    	CubicCurve3d curve = CubicCurve3d.catmullRom(points);
+    	assertTrue(curve.getSegmentCount() == 4);
+
+    	for(int i = 0; i < points.length; i++) {
+
+    		curve.getPoint(i / 4.0, p);
+    		assertTrue(equals(p, points[i]));
+    	}
+
+    	// the tangent at an inner point is half the difference of its neighbours, per segment.
+    	curve.getTangent(0.5, v);
+    	v.scale(0.25);
+    	Vector3d expected = new Vector3d();
+    	expected.sub(points[3], points[1]);
+    	expected.scale(0.5);
+    	assertTrue(equals(v, expected));
+
+    	// a Bezier segment against the Bernstein form.
+    	Point3d controls[] = {points[0], points[1], points[2], points[3]};
+    	curve = CubicCurve3d.bezier(controls);
+    	double t = 0.3;
+    	double b0 = (1 - t) * (1 - t) * (1 - t), b1 = 3 * t * (1 - t) * (1 - t), b2 = 3 * t * t * (1 - t), b3 = t * t * t;
+    	curve.getPoint(t, p);
+    	assertTrue(equals(p, new Point3d(b0 * 0 + b1 * 1 + b2 * 3 + b3 * 4, b1 * 2 + b2 * 2, b2 * 1 + b3 * 1)));
+
+    	// a B-spline of equally spaced collinear points is the line at constant speed.
+    	Point3d line[] = new Point3d[6];
+
+    	for(int i = 0; i < line.length; i++) {
+
+    		line[i] = new Point3d(i, 2 * i, -i);
+    	}
+
+    	curve = CubicCurve3d.bSpline(line);
+    	curve.getPoint(0.0, p);
+    	assertTrue(equals(p, new Point3d(1, 2, -1)));
+    	curve.getPoint(0.6, p);
+    	assertTrue(equals(p, new Point3d(2.8, 5.6, -2.8)));
+    	assertTrue(equals(curve.getLength(), 3 * Math.sqrt(6)));
+    	curve.getPointAtDistance(Math.sqrt(6), p);
+    	assertTrue(equals(p, new Point3d(2, 4, -2)));
+
+    	// Hermite matches the end points and tangents.
+    	Vector3d tangents[] = {new Vector3d(1, 0, 0), new Vector3d(0, 3, 0)};
+    	curve = CubicCurve3d.hermite(new Point3d[] {points[0], points[1]}, tangents);
+    	curve.getPoint(1.0, p);
+    	assertTrue(equals(p, points[1]));
+    	curve.getTangent(0.0, v);
+    	assertTrue(equals(v, tangents[0]));
+    	curve.getTangent(1.0, v);
+    	assertTrue(equals(v, tangents[1]));
+
+    	// batch evaluation matches single evaluation; arc length samples are equally spaced.
+    	curve = CubicCurve3d.catmullRom(points);
+    	int n = 1001;
+    	double xyz[] = new double[n * 3];
+    	double ts[] = new double[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		ts[i] = i / (n - 1.0);
+    	}
+
+    	curve.evaluate(ts, n, xyz, ForkJoinPool.commonPool());
+    	double sampled[] = new double[n * 3];
+    	curve.sample(n, sampled, null);
+
+    	for(int i = 0; i < n; i++) {
+
+    		curve.getPoint(ts[i], p);
+    		assertTrue(equals(p, new Point3d(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2])));
+    		assertTrue(equals(p, new Point3d(sampled[i * 3], sampled[i * 3 + 1], sampled[i * 3 + 2])));
+    	}
+
+    	curve.sampleByLength(n, xyz, null);
+    	double step = curve.getLength() / (n - 1);
+
+    	for(int i = 1; i < n; i++) {
+
+    		double dx = xyz[i * 3] - xyz[i * 3 - 3], dy = xyz[i * 3 + 1] - xyz[i * 3 - 2], dz = xyz[i * 3 + 2] - xyz[i * 3 - 1];
+    		assertTrue(Math.abs(Math.sqrt(dx * dx + dy * dy + dz * dz) - step) < 5.0e-3 * step);
+    	}
+
+    	// SQUAD passes through the keys, up to sign; with two keys it is the slerp.
+    	Quat4d keys[] = new Quat4d[5];
+
+    	for(int i = 0; i < keys.length; i++) {
+
+    		keys[i] = new Quat4d();
+    		keys[i].set(new AxisAngle4d(1, i, 0.5 * i, 0.7 * i));
+    	}
+
+    	keys[2].negate();
+    	SquadCurve squad = new SquadCurve(keys);
+    	Quat4d q = new Quat4d();
+
+    	for(int i = 0; i < keys.length; i++) {
+
+    		squad.getRotation(i / 4.0, q);
+    		assertTrue(equals(Math.abs(q.x * keys[i].x + q.y * keys[i].y + q.z * keys[i].z + q.w * keys[i].w), 1.0));
+    	}
+
+    	squad = new SquadCurve(new Quat4d[] {keys[0], keys[1]});
+    	squad.getRotation(0.3, q);
+    	Quat4d slerp = new Quat4d();
+    	slerp.interpolate(keys[0], keys[1], 0.3);
+    	assertTrue(q.epsilonEquals(slerp, 1.0e-9));
+
+    	// the curve is smooth across a key: equal one-sided differences.
+    	squad = new SquadCurve(keys);
+    	double h = 1.0e-6;
+    	Quat4d before = new Quat4d();
+    	Quat4d after = new Quat4d();
+    	squad.getRotation(0.25 - h, before);
+    	squad.getRotation(0.25, q);
+    	squad.getRotation(0.25 + h, after);
+    	after.sub(q);
+    	q.sub(before);
+    	assertTrue(after.epsilonEquals(q, 1.0e-9));
+
+    	double qs[] = new double[n * 4];
+    	squad.evaluate(ts, n, qs, null);
+
+    	for(int i = 0; i < n; i += 50) {
+
+    		squad.getRotation(ts[i], q);
+    		assertTrue(q.epsilonEquals(new Quat4d(qs[i * 4], qs[i * 4 + 1], qs[i * 4 + 2], qs[i * 4 + 3]), 0.0));
+    	}
+    }
+
+    @Test
+    void FastTrigTest() {
+
+    	FastTrig trig = new FastTrig();
+    	assertTrue(trig.getSize() == 4096 && trig.getMaxError() < 3.0e-7);
+
+    	// the documented error bound holds over several periods and beyond the table range.
+    	double worst = 0.0;
+
+    	for(int i = -200000; i <= 200000; i++) {
+
+    		double a = i * 1.0e-4 + 1.0e-7 * (i % 13);
+    		worst = Math.max(worst, Math.abs(trig.sin(a) - Math.sin(a)));
+    		worst = Math.max(worst, Math.abs(trig.cos(a) - Math.cos(a)));
+    	}
+
+    	assertTrue(worst <= trig.getMaxError());
+    	assertTrue(trig.sin(1.0e6) == Math.sin(1.0e6) && Double.isNaN(trig.cos(Double.NaN)));
+
+    	FastTrig fine = FastTrig.forMaxError(1.0e-9);
+    	assertTrue(fine.getMaxError() <= 1.0e-9 && fine.getSize() == 131072);
+    	assertTrue(Math.abs(fine.sin(2.5) - Math.sin(2.5)) <= fine.getMaxError());
+
+    	// large angles are reduced before the lookup, so the finest table keeps its bound up to the limit.
+    	FastTrig finest = FastTrig.forMaxError(1.0e-12);
+    	java.util.Random random = new java.util.Random(40);
+    	worst = 0.0;
+
+    	for(int i = 0; i < 100000; i++) {
+
+    		double a = (random.nextDouble() * 2.0 - 1.0) * 65536.0;
+    		worst = Math.max(worst, Math.abs(finest.sin(a) - Math.sin(a)));
+    		worst = Math.max(worst, Math.abs(finest.cos(a) - Math.cos(a)));
+    	}
+
+    	assertTrue(finest.getMaxError() <= 1.0e-12 && worst <= finest.getMaxError());
+
+    	// rotation builders agree with the exact ones to the table error.
+    	double angle = 0.83;
+    	double eps = 4.0 * trig.getMaxError();
+    	Matrix3d exact = new Matrix3d();
+    	Matrix3d fast = new Matrix3d();
+    	exact.rotX(angle);
+    	fast.rotX(angle, trig);
+    	assertTrue(fast.epsilonEquals(exact, eps));
+    	exact.rotY(angle);
+    	fast.rotY(angle, trig);
+    	assertTrue(fast.epsilonEquals(exact, eps));
+    	exact.rotZ(angle);
+    	fast.rotZ(angle, trig);
+    	assertTrue(fast.epsilonEquals(exact, eps));
+
+    	AxisAngle4d a1 = new AxisAngle4d(1, -2, 0.5, angle);
+    	exact.set(a1);
+    	fast.set(a1, trig);
+    	assertTrue(fast.epsilonEquals(exact, eps));
+
+    	Matrix4d exact4 = new Matrix4d();
+    	Matrix4d fast4 = new Matrix4d();
+    	exact4.rotX(angle);
+    	fast4.rotX(angle, trig);
+    	assertTrue(fast4.epsilonEquals(exact4, eps));
+    	exact4.rotY(angle);
+    	fast4.rotY(angle, trig);
+    	assertTrue(fast4.epsilonEquals(exact4, eps));
+    	exact4.rotZ(angle);
+    	fast4.rotZ(angle, trig);
+    	assertTrue(fast4.epsilonEquals(exact4, eps));
+    	exact4.set(a1);
+    	fast4.set(a1, trig);
+    	assertTrue(fast4.epsilonEquals(exact4, eps));
+
+    	Quat4d q = new Quat4d();
+    	Quat4d r = new Quat4d();
+    	q.set(a1);
+    	r.set(a1, trig);
+    	assertTrue(r.epsilonEquals(q, eps));
+    }
+
+    @Test
+    void VertexWelderTest() {
+
+    	java.util.Random random = new java.util.Random(41);
+    	int n = 20000;
+    	double eps = 1.0e-3;
+    	double xyz[] = new double[n * 3];
+
+    	// clusters of jittered copies of a few base points, with many symmetric coordinates.
+    	for(int i = 0; i < n; i++) {
+
+    		int base = random.nextInt(500);
+    		xyz[i * 3] = base % 10;
+    		xyz[i * 3 + 1] = (base / 10) % 10;
+    		xyz[i * 3 + 2] = base / 100;
+
+    		if(i % 3 == 0) {
+
+    			xyz[i * 3] += (random.nextDouble() - 0.5) * eps;
+    			xyz[i * 3 + 1] -= (random.nextDouble() - 0.5) * eps;
+    		}
+    	}
+
+    	VertexWelder welder = new VertexWelder(eps);
+    	int remap[] = new int[n];
+    	int unique = welder.weld(xyz, n, remap, ForkJoinPool.commonPool());
+    	assertTrue(unique == 500);
+
+    	// every vertex is within epsilon of its welded vertex, and welded vertices are apart.
+    	double welded[] = new double[unique * 3];
+    	VertexWelder.compact(xyz, n, remap, welded);
+
+    	for(int i = 0; i < n; i++) {
+
+    		Point3d p = new Point3d(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+    		Point3d q = new Point3d(welded[remap[i] * 3], welded[remap[i] * 3 + 1], welded[remap[i] * 3 + 2]);
+    		assertTrue(p.epsilonEquals(q, eps));
+    	}
+
+    	// the serial run gives the same table; so does the float path here.
+    	int serial[] = new int[n];
+    	assertTrue(welder.weld(xyz, n, serial, null) == unique && java.util.Arrays.equals(remap, serial));
+
+    	float xyzf[] = new float[n * 3];
+
+    	for(int i = 0; i < xyzf.length; i++) {
+
+    		xyzf[i] = (float)xyz[i];
+    	}
+
+    	assertTrue(new VertexWelder(eps).weld(xyzf, n, serial, null) == unique);
+
+    	// brute force on points near cell boundaries.
+    	int m = 2000;
+    	double grid[] = new double[m * 3];
+
+    	for(int i = 0; i < grid.length; i++) {
+
+    		grid[i] = random.nextInt(40) * eps + (random.nextDouble() - 0.5) * 0.2 * eps;
+    	}
+
+    	int table[] = new int[m];
+    	int count = welder.weld(grid, m, table, null);
+    	int expected[] = new int[m];
+    	int reps[] = new int[m];
+    	int k = 0;
+
+    	for(int i = 0; i < m; i++) {
+
+    		expected[i] = -1;
+
+    		for(int j = 0; j < k && expected[i] < 0; j++) {
+
+    			int r = reps[j];
+
+    			if(Math.abs(grid[r * 3] - grid[i * 3]) <= eps && Math.abs(grid[r * 3 + 1] - grid[i * 3 + 1]) <= eps && Math.abs(grid[r * 3 + 2] - grid[i * 3 + 2]) <= eps) {
+
+    				expected[i] = j;
+    			}
+    		}
+
+    		if(expected[i] < 0) {
+
+    			expected[i] = k;
+    			reps[k++] = i;
+    		}
+    	}
+
+    	// a vertex becomes a representative exactly when no earlier one is in range, so the
+    	// representatives match; the one a vertex merges into may differ when several are.
+    	assertTrue(count == k);
+
+    	for(int i = 0, next = 0; i < m; i++) {
+
+    		boolean representative = table[i] == next;
+
+    		if(representative) {
+
+    			next++;
+    		}
+
+    		assertTrue(representative == (reps[expected[i]] == i));
+    	}
+
+    	// exact welding and index remapping.
+    	double exact[] = {1, 2, 3, 2, 1, 3, 1, 2, 3, -0.0, 0, 0, 0, 0, 0};
+    	int exactRemap[] = new int[5];
+    	assertTrue(new VertexWelder(0.0).weld(exact, 5, exactRemap, null) == 3);
+    	int indices[] = {0, 1, 2, 2, 3, 4};
+    	VertexWelder.remapIndices(indices, indices.length, exactRemap);
+    	assertTrue(java.util.Arrays.equals(indices, new int[] {0, 1, 0, 0, 2, 2}));
+    }
+
+    @Test
+    void TransformInternerTest() {
+
+    	// transposes and permutations collide in hashCode but not in longHashCode.
+    	Matrix4d m = new Matrix4d(1, 2, 0, 0, 0, 1, 0, 0, 0, 0, 1, 3, 0, 0, 0, 1);
+    	Matrix4d t = new Matrix4d(m);
+    	t.transpose();
+    	assertTrue(m.hashCode() == t.hashCode() && m.longHashCode() != t.longHashCode());
+
+    	Matrix3d a = new Matrix3d(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    	Matrix3d b = new Matrix3d(1, 9, 3, 4, 5, 6, 7, 8, 2);
+    	assertTrue(a.hashCode() == b.hashCode() && a.longHashCode() != b.longHashCode());
+
+    	assertTrue(new Quat4d(1, 2, 3, 4).longHashCode() != new Quat4d(2, 1, 3, 4).longHashCode());
+    	assertTrue(new Quat4f(0.0F, 1, 2, 3).longHashCode() == new Quat4f(-0.0F, 1, 2, 3).longHashCode());
+    	assertTrue(new Matrix4f(m).longHashCode() != new Matrix4f(t).longHashCode());
+    	assertTrue(new Matrix3f(a).longHashCode() == new Matrix3f(a).longHashCode());
+
+    	// equal values are canonicalized to one instance, which is a copy.
+    	TransformInterner<Matrix4d> interner = TransformInterner.forMatrix4d(1000);
+    	Matrix4d first = interner.intern(m);
+    	assertTrue(first != m && first.equals(m));
+    	assertTrue(interner.intern(new Matrix4d(m)) == first);
+    	assertTrue(interner.intern(t) != first);
+    	assertTrue(interner.getHitCount() == 1 && interner.getMissCount() == 2 && interner.size() == 2);
+
+    	// the cache stays bounded and keeps recently used values.
+    	for(int i = 0; i < 10000; i++) {
+
+    		Matrix4d r = new Matrix4d();
+    		r.rotZ(i * 1.0e-3);
+    		interner.intern(r);
+    		assertTrue(interner.intern(m).equals(m));
+    	}
+
+    	assertTrue(interner.size() <= interner.getCapacity() + 16);
+    	assertTrue(interner.intern(m) == first);
+
+    	TransformInterner<Quat4d> quats = TransformInterner.forQuat4d(16);
+    	Quat4d q = quats.intern(new Quat4d(0, 0, 0, 1));
+    	assertTrue(quats.intern(new Quat4d(0, 0, 0, 1)) == q);
+    	quats.clear();
+    	assertTrue(quats.size() == 0 && quats.getHitCount() == 0 && quats.intern(new Quat4d(0, 0, 0, 1)) != q);
+    	assertTrue(TransformInterner.forMatrix4f(8).intern(new Matrix4f(m)).equals(new Matrix4f(m)));
+    	assertTrue(TransformInterner.forMatrix3d(8).intern(a).equals(a));
+    }
+
+    @Test
+    void PackedColorTest() {
+
+    	// components above 127 are negative bytes but unsigned in the packed value.
+    	Color4b c = new Color4b((byte)200, (byte)10, (byte)255, (byte)128);
+    	assertTrue(c.getARGB() == 0x80C80AFF);
+    	Color4b d = new Color4b(0x80C80AFF);
+    	assertTrue(d.equals(c));
+    	Color3b c3 = new Color3b(0x12FE8001);
+    	assertTrue(c3.x == (byte)0xFE && c3.getRGB() == 0xFFFE8001);
+
+    	java.util.Random random = new java.util.Random(43);
+    	int n = 1000;
+    	int argb[] = new int[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		argb[i] = random.nextInt();
+    	}
+
+    	// byte layouts: RGBA matches Tuple4b.get(byte[]) of the Color4b.
+    	byte rgba[] = new byte[n * 4 + 3];
+    	byte bgra[] = new byte[n * 4];
+    	PackedColor.argbToRGBA(argb, 0, rgba, 3, n, ForkJoinPool.commonPool());
+    	PackedColor.argbToBGRA(argb, 0, bgra, 0, n, null);
+    	byte t[] = new byte[4];
+
+    	for(int i = 0; i < n; i++) {
+
+    		new Color4b(argb[i]).get(t);
+    		assertTrue(rgba[3 + i * 4] == t[0] && rgba[4 + i * 4] == t[1] && rgba[5 + i * 4] == t[2] && rgba[6 + i * 4] == t[3]);
+    		assertTrue(bgra[i * 4] == t[2] && bgra[i * 4 + 1] == t[1] && bgra[i * 4 + 2] == t[0] && bgra[i * 4 + 3] == t[3]);
+    	}
+
+    	int back[] = new int[n];
+    	PackedColor.rgbaToARGB(rgba, 3, back, 0, n, null);
+    	assertTrue(java.util.Arrays.equals(back, argb));
+    	PackedColor.bgraToARGB(bgra, 0, back, 0, n, ForkJoinPool.commonPool());
+    	assertTrue(java.util.Arrays.equals(back, argb));
+
+    	Color4b colors[] = new Color4b[n];
+    	PackedColor.unpack(argb, 0, colors, 0, n);
+    	PackedColor.pack(colors, 0, back, 0, n);
+    	assertTrue(java.util.Arrays.equals(back, argb));
+
+    	// SWAR arithmetic against exact rounding.
+    	for(int i = 0; i < n; i++) {
+
+    		int s = argb[i];
+    		int a = s >>> 24;
+    		int p = PackedColor.premultiply(s);
+
+    		for(int k = 0; k < 24; k += 8) {
+
+    			assertTrue(((p >>> k) & 0xFF) == Math.round(((s >>> k) & 0xFF) * a / 255.0f));
+    		}
+
+    		assertTrue(p >>> 24 == a);
+
+    		// unpremultiply recovers the straight color up to the precision left by alpha.
+    		int u = PackedColor.unpremultiply(p);
+
+    		for(int k = 0; k < 24 && a > 0; k += 8) {
+
+    			assertTrue(Math.abs(((u >>> k) & 0xFF) - ((s >>> k) & 0xFF)) <= 128.0 / a + 1);
+    		}
+
+    		int q = PackedColor.premultiply(argb[(i + 1) % n]);
+    		int o = PackedColor.blend(p, q);
+    		int l = PackedColor.lerp(s, q, i & 0xFF);
+
+    		for(int k = 0; k < 32; k += 8) {
+
+    			int sc = (p >>> k) & 0xFF;
+    			int dc = (q >>> k) & 0xFF;
+    			assertTrue(((o >>> k) & 0xFF) == sc + Math.round(dc * (255 - a) / 255.0f));
+    			int c0 = (s >>> k) & 0xFF;
+    			assertTrue(((l >>> k) & 0xFF) == Math.round((c0 * (255 - (i & 0xFF)) + dc * (i & 0xFF)) / 255.0f));
+    		}
+    	}
+
+    	// bulk versions match.
+    	int pre[] = argb.clone();
+    	PackedColor.premultiply(pre, 0, n, ForkJoinPool.commonPool());
+    	int dst[] = new int[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		dst[i] = PackedColor.premultiply(argb[n - 1 - i]);
+    	}
+
+    	int expected[] = new int[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		assertTrue(pre[i] == PackedColor.premultiply(argb[i]));
+    		expected[i] = PackedColor.blend(pre[i], dst[i]);
+    	}
+
+    	pre[0] = 0xFF123456;
+    	expected[0] = 0xFF123456;
+    	pre[1] = 0;
+    	expected[1] = dst[1];
+    	PackedColor.blend(pre, 0, dst, 0, n, null);
+    	assertTrue(java.util.Arrays.equals(dst, expected));
+    	PackedColor.unpremultiply(dst, 0, n, null);
+    	assertTrue(dst[0] == 0xFF123456 && PackedColor.argb(1, 2, 3, 4) == 0x01020304);
+    }
+
+    @Test
+    void ColorConversionTest() {
+
+    	// transfer function tables against the exact sRGB curves.
+    	for(int i = 0; i <= 10000; i++) {
+
+    		double v = i / 10000.0;
+    		double linear = v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    		double srgb = v <= 0.0031308 ? v * 12.92 : 1.055 * Math.pow(v, 1.0 / 2.4) - 0.055;
+    		assertTrue(Math.abs(ColorConversion.srgbToLinear((float)v) - linear) < 1.0e-6);
+    		assertTrue(Math.abs(ColorConversion.linearToSrgb((float)v) - srgb) < 1.0e-6);
+    	}
+
+    	assertTrue(ColorConversion.srgbToLinear(-1.0f) == 0.0f && ColorConversion.srgbToLinear(2.0f) == 1.0f);
+    	assertTrue(equals(ColorConversion.srgbToLinear(128), ColorConversion.srgbToLinear(128 / 255.0f)));
+
+    	java.util.Random random = new java.util.Random(44);
+    	int n = 1000;
+    	float rgba[] = new float[n * 4];
+
+    	for(int i = 0; i < rgba.length; i++) {
+
+    		rgba[i] = random.nextFloat();
+    	}
+
+    	// alpha is untouched and the conversions invert each other.
+    	float data[] = rgba.clone();
+    	ColorConversion.srgbToLinear(data, 0, n, 4, ForkJoinPool.commonPool());
+    	ColorConversion.linearToSrgb(data, 0, n, 4, null);
+
+    	for(int i = 0; i < rgba.length; i++) {
+
+    		assertTrue(Math.abs(data[i] - rgba[i]) < 1.0e-5);
+    	}
+
+    	data = rgba.clone();
+    	ColorConversion.rgbToHsv(data, 0, n, 4, ForkJoinPool.commonPool());
+    	Color3f c = new Color3f(rgba[0], rgba[1], rgba[2]);
+    	ColorConversion.rgbToHsv(c);
+    	assertTrue(equals(c, new Color3f(data[0], data[1], data[2])));
+    	ColorConversion.hsvToRgb(data, 0, n, 4, null);
+
+    	for(int i = 0; i < rgba.length; i++) {
+
+    		assertTrue(Math.abs(data[i] - rgba[i]) < 1.0e-5);
+    	}
+
+    	data = rgba.clone();
+    	ColorConversion.rgbToHsl(data, 0, n, 4, null);
+    	ColorConversion.hslToRgb(data, 0, n, 4, ForkJoinPool.commonPool());
+
+    	for(int i = 0; i < rgba.length; i++) {
+
+    		assertTrue(Math.abs(data[i] - rgba[i]) < 1.0e-5);
+    	}
+
+    	// known values: pure red, grey and a mid orange.
+    	c.set(1.0f, 0.0f, 0.0f);
+    	ColorConversion.rgbToHsv(c);
+    	assertTrue(equals(c, new Color3f(0.0f, 1.0f, 1.0f)));
+    	c.set(0.5f, 0.5f, 0.5f);
+    	ColorConversion.rgbToHsl(c);
+    	assertTrue(equals(c, new Color3f(0.0f, 0.0f, 0.5f)));
+    	c.set(1.0f, 0.5f, 0.0f);
+    	ColorConversion.rgbToHsl(c);
+    	assertTrue(equals(c, new Color3f(1.0f / 12.0f, 1.0f, 0.5f)));
+
+    	data = rgba.clone();
+    	ColorConversion.rgbToYCbCr(data, 0, n, 4, ForkJoinPool.commonPool());
+    	Matrix3f ycc = new Matrix3f();
+    	ColorConversion.getRgbToYCbCr(ycc);
+    	c.set(rgba[0], rgba[1], rgba[2]);
+    	ycc.transform(c);
+    	assertTrue(equals(c, new Color3f(data[0], data[1] - 0.5f, data[2] - 0.5f)));
+    	ColorConversion.yCbCrToRgb(data, 0, n, 4, null);
+
+    	for(int i = 0; i < rgba.length; i++) {
+
+    		assertTrue(Math.abs(data[i] - rgba[i]) < 1.0e-5);
+    	}
+
+    	// the sRGB primaries: white maps to D65 and Y is the luminance row.
+    	Matrix3f xyz = new Matrix3f();
+    	ColorConversion.srgbToXyz(xyz);
+    	Color3f white = new Color3f(1.0f, 1.0f, 1.0f);
+    	xyz.transform(white);
+    	assertTrue(Math.abs(white.x - 0.9505f) < 1.0e-4 && Math.abs(white.y - 1.0f) < 1.0e-6 && Math.abs(white.z - 1.0891f) < 1.0e-4);
+    	assertTrue(Math.abs(xyz.m10 - 0.2126f) < 1.0e-4 && Math.abs(xyz.m11 - 0.7152f) < 1.0e-4 && Math.abs(xyz.m12 - 0.0722f) < 1.0e-4);
+
+    	data = rgba.clone();
+    	ColorConversion.transform(xyz, data, 0, n, 4, ForkJoinPool.commonPool());
+    	c.set(rgba[4], rgba[5], rgba[6]);
+    	xyz.transform(c);
+    	assertTrue(equals(c, new Color3f(data[4], data[5], data[6])) && data[7] == rgba[7]);
+
+    	// 8 bit ARGB round trips exactly through linear floats.
+    	int argb[] = new int[n];
+    	int back[] = new int[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		argb[i] = random.nextInt();
+    	}
+
+    	float linear[] = new float[n * 4];
+    	ColorConversion.argbToLinear(argb, 0, linear, 0, n, ForkJoinPool.commonPool());
+    	ColorConversion.linearToArgb(linear, 0, back, 0, n, null);
+    	assertTrue(java.util.Arrays.equals(back, argb));
+    }
+
+    @Test
+    void CompositorTest() {
+
+    	java.util.Random random = new java.util.Random(45);
+    	int width = 37;
+    	int height = 29;
+    	int n = width * height;
+    	float src[] = new float[n * 4];
+    	float dst[] = new float[n * 4];
+
+    	// random premultiplied colors.
+    	for(int i = 0; i < n * 4; i += 4) {
+
+    		float sa = random.nextFloat();
+    		float da = random.nextFloat();
+
+    		for(int c = 0; c < 3; c++) {
+
+    			src[i + c] = sa * random.nextFloat();
+    			dst[i + c] = da * random.nextFloat();
+    		}
+
+    		src[i + 3] = sa;
+    		dst[i + 3] = da;
+    	}
+
+    	// source over is dst.scaleAdd(1 - sa, src) and lerp is interpolate.
+    	float out[] = dst.clone();
+    	Compositor.composite(Compositor.Mode.SRC_OVER, src, 0, out, 0, n, ForkJoinPool.commonPool());
+    	float lerp[] = dst.clone();
+    	Compositor.lerp(src, 0, lerp, 0, 0.3f, n, null);
+
+    	for(int i = 0; i < n; i++) {
+
+    		Color4f s = new Color4f(src[i * 4], src[i * 4 + 1], src[i * 4 + 2], src[i * 4 + 3]);
+    		Color4f d = new Color4f(dst[i * 4], dst[i * 4 + 1], dst[i * 4 + 2], dst[i * 4 + 3]);
+    		Color4f l = new Color4f(d);
+    		d.scaleAdd(1.0f - s.w, s);
+    		assertTrue(d.epsilonEquals(new Color4f(out[i * 4], out[i * 4 + 1], out[i * 4 + 2], out[i * 4 + 3]), 1.0e-6f));
+    		l.interpolate(s, 0.3f);
+    		assertTrue(l.epsilonEquals(new Color4f(lerp[i * 4], lerp[i * 4 + 1], lerp[i * 4 + 2], lerp[i * 4 + 3]), 1.0e-6f));
+    	}
+
+    	// the blend modes against their formulas, and the Color4f form against the packed one.
+    	for(Compositor.Mode mode : Compositor.Mode.values()) {
+
+    		out = dst.clone();
+    		Compositor.composite(mode, src, 0, out, 0, n, null);
+
+    		for(int i = 0; i < n * 4; i++) {
+
+    			float s = src[i];
+    			float d = dst[i];
+    			float ks = 1.0f - src[i | 3];
+    			float kd = 1.0f - dst[i | 3];
+    			float expected = mode == Compositor.Mode.SRC_OVER ? s + d * ks
+    					: mode == Compositor.Mode.MULTIPLY ? s * d + s * kd + d * ks
+    					: mode == Compositor.Mode.SCREEN ? s + d - s * d
+    					: Math.min(s + d, 1.0f);
+    			assertTrue(Math.abs(out[i] - expected) < 1.0e-6);
+    		}
+
+    		Color4f c = new Color4f(dst[8], dst[9], dst[10], dst[11]);
+    		Compositor.composite(mode, new Color4f(src[8], src[9], src[10], src[11]), c);
+    		assertTrue(c.epsilonEquals(new Color4f(out[8], out[9], out[10], out[11]), 1.0e-6f));
+
+    		// alpha stays a valid coverage.
+    		for(int i = 3; i < n * 4; i += 4) {
+
+    			assertTrue(out[i] >= 0.0f && out[i] <= 1.0f + 1.0e-6f);
+    		}
+    	}
+
+    	// a rectangle inside a larger image: tiles in parallel, the rest untouched.
+    	int stride = (width + 5) * 4;
+    	float image[] = new float[stride * (height + 2)];
+    	java.util.Arrays.fill(image, 0.25f);
+    	float reference[] = image.clone();
+    	int offset = stride + 8;
+    	Compositor.composite(Compositor.Mode.SCREEN, src, 0, width * 4, image, offset, stride, width, height, ForkJoinPool.commonPool());
+    	Compositor.lerp(src, 0, width * 4, reference, offset, stride, 0.0f, width, height, null);
+
+    	for(int row = 0; row < height + 2; row++) {
+
+    		for(int i = 0; i < stride; i++) {
+
+    			int x = i - 8;
+    			boolean inside = row >= 1 && row <= height && x >= 0 && x < width * 4;
+    			float s = inside ? src[(row - 1) * width * 4 + x] : 0.0f;
+    			assertTrue(reference[row * stride + i] == 0.25f);
+    			assertTrue(Math.abs(image[row * stride + i] - (inside ? s + 0.25f - s * 0.25f : 0.25f)) < 1.0e-6);
+    		}
+    	}
+    }
+
+    @Test
+    void HalfFloatTest() {
+
+    	// every half converts to float and back unchanged, NaNs stay NaN.
+    	for(int i = 0; i < 65536; i++) {
+
+    		short h = (short)i;
+    		float f = HalfFloat.toFloat(h);
+
+    		if((i & 0x7C00) == 0x7C00 && (i & 0x3FF) != 0) {
+
+    			assertTrue(Float.isNaN(f) && Float.isNaN(HalfFloat.toFloat(HalfFloat.toHalf(f))));
+
+    		} else {
+
+    			assertTrue(HalfFloat.toHalf(f) == h);
+    		}
+    	}
+
+    	assertTrue(HalfFloat.toFloat((short)0x3C00) == 1.0f && HalfFloat.toFloat((short)0xC000) == -2.0f);
+    	assertTrue(HalfFloat.toFloat((short)0x7BFF) == HalfFloat.MAX_VALUE && HalfFloat.toFloat((short)0x0001) == (float)Math.pow(2, -24));
+    	assertTrue(HalfFloat.toHalf(1.0e6f) == (short)0x7C00 && HalfFloat.toHalf(-1.0e-9f) == (short)0x8000);
+
+    	// ties go to even, also across the subnormal boundary.
+    	assertTrue(HalfFloat.toHalf(1.0f + (float)Math.pow(2, -11)) == (short)0x3C00);
+    	assertTrue(HalfFloat.toHalf(1.0f + 3.0f * (float)Math.pow(2, -11)) == (short)0x3C02);
+    	assertTrue(HalfFloat.toHalf((float)Math.pow(2, -25)) == 0 && HalfFloat.toHalf(1.5f * (float)Math.pow(2, -24)) == 2);
+    	assertTrue(HalfFloat.toHalf(65520.0f) == (short)0x7C00 && HalfFloat.toHalf(65519.0f) == (short)0x7BFF);
+
+    	// random floats round to the nearest half.
+    	java.util.Random random = new java.util.Random(46);
+    	int n = 100000;
+    	float values[] = new float[n];
+
+    	for(int i = 0; i < n; i++) {
+
+    		values[i] = (float)((random.nextDouble() - 0.5) * Math.pow(2, random.nextInt(40) - 26));
+    		float f = values[i];
+    		short h = HalfFloat.toHalf(f);
+    		double error = Math.abs((double)HalfFloat.toFloat(h) - f);
+    		assertTrue(error <= Math.abs((double)HalfFloat.toFloat((short)(h + 1)) - f));
+
+    		if((h & 0x7FFF) != 0) {
+
+    			assertTrue(error <= Math.abs((double)HalfFloat.toFloat((short)(h - 1)) - f));
+    		}
+    	}
+
+    	short halves[] = new short[n];
+    	float back[] = new float[n];
+    	HalfFloat.toHalf(values, 0, halves, 0, n, ForkJoinPool.commonPool());
+    	HalfFloat.toFloat(halves, 0, back, 0, n, null);
+
+    	for(int i = 0; i < n; i++) {
+
+    		assertTrue(back[i] == HalfFloat.toFloat(HalfFloat.toHalf(values[i])));
+    	}
+
+    	// tuples of different sizes through their Tuple2f, Tuple3f and Tuple4f views.
+    	HalfFloatArray normals = new HalfFloatArray(100, 3);
+    	Vector3f normal = new Vector3f(0.6f, -0.8f, 0.0f);
+    	normals.set(7, normal);
+    	Vector3f read = new Vector3f();
+    	normals.get(7, read);
+    	assertTrue(read.epsilonEquals(normal, 1.0e-3f) && normals.get(7, 1) == read.y);
+    	assertTrue(normals.getData().length == 300);
+
+    	HalfFloatArray uvs = new HalfFloatArray(10, 2);
+    	uvs.set(3, new TexCoord2f(0.25f, 0.75f));
+    	TexCoord2f uv = new TexCoord2f();
+    	uvs.get(3, uv);
+    	assertTrue(uv.x == 0.25f && uv.y == 0.75f);
+
+    	HalfFloatArray colors = new HalfFloatArray(n / 4, 4);
+    	colors.set(0, n / 4, values, 0, ForkJoinPool.commonPool());
+    	Color4f color = new Color4f();
+    	colors.get(5, color);
+    	assertTrue(color.x == back[20] && color.y == back[21] && color.z == back[22] && color.w == back[23]);
+    	float out[] = new float[n];
+    	colors.get(0, n / 4, out, 0, null);
+    	assertTrue(java.util.Arrays.equals(out, back));
+
+    	boolean thrown = false;
+
+    	try {
+
+    		uvs.get(0, new Point3f());
+
+    	} catch(IllegalArgumentException e) {
+
+    		thrown = true;
+    	}
+
+    	assertTrue(thrown);
+    }
+
+    @Test
+    void VertexQuantizerTest() {
+
+    	java.util.Random random = new java.util.Random(47);
+    	BoundingBox3d bounds = new BoundingBox3d(-100.0, 0.0, 5.0, 300.0, 20.0, 5.5);
+    	int n = 20000;
+    	double xyz[] = new double[n * 3];
+    	float xyzf[] = new float[n * 3];
+
+    	for(int i = 0; i < n; i++) {
+
+    		xyz[i * 3] = -100.0 + 400.0 * random.nextDouble();
+    		xyz[i * 3 + 1] = 20.0 * random.nextDouble();
+    		xyz[i * 3 + 2] = 5.0 + 0.5 * random.nextDouble();
+    	}
+
+    	for(int i = 0; i < n * 3; i++) {
+
+    		xyzf[i] = (float)xyz[i];
+    	}
+
+    	// 16 bits in shorts: every coordinate within half a step of the original.
+    	VertexQuantizer q16 = new VertexQuantizer(bounds, 16);
+    	assertTrue(equals(q16.getMaxError(), 200.0 / 65535.0));
+    	short s[] = new short[n * 3];
+    	double back[] = new double[n * 3];
+    	float backf[] = new float[n * 3];
+    	q16.quantize(xyz, 0, s, 0, n, ForkJoinPool.commonPool());
+    	q16.dequantize(s, 0, back, 0, n, null);
+    	Vector3d step = new Vector3d();
+    	q16.getStep(step);
+
+    	for(int i = 0; i < n * 3; i++) {
+
+    		double half = 0.5 * (i % 3 == 0 ? step.x : i % 3 == 1 ? step.y : step.z);
+    		assertTrue(Math.abs(back[i] - xyz[i]) <= half * (1.0 + 1.0e-9));
+    	}
+
+    	assertTrue(q16.measureError(xyz, 0, n) <= q16.getMaxError() * (1.0 + 1.0e-9));
+    	short sf[] = new short[n * 3];
+    	q16.quantize(xyzf, 0, sf, 0, n, null);
+    	q16.dequantize(sf, 0, backf, 0, n, ForkJoinPool.commonPool());
+
+    	for(int i = 0; i < n * 3; i++) {
+
+    		assertTrue(Math.abs(backf[i] - xyzf[i]) <= q16.getMaxError() + 1.0e-4);
+    	}
+
+    	// 21 bits in longs agree with the Tuple3i form.
+    	VertexQuantizer q21 = VertexQuantizer.forMaxError(bounds, 1.0e-4);
+    	assertTrue(q21.getBits() == 21 && q21.getMaxError() <= 1.0e-4);
+    	long packed[] = new long[n];
+    	q21.quantize(xyz, 0, packed, 0, n, ForkJoinPool.commonPool());
+    	q21.dequantize(packed, 0, back, 0, n, ForkJoinPool.commonPool());
+    	Point3i grid = new Point3i();
+    	Point3d p = new Point3d();
+
+    	for(int i = 0; i < n; i++) {
+
+    		q21.quantize(new Point3d(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]), grid);
+    		assertTrue(packed[i] == (grid.x | (long)grid.y << 21 | (long)grid.z << 42));
+    		q21.dequantize(grid, p);
+    		assertTrue(p.x == back[i * 3] && p.y == back[i * 3 + 1] && p.z == back[i * 3 + 2]);
+    	}
+
+    	q21.quantize(xyzf, 0, packed, 0, n, null);
+    	q21.dequantize(packed, 0, backf, 0, n, null);
+
+    	for(int i = 0; i < n * 3; i++) {
+
+    		assertTrue(Math.abs(backf[i] - xyzf[i]) <= 1.0e-4 + 3.0e-5);
+    	}
+
+    	// points outside are clamped to the box, corners map exactly.
+    	q16.quantize(new Point3f(-1000.0f, 10.0f, 6.0f), grid);
+    	assertTrue(grid.x == 0 && grid.z == 65535);
+    	q16.dequantize(grid, p);
+    	assertTrue(p.x == -100.0 && equals(p.z, 5.5));
+
+    	// octahedral normals, including the poles and the folded lower hemisphere.
+    	int codes[] = new int[n];
+    	float normals[] = new float[n * 3];
+    	float decoded[] = new float[n * 3];
+
+    	for(int i = 0; i < n; i++) {
+
+    		Vector3f v = new Vector3f((float)random.nextGaussian(), (float)random.nextGaussian(), (float)random.nextGaussian());
+    		v.normalize();
+    		normals[i * 3] = v.x;
+    		normals[i * 3 + 1] = v.y;
+    		normals[i * 3 + 2] = v.z;
+    	}
+
+    	normals[2] = 1.0f;
+    	normals[0] = normals[1] = 0.0f;
+    	normals[5] = -1.0f;
+    	normals[3] = normals[4] = 0.0f;
+    	VertexQuantizer.encodeNormals(normals, 0, codes, 0, n, 8, ForkJoinPool.commonPool());
+    	VertexQuantizer.decodeNormals(codes, 0, decoded, 0, n, 8, null);
+    	double cos8 = Math.cos(Math.toRadians(0.64));
+
+    	for(int i = 0; i < n; i++) {
+
+    		double dot = 0.0;
+
+    		for(int k = 0; k < 3; k++) {
+
+    			dot += (double)normals[i * 3 + k] * decoded[i * 3 + k];
+    		}
+
+    		assertTrue(dot >= cos8 && codes[i] >>> 16 == 0);
+    	}
+
+    	Vector3f normal = new Vector3f(normals[30], normals[31], normals[32]);
+    	Vector3f d = new Vector3f();
+    	VertexQuantizer.decodeNormal(VertexQuantizer.encodeNormal(normal, 12), 12, d);
+    	assertTrue((double)d.x * normal.x + (double)d.y * normal.y + (double)d.z * normal.z >= Math.cos(Math.toRadians(0.06)));
+    	assertTrue(equals(d.length(), 1.0));
+    }
+
+    @Test
+    void MeshNormalsTest() {
+
+    	// a wavy grid, triangulated along alternating diagonals.
+    	int size = 60;
+    	int vertexCount = size * size;
+    	int triangleCount = (size - 1) * (size - 1) * 2;
+    	float xyz[] = new float[vertexCount * 3];
+    	float uv[] = new float[vertexCount * 2];
+    	int indices[] = new int[triangleCount * 3];
+
+    	for(int j = 0; j < size; j++) {
+
+    		for(int i = 0; i < size; i++) {
+
+    			int v = j * size + i;
+    			xyz[v * 3] = i;
+    			xyz[v * 3 + 1] = j;
+    			xyz[v * 3 + 2] = (float)(Math.sin(i * 0.3) * Math.cos(j * 0.2));
+    			uv[v * 2] = i / (size - 1.0f);
+    			uv[v * 2 + 1] = j / (size - 1.0f);
+    		}
+    	}
+
+    	int t = 0;
+
+    	for(int j = 0; j < size - 1; j++) {
+
+    		for(int i = 0; i < size - 1; i++) {
+
+    			int v = j * size + i;
+
+    			if(((i + j) & 1) == 0) {
+
+    				indices[t++] = v; indices[t++] = v + 1; indices[t++] = v + size + 1;
+    				indices[t++] = v; indices[t++] = v + size + 1; indices[t++] = v + size;
+
+    			} else {
+
+    				indices[t++] = v; indices[t++] = v + 1; indices[t++] = v + size;
+    				indices[t++] = v + 1; indices[t++] = v + size + 1; indices[t++] = v + size;
+    			}
+    		}
+    	}
+
+    	MeshNormals mesh = new MeshNormals(xyz, vertexCount, indices, triangleCount);
+    	assertTrue(mesh.getVertexCount() == vertexCount);
+
+    	// against a scatter over Vector3f, for both weightings.
+    	for(MeshNormals.Weighting weighting : MeshNormals.Weighting.values()) {
+
+    		Vector3f sums[] = new Vector3f[vertexCount];
+
+    		for(int v = 0; v < vertexCount; v++) {
+
+    			sums[v] = new Vector3f();
+    		}
+
+    		for(int k = 0; k < triangleCount * 3; k++) {
+
+    			int base = k - k % 3;
+    			int a = indices[k];
+    			int b = indices[base + (k + 1) % 3];
+    			int c = indices[base + (k + 2) % 3];
+    			Vector3f e1 = new Vector3f(xyz[b * 3] - xyz[a * 3], xyz[b * 3 + 1] - xyz[a * 3 + 1], xyz[b * 3 + 2] - xyz[a * 3 + 2]);
+    			Vector3f e2 = new Vector3f(xyz[c * 3] - xyz[a * 3], xyz[c * 3 + 1] - xyz[a * 3 + 1], xyz[c * 3 + 2] - xyz[a * 3 + 2]);
+    			Vector3f n = new Vector3f();
+    			n.cross(e1, e2);
+
+    			if(weighting == MeshNormals.Weighting.ANGLE) {
+
+    				float angle = e1.angle(e2);
+    				n.normalize();
+    				n.scale(angle);
+    			}
+
+    			sums[a].add(n);
+    		}
+
+    		float normals[] = new float[vertexCount * 3];
+    		float serial[] = new float[vertexCount * 3];
+    		mesh.computeNormals(weighting, normals, ForkJoinPool.commonPool());
+    		mesh.computeNormals(weighting, serial, null);
+    		assertTrue(java.util.Arrays.equals(normals, serial));
+
+    		for(int v = 0; v < vertexCount; v++) {
+
+    			sums[v].normalize();
+    			assertTrue(sums[v].epsilonEquals(new Vector3f(normals[v * 3], normals[v * 3 + 1], normals[v * 3 + 2]), 1.0e-4f));
+    		}
+    	}
+
+    	// tangents follow +u, are orthogonal to the normal and right handed.
+    	float normals[] = new float[vertexCount * 3];
+    	float tangents[] = new float[vertexCount * 4];
+    	mesh.computeNormals(MeshNormals.Weighting.ANGLE, normals, null);
+    	mesh.computeTangents(uv, normals, tangents, ForkJoinPool.commonPool());
+
+    	for(int v = 0; v < vertexCount; v++) {
+
+    		Vector3f n = new Vector3f(normals[v * 3], normals[v * 3 + 1], normals[v * 3 + 2]);
+    		Vector3f tangent = new Vector3f(tangents[v * 4], tangents[v * 4 + 1], tangents[v * 4 + 2]);
+    		assertTrue(equals(tangent.length(), 1.0) && Math.abs(tangent.dot(n)) < 1.0e-5);
+    		assertTrue(tangent.x > 0.8f && tangents[v * 4 + 3] == 1.0f);
+    	}
+
+    	// mirrored texture coordinates flip the tangent and the handedness.
+    	for(int v = 0; v < vertexCount; v++) {
+
+    		uv[v * 2] = -uv[v * 2];
+    	}
+
+    	float mirrored[] = new float[vertexCount * 4];
+    	mesh.computeTangents(uv, normals, mirrored, null);
+
+    	for(int v = 0; v < vertexCount; v++) {
+
+    		assertTrue(Math.abs(mirrored[v * 4] + tangents[v * 4]) < 1.0e-5 && mirrored[v * 4 + 3] == -1.0f);
+    	}
+    }
+
+    @Test
+    void MeshSimplifierTest() {
+
+    	// a flat grid: collapses of zero error remove most triangles but keep the square.
+    	int size = 40;
+    	float grid[] = new float[size * size * 3];
+    	int gridIndices[] = new int[(size - 1) * (size - 1) * 6];
+    	int t = 0;
+
+    	for(int j = 0; j < size; j++) {
+
+    		for(int i = 0; i < size; i++) {
+
+    			int v = j * size + i;
+    			grid[v * 3] = i;
+    			grid[v * 3 + 1] = j;
+
+    			if(i < size - 1 && j < size - 1) {
+
+    				gridIndices[t++] = v; gridIndices[t++] = v + 1; gridIndices[t++] = v + size + 1;
+    				gridIndices[t++] = v; gridIndices[t++] = v + size + 1; gridIndices[t++] = v + size;
+    			}
+    		}
+    	}
+
+    	MeshSimplifier flat = new MeshSimplifier(grid, size * size, gridIndices, t / 3, null);
+    	int left = flat.simplify(0, 1.0e-6);
+    	assertTrue(left < 100 && flat.getError() <= 1.0e-6 && flat.getOriginalTriangleCount() == t / 3);
+    	int simplified[] = new int[left * 3];
+    	assertTrue(flat.getIndices(simplified, 0) == left);
+    	double area = 0.0;
+
+    	for(int k = 0; k < left * 3; k += 3) {
+
+    		int a = simplified[k] * 3, b = simplified[k + 1] * 3, c = simplified[k + 2] * 3;
+    		double cross = (grid[b] - grid[a]) * (grid[c + 1] - grid[a + 1]) - (grid[b + 1] - grid[a + 1]) * (grid[c] - grid[a]);
+    		assertTrue(cross > 0.0);
+    		area += 0.5 * cross;
+    	}
+
+    	assertTrue(equals(area, (size - 1) * (size - 1)));
+
+    	// a sphere, serially and by cells: no face turns inwards and the error stays small.
+    	int rings = 40;
+    	int segments = 80;
+    	int vertexCount = (rings - 1) * segments + 2;
+    	float xyz[] = new float[vertexCount * 3];
+    	int indices[] = new int[segments * (rings - 1) * 6];
+    	xyz[2] = 1.0f;
+    	xyz[vertexCount * 3 - 1] = -1.0f;
+
+    	for(int r = 1; r < rings; r++) {
+
+    		for(int s = 0; s < segments; s++) {
+
+    			int v = 1 + (r - 1) * segments + s;
+    			double theta = Math.PI * r / rings;
+    			double phi = 2.0 * Math.PI * s / segments;
+    			xyz[v * 3] = (float)(Math.sin(theta) * Math.cos(phi));
+    			xyz[v * 3 + 1] = (float)(Math.sin(theta) * Math.sin(phi));
+    			xyz[v * 3 + 2] = (float)Math.cos(theta);
+    		}
+    	}
+
+    	t = 0;
+
+    	for(int s = 0; s < segments; s++) {
+
+    		int s1 = (s + 1) % segments;
+    		indices[t++] = 0; indices[t++] = 1 + s; indices[t++] = 1 + s1;
+    		int last = 1 + (rings - 2) * segments;
+    		indices[t++] = vertexCount - 1; indices[t++] = last + s1; indices[t++] = last + s;
+
+    		for(int r = 1; r < rings - 1; r++) {
+
+    			int v0 = 1 + (r - 1) * segments;
+    			int v1 = v0 + segments;
+    			indices[t++] = v0 + s; indices[t++] = v1 + s; indices[t++] = v1 + s1;
+    			indices[t++] = v0 + s; indices[t++] = v1 + s1; indices[t++] = v0 + s1;
+    		}
+    	}
+
+    	int triangleCount = t / 3;
+
+    	for(int mode = 0; mode < 2; mode++) {
+
+    		MeshSimplifier simplifier = new MeshSimplifier(xyz, vertexCount, indices, triangleCount, ForkJoinPool.commonPool());
+    		int lod1 = mode == 0 ? simplifier.simplify(triangleCount / 4, 1.0) : simplifier.simplify(triangleCount / 4, 1.0, ForkJoinPool.commonPool());
+    		int lod2 = simplifier.simplify(triangleCount / 20, 1.0);
+    		assertTrue(lod1 <= triangleCount / 4 && lod2 <= triangleCount / 20 && simplifier.getError() < 0.05);
+    		int lod[] = new int[lod2 * 3];
+    		simplifier.getIndices(lod, 0);
+
+    		for(int k = 0; k < lod2 * 3; k += 3) {
+
+    			Point3f a = new Point3f(xyz[lod[k] * 3], xyz[lod[k] * 3 + 1], xyz[lod[k] * 3 + 2]);
+    			Point3f b = new Point3f(xyz[lod[k + 1] * 3], xyz[lod[k + 1] * 3 + 1], xyz[lod[k + 1] * 3 + 2]);
+    			Point3f c = new Point3f(xyz[lod[k + 2] * 3], xyz[lod[k + 2] * 3 + 1], xyz[lod[k + 2] * 3 + 2]);
+    			Vector3f e1 = new Vector3f();
+    			Vector3f e2 = new Vector3f();
+    			Vector3f n = new Vector3f();
+    			e1.sub(b, a);
+    			e2.sub(c, a);
+    			n.cross(e1, e2);
+    			Vector3f center = new Vector3f(a);
+    			center.add(b);
+    			center.add(c);
+    			assertTrue(n.dot(center) > 0.0f);
+    		}
+    	}
+
+    	// a noisy height field and an open sphere, serially and by cells: no face folds over and no directed edge repeats.
+    	size = 120;
+    	float field[] = new float[size * size * 3];
+    	int fieldIndices[] = new int[(size - 1) * (size - 1) * 6];
+    	java.util.Random random = new java.util.Random(7);
+    	t = 0;
+
+    	for(int j = 0; j < size; j++) {
+
+    		for(int i = 0; i < size; i++) {
+
+    			int v = j * size + i;
+    			field[v * 3] = i;
+    			field[v * 3 + 1] = j;
+    			field[v * 3 + 2] = (float)(3.0 * Math.sin(0.05 * i) * Math.cos(0.07 * j) + 0.2 * random.nextDouble());
+
+    			if(i < size - 1 && j < size - 1) {
+
+    				fieldIndices[t++] = v; fieldIndices[t++] = v + 1; fieldIndices[t++] = v + size + 1;
+    				fieldIndices[t++] = v; fieldIndices[t++] = v + size + 1; fieldIndices[t++] = v + size;
+    			}
+    		}
+    	}
+
+    	int fieldCount = t / 3;
+    	rings = 60;
+    	segments = 120;
+    	float open[] = new float[(rings - 1) * segments * 3];
+    	int openIndices[] = new int[(rings - 2) * segments * 6];
+    	t = 0;
+
+    	for(int r = 1; r < rings; r++) {
+
+    		for(int s = 0; s < segments; s++) {
+
+    			int v = (r - 1) * segments + s;
+    			double theta = Math.PI * r / rings;
+    			double phi = 2.0 * Math.PI * s / segments;
+    			open[v * 3] = (float)(Math.sin(theta) * Math.cos(phi));
+    			open[v * 3 + 1] = (float)(Math.sin(theta) * Math.sin(phi));
+    			open[v * 3 + 2] = (float)Math.cos(theta);
+
+    			if(r < rings - 1) {
+
+    				int s1 = v - s + (s + 1) % segments;
+    				openIndices[t++] = v; openIndices[t++] = v + segments; openIndices[t++] = s1 + segments;
+    				openIndices[t++] = v; openIndices[t++] = s1 + segments; openIndices[t++] = s1;
+    			}
+    		}
+    	}
+
+    	int openCount = t / 3;
+
+    	for(int mode = 0; mode < 4; mode++) {
+
+    		boolean sphere = mode >= 2;
+    		float points[] = sphere ? open : field;
+    		int count = sphere ? openCount : fieldCount;
+    		MeshSimplifier simplifier = new MeshSimplifier(points, points.length / 3, sphere ? openIndices : fieldIndices, count, null);
+    		int target = sphere ? count / 10 : count * 3 / 10;
+    		int kept = mode % 2 == 0 ? simplifier.simplify(target, 10.0) : simplifier.simplify(target, 10.0, ForkJoinPool.commonPool());
+    		assertTrue(kept <= target);
+    		int lod[] = new int[kept * 3];
+    		simplifier.getIndices(lod, 0);
+    		java.util.HashSet<Long> edges = new java.util.HashSet<Long>();
+
+    		for(int k = 0; k < kept * 3; k += 3) {
+
+    			Point3f a = new Point3f(points[lod[k] * 3], points[lod[k] * 3 + 1], points[lod[k] * 3 + 2]);
+    			Point3f b = new Point3f(points[lod[k + 1] * 3], points[lod[k + 1] * 3 + 1], points[lod[k + 1] * 3 + 2]);
+    			Point3f c = new Point3f(points[lod[k + 2] * 3], points[lod[k + 2] * 3 + 1], points[lod[k + 2] * 3 + 2]);
+    			Vector3f e1 = new Vector3f();
+    			Vector3f e2 = new Vector3f();
+    			Vector3f n = new Vector3f();
+    			e1.sub(b, a);
+    			e2.sub(c, a);
+    			n.cross(e1, e2);
+    			Vector3f up = new Vector3f(0.0f, 0.0f, 1.0f);
+
+    			if(sphere) {
+
+    				up.set(a);
+    				up.add(b);
+    				up.add(c);
+    			}
+
+    			assertTrue(n.dot(up) > 0.0f);
+
+    			for(int e = 0; e < 3; e++) {
+
+    				assertTrue(edges.add((long)lod[k + e] << 32 | lod[k + (e + 1) % 3]));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    void ConvexHullTest() {
+
+    	java.util.Random random = new java.util.Random(50);
+
+    	// a cube with points inside and on its sides: the hull has its corners and its area.
+    	int count = 500;
+    	double cube[] = new double[count * 3];
+
+    	for(int i = 0; i < count; i++) {
+
+    		for(int k = 0; k < 3; k++) {
+
+    			cube[i * 3 + k] = i < 8 ? ((i >> k) & 1) * 2.0 - 1.0 : random.nextDouble() * 2.0 - 1.0;
+    		}
+
+    		if(i >= 8 && i < 100) {
+
+    			cube[i * 3 + i % 3] = i % 2 == 0 ? 1.0 : -1.0;
+    		}
+    	}
+
+    	ConvexHull3d box = new ConvexHull3d(cube, count, null);
+    	int corners[] = new int[box.getVertexCount()];
+    	int sides[] = new int[box.getFaceCount() * 3];
+    	box.getVertices(corners);
+    	box.getFaces(sides);
+    	double area = 0.0;
+
+    	for(int i = 0; i < corners.length; i++) {
+
+    		assertTrue(i < 8 ? corners[i] == i : corners[i] < 100);
+    	}
+
+    	for(int f = 0; f < sides.length; f += 3) {
+
+    		Vector3d e1 = new Vector3d(cube[sides[f + 1] * 3] - cube[sides[f] * 3], cube[sides[f + 1] * 3 + 1] - cube[sides[f] * 3 + 1], cube[sides[f + 1] * 3 + 2] - cube[sides[f] * 3 + 2]);
+    		Vector3d e2 = new Vector3d(cube[sides[f + 2] * 3] - cube[sides[f] * 3], cube[sides[f + 2] * 3 + 1] - cube[sides[f] * 3 + 1], cube[sides[f + 2] * 3 + 2] - cube[sides[f] * 3 + 2]);
+    		Vector3d normal = new Vector3d();
+    		normal.cross(e1, e2);
+    		area += 0.5 * normal.length();
+    	}
+
+    	assertTrue(equals(area, 24.0));
+    	assertTrue(box.contains(new Point3d(0.5, -0.5, 0.99)) && !box.contains(new Point3d(0.5, -0.5, 1.01)));
+
+    	// points in a ball and on a sphere: a closed outward hull that contains every point.
+    	count = 3000;
+    	double xyz[] = new double[count * 3];
+    	float xyzf[] = new float[count * 3];
+    	Point3d points[] = new Point3d[count];
+
+    	for(int i = 0; i < count; i++) {
+
+    		Vector3d v = new Vector3d(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+
+    		if(i % 3 == 0) {
+
+    			v.normalize();
+    		}
+
+    		// float exact, so that all three inputs hold the same points.
+    		points[i] = new Point3d((float)v.x, (float)v.y, (float)v.z);
+    		xyz[i * 3] = xyzf[i * 3] = (float)v.x;
+    		xyz[i * 3 + 1] = xyzf[i * 3 + 1] = (float)v.y;
+    		xyz[i * 3 + 2] = xyzf[i * 3 + 2] = (float)v.z;
+    	}
+
+    	ConvexHull3d hull = new ConvexHull3d(xyz, count, null);
+    	int faces[] = new int[hull.getFaceCount() * 3];
+    	hull.getFaces(faces);
+    	java.util.Set<Long> edges = new java.util.HashSet<>();
+
+    	for(int f = 0; f < faces.length; f += 3) {
+
+    		for(int k = 0; k < 3; k++) {
+
+    			assertTrue(edges.add((long)faces[f + k] << 32 | faces[f + (k + 1) % 3]));
+    		}
+
+    		Vector3d e1 = new Vector3d(points[faces[f + 1]]);
+    		Vector3d e2 = new Vector3d(points[faces[f + 2]]);
+    		Vector3d normal = new Vector3d();
+    		e1.sub(points[faces[f]]);
+    		e2.sub(points[faces[f]]);
+    		normal.cross(e1, e2);
+    		assertTrue(normal.dot(new Vector3d(points[faces[f]])) > 0.0);
+    	}
+
+    	for(long edge : edges) {
+
+    		assertTrue(edges.contains(edge << 32 | edge >>> 32));
+    	}
+
+    	assertTrue(hull.getVertexCount() - edges.size() / 2 + hull.getFaceCount() == 2);
+
+    	for(int i = 0; i < count; i++) {
+
+    		assertTrue(hull.contains(points[i]));
+    	}
+
+    	int vertices[] = new int[hull.getVertexCount()];
+    	int other[] = new int[hull.getVertexCount()];
+    	hull.getVertices(vertices);
+    	new ConvexHull3d(xyzf, count, null).getVertices(other);
+    	assertTrue(java.util.Arrays.equals(vertices, other));
+    	new ConvexHull3d(points, ForkJoinPool.commonPool()).getVertices(other);
+    	assertTrue(java.util.Arrays.equals(vertices, other));
+
+    	// enough points to split: the parallel hull has the vertices of the serial one.
+    	count = 40000;
+    	xyz = new double[count * 3];
+
+    	for(int i = 0; i < xyz.length; i++) {
+
+    		xyz[i] = random.nextGaussian();
+    	}
+
+    	ConvexHull3d serial = new ConvexHull3d(xyz, count, null);
+    	ConvexHull3d parallel = new ConvexHull3d(xyz, count, ForkJoinPool.commonPool());
+    	vertices = new int[serial.getVertexCount()];
+    	other = new int[parallel.getVertexCount()];
+    	serial.getVertices(vertices);
+    	parallel.getVertices(other);
+    	assertTrue(java.util.Arrays.equals(vertices, other) && serial.getFaceCount() == parallel.getFaceCount());
+
+    	// two nearly flat slabs: rounding does not fold the hull over itself.
+    	count = 2000;
+    	xyz = new double[count * 3];
+
+    	for(double jitter = 1.0E-15; jitter < 1.0E-12; jitter *= 10.0) {
+
+    		for(int run = 0; run < 4; run++) {
+
+    			for(int i = 0; i < count; i++) {
+
+    				xyz[i * 3] = random.nextDouble();
+    				xyz[i * 3 + 1] = random.nextDouble();
+    				xyz[i * 3 + 2] = random.nextInt(2) + (random.nextDouble() * 2.0 - 1.0) * jitter;
+    			}
+
+    			ConvexHull3d slab = new ConvexHull3d(xyz, count, null);
+    			faces = new int[slab.getFaceCount() * 3];
+    			slab.getFaces(faces);
+    			edges.clear();
+
+    			for(int f = 0; f < faces.length; f += 3) {
+
+    				for(int k = 0; k < 3; k++) {
+
+    					assertTrue(edges.add((long)faces[f + k] << 32 | faces[f + (k + 1) % 3]));
+    				}
+    			}
+
+    			for(long edge : edges) {
+
+    				assertTrue(edges.contains(edge << 32 | edge >>> 32));
+    			}
+
+    			assertTrue(slab.getVertexCount() - edges.size() / 2 + slab.getFaceCount() == 2);
+    			assertTrue(slab.contains(0.5, 0.5, 0.5));
+
+    			for(int i = 0; i < count; i++) {
+
+    				assertTrue(slab.contains(xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]));
+    			}
+    		}
+    	}
+
+    	// coplanar points have no hull.
+    	boolean thrown = false;
+
+    	try {
+
+    		new ConvexHull3d(new double[] {0, 0, 1, 1, 0, 1, 0, 1, 1, 1, 1, 1, 0.5, 0.5, 1}, 5, null);
+
+    	} catch(IllegalArgumentException e) {
+
+    		thrown = true;
+    	}
+
+    	assertTrue(thrown);
+    }
 }